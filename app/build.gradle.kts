@@ -2,6 +2,29 @@ plugins {
     alias(libs.plugins.android.application)
 }
 
+// 构建时由 :cityindex 模块把 src/main/cityindex/cities.csv 编译为二进制城市索引，作为 assets 打包
+val cityIndexDir = layout.buildDirectory.dir("generated/cityindex")
+val cityIndexTool by configurations.creating {
+    isCanBeConsumed = false
+    attributes {
+        attribute(Usage.USAGE_ATTRIBUTE, objects.named(Usage.JAVA_RUNTIME))
+    }
+}
+
+val generateCityIndex by tasks.registering(JavaExec::class) {
+    val source = file("src/main/cityindex/cities.csv")
+    val output = cityIndexDir.map { it.file("city_index.bin") }
+    inputs.file(source)
+    outputs.file(output)
+    classpath = cityIndexTool
+    mainClass.set("com.example.exercise.data.city.CityIndexWriter")
+    args(source.absolutePath, output.get().asFile.absolutePath)
+}
+
+tasks.named("preBuild") {
+    dependsOn(generateCityIndex)
+}
+
 android {
     namespace = "com.example.exercise"
     compileSdk {
@@ -16,6 +39,13 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // 性能报告的上报地址，通过 -PreportEndpoint=<url> 或 gradle.properties 配置；为空时不启动上报
+        val reportEndpoint = providers.gradleProperty("reportEndpoint").getOrElse("")
+        buildConfigField("String", "REPORT_ENDPOINT", "\"$reportEndpoint\"")
+    }
+    buildFeatures {
+        buildConfig = true
     }
 
     buildTypes {
@@ -31,6 +61,23 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    androidResources {
+        // 城市索引在运行时通过内存映射读取，必须以不压缩的方式打包
+        noCompress += "bin"
+    }
+    sourceSets {
+        getByName("main") {
+            assets.srcDir(cityIndexDir)
+        }
+        // 城市索引的单元测试使用打包的同一份源列表
+        getByName("test") {
+            resources.srcDir("src/main/cityindex")
+        }
+    }
+    testOptions {
+        // 本地单元测试中 android.util.Log 等方法返回默认值，而不是抛出 "not mocked" 异常
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 dependencies {
@@ -41,7 +88,9 @@ dependencies {
     implementation("com.squareup.okhttp3:okhttp:4.12.0")
     implementation("com.google.code.gson:gson:2.10.1")
     implementation("androidx.recyclerview:recyclerview:1.3.2")
+    cityIndexTool(project(":cityindex"))
     testImplementation(libs.junit)
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.12.0")
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
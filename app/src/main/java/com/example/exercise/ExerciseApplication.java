@@ -0,0 +1,89 @@
+package com.example.exercise;
+
+import android.app.Application;
+import android.os.Looper;
+
+import com.example.exercise.data.network.HttpClient;
+import com.example.exercise.sdk.AnrMonitor;
+import com.example.exercise.sdk.AppLifecycleMonitor;
+import com.example.exercise.sdk.ExitInfoCollector;
+import com.example.exercise.sdk.FluencyMonitor;
+import com.example.exercise.sdk.LeakWatcher;
+import com.example.exercise.sdk.LogcatTelemetrySink;
+import com.example.exercise.sdk.LooperMonitor;
+import com.example.exercise.sdk.NetworkMonitor;
+import com.example.exercise.sdk.OverheadMonitor;
+import com.example.exercise.sdk.ReportUploader;
+import com.example.exercise.sdk.StackSampler;
+import com.example.exercise.sdk.StartupTracer;
+import com.example.exercise.sdk.TelemetryBus;
+
+/**
+ * 应用的Application类，负责在进程启动时初始化全局的SDK。
+ * <p>
+ * 初始化分为三批，主线程上只做必须在第一个页面创建之前完成的部分：
+ * 1. 启动追踪、前后台监控，以及流畅性监控和泄漏检测的生命周期回调在 {@link #onCreate()} 中同步安装，
+ *    否则会错过第一个页面的创建。
+ * 2. 其余组件（开销统计、遥测通道、ANR看门狗、HTTP缓存、报告上报、退出原因收集）在后台线程中按依赖顺序启动，
+ *    不占用冷启动的主线程时间。遥测通道最先启动，启动前发布的事件会被丢弃；ANR看门狗紧随其后，仍能覆盖第一个页面的创建。
+ *    这一批通常在第一个页面创建完成之前就已结束，效果可以在启动报告的 "application_create -> application_created" 阶段中对比。
+ * 3. 会给每条主线程消息增加开销的组件（主线程消息监控、堆栈采样）推迟到主线程第一次空闲时再启动，
+ *    此时首帧通常已经绘制完成，不会拖慢冷启动。
+ */
+public class ExerciseApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // 开始记录冷启动的各个阶段，必须最先调用
+        StartupTracer.getInstance().onApplicationCreate(this);
+
+        // 跟踪进程前后台状态，各监控组件在后台时暂停工作，必须在它们之前安装
+        AppLifecycleMonitor.getInstance().install(this);
+        // 安装流畅性监控，之后每个页面都会自动获得独立的统计会话
+        FluencyMonitor.getInstance().install(this);
+        // 安装页面泄漏检测和按页面的堆内存采样
+        LeakWatcher.getInstance().install(this);
+
+        // 其余不需要在主线程上初始化的组件在后台线程中启动
+        new Thread(this::initInBackground, "AppInit").start();
+
+        // 主线程第一次空闲时再启动消息监控和堆栈采样，返回false表示只执行一次
+        Looper.myQueue().addIdleHandler(() -> {
+            // 启动主线程消息监控，用于把卡顿帧归因到具体的消息
+            LooperMonitor.getInstance().start();
+            // 启动卡顿触发的主线程堆栈采样，由消息监控驱动
+            StackSampler.getInstance().start();
+            return false;
+        });
+
+        StartupTracer.getInstance().onApplicationCreated();
+    }
+
+    /**
+     * 在后台线程中启动不依赖主线程的组件。这些组件的启动方法都可以在任意线程调用，
+     * 它们各自的耗时部分（例如读取历史ANR记录和系统的退出记录）仍在各自的线程中完成。
+     */
+    private void initInBackground() {
+        // 启动遥测事件通道，各监控组件的事件统一经由它批量输出
+        TelemetryBus.getInstance().addSink(new LogcatTelemetrySink());
+        // 网络耗时报告在遥测消费线程上定期输出
+        TelemetryBus.getInstance().addSink(NetworkMonitor.getInstance().reportSink());
+        TelemetryBus.getInstance().start();
+        // 启动ANR（应用无响应）监控，使其能覆盖包括启动过程在内的整个生命周期
+        AnrMonitor.getInstance().start(this);
+        // 统计SDK自身的开销，超出预算时自动降低各监控组件的采集细节
+        OverheadMonitor.getInstance().start();
+
+        // 为共享的HTTP客户端安装磁盘缓存，创建客户端时加载OkHttp是启动中最重的一步；
+        // 缓存目录在第一次请求时才在请求线程中初始化
+        HttpClient.getInstance().installCache(this);
+        // 配置了上报地址时启动报告上报，复用共享的HTTP客户端；未启动时各组件生成的报告只输出到日志
+        if (!BuildConfig.REPORT_ENDPOINT.isEmpty()) {
+            ReportUploader.getInstance().start(this, BuildConfig.REPORT_ENDPOINT, HttpClient.getInstance().getClient());
+        }
+        // 读取上次启动以来系统记录的进程退出原因，并与看门狗的ANR记录关联。
+        // 必须在上报器启动之后调用，上报器未接收的记录留到下次启动再处理
+        ExitInfoCollector.getInstance().start(this);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.exercise.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.example.exercise.data.model.SavedCity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 用户保存的城市列表，保存在 SharedPreferences 中，顺序即页面上的显示顺序。
+ * <p>
+ * 列表编码为一个字符串 `adcode:名称;adcode:名称`，城市编码和中文名称中都不会出现分隔符。
+ * 第一次使用时返回 {@link #DEFAULT_CITIES}。
+ */
+public class SavedCityStore {
+
+    private static final String PREFS_NAME = "weather_cities";
+    private static final String KEY_CITIES = "cities";
+    private static final char CITY_SEPARATOR = ';';
+    private static final char FIELD_SEPARATOR = ':';
+
+    // 第一次使用时的默认城市
+    private static final List<SavedCity> DEFAULT_CITIES = Collections.unmodifiableList(Arrays.asList(
+            new SavedCity("610100", "西安市"),
+            new SavedCity("110000", "北京市"),
+            new SavedCity("310000", "上海市")));
+
+    private final SharedPreferences preferences;
+
+    /**
+     * 构造函数。
+     *
+     * @param context 上下文，用于获取 SharedPreferences。
+     */
+    public SavedCityStore(Context context) {
+        preferences = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * 获取保存的城市列表。
+     *
+     * @return 不可修改的城市列表，不为空。
+     */
+    public List<SavedCity> getCities() {
+        String encoded = preferences.getString(KEY_CITIES, null);
+        if (encoded == null) {
+            return DEFAULT_CITIES;
+        }
+        List<SavedCity> cities = decode(encoded);
+        return cities.isEmpty() ? DEFAULT_CITIES : Collections.unmodifiableList(cities);
+    }
+
+    /**
+     * 保存城市列表。
+     */
+    public void setCities(List<SavedCity> cities) {
+        preferences.edit().putString(KEY_CITIES, encode(cities)).apply();
+    }
+
+    static String encode(List<SavedCity> cities) {
+        StringBuilder text = new StringBuilder();
+        for (SavedCity city : cities) {
+            if (text.length() > 0) {
+                text.append(CITY_SEPARATOR);
+            }
+            text.append(city.getAdcode()).append(FIELD_SEPARATOR).append(city.getName());
+        }
+        return text.toString();
+    }
+
+    static List<SavedCity> decode(String encoded) {
+        List<SavedCity> cities = new ArrayList<>();
+        int start = 0;
+        while (start < encoded.length()) {
+            int end = encoded.indexOf(CITY_SEPARATOR, start);
+            if (end < 0) {
+                end = encoded.length();
+            }
+            int colon = encoded.indexOf(FIELD_SEPARATOR, start);
+            // 跳过损坏的条目
+            if (colon > start && colon < end) {
+                cities.add(new SavedCity(encoded.substring(start, colon), encoded.substring(colon + 1, end)));
+            }
+            start = end + 1;
+        }
+        return cities;
+    }
+}
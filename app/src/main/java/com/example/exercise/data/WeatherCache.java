@@ -0,0 +1,231 @@
+package com.example.exercise.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 按城市编码（adcode）保存的天气数据本地缓存，内存一级、磁盘一级。
+ * <p>
+ * 设计要点：
+ * 1. 每个城市一个文件 `<adcode>.json`，第一行是获取时间（墙上时钟，毫秒），之后是接口返回的原始响应体字节。
+ *    写入先写临时文件再改名，进程在写入中途被杀也不会留下半个文件。
+ * 2. 内存中只保存解码后的模型和响应体的64位哈希，页面重新打开时可以在主线程直接取到，不需要读文件和解析，
+ *    也不常驻原始响应体。
+ * 3. 每个城市可以单独设置新鲜度时长（TTL），在此时长内的数据视为新鲜，不需要访问网络。
+ * 4. {@link #put} 比较新旧响应体的哈希，内容没有变化时只更新获取时间，调用方据此只把变化的数据推送给界面。
+ * <p>
+ * 本类不依赖 Android API，所有方法都是线程安全的。{@link #peek} 只访问内存，其余方法可能读写磁盘，应在后台线程调用。
+ */
+public class WeatherCache<T> {
+
+    // 合法的城市编码，同时保证可以直接用作文件名
+    private static final Pattern ADCODE = Pattern.compile("[0-9A-Za-z_-]+");
+    private static final String FILE_SUFFIX = ".json";
+
+    /**
+     * 把响应体解码为模型。
+     */
+    public interface Decoder<T> {
+        T decode(byte[] body) throws IOException;
+    }
+
+    private final File dir;
+    private final Decoder<T> decoder;
+    private final long defaultTtlMs;
+    // 内存缓存和每个城市的TTL，访问时需持有 this 锁
+    private final Map<String, Entry<T>> memory = new HashMap<>();
+    private final Map<String, Long> ttls = new HashMap<>();
+
+    /**
+     * 构造函数。
+     *
+     * @param dir          存放缓存文件的目录。
+     * @param decoder      响应体解码器。
+     * @param defaultTtlMs 没有单独设置时的新鲜度时长（毫秒）。
+     */
+    public WeatherCache(File dir, Decoder<T> decoder, long defaultTtlMs) {
+        this.dir = dir;
+        this.decoder = decoder;
+        this.defaultTtlMs = defaultTtlMs;
+    }
+
+    /**
+     * 设置某个城市的新鲜度时长。
+     *
+     * @param adcode 城市编码。
+     * @param ttlMs  新鲜度时长（毫秒），0表示每次都需要重新验证。
+     */
+    public synchronized void setTtl(String adcode, long ttlMs) {
+        ttls.put(adcode, ttlMs);
+    }
+
+    public synchronized long getTtl(String adcode) {
+        Long ttl = ttls.get(adcode);
+        return ttl == null ? defaultTtlMs : ttl;
+    }
+
+    /**
+     * 判断缓存数据是否仍然新鲜。获取时间晚于当前时间（例如用户调整了系统时间）时视为不新鲜。
+     */
+    public boolean isFresh(Entry<T> entry, long nowMs) {
+        long age = nowMs - entry.fetchedAtMs;
+        return age >= 0 && age < getTtl(entry.adcode);
+    }
+
+    /**
+     * 只从内存中获取缓存数据，可在主线程调用。
+     *
+     * @return 缓存数据；内存中没有时返回null。
+     */
+    public synchronized Entry<T> peek(String adcode) {
+        return memory.get(adcode);
+    }
+
+    /**
+     * 获取缓存数据，内存中没有时从磁盘读取并解码。
+     *
+     * @return 缓存数据；没有缓存或缓存文件损坏时返回null。
+     */
+    public Entry<T> get(String adcode) {
+        Entry<T> entry = peek(adcode);
+        if (entry != null) {
+            return entry;
+        }
+        File file = fileFor(adcode);
+        if (!file.exists()) {
+            return null;
+        }
+        try (FileInputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            byte[] content = out.toByteArray();
+            int newline = 0;
+            while (newline < content.length && content[newline] != '\n') {
+                newline++;
+            }
+            if (newline == content.length) {
+                return null;
+            }
+            long fetchedAtMs = Long.parseLong(new String(content, 0, newline, StandardCharsets.US_ASCII).trim());
+            byte[] body = Arrays.copyOfRange(content, newline + 1, content.length);
+            entry = new Entry<>(adcode, hashBody(body), decoder.decode(body), fetchedAtMs);
+        } catch (IOException | RuntimeException e) {
+            // 文件损坏时当作没有缓存，下次成功获取后会被覆盖
+            return null;
+        }
+        synchronized (this) {
+            // 读文件期间可能已有更新的数据写入内存
+            Entry<T> current = memory.get(adcode);
+            if (current != null) {
+                return current;
+            }
+            memory.put(adcode, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * 保存一次成功获取的数据。
+     *
+     * @param adcode 城市编码。
+     * @param body   接口返回的原始响应体字节。
+     * @param nowMs  获取时间（墙上时钟，毫秒）。
+     * @return 保存结果；其中 {@link Update#changed} 表示内容是否与之前的缓存不同。
+     * @throws IOException 解码失败时抛出，缓存保持不变。写入磁盘失败不会抛出，内存中的数据仍会更新。
+     */
+    public Update<T> put(String adcode, byte[] body, long nowMs) throws IOException {
+        Entry<T> previous = get(adcode);
+        long bodyHash = hashBody(body);
+        boolean changed = previous == null || previous.bodyHash != bodyHash;
+        // 内容没有变化时沿用已解码的模型
+        T model = changed ? decoder.decode(body) : previous.model;
+        Entry<T> entry = new Entry<>(adcode, bodyHash, model, nowMs);
+        synchronized (this) {
+            memory.put(adcode, entry);
+        }
+        return new Update<>(entry, changed, write(entry, body));
+    }
+
+    /**
+     * 计算响应体的64位 FNV-1a 哈希，用于判断内容是否变化。
+     */
+    static long hashBody(byte[] body) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : body) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private boolean write(Entry<T> entry, byte[] body) {
+        if (!dir.exists() && !dir.mkdirs()) {
+            return false;
+        }
+        File file = fileFor(entry.adcode);
+        File temp = new File(dir, entry.adcode + FILE_SUFFIX + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            out.write((entry.fetchedAtMs + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(body);
+        } catch (IOException e) {
+            return false;
+        }
+        return temp.renameTo(file);
+    }
+
+    private File fileFor(String adcode) {
+        if (!ADCODE.matcher(adcode).matches()) {
+            throw new IllegalArgumentException("Invalid adcode: " + adcode);
+        }
+        return new File(dir, adcode + FILE_SUFFIX);
+    }
+
+    /**
+     * 一个城市的缓存数据，不可变。
+     */
+    public static final class Entry<T> {
+        public final String adcode;
+        // 原始响应体的哈希
+        public final long bodyHash;
+        // 解码后的模型
+        public final T model;
+        // 获取时间（墙上时钟，毫秒）
+        public final long fetchedAtMs;
+
+        Entry(String adcode, long bodyHash, T model, long fetchedAtMs) {
+            this.adcode = adcode;
+            this.bodyHash = bodyHash;
+            this.model = model;
+            this.fetchedAtMs = fetchedAtMs;
+        }
+    }
+
+    /**
+     * {@link #put} 的结果。
+     */
+    public static final class Update<T> {
+        public final Entry<T> entry;
+        // 内容是否与之前的缓存不同
+        public final boolean changed;
+        // 是否已写入磁盘
+        public final boolean persisted;
+
+        Update(Entry<T> entry, boolean changed, boolean persisted) {
+            this.entry = entry;
+            this.changed = changed;
+            this.persisted = persisted;
+        }
+    }
+}
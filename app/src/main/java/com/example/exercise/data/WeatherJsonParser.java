@@ -0,0 +1,645 @@
+package com.example.exercise.data;
+
+import com.example.exercise.data.model.CityForecast;
+import com.example.exercise.data.model.DailyForecast;
+import com.example.exercise.data.model.WindDirection;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 高德天气接口响应的流式解析器，直接在UTF-8字节上单遍扫描，不使用反射，也不构造中间的JSON树或整个响应的字符串。
+ * <p>
+ * 设计要点：
+ * 1. 字段名直接与预先编码好的字节比较，不为字段名创建字符串；不关心的字段（例如 `daytemp_float`）整体跳过，不产生对象分配。
+ * 2. 温度、星期和日期直接从数字字符解析为整数；风向映射为 {@link WindDirection} 枚举。
+ * 3. 天气现象和风力等级的取值种类很少，经由一个有上限的字符串池复用实例：命中时不分配对象，
+ *    缓存了很多城市时，所有预报共享同一批字符串。
+ * 4. 某个字段的值不是预期的类型时（例如接口在缺少数据时返回 `[]` 而不是字符串），跳过该值并视为缺失，不会导致整体解析失败。
+ * <p>
+ * 响应体需要原样写入本地缓存（见 {@link WeatherCache}），因此解析的输入是已经读出的字节数组，而不是网络流。
+ * 本类的静态方法是线程安全的。
+ */
+public final class WeatherJsonParser {
+
+    // 字段名
+    private static final byte[] STATUS = ascii("status");
+    private static final byte[] INFO = ascii("info");
+    private static final byte[] INFOCODE = ascii("infocode");
+    private static final byte[] FORECASTS = ascii("forecasts");
+    private static final byte[] CITY = ascii("city");
+    private static final byte[] ADCODE = ascii("adcode");
+    private static final byte[] PROVINCE = ascii("province");
+    private static final byte[] REPORTTIME = ascii("reporttime");
+    private static final byte[] CASTS = ascii("casts");
+    private static final byte[] DATE = ascii("date");
+    private static final byte[] WEEK = ascii("week");
+    private static final byte[] DAYWEATHER = ascii("dayweather");
+    private static final byte[] NIGHTWEATHER = ascii("nightweather");
+    private static final byte[] DAYTEMP = ascii("daytemp");
+    private static final byte[] NIGHTTEMP = ascii("nighttemp");
+    private static final byte[] DAYWIND = ascii("daywind");
+    private static final byte[] NIGHTWIND = ascii("nightwind");
+    private static final byte[] DAYPOWER = ascii("daypower");
+    private static final byte[] NIGHTPOWER = ascii("nightpower");
+    // 接口成功时的 status 取值
+    private static final byte[] STATUS_OK = ascii("1");
+
+    // 风向枚举及其对应的UTF-8字节，下标一致
+    private static final WindDirection[] DIRECTIONS = WindDirection.values();
+    private static final byte[][] WIND_LABELS = new byte[DIRECTIONS.length][];
+
+    static {
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            WIND_LABELS[i] = DIRECTIONS[i].getLabel().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    // 天气现象和风力等级的字符串池，所有解析共享
+    private static final StringPool POOL = new StringPool();
+
+    private final byte[] buf;
+    private final int end;
+    private int pos;
+
+    // 最近一次扫描的字符串（不含引号）的区间，以及其中是否有转义字符
+    private int strStart;
+    private int strEnd;
+    private boolean strEscaped;
+
+    // 当前字段名的区间
+    private int nameStart;
+    private int nameEnd;
+    private boolean nameEscaped;
+
+    private WeatherJsonParser(byte[] buf, int offset, int length) {
+        this.buf = buf;
+        this.pos = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * 解析天气接口的响应体。
+     *
+     * @param body 响应体的UTF-8字节。
+     * @return 响应中的第一个城市的预报。
+     * @throws IOException JSON格式错误、接口返回错误状态或响应中没有预报时抛出。
+     */
+    public static CityForecast parse(byte[] body) throws IOException {
+        return new WeatherJsonParser(body, 0, body.length).readResponse();
+    }
+
+    private CityForecast readResponse() throws IOException {
+        boolean ok = false;
+        String info = null;
+        String infocode = null;
+        CityForecast forecast = null;
+        beginObject();
+        while (nextMember()) {
+            if (nameIs(STATUS)) {
+                ok = peekString() && valueIs(STATUS_OK);
+                if (!ok) {
+                    skipValue();
+                }
+            } else if (nameIs(INFO)) {
+                info = readString();
+            } else if (nameIs(INFOCODE)) {
+                infocode = readString();
+            } else if (nameIs(FORECASTS) && peek() == '[') {
+                forecast = readForecasts();
+            } else {
+                skipValue();
+            }
+        }
+        if (!ok) {
+            throw new IOException("Weather API error " + infocode + ": " + info);
+        }
+        if (forecast == null) {
+            throw new IOException("No forecast in weather response");
+        }
+        return forecast;
+    }
+
+    /**
+     * 读取预报数组，只保留第一个城市。
+     */
+    private CityForecast readForecasts() throws IOException {
+        CityForecast first = null;
+        pos++;
+        while (nextElement()) {
+            if (first == null && peek() == '{') {
+                first = readCity();
+            } else {
+                skipValue();
+            }
+        }
+        return first;
+    }
+
+    private CityForecast readCity() throws IOException {
+        String city = null;
+        String adcode = null;
+        String province = null;
+        String reportTime = null;
+        List<DailyForecast> days = new ArrayList<>(4);
+        beginObject();
+        while (nextMember()) {
+            if (nameIs(CITY)) {
+                city = readString();
+            } else if (nameIs(ADCODE)) {
+                adcode = readString();
+            } else if (nameIs(PROVINCE)) {
+                province = readString();
+            } else if (nameIs(REPORTTIME)) {
+                reportTime = readString();
+            } else if (nameIs(CASTS) && peek() == '[') {
+                pos++;
+                while (nextElement()) {
+                    if (peek() == '{') {
+                        days.add(readCast());
+                    } else {
+                        skipValue();
+                    }
+                }
+            } else {
+                skipValue();
+            }
+        }
+        return new CityForecast(city, adcode, province, reportTime, days);
+    }
+
+    private DailyForecast readCast() throws IOException {
+        int date = 0;
+        int week = 0;
+        String dayWeather = null;
+        String nightWeather = null;
+        int dayTemp = DailyForecast.UNKNOWN_TEMP;
+        int nightTemp = DailyForecast.UNKNOWN_TEMP;
+        WindDirection dayWind = WindDirection.UNKNOWN;
+        WindDirection nightWind = WindDirection.UNKNOWN;
+        String dayPower = null;
+        String nightPower = null;
+        beginObject();
+        while (nextMember()) {
+            if (nameIs(DATE)) {
+                date = readDate();
+            } else if (nameIs(WEEK)) {
+                week = readInt(0);
+            } else if (nameIs(DAYWEATHER)) {
+                dayWeather = readPooledString();
+            } else if (nameIs(NIGHTWEATHER)) {
+                nightWeather = readPooledString();
+            } else if (nameIs(DAYTEMP)) {
+                dayTemp = readInt(DailyForecast.UNKNOWN_TEMP);
+            } else if (nameIs(NIGHTTEMP)) {
+                nightTemp = readInt(DailyForecast.UNKNOWN_TEMP);
+            } else if (nameIs(DAYWIND)) {
+                dayWind = readWind();
+            } else if (nameIs(NIGHTWIND)) {
+                nightWind = readWind();
+            } else if (nameIs(DAYPOWER)) {
+                dayPower = readPooledString();
+            } else if (nameIs(NIGHTPOWER)) {
+                nightPower = readPooledString();
+            } else {
+                skipValue();
+            }
+        }
+        return new DailyForecast(date, week, dayWeather, nightWeather, dayTemp, nightTemp,
+                dayWind, nightWind, dayPower, nightPower);
+    }
+
+    // ---- 值的读取 ----
+
+    /**
+     * 读取字符串值；值不是字符串时跳过并返回null。
+     */
+    private String readString() throws IOException {
+        if (!peekString()) {
+            skipValue();
+            return null;
+        }
+        scanString();
+        return decodeString(strStart, strEnd, strEscaped);
+    }
+
+    /**
+     * 读取字符串值并经由字符串池复用实例。
+     */
+    private String readPooledString() throws IOException {
+        if (!peekString()) {
+            skipValue();
+            return null;
+        }
+        scanString();
+        if (strEscaped) {
+            return decodeString(strStart, strEnd, true);
+        }
+        return POOL.intern(buf, strStart, strEnd);
+    }
+
+    private WindDirection readWind() throws IOException {
+        if (!peekString()) {
+            skipValue();
+            return WindDirection.UNKNOWN;
+        }
+        scanString();
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            if (DIRECTIONS[i] != WindDirection.UNKNOWN && regionEquals(strStart, strEnd, WIND_LABELS[i])) {
+                return DIRECTIONS[i];
+            }
+        }
+        return WindDirection.UNKNOWN;
+    }
+
+    /**
+     * 读取整数，值可以是数字或数字字符串。带小数时只取整数部分。
+     *
+     * @param missing 值缺失或无法解析时的返回值。
+     */
+    private int readInt(int missing) throws IOException {
+        int start;
+        int stop;
+        byte c = peek();
+        if (c == '"') {
+            scanString();
+            start = strStart;
+            stop = strEnd;
+        } else if (c == '-' || (c >= '0' && c <= '9')) {
+            start = pos;
+            skipLiteral();
+            stop = pos;
+        } else {
+            skipValue();
+            return missing;
+        }
+        boolean negative = start < stop && buf[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i >= stop || buf[i] < '0' || buf[i] > '9') {
+            return missing;
+        }
+        long value = 0;
+        for (; i < stop && buf[i] >= '0' && buf[i] <= '9'; i++) {
+            value = value * 10 + (buf[i] - '0');
+            if (value > Integer.MAX_VALUE) {
+                return missing;
+            }
+        }
+        if (i < stop && buf[i] != '.') {
+            return missing;
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * 读取 `yyyy-MM-dd` 格式的日期，返回 `yyyyMMdd` 形式的整数，格式不符时返回0。
+     */
+    private int readDate() throws IOException {
+        if (!peekString()) {
+            skipValue();
+            return 0;
+        }
+        scanString();
+        if (strEnd - strStart != 10 || buf[strStart + 4] != '-' || buf[strStart + 7] != '-') {
+            return 0;
+        }
+        int date = 0;
+        for (int i = strStart; i < strEnd; i++) {
+            byte c = buf[i];
+            if (c == '-') {
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            date = date * 10 + (c - '0');
+        }
+        return date;
+    }
+
+    // ---- 词法 ----
+
+    private void beginObject() throws IOException {
+        skipWhitespace();
+        if (pos >= end || buf[pos] != '{') {
+            throw syntaxError("Expected '{'");
+        }
+        pos++;
+    }
+
+    /**
+     * 移动到对象的下一个成员，读出字段名并越过冒号。
+     *
+     * @return 对象已结束时返回false。
+     */
+    private boolean nextMember() throws IOException {
+        skipWhitespace();
+        if (pos >= end) {
+            throw syntaxError("Unterminated object");
+        }
+        if (buf[pos] == '}') {
+            pos++;
+            return false;
+        }
+        if (buf[pos] == ',') {
+            pos++;
+            skipWhitespace();
+        }
+        if (pos >= end || buf[pos] != '"') {
+            throw syntaxError("Expected name");
+        }
+        scanString();
+        nameStart = strStart;
+        nameEnd = strEnd;
+        nameEscaped = strEscaped;
+        skipWhitespace();
+        if (pos >= end || buf[pos] != ':') {
+            throw syntaxError("Expected ':'");
+        }
+        pos++;
+        skipWhitespace();
+        return true;
+    }
+
+    /**
+     * 移动到数组的下一个元素。
+     *
+     * @return 数组已结束时返回false。
+     */
+    private boolean nextElement() throws IOException {
+        skipWhitespace();
+        if (pos >= end) {
+            throw syntaxError("Unterminated array");
+        }
+        if (buf[pos] == ']') {
+            pos++;
+            return false;
+        }
+        if (buf[pos] == ',') {
+            pos++;
+            skipWhitespace();
+        }
+        return true;
+    }
+
+    /**
+     * 跳过一个完整的值，不产生对象分配。
+     */
+    private void skipValue() throws IOException {
+        byte c = peek();
+        if (c == '"') {
+            scanString();
+        } else if (c == '{') {
+            pos++;
+            while (nextMember()) {
+                skipValue();
+            }
+        } else if (c == '[') {
+            pos++;
+            while (nextElement()) {
+                skipValue();
+            }
+        } else {
+            int start = pos;
+            skipLiteral();
+            if (pos == start) {
+                throw syntaxError("Unexpected character");
+            }
+        }
+    }
+
+    /**
+     * 越过数字、true、false、null 等不带引号的值。
+     */
+    private void skipLiteral() {
+        while (pos < end) {
+            byte c = buf[pos];
+            if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * 扫描一个带引号的字符串，记录其内容的区间，不解码。
+     */
+    private void scanString() throws IOException {
+        pos++;
+        strStart = pos;
+        strEscaped = false;
+        while (pos < end) {
+            byte c = buf[pos];
+            if (c == '"') {
+                strEnd = pos;
+                pos++;
+                return;
+            }
+            if (c == '\\') {
+                strEscaped = true;
+                pos++;
+            }
+            pos++;
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    private byte peek() throws IOException {
+        skipWhitespace();
+        if (pos >= end) {
+            throw syntaxError("Unexpected end of input");
+        }
+        return buf[pos];
+    }
+
+    private boolean peekString() throws IOException {
+        return peek() == '"';
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            byte c = buf[pos];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private boolean nameIs(byte[] name) {
+        return !nameEscaped && regionEquals(nameStart, nameEnd, name);
+    }
+
+    /**
+     * 判断下一个字符串值是否等于给定内容；相等时越过该值，不相等时位置不变。
+     */
+    private boolean valueIs(byte[] value) throws IOException {
+        int start = pos;
+        scanString();
+        if (!strEscaped && regionEquals(strStart, strEnd, value)) {
+            return true;
+        }
+        pos = start;
+        return false;
+    }
+
+    private boolean regionEquals(int start, int stop, byte[] expected) {
+        if (stop - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buf[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 把字符串区间解码为 Java 字符串，处理JSON转义。
+     */
+    private String decodeString(int start, int stop, boolean escaped) throws IOException {
+        if (!escaped) {
+            return new String(buf, start, stop - start, StandardCharsets.UTF_8);
+        }
+        StringBuilder text = new StringBuilder(stop - start);
+        int runStart = start;
+        int i = start;
+        while (i < stop) {
+            if (buf[i] != '\\') {
+                i++;
+                continue;
+            }
+            text.append(new String(buf, runStart, i - runStart, StandardCharsets.UTF_8));
+            if (i + 1 >= stop) {
+                throw syntaxError("Invalid escape");
+            }
+            byte escape = buf[i + 1];
+            i += 2;
+            switch (escape) {
+                case '"': text.append('"'); break;
+                case '\\': text.append('\\'); break;
+                case '/': text.append('/'); break;
+                case 'b': text.append('\b'); break;
+                case 'f': text.append('\f'); break;
+                case 'n': text.append('\n'); break;
+                case 'r': text.append('\r'); break;
+                case 't': text.append('\t'); break;
+                case 'u':
+                    if (i + 4 > stop) {
+                        throw syntaxError("Invalid unicode escape");
+                    }
+                    int code = 0;
+                    for (int k = 0; k < 4; k++) {
+                        int digit = Character.digit(buf[i + k], 16);
+                        if (digit < 0) {
+                            throw syntaxError("Invalid unicode escape");
+                        }
+                        code = (code << 4) | digit;
+                    }
+                    text.append((char) code);
+                    i += 4;
+                    break;
+                default:
+                    throw syntaxError("Invalid escape");
+            }
+            runStart = i;
+        }
+        text.append(new String(buf, runStart, stop - runStart, StandardCharsets.UTF_8));
+        return text.toString();
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("Malformed weather response: " + message + " at offset " + pos);
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 以UTF-8字节区间为键的字符串池，开放寻址。条目数有上限，满了之后不再加入新条目，
+     * 避免接口返回异常取值时无限增长。
+     */
+    static final class StringPool {
+        private static final int MAX_ENTRIES = 256;
+
+        private byte[][] keys = new byte[64][];
+        private String[] values = new String[64];
+        private int size;
+
+        synchronized String intern(byte[] buf, int start, int stop) {
+            int hash = hash(buf, start, stop);
+            int mask = keys.length - 1;
+            int index = hash & mask;
+            while (keys[index] != null) {
+                if (equalsRegion(keys[index], buf, start, stop)) {
+                    return values[index];
+                }
+                index = (index + 1) & mask;
+            }
+            String value = new String(buf, start, stop - start, StandardCharsets.UTF_8);
+            if (size >= MAX_ENTRIES) {
+                return value;
+            }
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                mask = keys.length - 1;
+                index = hash & mask;
+                while (keys[index] != null) {
+                    index = (index + 1) & mask;
+                }
+            }
+            keys[index] = Arrays.copyOfRange(buf, start, stop);
+            values[index] = value;
+            size++;
+            return value;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private void grow() {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            values = new String[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == null) {
+                    continue;
+                }
+                int index = hash(oldKeys[i], 0, oldKeys[i].length) & mask;
+                while (keys[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+
+        private static int hash(byte[] buf, int start, int stop) {
+            int hash = 0x811c9dc5;
+            for (int i = start; i < stop; i++) {
+                hash = (hash ^ buf[i]) * 0x01000193;
+            }
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean equalsRegion(byte[] key, byte[] buf, int start, int stop) {
+            if (key.length != stop - start) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buf[start + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.exercise.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.example.exercise.data.model.CityForecast;
+import com.example.exercise.data.network.HttpClient;
+import com.example.exercise.data.network.RequestCoalescer;
+import com.example.exercise.sdk.ThreadWatchdog;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Request;
+
+/**
+ * 天气数据仓库，离线优先：先展示本地缓存，再在后台重新验证。
+ * <p>
+ * 工作流程：
+ * 1. {@link #load} 先查内存缓存，命中时在调用线程（主线程）上立即回调，页面在第一帧就能显示数据；
+ *    内存未命中时在后台线程读取磁盘缓存，读到后再回调。
+ * 2. 缓存数据在该城市的新鲜度时长（见 {@link #setFreshnessTtl}）内时不访问网络。
+ * 3. 缓存不存在或已过期时，通过 {@link HttpClient} 重新请求。共享的客户端带有HTTP磁盘缓存，会遵循服务端的缓存响应头，
+ *    必要时自动发起条件请求。
+ * 4. 新获取的响应体与缓存相同时只更新获取时间，不回调界面；只有内容变化时才推送新数据。
+ * 5. 请求失败时，已经展示了缓存数据的页面保持原样，只有没有任何数据可展示时才回调错误。
+ * 6. 每次加载返回一个取消句柄并在结束时回调 {@link Observer#onComplete()}，调用方可以据此用
+ *    {@link com.example.exercise.data.network.FetchScheduler} 控制同时加载的城市数。
+ */
+public class WeatherRepository {
+
+    private static final String TAG = "WeatherRepository";
+    private static final String WEATHER_URL = "https://restapi.amap.com/v3/weather/weatherInfo";
+    private static final String API_KEY = "78437de757a2693c3f9cb2aabf6f25fd";
+    // 默认的新鲜度时长，高德的预报数据一天只更新几次
+    private static final long DEFAULT_TTL_MS = TimeUnit.MINUTES.toMillis(30);
+    // 读写缓存的后台任务执行超过该时长即上报卡顿
+    private static final long IO_STALL_THRESHOLD_MS = 3000;
+
+    private static volatile WeatherRepository instance;
+
+    private final WeatherCache<CityForecast> cache;
+    private final ExecutorService ioExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // 所有请求共用同一个解析器实例，相同城市的并发请求才能被合并
+    private final HttpClient.ResponseParser<WeatherCache.Update<CityForecast>> parser;
+
+    /**
+     * 在主线程上接收天气数据的回调。
+     */
+    public interface Observer {
+        /**
+         * 有可展示的数据：首次读到的缓存，或者与上次推送内容不同的新数据。
+         *
+         * @param forecast    天气预报。
+         * @param fetchedAtMs 数据的获取时间（墙上时钟，毫秒）。
+         */
+        void onWeather(CityForecast forecast, long fetchedAtMs);
+
+        /**
+         * 请求失败且没有任何缓存数据可展示。
+         */
+        void onError(IOException e);
+
+        /**
+         * 本次加载已经结束（缓存仍然新鲜、重新验证完成或失败），之后不会再有回调。被取消的加载不会回调。
+         */
+        void onComplete();
+    }
+
+    private WeatherRepository(Context context) {
+        File dir = new File(context.getFilesDir(), "weather");
+        cache = new WeatherCache<>(dir, WeatherJsonParser::parse, DEFAULT_TTL_MS);
+        parser = response -> {
+            String adcode = response.request().url().queryParameter("city");
+            return cache.put(adcode, response.body().bytes(), System.currentTimeMillis());
+        };
+        ioExecutor = ThreadWatchdog.getInstance().watchExecutor(TAG,
+                Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, TAG)),
+                IO_STALL_THRESHOLD_MS);
+    }
+
+    /**
+     * 获取WeatherRepository的单例。
+     *
+     * @param context 上下文，用于定位缓存目录。
+     * @return WeatherRepository的唯一实例。
+     */
+    public static WeatherRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (WeatherRepository.class) {
+                if (instance == null) {
+                    instance = new WeatherRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 设置某个城市的新鲜度时长，在此时长内重新打开页面不会访问网络。
+     *
+     * @param adcode 城市编码。
+     * @param ttlMs  新鲜度时长（毫秒），0表示每次都在后台重新验证。
+     */
+    public void setFreshnessTtl(String adcode, long ttlMs) {
+        cache.setTtl(adcode, ttlMs);
+    }
+
+    /**
+     * 加载一个城市的天气数据，必须在主线程调用。回调随页面销毁自动停止。
+     *
+     * @param owner    发起加载的页面。
+     * @param adcode   城市编码。
+     * @param observer 在主线程上接收数据的回调。
+     * @return 取消句柄，必须在主线程调用；取消后不再回调，没有其他页面等待时取消网络请求。
+     */
+    public RequestCoalescer.Cancellable load(LifecycleOwner owner, String adcode, Observer observer) {
+        LoadHandle handle = new LoadHandle();
+        WeatherCache.Entry<CityForecast> cached = cache.peek(adcode);
+        if (cached != null) {
+            observer.onWeather(cached.model, cached.fetchedAtMs);
+            revalidateIfStale(owner, adcode, cached, observer, handle);
+            return handle;
+        }
+        ioExecutor.execute(() -> {
+            WeatherCache.Entry<CityForecast> stored = cache.get(adcode);
+            mainHandler.post(() -> {
+                if (handle.cancelled || owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+                    return;
+                }
+                if (stored != null) {
+                    observer.onWeather(stored.model, stored.fetchedAtMs);
+                }
+                revalidateIfStale(owner, adcode, stored, observer, handle);
+            });
+        });
+        return handle;
+    }
+
+    /**
+     * 缓存不存在或已过期时在后台重新请求。
+     *
+     * @param shown 已经展示给页面的数据，没有时为null。
+     */
+    private void revalidateIfStale(LifecycleOwner owner, String adcode,
+                                   WeatherCache.Entry<CityForecast> shown, Observer observer, LoadHandle handle) {
+        if (shown != null && cache.isFresh(shown, System.currentTimeMillis())) {
+            observer.onComplete();
+            return;
+        }
+        Request request = new Request.Builder()
+                .url(WEATHER_URL + "?city=" + adcode + "&extensions=all&key=" + API_KEY)
+                .build();
+        handle.subscription = HttpClient.getInstance().fetch(owner, request, parser,
+                new HttpClient.ResultCallback<WeatherCache.Update<CityForecast>>() {
+                    @Override
+                    public void onSuccess(WeatherCache.Update<CityForecast> update) {
+                        if (!update.persisted) {
+                            Log.w(TAG, "Unable to persist weather cache for " + adcode);
+                        }
+                        if (shown == null || update.changed) {
+                            observer.onWeather(update.entry.model, update.entry.fetchedAtMs);
+                        }
+                        observer.onComplete();
+                    }
+
+                    @Override
+                    public void onFailure(IOException e) {
+                        if (shown == null) {
+                            observer.onError(e);
+                        } else {
+                            Log.w(TAG, "Revalidation failed for " + adcode + ", keeping cached data", e);
+                        }
+                        observer.onComplete();
+                    }
+                });
+    }
+
+    /**
+     * 一次加载的取消句柄，只在主线程访问。
+     */
+    private static final class LoadHandle implements RequestCoalescer.Cancellable {
+        boolean cancelled;
+        // 重新验证的网络请求，尚未发起时为null
+        RequestCoalescer.Subscription subscription;
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+    }
+}
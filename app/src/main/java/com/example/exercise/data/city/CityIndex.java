@@ -0,0 +1,290 @@
+package com.example.exercise.data.city;
+
+import com.example.exercise.data.model.SavedCity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 离线城市索引，用于按中文名称、全拼或拼音首字母查找城市的行政区划编码。
+ * <p>
+ * 索引文件由 {@link CityIndexWriter} 在构建时生成并打包为 assets（格式见 {@link CityIndexFormat}），
+ * 运行时通过内存映射直接读取：打开索引只校验文件头，不解析、不复制任何城市数据，
+ * 查询时才按需读取用到的记录，由系统按页加载。
+ * <p>
+ * 查询分两步：
+ * 1. 前缀匹配：在排好序的键表中二分查找，得到以查询串开头的所有键，先按键比查询串多出的字符数、再按行政级别排序；
+ * 2. 结果不足时模糊匹配：拼音查询按子序列匹配全拼（首字母必须相同，如 "xan" 匹配 "xian"），
+ *    中文查询按子串匹配名称（如 "安" 匹配 "西安市"）。所有模糊匹配的城市先按跳过的字符数、再按行政级别和名称长度排序。
+ * 两步都是排好序后才截取到结果数上限，较好的匹配不会因为 adcode 或键的字典序靠后而被丢掉。
+ * <p>
+ * 索引收录省级、地级和县级行政区。县级行政区中有不少与城市同名或同音，如吉林辽源的 "西安区"，
+ * 按行政级别排序保证搜索 "西安" 或 "xian" 时西安市排在它们之前。
+ * <p>
+ * 实例不可变，只使用绝对位置读取，可以在多个线程中同时查询。本类不依赖 Android API。
+ */
+public final class CityIndex {
+
+    public static final String ASSET_NAME = "city_index.bin";
+
+    private final ByteBuffer buffer;
+    private final int cityCount;
+    private final int keyCount;
+
+    /**
+     * 从内存中的索引数据创建实例。
+     *
+     * @throws IOException 文件头或长度不正确时抛出。
+     */
+    public CityIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < CityIndexFormat.HEADER_SIZE
+                || buffer.getInt(0) != CityIndexFormat.MAGIC
+                || buffer.getInt(4) != CityIndexFormat.VERSION) {
+            throw new IOException("Invalid city index header");
+        }
+        cityCount = buffer.getInt(8);
+        keyCount = buffer.getInt(12);
+        if (cityCount < 0 || keyCount < 0
+                || (long) CityIndexFormat.stringPool(cityCount, keyCount) > buffer.limit()) {
+            throw new IOException("Truncated city index");
+        }
+    }
+
+    /**
+     * 以只读方式映射文件中的一段作为索引。只读取文件头，可以在主线程调用；映射在通道关闭后仍然有效。
+     * <p>
+     * 打包在 assets 中的索引通过 `AssetManager.openFd` 得到所在 APK 的通道和偏移，
+     * 因此索引文件在打包时不能被压缩（见 `app/build.gradle.kts` 中的 `noCompress`）。
+     *
+     * @param channel 索引所在的文件。
+     * @param offset  索引在文件中的起始位置。
+     * @param length  索引的长度。
+     * @throws IOException 映射失败或格式不正确时抛出。
+     */
+    public static CityIndex map(FileChannel channel, long offset, long length) throws IOException {
+        return new CityIndex(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    /**
+     * 索引中的城市数量。
+     */
+    public int size() {
+        return cityCount;
+    }
+
+    /**
+     * 查找城市。
+     *
+     * @param query 中文名称、拼音或拼音首字母，忽略大小写、空格和隔音符号。
+     * @param limit 最多返回的结果数。
+     * @return 匹配的城市，前缀匹配的结果在前，与查询串越接近、行政级别越高越靠前；查询为空时返回空列表。
+     */
+    public List<SavedCity> search(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return new ArrayList<>(0);
+        }
+        byte[] key = normalized.getBytes(StandardCharsets.UTF_8);
+        Set<Integer> matches = new LinkedHashSet<>();
+
+        // 每个候选为 {键比查询串多出的字节数, 行政级别, 键的位置, 城市位置}
+        List<int[]> candidates = new ArrayList<>();
+        for (int i = lowerBound(key); i < keyCount; i++) {
+            int record = CityIndexFormat.keyRecord(cityCount, i);
+            int keyOffset = buffer.getInt(record);
+            if (!startsWith(keyOffset, key)) {
+                break;
+            }
+            int city = buffer.getInt(record + 4);
+            candidates.add(new int[]{(buffer.get(keyOffset) & 0xff) - key.length, level(city), i, city});
+        }
+        addInOrder(candidates, limit, matches);
+
+        if (matches.size() < limit) {
+            addFuzzyMatches(key, isPinyin(normalized), limit, matches);
+        }
+
+        List<SavedCity> result = new ArrayList<>(matches.size());
+        for (int index : matches) {
+            int record = CityIndexFormat.cityRecord(index);
+            result.add(new SavedCity(String.valueOf(buffer.getInt(record)), readString(buffer.getInt(record + 4))));
+        }
+        return result;
+    }
+
+    /**
+     * 扫描所有城市做模糊匹配，按匹配程度排序后补足结果。
+     * 排序依据依次为：跳过的字符数（拼音为全拼中未匹配的字母数，中文为名称中多出的字节数）、行政级别、名称长度、adcode。
+     */
+    private void addFuzzyMatches(byte[] key, boolean pinyin, int limit, Set<Integer> matches) {
+        // 每个候选为 {跳过的字符数, 行政级别, 名称长度, 城市位置}
+        List<int[]> candidates = new ArrayList<>();
+        for (int i = 0; i < cityCount; i++) {
+            if (matches.contains(i)) {
+                continue;
+            }
+            int record = CityIndexFormat.cityRecord(i);
+            int nameOffset = buffer.getInt(record + 4);
+            int nameLength = buffer.get(nameOffset) & 0xff;
+            if (pinyin) {
+                int pinyinOffset = buffer.getInt(record + 8);
+                if (isSubsequence(key, pinyinOffset)) {
+                    candidates.add(new int[]{(buffer.get(pinyinOffset) & 0xff) - key.length, level(i), nameLength, i});
+                }
+            } else if (contains(nameOffset, key)) {
+                candidates.add(new int[]{nameLength - key.length, level(i), nameLength, i});
+            }
+        }
+        addInOrder(candidates, limit, matches);
+    }
+
+    /**
+     * 把候选按各项依次比较排序，再按顺序把最后一项（城市位置）加入结果，直到达到上限。
+     * 同一个城市匹配多个键时只保留排在最前的一次。
+     */
+    private static void addInOrder(List<int[]> candidates, int limit, Set<Integer> matches) {
+        Collections.sort(candidates, (a, b) -> {
+            for (int k = 0; k < a.length; k++) {
+                if (a[k] != b[k]) {
+                    return Integer.compare(a[k], b[k]);
+                }
+            }
+            return 0;
+        });
+        for (int i = 0; i < candidates.size() && matches.size() < limit; i++) {
+            int[] candidate = candidates.get(i);
+            matches.add(candidate[candidate.length - 1]);
+        }
+    }
+
+    /**
+     * 城市的行政级别：0 为省级，1 为地级，2 为县级（包括市辖区和省直辖的县级市）。
+     */
+    private int level(int index) {
+        int adcode = buffer.getInt(CityIndexFormat.cityRecord(index));
+        return adcode % 10000 == 0 ? 0 : adcode % 100 == 0 ? 1 : 2;
+    }
+
+    /**
+     * 规范化查询串：去掉空格和隔音符号，英文字母转为小写。
+     */
+    static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder(query.length());
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c) || c == '\'') {
+                continue;
+            }
+            text.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+        }
+        return text.toString();
+    }
+
+    private static boolean isPinyin(String query) {
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 键表中第一个不小于 key 的位置。
+     */
+    private int lowerBound(byte[] key) {
+        int low = 0;
+        int high = keyCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(buffer.getInt(CityIndexFormat.keyRecord(cityCount, mid)), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 按无符号字节比较字符串池中 offset 处的字符串和 key。
+     */
+    private int compare(int offset, byte[] key) {
+        int length = buffer.get(offset) & 0xff;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int diff = (buffer.get(offset + 1 + i) & 0xff) - (key[i] & 0xff);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - key.length;
+    }
+
+    private boolean startsWith(int offset, byte[] prefix) {
+        int length = buffer.get(offset) & 0xff;
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(offset + 1 + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * offset 处的字符串是否包含 key。按 UTF-8 字节比较即可，合法的 UTF-8 序列不会在字符中间匹配。
+     */
+    private boolean contains(int offset, byte[] key) {
+        int length = buffer.get(offset) & 0xff;
+        for (int start = 0; start + key.length <= length; start++) {
+            int i = 0;
+            while (i < key.length && buffer.get(offset + 1 + start + i) == key[i]) {
+                i++;
+            }
+            if (i == key.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * key 是否是 offset 处字符串的子序列，并且首字母相同。
+     */
+    private boolean isSubsequence(byte[] key, int offset) {
+        int length = buffer.get(offset) & 0xff;
+        if (length == 0 || buffer.get(offset + 1) != key[0]) {
+            return false;
+        }
+        int k = 1;
+        for (int i = 1; i < length && k < key.length; i++) {
+            if (buffer.get(offset + 1 + i) == key[k]) {
+                k++;
+            }
+        }
+        return k == key.length;
+    }
+
+    private String readString(int offset) {
+        byte[] bytes = new byte[buffer.get(offset) & 0xff];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(offset + 1 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.exercise.data.city;
+
+/**
+ * 城市索引文件的二进制格式，由 {@link CityIndexWriter} 写出、{@link CityIndex} 读取。
+ * <p>
+ * 所有整数均为大端序。文件依次由以下几部分组成：
+ * <pre>
+ * 文件头   magic(int) version(int) cityCount(int) keyCount(int)
+ * 城市表   cityCount 条，按 adcode 升序，每条 {@link #CITY_RECORD_SIZE} 字节：
+ *          adcode(int) nameOffset(int) pinyinOffset(int) initialsOffset(int)
+ * 键表     keyCount 条，按键的字节序升序（无符号比较），每条 {@link #KEY_RECORD_SIZE} 字节：
+ *          keyOffset(int) cityIndex(int)
+ * 字符串池 每个字符串为 length(u8) + UTF-8 字节，各 offset 均指向长度字节，从文件开头算起
+ * </pre>
+ * 每个城市在键表中有三个键：中文名称、全拼（如 "xian"）和拼音首字母（如 "xa"），拼音均为小写。
+ */
+final class CityIndexFormat {
+
+    static final int MAGIC = 0x43494458; // "CIDX"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int CITY_RECORD_SIZE = 16;
+    static final int KEY_RECORD_SIZE = 8;
+    // 字符串长度用一个字节保存
+    static final int MAX_STRING_BYTES = 255;
+
+    private CityIndexFormat() {
+    }
+
+    /**
+     * 城市表中第 index 条记录的位置。
+     */
+    static int cityRecord(int index) {
+        return HEADER_SIZE + index * CITY_RECORD_SIZE;
+    }
+
+    /**
+     * 键表中第 index 条记录的位置。
+     */
+    static int keyRecord(int cityCount, int index) {
+        return HEADER_SIZE + cityCount * CITY_RECORD_SIZE + index * KEY_RECORD_SIZE;
+    }
+
+    /**
+     * 字符串池的起始位置。
+     */
+    static int stringPool(int cityCount, int keyCount) {
+        return HEADER_SIZE + cityCount * CITY_RECORD_SIZE + keyCount * KEY_RECORD_SIZE;
+    }
+}
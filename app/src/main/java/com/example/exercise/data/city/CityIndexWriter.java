@@ -0,0 +1,211 @@
+package com.example.exercise.data.city;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 把城市源列表编译为 {@link CityIndexFormat} 格式的索引文件。
+ * <p>
+ * 构建时由 `:cityindex` 模块的任务调用（见 `app/build.gradle.kts` 中的 `generateCityIndex`），
+ * 输出作为 assets 打包进应用；单元测试也用它在内存中生成索引。
+ * <p>
+ * 源列表为 UTF-8 文本，每行一个城市 `adcode,名称,拼音`，拼音为小写、音节之间用空格分隔，ü 写作 v，
+ * 例如 `610100,西安市,xi an`。空行和以 `#` 开头的行被忽略。
+ */
+public final class CityIndexWriter {
+
+    private static final Pattern ADCODE = Pattern.compile("[0-9]{6}");
+    private static final Pattern PINYIN = Pattern.compile("[a-z]+( [a-z]+)*");
+
+    /**
+     * 源列表中的一个城市。
+     */
+    public static final class City {
+        final int adcode;
+        final String name;
+        final String pinyin;   // 全拼，不含空格
+        final String initials; // 各音节的首字母
+
+        public City(int adcode, String name, String syllables) {
+            this.adcode = adcode;
+            this.name = name;
+            StringBuilder full = new StringBuilder(syllables.length());
+            StringBuilder first = new StringBuilder();
+            for (String syllable : syllables.split(" ")) {
+                full.append(syllable);
+                first.append(syllable.charAt(0));
+            }
+            this.pinyin = full.toString();
+            this.initials = first.toString();
+        }
+    }
+
+    private CityIndexWriter() {
+    }
+
+    /**
+     * 读取城市源列表。
+     *
+     * @throws IOException 格式错误或 adcode 重复时抛出，信息中包含行号。
+     */
+    public static List<City> readSource(Reader source) throws IOException {
+        List<City> cities = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            if (fields.length != 3) {
+                throw new IOException("Line " + lineNumber + ": expected adcode,name,pinyin");
+            }
+            String adcode = fields[0].trim();
+            String name = fields[1].trim();
+            String pinyin = fields[2].trim();
+            if (!ADCODE.matcher(adcode).matches()) {
+                throw new IOException("Line " + lineNumber + ": invalid adcode " + adcode);
+            }
+            if (name.isEmpty() || name.getBytes(StandardCharsets.UTF_8).length > CityIndexFormat.MAX_STRING_BYTES) {
+                throw new IOException("Line " + lineNumber + ": invalid name " + name);
+            }
+            if (!PINYIN.matcher(pinyin).matches()) {
+                throw new IOException("Line " + lineNumber + ": invalid pinyin " + pinyin);
+            }
+            City city = new City(Integer.parseInt(adcode), name, pinyin);
+            if (!seen.add(city.adcode)) {
+                throw new IOException("Line " + lineNumber + ": duplicate adcode " + adcode);
+            }
+            cities.add(city);
+        }
+        return cities;
+    }
+
+    /**
+     * 生成索引文件的内容。
+     */
+    public static byte[] write(List<City> source) {
+        List<City> cities = new ArrayList<>(source);
+        Collections.sort(cities, (a, b) -> Integer.compare(a.adcode, b.adcode));
+
+        // 字符串池，相同的字符串只保存一次
+        ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        Map<String, Integer> poolOffsets = new HashMap<>();
+        int keyCount = cities.size() * 3;
+        int poolStart = CityIndexFormat.stringPool(cities.size(), keyCount);
+
+        int[][] cityOffsets = new int[cities.size()][3];
+        List<Key> keys = new ArrayList<>(keyCount);
+        for (int i = 0; i < cities.size(); i++) {
+            City city = cities.get(i);
+            String[] strings = {city.name, city.pinyin, city.initials};
+            for (int k = 0; k < strings.length; k++) {
+                Integer offset = poolOffsets.get(strings[k]);
+                byte[] bytes = strings[k].getBytes(StandardCharsets.UTF_8);
+                if (offset == null) {
+                    offset = poolStart + pool.size();
+                    poolOffsets.put(strings[k], offset);
+                    pool.write(bytes.length);
+                    pool.write(bytes, 0, bytes.length);
+                }
+                cityOffsets[i][k] = offset;
+                keys.add(new Key(bytes, offset, i));
+            }
+        }
+        Collections.sort(keys);
+
+        ByteBuffer out = ByteBuffer.allocate(poolStart + pool.size());
+        out.putInt(CityIndexFormat.MAGIC);
+        out.putInt(CityIndexFormat.VERSION);
+        out.putInt(cities.size());
+        out.putInt(keyCount);
+        for (int i = 0; i < cities.size(); i++) {
+            out.putInt(cities.get(i).adcode);
+            out.putInt(cityOffsets[i][0]);
+            out.putInt(cityOffsets[i][1]);
+            out.putInt(cityOffsets[i][2]);
+        }
+        for (Key key : keys) {
+            out.putInt(key.offset);
+            out.putInt(key.cityIndex);
+        }
+        out.put(pool.toByteArray());
+        return out.array();
+    }
+
+    /**
+     * 构建时的入口。
+     *
+     * @param args 源列表路径和输出文件路径。
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: CityIndexWriter <source.csv> <output.bin>");
+        }
+        List<City> cities;
+        try (Reader reader = new InputStreamReader(new FileInputStream(args[0]), StandardCharsets.UTF_8)) {
+            cities = readSource(reader);
+        }
+        byte[] index = write(cities);
+        File output = new File(args[1]);
+        File dir = output.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Unable to create " + dir);
+        }
+        try (OutputStream out = new FileOutputStream(output)) {
+            out.write(index);
+        }
+        System.out.println("City index: " + cities.size() + " cities, " + index.length + " bytes -> " + output);
+    }
+
+    /**
+     * 键表中的一条记录，按键的字节无符号比较排序。
+     */
+    private static final class Key implements Comparable<Key> {
+        final byte[] bytes;
+        final int offset;
+        final int cityIndex;
+
+        Key(byte[] bytes, int offset, int cityIndex) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.cityIndex = cityIndex;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int length = Math.min(bytes.length, other.bytes.length);
+            for (int i = 0; i < length; i++) {
+                int diff = (bytes[i] & 0xff) - (other.bytes[i] & 0xff);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            if (bytes.length != other.bytes.length) {
+                return bytes.length - other.bytes.length;
+            }
+            return Integer.compare(cityIndex, other.cityIndex);
+        }
+    }
+}
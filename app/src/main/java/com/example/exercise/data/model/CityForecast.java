@@ -0,0 +1,34 @@
+package com.example.exercise.data.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一个城市的多日天气预报，由 {@code WeatherJsonParser} 从高德天气接口的响应中解析得到，不可变。
+ */
+public final class CityForecast {
+
+    private final String city;       // 城市名称
+    private final String adcode;     // 行政区划编码
+    private final String province;   // 所属省份
+    private final String reportTime; // 数据发布时间
+    private final List<DailyForecast> days; // 从今天开始的逐日预报
+
+    public CityForecast(String city, String adcode, String province, String reportTime, List<DailyForecast> days) {
+        this.city = city;
+        this.adcode = adcode;
+        this.province = province;
+        this.reportTime = reportTime;
+        this.days = Collections.unmodifiableList(days);
+    }
+
+    public String getCity() { return city; }
+    public String getAdcode() { return adcode; }
+    public String getProvince() { return province; }
+    public String getReportTime() { return reportTime; }
+
+    /**
+     * 获取逐日预报，第一项是今天。
+     */
+    public List<DailyForecast> getDays() { return days; }
+}
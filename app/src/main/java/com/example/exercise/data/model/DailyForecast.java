@@ -0,0 +1,109 @@
+package com.example.exercise.data.model;
+
+/**
+ * 某一天的天气预报，紧凑的不可变模型。
+ * <p>
+ * 与接口返回的原始JSON相比：温度和星期保存为整数，日期保存为 `yyyyMMdd` 形式的整数，风向保存为枚举，
+ * 天气现象和风力等级的字符串在解析时被复用（同一取值在所有预报中只保留一个实例）。
+ */
+public final class DailyForecast {
+
+    // 温度缺失或无法解析时的取值
+    public static final int UNKNOWN_TEMP = Integer.MIN_VALUE;
+
+    private final int date;
+    private final int week;
+    private final String dayWeather;
+    private final String nightWeather;
+    private final int dayTemp;
+    private final int nightTemp;
+    private final WindDirection dayWind;
+    private final WindDirection nightWind;
+    private final String dayPower;
+    private final String nightPower;
+
+    public DailyForecast(int date, int week, String dayWeather, String nightWeather, int dayTemp, int nightTemp,
+                         WindDirection dayWind, WindDirection nightWind, String dayPower, String nightPower) {
+        this.date = date;
+        this.week = week;
+        this.dayWeather = dayWeather;
+        this.nightWeather = nightWeather;
+        this.dayTemp = dayTemp;
+        this.nightTemp = nightTemp;
+        this.dayWind = dayWind;
+        this.nightWind = nightWind;
+        this.dayPower = dayPower;
+        this.nightPower = nightPower;
+    }
+
+    /**
+     * 日期，`yyyyMMdd` 形式的整数，例如 20251218；缺失时为0。
+     */
+    public int getDate() { return date; }
+    public int getYear() { return date / 10000; }
+    public int getMonth() { return date / 100 % 100; }
+    public int getDayOfMonth() { return date % 100; }
+    // 星期（1-7，1为周一），缺失时为0
+    public int getWeek() { return week; }
+    public String getDayWeather() { return dayWeather; }
+    public String getNightWeather() { return nightWeather; }
+    // 白天温度（°C）
+    public int getDayTemp() { return dayTemp; }
+    // 夜间温度（°C）
+    public int getNightTemp() { return nightTemp; }
+    public WindDirection getDayWind() { return dayWind; }
+    public WindDirection getNightWind() { return nightWind; }
+    // 白天风力等级，例如 "1-3"
+    public String getDayPower() { return dayPower; }
+    // 夜间风力等级
+    public String getNightPower() { return nightPower; }
+
+    /**
+     * 把日期格式化为 `yyyy-MM-dd`。
+     */
+    public String formatDate() {
+        if (date == 0) {
+            return "";
+        }
+        char[] text = new char[10];
+        writeDigits(text, 0, getYear(), 4);
+        text[4] = '-';
+        writeDigits(text, 5, getMonth(), 2);
+        text[7] = '-';
+        writeDigits(text, 8, getDayOfMonth(), 2);
+        return new String(text);
+    }
+
+    private static void writeDigits(char[] text, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DailyForecast)) return false;
+        DailyForecast other = (DailyForecast) o;
+        return date == other.date && week == other.week
+                && dayTemp == other.dayTemp && nightTemp == other.nightTemp
+                && dayWind == other.dayWind && nightWind == other.nightWind
+                && equal(dayWeather, other.dayWeather) && equal(nightWeather, other.nightWeather)
+                && equal(dayPower, other.dayPower) && equal(nightPower, other.nightPower);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = date;
+        result = 31 * result + dayTemp;
+        result = 31 * result + nightTemp;
+        result = 31 * result + (dayWeather == null ? 0 : dayWeather.hashCode());
+        result = 31 * result + (nightWeather == null ? 0 : nightWeather.hashCode());
+        return result;
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
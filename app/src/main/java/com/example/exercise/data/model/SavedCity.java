@@ -0,0 +1,18 @@
+package com.example.exercise.data.model;
+
+/**
+ * 用户保存的城市，不可变。
+ */
+public final class SavedCity {
+
+    private final String adcode; // 行政区划编码，用于请求天气接口
+    private final String name;   // 城市名称，数据加载之前用于显示
+
+    public SavedCity(String adcode, String name) {
+        this.adcode = adcode;
+        this.name = name;
+    }
+
+    public String getAdcode() { return adcode; }
+    public String getName() { return name; }
+}
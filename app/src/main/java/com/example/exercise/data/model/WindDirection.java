@@ -0,0 +1,48 @@
+package com.example.exercise.data.model;
+
+/**
+ * 高德天气接口返回的风向。接口的取值是固定的几种中文描述，解析时映射为枚举，不为每条预报保留字符串。
+ */
+public enum WindDirection {
+    NONE("无风向"),
+    NORTHEAST("东北"),
+    EAST("东"),
+    SOUTHEAST("东南"),
+    SOUTH("南"),
+    SOUTHWEST("西南"),
+    WEST("西"),
+    NORTHWEST("西北"),
+    NORTH("北"),
+    VARIABLE("旋转不定"),
+    // 接口返回了未收录的取值
+    UNKNOWN("");
+
+    private static final WindDirection[] VALUES = values();
+
+    private final String label;
+
+    WindDirection(String label) {
+        this.label = label;
+    }
+
+    /**
+     * 获取接口中使用的中文描述。
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * 根据接口中的中文描述查找风向。
+     *
+     * @return 对应的风向；未收录的取值返回 {@link #UNKNOWN}。
+     */
+    public static WindDirection fromLabel(String label) {
+        for (WindDirection direction : VALUES) {
+            if (direction != UNKNOWN && direction.label.equals(label)) {
+                return direction;
+            }
+        }
+        return UNKNOWN;
+    }
+}
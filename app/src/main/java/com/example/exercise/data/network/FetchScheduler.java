@@ -0,0 +1,243 @@
+package com.example.exercise.data.network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 有并发上限和优先级的请求调度器，用于同时加载多个城市的数据。
+ * <p>
+ * 设计要点：
+ * 1. 同时进行的任务不超过 maxConcurrent 个，其余按优先级排队；优先级数值越小越先开始，相同优先级按提交顺序。
+ * 2. 优先级为 {@link #PRIORITY_VISIBLE} 的任务（用户正在看的内容）不受并发上限约束，立即开始，不必排在后台任务之后；
+ *    它同样占用并发名额，进行期间后台任务相应减少。
+ * 3. 可以随时通过 {@link #setPriority} 调整优先级：排队中的任务按新优先级重新排序；已经开始的任务继续进行，
+ *    不会为了让位而被中断，已经花费的网络开销不会浪费。
+ * 4. 取消排队中的任务直接出队；取消进行中的任务会调用其取消句柄并立即释放并发名额。
+ * <p>
+ * 本类只包含纯逻辑，不依赖 OkHttp 和 Android API，可以在 JVM 上直接测试。所有方法都是线程安全的，
+ * 任务在调用方或完成上一个任务的线程上开始，开始时不持有锁。
+ */
+public class FetchScheduler {
+
+    // 用户正在看的内容的优先级，不受并发上限约束
+    public static final int PRIORITY_VISIBLE = 0;
+
+    /**
+     * 一个可调度的任务。
+     */
+    public interface Task {
+        /**
+         * 开始执行，结束（成功或失败）时必须调用一次 onComplete；被取消后可以不调用。
+         * onComplete 可以在本方法返回之前同步调用，例如数据已在缓存中时。
+         *
+         * @return 用于取消该任务的句柄，可以为null。
+         */
+        RequestCoalescer.Cancellable start(Runnable onComplete);
+    }
+
+    private final int maxConcurrent;
+    // 排队中和进行中的任务，按键索引；访问时需持有 this 锁
+    private final Map<String, Job> jobs = new HashMap<>();
+    private int running;
+    private long sequence;
+
+    /**
+     * 构造函数。
+     *
+     * @param maxConcurrent 同时进行的任务数上限；{@link #PRIORITY_VISIBLE} 的任务可以超出该上限。
+     */
+    public FetchScheduler(int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be positive: " + maxConcurrent);
+        }
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * 提交一个任务。相同键的任务已在排队或进行中时只更新其优先级，不重复执行。
+     *
+     * @param key      任务的键，例如城市编码。
+     * @param priority 优先级，数值越小越先开始。
+     * @param task     任务。
+     */
+    public void submit(String key, int priority, Task task) {
+        List<Job> toStart;
+        synchronized (this) {
+            Job job = jobs.get(key);
+            if (job == null) {
+                jobs.put(key, new Job(key, priority, task, sequence++));
+            } else {
+                job.priority = priority;
+            }
+            toStart = takeStartable();
+        }
+        startAll(toStart);
+    }
+
+    /**
+     * 调整任务的优先级，任务不存在（尚未提交或已经结束）时忽略。
+     */
+    public void setPriority(String key, int priority) {
+        List<Job> toStart;
+        synchronized (this) {
+            Job job = jobs.get(key);
+            if (job == null || job.priority == priority) {
+                return;
+            }
+            job.priority = priority;
+            toStart = takeStartable();
+        }
+        startAll(toStart);
+    }
+
+    /**
+     * 取消一个任务，任务不存在时忽略。
+     */
+    public void cancel(String key) {
+        RequestCoalescer.Cancellable handle;
+        List<Job> toStart;
+        synchronized (this) {
+            Job job = jobs.remove(key);
+            if (job == null) {
+                return;
+            }
+            job.cancelled = true;
+            if (job.started) {
+                running--;
+            }
+            handle = job.handle;
+            toStart = takeStartable();
+        }
+        if (handle != null) {
+            handle.cancel();
+        }
+        startAll(toStart);
+    }
+
+    /**
+     * 取消所有排队中和进行中的任务。
+     */
+    public void cancelAll() {
+        List<RequestCoalescer.Cancellable> handles = new ArrayList<>();
+        synchronized (this) {
+            for (Job job : jobs.values()) {
+                job.cancelled = true;
+                if (job.handle != null) {
+                    handles.add(job.handle);
+                }
+            }
+            jobs.clear();
+            running = 0;
+        }
+        for (RequestCoalescer.Cancellable handle : handles) {
+            handle.cancel();
+        }
+    }
+
+    /**
+     * 判断任务是否仍在排队或进行中。
+     */
+    public synchronized boolean contains(String key) {
+        return jobs.containsKey(key);
+    }
+
+    /**
+     * 获取进行中的任务数。
+     */
+    public synchronized int getRunningCount() {
+        return running;
+    }
+
+    /**
+     * 获取排队中的任务数。
+     */
+    public synchronized int getPendingCount() {
+        return jobs.size() - running;
+    }
+
+    /**
+     * 取出现在可以开始的任务并标记为进行中：所有 {@link #PRIORITY_VISIBLE} 的任务，以及并发名额内优先级最高的任务。
+     * 调用时需持有 this 锁。
+     */
+    private List<Job> takeStartable() {
+        List<Job> result = null;
+        while (true) {
+            Job best = null;
+            for (Job job : jobs.values()) {
+                if (!job.started && (best == null || job.isBefore(best))) {
+                    best = job;
+                }
+            }
+            if (best == null || (best.priority > PRIORITY_VISIBLE && running >= maxConcurrent)) {
+                break;
+            }
+            best.started = true;
+            running++;
+            if (result == null) {
+                result = new ArrayList<>(2);
+            }
+            result.add(best);
+        }
+        return result;
+    }
+
+    private void startAll(List<Job> toStart) {
+        if (toStart == null) {
+            return;
+        }
+        for (Job job : toStart) {
+            RequestCoalescer.Cancellable handle = job.task.start(() -> complete(job));
+            boolean cancelled;
+            synchronized (this) {
+                job.handle = handle;
+                cancelled = job.cancelled;
+            }
+            // 开始期间任务已被取消
+            if (cancelled && handle != null) {
+                handle.cancel();
+            }
+        }
+    }
+
+    private void complete(Job job) {
+        List<Job> toStart;
+        synchronized (this) {
+            if (job.cancelled || job.completed || jobs.get(job.key) != job) {
+                return;
+            }
+            job.completed = true;
+            jobs.remove(job.key);
+            running--;
+            toStart = takeStartable();
+        }
+        startAll(toStart);
+    }
+
+    /**
+     * 一个排队中或进行中的任务。除 key、task 和 order 外的字段访问时需持有外部类的锁。
+     */
+    private static final class Job {
+        final String key;
+        final Task task;
+        // 提交顺序，相同优先级时先提交的先开始
+        final long order;
+        int priority;
+        boolean started;
+        boolean completed;
+        boolean cancelled;
+        RequestCoalescer.Cancellable handle;
+
+        Job(String key, int priority, Task task, long order) {
+            this.key = key;
+            this.priority = priority;
+            this.task = task;
+            this.order = order;
+        }
+
+        boolean isBefore(Job other) {
+            return priority != other.priority ? priority < other.priority : order < other.order;
+        }
+    }
+}
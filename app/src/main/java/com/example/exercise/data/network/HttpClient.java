@@ -0,0 +1,274 @@
+package com.example.exercise.data.network;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.example.exercise.sdk.NetworkMonitor;
+import com.example.exercise.sdk.ThreadWatchdog;
+import com.example.exercise.sdk.WatchedExecutorService;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 全局共享的HTTP客户端。
+ * <p>
+ * 设计要点：
+ * 1. 整个应用只使用一个 `OkHttpClient`，所有页面共用同一个连接池和请求线程池。页面重建或重新打开时
+ *    可以复用仍处于 keep-alive 状态的连接，不必重新进行DNS解析、建连和TLS握手。
+ * 2. 通过 {@link #fetch} 发起的请求经由 {@link RequestCoalescer} 合并：方法、URL和解析器都相同的请求在完成前只发起一次，
+ *    响应只解析一次，解析结果分发给所有调用方。
+ * 3. 请求与页面的生命周期绑定：页面销毁时自动取消订阅，结果不会再回调到已销毁的页面，也不会因回调持有页面造成泄漏。
+ *    因配置变化重建的页面只分离订阅，请求继续进行，重建后的页面以相同的请求加入即可直接拿到结果。
+ * 4. 请求的分阶段耗时由 {@link NetworkMonitor} 统计，请求线程池由 {@link ThreadWatchdog} 检测是否卡住。
+ *    超出并发上限的请求在 `Dispatcher` 中排队而不进入线程池，卡顿报告的队列深度和最早等待时长取自 `Dispatcher` 的等待队列。
+ * 5. 通过 {@link #installCache(Context)} 安装HTTP磁盘缓存后，所有请求都遵循服务端的缓存响应头，
+ *    缓存过期时自动携带 `If-None-Match` / `If-Modified-Since` 发起条件请求。
+ */
+public class HttpClient {
+
+    // 连接池中保留的最大空闲连接数，应用只访问少数几个主机
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    // 空闲连接的保活时长，在此期间重新打开页面可以复用已建立的连接
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final long CONNECT_TIMEOUT_SECONDS = 10;
+    private static final long READ_TIMEOUT_SECONDS = 10;
+    // 单个网络请求回调占用请求线程超过该时长即上报卡顿，略长于读超时
+    private static final long DISPATCHER_STALL_THRESHOLD_MS = 15_000;
+    // HTTP磁盘缓存的大小上限
+    private static final long CACHE_MAX_BYTES = 4 * 1024 * 1024;
+
+    // 单例实例
+    private static final HttpClient INSTANCE = new HttpClient();
+
+    // 安装磁盘缓存时会替换为派生的客户端，连接池和线程池保持不变
+    private volatile OkHttpClient client;
+    private boolean cacheInstalled;
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * 在主线程上接收请求结果的回调。
+     */
+    public interface ResultCallback<T> {
+        void onSuccess(T value);
+
+        void onFailure(IOException e);
+    }
+
+    /**
+     * 把响应解析为结果对象，在请求线程中调用。
+     */
+    public interface ResponseParser<T> {
+        T parse(Response response) throws IOException;
+    }
+
+    /**
+     * 私有构造函数，防止外部直接创建实例。
+     */
+    private HttpClient() {
+        // OkHttp 异步请求的执行线程池，与 OkHttp 默认的线程池配置相同
+        WatchedExecutorService executor = ThreadWatchdog.getInstance().watchExecutor(
+                "OkHttp Dispatcher",
+                new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                        runnable -> new Thread(runnable, "OkHttp Dispatcher")),
+                DISPATCHER_STALL_THRESHOLD_MS);
+        Dispatcher dispatcher = new Dispatcher(executor);
+        // 线程池使用 SynchronousQueue，本身没有等待任务，等待中的请求在 Dispatcher 中
+        executor.setExternalQueue(new DispatcherQueue(dispatcher));
+        client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .eventListenerFactory(NetworkMonitor.getInstance().eventListenerFactory())
+                .build();
+    }
+
+    /**
+     * 获取HttpClient的单例。
+     *
+     * @return HttpClient的唯一实例。
+     */
+    public static HttpClient getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 安装HTTP磁盘缓存，缓存保存在 `cacheDir/http` 下。应在 Application 创建时调用，可在任意线程调用；
+     * 在此之前发起的请求使用不带缓存的客户端，响应不会写入缓存。
+     * 缓存目录在第一次请求时才会在请求线程中初始化，本方法不读写磁盘。
+     *
+     * @param context 上下文，用于获取缓存目录。
+     */
+    public synchronized void installCache(Context context) {
+        if (cacheInstalled) {
+            return;
+        }
+        cacheInstalled = true;
+        File dir = new File(context.getApplicationContext().getCacheDir(), "http");
+        client = client.newBuilder()
+                .cache(new Cache(dir, CACHE_MAX_BYTES))
+                .build();
+    }
+
+    /**
+     * 获取共享的 `OkHttpClient`。需要不同配置时应通过 `newBuilder()` 派生，以继续共用连接池和线程池。
+     */
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * 发起一个与页面生命周期绑定的请求，必须在主线程调用。
+     *
+     * @param owner    发起请求的页面，销毁时自动取消。
+     * @param request  请求。
+     * @param parser   响应解析器。相同URL的请求应使用同一个解析器实例，才能被合并。
+     * @param callback 在主线程上接收结果的回调。
+     * @return 订阅句柄，可用于提前取消。
+     */
+    public <T> RequestCoalescer.Subscription fetch(LifecycleOwner owner, Request request,
+                                                   ResponseParser<T> parser, ResultCallback<T> callback) {
+        String key = request.method() + " " + request.url() + " " + parser.getClass().getName();
+        SubscriptionHolder holder = new SubscriptionHolder();
+        LifecycleEventObserver observer = (source, event) -> {
+            if (event != Lifecycle.Event.ON_DESTROY) {
+                return;
+            }
+            if (owner instanceof Activity && ((Activity) owner).isChangingConfigurations()) {
+                holder.subscription.detach();
+            } else {
+                holder.subscription.cancel();
+            }
+        };
+        holder.subscription = coalescer.join(key, listener -> enqueue(request, parser, listener),
+                new RequestCoalescer.Listener<T>() {
+                    @Override
+                    public void onSuccess(T value) {
+                        mainHandler.post(() -> {
+                            owner.getLifecycle().removeObserver(observer);
+                            if (holder.subscription.isActive()) {
+                                callback.onSuccess(value);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(IOException e) {
+                        mainHandler.post(() -> {
+                            owner.getLifecycle().removeObserver(observer);
+                            if (holder.subscription.isActive()) {
+                                callback.onFailure(e);
+                            }
+                        });
+                    }
+                });
+        owner.getLifecycle().addObserver(observer);
+        return holder.subscription;
+    }
+
+    /**
+     * 发起实际的网络请求，并在请求线程中解析响应。
+     */
+    private <T> RequestCoalescer.Cancellable enqueue(Request request, ResponseParser<T> parser,
+                                                     RequestCoalescer.Listener<T> listener) {
+        // 记录入队时间，供卡顿报告计算 Dispatcher 中最早的等待请求已等待的时长
+        Call call = client.newCall(request.newBuilder()
+                .tag(EnqueuedAt.class, new EnqueuedAt(SystemClock.uptimeMillis()))
+                .build());
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                listener.onFailure(e);
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                try (Response closing = response) {
+                    if (!closing.isSuccessful()) {
+                        listener.onFailure(new IOException("HTTP " + closing.code()));
+                        return;
+                    }
+                    // 记录解析耗时，区分慢在网络还是慢在解析
+                    long parseStart = System.nanoTime();
+                    T value = parser.parse(closing);
+                    NetworkMonitor.getInstance().recordParse(request.url().host(), System.nanoTime() - parseStart);
+                    listener.onSuccess(value);
+                } catch (IOException | RuntimeException e) {
+                    listener.onFailure(e instanceof IOException ? (IOException) e : new IOException(e));
+                }
+            }
+        });
+        return call::cancel;
+    }
+
+    /**
+     * 请求的入队时间（`SystemClock.uptimeMillis()`），作为请求的标签。
+     */
+    private static final class EnqueuedAt {
+        final long uptimeMs;
+
+        EnqueuedAt(long uptimeMs) {
+            this.uptimeMs = uptimeMs;
+        }
+    }
+
+    /**
+     * 把 `Dispatcher` 中等待执行的请求作为线程池的外部队列，在看门狗线程上读取。
+     */
+    private static final class DispatcherQueue implements WatchedExecutorService.ExternalQueue {
+        private final Dispatcher dispatcher;
+
+        DispatcherQueue(Dispatcher dispatcher) {
+            this.dispatcher = dispatcher;
+        }
+
+        @Override
+        public int size() {
+            return dispatcher.queuedCallsCount();
+        }
+
+        @Override
+        public long oldestEnqueuedAt() {
+            if (dispatcher.queuedCallsCount() == 0) {
+                return -1;
+            }
+            long oldest = -1;
+            for (Call call : dispatcher.queuedCalls()) {
+                EnqueuedAt enqueuedAt = call.request().tag(EnqueuedAt.class);
+                if (enqueuedAt != null && (oldest < 0 || enqueuedAt.uptimeMs < oldest)) {
+                    oldest = enqueuedAt.uptimeMs;
+                }
+            }
+            return oldest;
+        }
+    }
+
+    /**
+     * 让生命周期观察者引用尚未创建的订阅句柄。
+     */
+    private static final class SubscriptionHolder {
+        RequestCoalescer.Subscription subscription;
+    }
+}
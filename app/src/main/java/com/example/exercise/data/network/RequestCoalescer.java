@@ -0,0 +1,209 @@
+package com.example.exercise.data.network;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 合并相同的进行中请求：同一个键的请求在完成之前只发起一次，结果分发给所有订阅者。
+ * <p>
+ * 设计要点：
+ * 1. 第一个订阅者到来时通过 {@link Source#start(Listener)} 发起请求，之后的订阅者只加入订阅列表，共享同一次网络请求和同一个解析结果。
+ * 2. 订阅者可以随时 {@link Subscription#cancel()} 退出；最后一个订阅者退出时取消底层请求。
+ * 3. 订阅者也可以 {@link Subscription#detach()}：只是不再接收结果，请求继续进行。用于页面因配置变化（例如旋转）重建，
+ *    新页面随后以相同的键加入时可以直接等待这次请求，而不必重新发起。
+ * 4. 请求完成后立即从表中移除，之后相同的键会发起新的请求；本类不缓存结果。
+ * <p>
+ * 本类只包含纯逻辑，不依赖 OkHttp 和 Android API，可以在 JVM 上直接测试。所有方法都是线程安全的，
+ * 结果在完成请求的线程上回调，回调时不持有锁。
+ */
+public class RequestCoalescer {
+
+    /**
+     * 一次实际请求的发起方式。
+     */
+    public interface Source<T> {
+        /**
+         * 发起请求，完成后必须调用且只调用一次 listener 的某个方法（被取消时可以不调用）。
+         *
+         * @return 用于取消该请求的句柄。
+         */
+        Cancellable start(Listener<T> listener);
+    }
+
+    /**
+     * 请求结果的接收者。
+     */
+    public interface Listener<T> {
+        void onSuccess(T value);
+
+        void onFailure(IOException e);
+    }
+
+    /**
+     * 可取消的操作。
+     */
+    public interface Cancellable {
+        void cancel();
+    }
+
+    // 进行中的请求，按键索引；访问时需持有 this 锁
+    private final Map<String, InFlight<?>> inFlight = new HashMap<>();
+
+    /**
+     * 订阅一个请求的结果，相同键的请求正在进行时直接加入，否则通过 source 发起新请求。
+     *
+     * @param key      请求的键，通常由请求方法、URL和解析方式组成。相同的键必须产生相同类型的结果。
+     * @param source   没有进行中的请求时用于发起请求。
+     * @param listener 结果的接收者。
+     * @return 订阅句柄。
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Subscription join(String key, Source<T> source, Listener<T> listener) {
+        InFlight<T> call;
+        Subscription subscription;
+        boolean created = false;
+        synchronized (this) {
+            call = (InFlight<T>) inFlight.get(key);
+            if (call == null) {
+                call = new InFlight<>(key);
+                inFlight.put(key, call);
+                created = true;
+            }
+            subscription = new Subscription(call, listener);
+            call.subscribers.add(subscription);
+        }
+        if (created) {
+            Cancellable handle = source.start(call);
+            synchronized (this) {
+                call.handle = handle;
+                // 发起期间最后一个订阅者已经取消
+                if (call.cancelled && handle != null) {
+                    handle.cancel();
+                }
+            }
+        }
+        return subscription;
+    }
+
+    /**
+     * 获取进行中的请求数。
+     */
+    public synchronized int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * 一个进行中的请求及其订阅者。
+     */
+    private final class InFlight<T> implements Listener<T> {
+        final String key;
+        // 订阅者列表，访问时需持有外部类的锁
+        final List<Subscription> subscribers = new ArrayList<>(2);
+        Cancellable handle;
+        boolean done;
+        boolean cancelled;
+
+        InFlight(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void onSuccess(T value) {
+            for (Subscription subscription : finish()) {
+                subscription.<T>listener().onSuccess(value);
+            }
+        }
+
+        @Override
+        public void onFailure(IOException e) {
+            for (Subscription subscription : finish()) {
+                subscription.<T>listener().onFailure(e);
+            }
+        }
+
+        /**
+         * 标记请求完成并取出需要通知的订阅者；已取消或重复完成时返回空列表。
+         */
+        private List<Subscription> finish() {
+            synchronized (RequestCoalescer.this) {
+                if (done || cancelled) {
+                    return new ArrayList<>(0);
+                }
+                done = true;
+                if (inFlight.get(key) == this) {
+                    inFlight.remove(key);
+                }
+                List<Subscription> result = new ArrayList<>(subscribers);
+                subscribers.clear();
+                return result;
+            }
+        }
+
+        /**
+         * 移除一个订阅者。
+         *
+         * @param cancelIfIdle 没有剩余订阅者时是否取消请求。
+         */
+        void remove(Subscription subscription, boolean cancelIfIdle) {
+            Cancellable toCancel = null;
+            synchronized (RequestCoalescer.this) {
+                if (!subscribers.remove(subscription) || done || !subscribers.isEmpty() || !cancelIfIdle) {
+                    return;
+                }
+                cancelled = true;
+                if (inFlight.get(key) == this) {
+                    inFlight.remove(key);
+                }
+                toCancel = handle;
+            }
+            if (toCancel != null) {
+                toCancel.cancel();
+            }
+        }
+    }
+
+    /**
+     * 一个订阅者的句柄。
+     */
+    public final class Subscription {
+        private final InFlight<?> call;
+        private final Listener<?> listener;
+        private volatile boolean active = true;
+
+        Subscription(InFlight<?> call, Listener<?> listener) {
+            this.call = call;
+            this.listener = listener;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> Listener<T> listener() {
+            return (Listener<T>) listener;
+        }
+
+        /**
+         * 是否仍在等待结果。取消或分离后返回false，调用方在切换线程投递结果时可据此丢弃过期的结果。
+         */
+        public boolean isActive() {
+            return active;
+        }
+
+        /**
+         * 不再接收结果；没有其他订阅者时取消底层请求。
+         */
+        public void cancel() {
+            active = false;
+            call.remove(this, true);
+        }
+
+        /**
+         * 不再接收结果，但底层请求继续进行，供随后以相同键加入的订阅者使用。
+         */
+        public void detach() {
+            active = false;
+            call.remove(this, false);
+        }
+    }
+}
@@ -1,26 +1,66 @@
 package com.example.exercise.sdk;
 
-import android.os.Handler;
+import android.content.Context;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
+import java.io.File;
+
 /**
  * ANR（应用无响应）监控器。
- * 采用“看门狗”（Watchdog）方案实现，不依赖任何特殊权限，稳定且可靠。
+ * 采用“心跳看门狗”（Heartbeat Watchdog）方案实现，不依赖任何特殊权限，稳定且可靠。
  * <p>
  * 工作原理：
  * 1. 启动一个后台“看门狗”线程，专门用于监控主线程（UI线程）的响应状态。
- * 2. 看门狗线程会周期性地（每隔5秒）向主线程的消息队列发送一个轻量级的任务。
- * 3. 如果主线程能够及时执行这个任务，说明它没有被阻塞；如果主线程因耗时操作而卡顿，就无法按时执行该任务。
- * 4. 当看门狗线程在等待一段时间后，发现主线程未能执行任务，就判定发生了ANR，并立即捕获主线程当前的堆栈信息，生成报告。
+ * 2. 看门狗线程以远小于超时阈值的检查间隔（默认500毫秒）醒来。如果上一次投递的“心跳”任务已经被主线程执行，
+ *    就投递一个新的心跳任务，并用单调时钟 `SystemClock.uptimeMillis()` 记录投递时间。
+ * 3. 如果心跳任务迟迟未被执行，则“当前时间 - 投递时间”就是主线程被阻塞的时长。阻塞时长依次越过
+ *    卡顿阈值（默认1秒，“stall”）和ANR阈值（默认5秒，“ANR”）时，各上报一次，并附带测得的阻塞时长。
+ * 4. 心跳执行后，下一个心跳要等到下一次检查才投递，因此卡顿开始时队列中不一定有心跳：
+ *    任意时刻开始的卡顿最迟在“阈值 + 2 × 检查间隔”之内被发现（阈值是检查间隔的整数倍时为“阈值 + 检查间隔”），
+ *    测得的阻塞时长从心跳投递时算起，最多比实际少一个检查间隔。检测延迟和误差由检查间隔而不是超时阈值决定。
+ * 5. 主线程恢复后，心跳任务执行时会记录本次卡顿的总时长。
+ * 6. 阈值判断由不依赖 Android API 的 {@link HeartbeatDetector} 完成，时钟和主线程调度器通过注入提供，
+ *    因此检测逻辑可以在 JVM 上用回放的时间线确定性地测试。
+ * 7. 报告交给 {@link AnrReportStore} 按主线程堆栈哈希去重聚合，并持久化到应用私有目录。
+ *    同一卡死点重复发生时只输出一行简短日志，完整报告只在第一次出现时输出。
+ * 8. 完整报告包含 {@link ThreadSnapshot} 采集的全线程状态与堆栈，并把疑似持有主线程所等待锁的线程排在最前面。
+ * 9. 应用退到后台时（见 {@link AppLifecycleMonitor}）看门狗线程挂起，不再定时醒来；回到前台后重新开始计时，
+ *    后台期间（包括设备休眠、进程被冻结）的时间不会被误判为主线程阻塞。
+ * 10. 卡顿期间卡死点的哈希通过 {@link ExitInfoCollector#markHang(String)} 写入进程状态摘要，
+ *    进程若因此被系统杀死，下次启动时可以把系统的退出记录精确对应到这里的报告。
  */
 public class AnrMonitor {
 
+    private static final String TAG = "AnrReport";
+    // ANR的默认超时阈值，设置为5秒，与Android系统的ANR判断标准一致
+    private static final long DEFAULT_ANR_TIMEOUT_MS = 5000;
+    // 默认的卡顿（stall）阈值，主线程阻塞超过1秒即上报
+    private static final long DEFAULT_STALL_THRESHOLD_MS = 1000;
+    // 默认的检查间隔，检测延迟不超过“阈值 + 2 × 检查间隔”
+    private static final long DEFAULT_CHECK_INTERVAL_MS = 500;
+    // 全线程快照的采集耗时预算，ANR时系统已经处于卡顿状态，不能让采集本身雪上加霜
+    private static final long SNAPSHOT_BUDGET_MS = 100;
+
     // 单例实例，确保全局只有一个ANR监控器
     private static final AnrMonitor INSTANCE = new AnrMonitor();
     // 后台的看门狗线程实例
     private AnrWatchdogThread watchdogThread;
 
+    // 跟随应用前后台切换挂起和恢复看门狗线程
+    private final AppLifecycleMonitor.Listener lifecycleListener = new AppLifecycleMonitor.Listener() {
+        @Override
+        public void onForeground() {
+            setPaused(false);
+        }
+
+        @Override
+        public void onBackground() {
+            setPaused(true);
+        }
+    };
+
     /**
      * 私有构造函数，防止外部直接创建实例。
      */
@@ -35,13 +75,32 @@ public class AnrMonitor {
         return INSTANCE;
     }
 
+    /**
+     * 以默认参数启动ANR监控（卡顿阈值1秒，ANR阈值5秒，检查间隔500毫秒）。
+     *
+     * @param context 用于定位报告文件目录的上下文。
+     */
+    public void start(Context context) {
+        start(context, DEFAULT_ANR_TIMEOUT_MS, DEFAULT_STALL_THRESHOLD_MS, DEFAULT_CHECK_INTERVAL_MS);
+    }
+
     /**
      * 启动ANR监控。
-     * 如果监控线程尚未运行，则创建并启动它。
+     * 如果监控线程尚未运行，则创建并启动它。可在任意线程调用。
+     *
+     * @param context          用于定位报告文件目录的上下文，报告保存在 `filesDir/anr` 下。
+     * @param anrTimeoutMs     ANR阈值（毫秒），主线程阻塞超过该时长时上报ANR。
+     * @param stallThresholdMs 卡顿阈值（毫秒），主线程阻塞超过该时长时上报卡顿，应小于ANR阈值。
+     * @param checkIntervalMs  检查间隔（毫秒），应远小于两个阈值。检测延迟不超过“阈值 + 2 × 检查间隔”，
+     *                         测得的阻塞时长最多比实际少一个检查间隔。
      */
-    public void start() {
+    public synchronized void start(Context context, long anrTimeoutMs, long stallThresholdMs, long checkIntervalMs) {
         if (watchdogThread == null) {
-            watchdogThread = new AnrWatchdogThread();
+            // 先注册监听再读取前后台状态：之后发生的切换由监听在本方法返回后补上，不会漏掉
+            AppLifecycleMonitor.getInstance().addListener(lifecycleListener);
+            File reportDir = new File(context.getApplicationContext().getFilesDir(), "anr");
+            watchdogThread = new AnrWatchdogThread(reportDir, anrTimeoutMs, stallThresholdMs, checkIntervalMs);
+            watchdogThread.setPaused(!AppLifecycleMonitor.getInstance().isForeground());
             watchdogThread.start();
         }
     }
@@ -50,83 +109,170 @@ public class AnrMonitor {
      * 停止ANR监控。
      * 中断看门狗线程，使其停止运行，并释放资源。
      */
-    public void stop() {
+    public synchronized void stop() {
         if (watchdogThread != null) {
+            AppLifecycleMonitor.getInstance().removeListener(lifecycleListener);
             watchdogThread.interrupt();
             watchdogThread = null;
         }
     }
 
+    private synchronized void setPaused(boolean paused) {
+        if (watchdogThread != null) {
+            watchdogThread.setPaused(paused);
+        }
+    }
+
     /**
-     * 内部类，实现了具体的“看门狗”逻辑。
+     * 内部类，驱动 {@link HeartbeatDetector} 并负责堆栈采集、报告存储等与 Android 相关的部分。
      */
-    private static class AnrWatchdogThread extends Thread {
-        // ANR的超时阈值，设置为5秒，与Android系统的ANR判断标准一致
-        private static final int ANR_TIMEOUT_MS = 5000; // 5 seconds
-        // 一个与主线程Looper绑定的Handler，用于向主线程发送任务
-        private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
-        // 一个volatile布尔标志，用于标记主线程是否在规定时间内响应。volatile确保了跨线程的可见性。
-        private volatile boolean mainThreadResponded = true;
+    private static class AnrWatchdogThread extends Thread implements HeartbeatDetector.Listener {
+        private final File reportDir;
+        private final long checkIntervalMs;
+        // 心跳检测的纯计算部分，时钟和主线程调度器在这里注入
+        private final HeartbeatDetector detector;
+
+        // 报告存储，在看门狗线程启动后再创建，避免在调用方线程上读文件
+        private AnrReportStore reportStore;
+        // 当前这次阻塞最近一次上报的记录键，恢复时用于更新阻塞总时长
+        private String currentHangHash;
+
+        // 应用在后台时挂起检查循环，访问时需持有 pauseLock
+        private final Object pauseLock = new Object();
+        private boolean paused;
 
         /**
          * 构造函数，为线程设置一个描述性的名称。
          */
-        public AnrWatchdogThread() {
+        AnrWatchdogThread(File reportDir, long anrTimeoutMs, long stallThresholdMs, long checkIntervalMs) {
             super("ANR Watchdog");
+            this.reportDir = reportDir;
+            this.checkIntervalMs = Math.max(1, checkIntervalMs);
+            this.detector = new HeartbeatDetector(SystemClock::uptimeMillis,
+                    new HandlerScheduler(Looper.getMainLooper()), anrTimeoutMs, stallThresholdMs, this);
         }
 
-        // 一个将被发送到主线程的轻量级任务。它的唯一作用就是将mainThreadResponded标志位重置为true，表示主线程“还活着”。
-        private final Runnable tickle = () -> mainThreadResponded = true;
-
         /**
          * 线程的主循环体。
          */
         @Override
         public void run() {
+            reportStore = new AnrReportStore(reportDir);
+            OverheadMonitor.getInstance().registerCurrentThread();
             // 只要线程没有被中断，就持续循环
             while (!isInterrupted()) {
                 try {
-                    // 1. 在每次检查开始前，先将响应标志位设为false
-                    mainThreadResponded = false;
-                    // 2. 向主线程发送“喂狗”任务。如果主线程没卡住，它会很快执行这个任务，把标志位改回true。
-                    mainThreadHandler.post(tickle);
-
-                    // 3. 看门狗线程自己休眠5秒，给主线程留下响应时间
-                    Thread.sleep(ANR_TIMEOUT_MS);
-
-                    // 4. 5秒后，检查主线程是否已经响应。如果标志位仍然是false，说明主线程被卡住了。
-                    if (!mainThreadResponded) {
-                        // 判定发生ANR，立即捕获并记录报告
-                        captureAndLogAnrReport();
-                    }
+                    awaitResumed();
+                    long checkStart = System.nanoTime();
+                    detector.check();
+                    OverheadMonitor.getInstance().record(OverheadMonitor.COMPONENT_WATCHDOG, System.nanoTime() - checkStart);
+                    // 休眠一个检查间隔，心跳最迟在卡顿开始后一个间隔内投递，之后最多再过一个间隔越过阈值
+                    Thread.sleep(checkIntervalMs);
                 } catch (InterruptedException e) {
                     // 如果线程在休眠时被外部中断（例如调用了stop()方法），则跳出循环，优雅地终止线程。
+                    detector.cancel();
                     break;
                 }
             }
         }
 
+        void setPaused(boolean paused) {
+            synchronized (pauseLock) {
+                this.paused = paused;
+                pauseLock.notifyAll();
+            }
+        }
+
+        /**
+         * 处于挂起状态时丢弃等待中的心跳并阻塞，直到回到前台。
+         */
+        private void awaitResumed() throws InterruptedException {
+            synchronized (pauseLock) {
+                if (!paused) {
+                    return;
+                }
+                detector.cancel();
+                while (paused) {
+                    pauseLock.wait();
+                }
+            }
+        }
+
+        @Override
+        public void onStall(long blockedMs) {
+            logStall(blockedMs);
+        }
+
+        @Override
+        public void onAnr(long blockedMs, boolean newHang) {
+            captureAndLogAnrReport(blockedMs, newHang);
+        }
+
+        @Override
+        public void onRecovered(long blockedMs) {
+            Log.w(TAG, "Main thread recovered after being blocked for " + blockedMs + " ms");
+            reportStore.updateDuration(currentHangHash, blockedMs);
+            currentHangHash = null;
+            ExitInfoCollector.getInstance().markHang(null);
+        }
+
+        /**
+         * 记录一次主线程卡顿（未达到ANR阈值）。只输出主线程栈顶的几层，开销远小于完整报告。
+         *
+         * @param blockedMs 测得的阻塞时长（毫秒）。
+         */
+        private void logStall(long blockedMs) {
+            StackTraceElement[] stack = Looper.getMainLooper().getThread().getStackTrace();
+            AnrReportStore.AnrRecord record = reportStore.record(stack, AnrReportStore.AnrRecord.STAGE_STALL, blockedMs, true);
+            currentHangHash = record.hash;
+            ExitInfoCollector.getInstance().markHang(record.hash);
+            TelemetryBus.getInstance().publish(TelemetryEvent.TYPE_ANR, blockedMs, record.count, record.stage, record.hash);
+            StringBuilder message = new StringBuilder();
+            message.append("Main thread stalled for ").append(blockedMs).append(" ms")
+                    .append(" [").append(record.hash).append(", seen ").append(record.count).append("x]");
+            for (int i = 0; i < stack.length && i < 5; i++) {
+                message.append("\n    at ").append(stack[i]);
+            }
+            Log.w(TAG, message.toString());
+        }
+
         /**
          * 捕获并记录ANR报告。
-         * 报告包含时间戳和主线程的完整堆栈信息，这些是分析ANR原因的关键。
+         * 同一卡死点（主线程堆栈哈希相同）第一次出现时输出包含全线程快照的完整报告，之后只输出一行累计信息。
+         *
+         * @param blockedMs 测得的阻塞时长（毫秒）。
+         * @param newHang   是否是一次新的阻塞（此前未上报过卡顿阶段）。
          */
-        private void captureAndLogAnrReport() {
+        private void captureAndLogAnrReport(long blockedMs, boolean newHang) {
+            // 获取主线程的实例及其堆栈轨迹
+            Thread mainThread = Looper.getMainLooper().getThread();
+            StackTraceElement[] stack = mainThread.getStackTrace();
+            AnrReportStore.AnrRecord record = reportStore.record(stack, AnrReportStore.AnrRecord.STAGE_ANR, blockedMs, newHang);
+            currentHangHash = record.hash;
+            ExitInfoCollector.getInstance().markHang(record.hash);
+            TelemetryBus.getInstance().publish(TelemetryEvent.TYPE_ANR, blockedMs, record.count, record.stage, record.hash);
+
+            if (record.count > 1) {
+                Log.e(TAG, "ANR repeated [" + record.hash + "] count=" + record.count
+                        + " blocked=" + blockedMs + " ms max=" + record.maxBlockedMs + " ms");
+                return;
+            }
+
             StringBuilder report = new StringBuilder();
             report.append("\n");
             report.append("================ ANR Report ================\n");
-            report.append("Timestamp: ").append(new java.util.Date()).append("\n");
+            report.append("Timestamp: ").append(new java.util.Date(record.lastSeenMs)).append("\n");
+            report.append("Blocked: ").append(blockedMs).append(" ms\n");
+            report.append("Hash: ").append(record.hash).append("\n");
 
-            // 获取主线程的实例
-            Thread mainThread = Looper.getMainLooper().getThread();
-            report.append("\n--- Thread: ").append(mainThread.getName()).append(" (Main Thread) ---\n");
-            // 获取并遍历主线程的堆栈轨迹
-            for (StackTraceElement element : mainThread.getStackTrace()) {
-                report.append("    at ").append(element.toString()).append("\n");
-            }
+            // 采集全线程快照并分析锁持有者，疑似持有者排在最前面，采集耗时受预算限制
+            report.append("\n");
+            ThreadSnapshot.capture(mainThread, SNAPSHOT_BUDGET_MS).appendTo(report);
 
             report.append("===============================================");
             // 使用Error级别打印日志，使其在Logcat中以红色显示，更醒目
-            Log.e("AnrReport", report.toString());
+            Log.e(TAG, report.toString());
+            ReportUploader.getInstance().enqueue("anr", report.toString());
         }
     }
 }
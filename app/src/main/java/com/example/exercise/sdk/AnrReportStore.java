@@ -0,0 +1,297 @@
+package com.example.exercise.sdk;
+
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ANR报告的去重、聚合与持久化存储。
+ * <p>
+ * 设计要点：
+ * 1. 以主线程堆栈的稳定哈希（FNV-1a 64位）作为报告的键，同一个卡死点的重复发生只会累加次数和时长，不会生成新报告。
+ * 2. 每次更新都立即以一行紧凑的制表符分隔文本追加到应用私有目录下的文件中，进程被杀也不会丢失。
+ * 3. 文件超过 {@link #MAX_FILE_BYTES} 后轮转：当前文件改名为备份文件（覆盖更早的备份），
+ *    新文件以内存中最近出现的记录作为起始快照，快照不超过 {@link #SNAPSHOT_BYTES}，
+ *    因此两个文件都不会超过上限，两次轮转之间至少追加了上限的一半。读取时先读备份再读当前文件，同一键以最后一行为准。
+ * 4. 内存中最多保留 {@link #MAX_RECORDS} 条记录，超出时淘汰最久未出现的记录。
+ * <p>
+ * 本类的方法都是同步的，通常只在看门狗线程中调用。
+ */
+public class AnrReportStore {
+
+    private static final String TAG = "AnrReport";
+    // 当前文件和备份文件的名称
+    private static final String FILE_NAME = "anr_reports.log";
+    private static final String BACKUP_FILE_NAME = "anr_reports.1.log";
+    // 单个文件的大小上限（字节）
+    static final long MAX_FILE_BYTES = 32 * 1024;
+    // 轮转时写入新文件的快照大小上限（字节），剩余空间留给之后追加的记录
+    static final long SNAPSHOT_BYTES = MAX_FILE_BYTES / 2;
+    // 内存中保留的最大记录数
+    private static final int MAX_RECORDS = 100;
+    // 每条记录最多保存的栈帧数
+    private static final int MAX_FRAMES = 32;
+
+    private final File currentFile;
+    private final File backupFile;
+    // 按最近出现时间排序的记录（accessOrder = true），便于淘汰最久未出现的记录
+    private final LinkedHashMap<String, AnrRecord> records = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 构造函数，并从磁盘恢复之前保存的记录。
+     *
+     * @param dir 存放报告文件的目录，通常为 `context.getFilesDir()` 下的子目录。
+     */
+    public AnrReportStore(File dir) {
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.w(TAG, "Unable to create ANR report dir " + dir);
+        }
+        this.currentFile = new File(dir, FILE_NAME);
+        this.backupFile = new File(dir, BACKUP_FILE_NAME);
+        load(backupFile);
+        load(currentFile);
+    }
+
+    /**
+     * 计算堆栈的稳定哈希。只使用类名、方法名和行号，同一版本的应用中同一卡死点的哈希保持不变。
+     *
+     * @param stack 主线程堆栈。
+     * @return 16位十六进制字符串。
+     */
+    public static String hashStack(StackTraceElement[] stack) {
+        long hash = 0xcbf29ce484222325L;
+        for (StackTraceElement element : stack) {
+            hash = fnv(hash, element.getClassName());
+            hash = fnv(hash, element.getMethodName());
+            hash = (hash ^ element.getLineNumber()) * 0x100000001b3L;
+        }
+        return String.format("%016x", hash);
+    }
+
+    private static long fnv(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * 记录一次卡顿或ANR。
+     *
+     * @param stack     主线程堆栈。
+     * @param stage     阻塞阶段，取值为 {@link AnrRecord#STAGE_STALL} 或 {@link AnrRecord#STAGE_ANR}。
+     * @param blockedMs 测得的阻塞时长（毫秒）。
+     * @param newHang   是否是一次新的阻塞。同一次阻塞从卡顿升级为ANR时传false，不会重复计数。
+     * @return 更新后的记录；{@link AnrRecord#count} 为1表示这是第一次出现的卡死点。
+     */
+    public synchronized AnrRecord record(StackTraceElement[] stack, int stage, long blockedMs, boolean newHang) {
+        String hash = hashStack(stack);
+        long now = System.currentTimeMillis();
+        AnrRecord record = records.get(hash);
+        if (record == null) {
+            record = new AnrRecord(hash, now, joinFrames(stack));
+            records.put(hash, record);
+            evictIfNeeded();
+        }
+        if (newHang || record.count == 0) {
+            record.count++;
+        }
+        record.lastSeenMs = now;
+        record.stage = Math.max(record.stage, stage);
+        record.maxBlockedMs = Math.max(record.maxBlockedMs, blockedMs);
+        append(record);
+        return record;
+    }
+
+    /**
+     * 主线程恢复后，用最终测得的阻塞总时长更新记录。
+     *
+     * @param hash      记录的键。
+     * @param blockedMs 阻塞总时长（毫秒）。
+     */
+    public synchronized void updateDuration(String hash, long blockedMs) {
+        AnrRecord record = records.get(hash);
+        if (record == null || blockedMs <= record.maxBlockedMs) {
+            return;
+        }
+        record.maxBlockedMs = blockedMs;
+        append(record);
+    }
+
+    /**
+     * 获取所有记录的副本，按最近出现时间从旧到新排列。
+     */
+    public synchronized List<AnrRecord> getRecords() {
+        List<AnrRecord> result = new ArrayList<>(records.size());
+        for (AnrRecord record : records.values()) {
+            result.add(record.copy());
+        }
+        return result;
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, AnrRecord>> iterator = records.entrySet().iterator();
+        while (records.size() > MAX_RECORDS && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 把一条记录追加到当前文件，必要时先轮转文件。
+     */
+    private void append(AnrRecord record) {
+        byte[] line = record.toLine().getBytes(StandardCharsets.UTF_8);
+        if (currentFile.length() + line.length > MAX_FILE_BYTES) {
+            rotate();
+        }
+        try (OutputStream out = new FileOutputStream(currentFile, true)) {
+            out.write(line);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to persist ANR report", e);
+        }
+    }
+
+    /**
+     * 轮转文件：当前文件改名为备份，新文件写入最近出现的记录的快照，总大小不超过 {@link #SNAPSHOT_BYTES}。
+     * 没有写入快照的较早记录仍保留在内存和备份文件中。
+     */
+    private void rotate() {
+        if (backupFile.exists() && !backupFile.delete()) {
+            Log.w(TAG, "Unable to delete " + backupFile);
+        }
+        if (!currentFile.renameTo(backupFile)) {
+            Log.w(TAG, "Unable to rotate " + currentFile);
+        }
+        // 从最近出现的记录开始向前取，直到用完字节预算
+        List<byte[]> lines = new ArrayList<>();
+        long budget = SNAPSHOT_BYTES;
+        List<AnrRecord> newestFirst = new ArrayList<>(records.values());
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            byte[] line = newestFirst.get(i).toLine().getBytes(StandardCharsets.UTF_8);
+            if (line.length > budget) {
+                break;
+            }
+            budget -= line.length;
+            lines.add(line);
+        }
+        // 按从旧到新的顺序写入，恢复时的最近出现顺序保持不变
+        try (OutputStream out = new FileOutputStream(currentFile, false)) {
+            for (int i = lines.size() - 1; i >= 0; i--) {
+                out.write(lines.get(i));
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write ANR report snapshot", e);
+        }
+    }
+
+    /**
+     * 从文件中恢复记录，同一键以最后出现的一行为准。格式错误的行会被忽略。
+     */
+    private void load(File file) {
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                AnrRecord record = AnrRecord.fromLine(line);
+                if (record != null) {
+                    records.put(record.hash, record);
+                }
+            }
+            evictIfNeeded();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to load ANR reports from " + file, e);
+        }
+    }
+
+    private static String joinFrames(StackTraceElement[] stack) {
+        StringBuilder frames = new StringBuilder();
+        for (int i = 0; i < stack.length && i < MAX_FRAMES; i++) {
+            if (i > 0) {
+                frames.append(';');
+            }
+            frames.append(stack[i].getClassName()).append('.').append(stack[i].getMethodName())
+                    .append(':').append(stack[i].getLineNumber());
+        }
+        return frames.toString();
+    }
+
+    /**
+     * 一个去重后的卡死点记录。
+     */
+    public static final class AnrRecord {
+        public static final int STAGE_STALL = 1;
+        public static final int STAGE_ANR = 2;
+
+        // 主线程堆栈的稳定哈希
+        public final String hash;
+        // 首次出现的时间（墙上时钟，毫秒）
+        public final long firstSeenMs;
+        // 栈顶若干帧，以 ';' 分隔
+        public final String frames;
+        // 最近一次出现的时间（墙上时钟，毫秒）
+        public long lastSeenMs;
+        // 出现次数
+        public int count;
+        // 达到过的最高阶段
+        public int stage;
+        // 测得的最长阻塞时长（毫秒）
+        public long maxBlockedMs;
+
+        AnrRecord(String hash, long firstSeenMs, String frames) {
+            this.hash = hash;
+            this.firstSeenMs = firstSeenMs;
+            this.lastSeenMs = firstSeenMs;
+            this.frames = frames;
+        }
+
+        AnrRecord copy() {
+            AnrRecord copy = new AnrRecord(hash, firstSeenMs, frames);
+            copy.lastSeenMs = lastSeenMs;
+            copy.count = count;
+            copy.stage = stage;
+            copy.maxBlockedMs = maxBlockedMs;
+            return copy;
+        }
+
+        /**
+         * 序列化为一行紧凑文本：hash、stage、count、firstSeen、lastSeen、maxBlocked、frames，以制表符分隔。
+         */
+        String toLine() {
+            return hash + '\t' + stage + '\t' + count + '\t' + firstSeenMs + '\t' + lastSeenMs + '\t'
+                    + maxBlockedMs + '\t' + frames + '\n';
+        }
+
+        static AnrRecord fromLine(String line) {
+            String[] parts = line.split("\t", 7);
+            if (parts.length != 7) {
+                return null;
+            }
+            try {
+                AnrRecord record = new AnrRecord(parts[0], Long.parseLong(parts[3]), parts[6]);
+                record.stage = Integer.parseInt(parts[1]);
+                record.count = Integer.parseInt(parts[2]);
+                record.lastSeenMs = Long.parseLong(parts[4]);
+                record.maxBlockedMs = Long.parseLong(parts[5]);
+                return record;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.exercise.sdk;
+
+import android.app.Activity;
+import android.app.ActivityManager;
+import android.app.Application;
+import android.os.Bundle;
+import android.util.Log;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 进程前后台状态监控，供各监控组件在应用退到后台时暂停工作。
+ * <p>
+ * 工作原理：
+ * 1. 安装时通过 `ActivityManager.getMyMemoryState` 判断进程是否由用户界面拉起，作为初始状态。
+ *    被广播、服务等拉起的进程一开始就处于后台，各监控组件不会在没有界面的情况下空转。
+ * 2. 之后统计处于 started 状态的 Activity 数量：从0变为1时进入前台，从1变为0时进入后台。
+ *    因配置变化（例如旋转屏幕）而重建的 Activity 不会触发切换。
+ * 3. 状态切换时在主线程上回调所有 {@link Listener}。
+ * <p>
+ * 未安装时 {@link #isForeground()} 始终返回true，各组件按原来的方式持续工作。
+ */
+public class AppLifecycleMonitor {
+
+    private static final String TAG = "AppLifecycle";
+
+    // 单例实例
+    private static final AppLifecycleMonitor INSTANCE = new AppLifecycleMonitor();
+
+    /**
+     * 前后台切换的回调，在主线程上执行。
+     */
+    public interface Listener {
+        void onForeground();
+
+        void onBackground();
+    }
+
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    // 处于 started 状态的 Activity 数量，只在主线程上读写
+    private int startedCount;
+    private volatile boolean foreground = true;
+    private boolean installed;
+
+    private final Application.ActivityLifecycleCallbacks lifecycleCallbacks = new Application.ActivityLifecycleCallbacks() {
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {}
+
+        @Override
+        public void onActivityStarted(Activity activity) {
+            if (startedCount++ == 0 && !foreground) {
+                setForeground(true);
+            }
+        }
+
+        @Override
+        public void onActivityResumed(Activity activity) {}
+
+        @Override
+        public void onActivityPaused(Activity activity) {}
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+            startedCount = Math.max(0, startedCount - 1);
+            if (startedCount == 0 && foreground && !activity.isChangingConfigurations()) {
+                setForeground(false);
+            }
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {}
+    };
+
+    /**
+     * 私有构造函数，防止外部直接创建实例。
+     */
+    private AppLifecycleMonitor() {}
+
+    /**
+     * 获取AppLifecycleMonitor的单例。
+     *
+     * @return AppLifecycleMonitor的唯一实例。
+     */
+    public static AppLifecycleMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 安装前后台监控，应在应用启动时、其他监控组件启动之前调用一次，重复调用会被忽略。必须在主线程上调用。
+     *
+     * @param application 应用的Application实例。
+     */
+    public void install(Application application) {
+        if (installed) return;
+        installed = true;
+        ActivityManager.RunningAppProcessInfo processInfo = new ActivityManager.RunningAppProcessInfo();
+        ActivityManager.getMyMemoryState(processInfo);
+        foreground = processInfo.importance == ActivityManager.RunningAppProcessInfo.IMPORTANCE_FOREGROUND;
+        application.registerActivityLifecycleCallbacks(lifecycleCallbacks);
+    }
+
+    /**
+     * @return 应用当前是否处于前台。可在任意线程调用。
+     */
+    public boolean isForeground() {
+        return foreground;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void setForeground(boolean foreground) {
+        this.foreground = foreground;
+        Log.d(TAG, foreground ? "App entered foreground" : "App entered background");
+        for (Listener listener : listeners) {
+            if (foreground) {
+                listener.onForeground();
+            } else {
+                listener.onBackground();
+            }
+        }
+    }
+}
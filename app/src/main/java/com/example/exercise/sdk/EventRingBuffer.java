@@ -0,0 +1,128 @@
+package com.example.exercise.sdk;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁的多生产者、单消费者（MPSC）定长环形缓冲区，用于承载SDK的所有遥测事件。
+ * <p>
+ * 设计要点：
+ * 1. 事件槽位以“结构数组”的形式预先分配（类型、时间戳、两个数值、一个整数和一个标签引用各占一个数组），
+ *    生产者只写入基本类型和已有对象的引用，发布事件不产生任何对象分配。
+ * 2. 每个槽位有一个序号，生产者通过CAS抢占写入位置，写完后以release语义更新序号完成发布；
+ *    消费者看到序号就绪后读取数据，再把序号推进一圈归还槽位（Vyukov 有界队列算法）。
+ * 3. 缓冲区满时 {@link #offer} 立即返回false并累加溢出计数，生产者永远不会阻塞或自旋等待消费者。
+ */
+public class EventRingBuffer {
+
+    private final int capacity;
+    private final int mask;
+
+    // 槽位数据（结构数组）
+    private final int[] types;
+    private final long[] timestamps;
+    private final long[] values;
+    private final long[] extras;
+    private final int[] args;
+    private final String[] labels;
+    // 每个槽位的序号，用于在生产者与消费者之间发布数据
+    private final AtomicLongArray sequences;
+
+    // 生产者下一个要抢占的位置
+    private final AtomicLong tail = new AtomicLong();
+    // 消费者下一个要读取的位置，只由消费者线程访问
+    private long head;
+    // 因缓冲区已满而丢弃的事件数
+    private final AtomicLong overflowCount = new AtomicLong();
+
+    /**
+     * 构造函数。
+     *
+     * @param capacity 容量，会向上取整为2的幂。
+     */
+    public EventRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.types = new int[size];
+        this.timestamps = new long[size];
+        this.values = new long[size];
+        this.extras = new long[size];
+        this.args = new int[size];
+        this.labels = new String[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 发布一个事件，可由任意线程调用，不阻塞、不分配对象。
+     *
+     * @param type      事件类型，见 {@link TelemetryEvent} 中的 TYPE_* 常量。
+     * @param timestamp 事件时间戳（System.nanoTime）。
+     * @param value     主数值，通常为耗时（纳秒）。
+     * @param extra     附加数值，含义由事件类型决定。
+     * @param arg       附加整数，含义由事件类型决定。
+     * @param label     标签，必须是已经存在的字符串，不要为了发布事件而拼接新字符串。
+     * @return 是否发布成功；缓冲区已满时返回false。
+     */
+    public boolean offer(int type, long timestamp, long value, long extra, int arg, String label) {
+        long position;
+        while (true) {
+            position = tail.get();
+            long sequence = sequences.get((int) (position & mask));
+            long diff = sequence - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (diff < 0) {
+                // 槽位尚未被消费者归还，说明缓冲区已满
+                overflowCount.incrementAndGet();
+                return false;
+            }
+            // diff > 0：其他生产者已经抢占了该位置，重新读取tail
+        }
+        int index = (int) (position & mask);
+        types[index] = type;
+        timestamps[index] = timestamp;
+        values[index] = value;
+        extras[index] = extra;
+        args[index] = arg;
+        labels[index] = label;
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * 读取一个事件到调用方提供的对象中。只能由唯一的消费者线程调用。
+     *
+     * @param out 用于接收事件数据的可复用对象。
+     * @return 是否读取到事件；缓冲区为空（或下一个事件尚未发布完成）时返回false。
+     */
+    public boolean poll(TelemetryEvent out) {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return false;
+        }
+        out.type = types[index];
+        out.timestamp = timestamps[index];
+        out.value = values[index];
+        out.extra = extras[index];
+        out.arg = args[index];
+        out.label = labels[index];
+        labels[index] = null;
+        sequences.lazySet(index, head + capacity);
+        head++;
+        return true;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+}
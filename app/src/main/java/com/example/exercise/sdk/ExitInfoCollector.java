@@ -0,0 +1,306 @@
+package com.example.exercise.sdk;
+
+import android.app.ActivityManager;
+import android.app.ApplicationExitInfo;
+import android.content.Context;
+import android.os.Build;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 在下次启动时读取系统记录的历史进程退出信息（`ApplicationExitInfo`，Android 11 及以上）。
+ * <p>
+ * 进程内的看门狗只能看到自己存活期间观测到的卡顿，进程最终是被系统判定ANR、因内存不足被杀还是崩溃，
+ * 只有系统知道。本类把这些系统记录作为“真实结果”补充到SDK的报告中：
+ * 1. 启动后在一个低优先级的后台线程中调用 `getHistoricalProcessExitReasons`，系统按时间从新到旧返回本应用最近的若干条记录。
+ * 2. 已上报的最新记录的时间戳保存在 `filesDir/anr/exit_cursor` 中，再次启动时遇到不晚于它的记录立即停止，
+ *    每条记录只上报一次，且通常只需要遍历一两条。游标只前进到 {@link ReportUploader} 接收了的记录，
+ *    上报器未启动时记录保留到下次启动再处理，因此应在上报器启动之后再调用 {@link #start(Context)}。
+ * 3. 每条新记录输出一份 "Exit Report"，包含退出原因、退出时的进程重要性和内存占用；
+ *    系统ANR还会解析 traces 中的主线程栈帧。报告交给 {@link ReportUploader}，并发布 {@link TelemetryEvent#TYPE_EXIT} 事件。
+ * 4. 系统ANR由 {@link ExitReportCorrelator} 与 {@link AnrReportStore} 中的看门狗记录关联，区分“看门狗已发现”和“看门狗漏报”。
+ *    为了让关联精确，{@link AnrMonitor} 发现卡顿时通过 {@link #markHang(String)} 把卡死点的哈希写入进程状态摘要，
+ *    系统会把它原样附在之后的退出记录上。
+ * <p>
+ * 在 Android 11 以下的系统上所有方法都不做任何事。
+ */
+public class ExitInfoCollector {
+
+    private static final String TAG = "ExitReport";
+    // 保存已处理位置的文件名，与ANR记录放在同一目录
+    private static final String CURSOR_FILE_NAME = "exit_cursor";
+    // 读取ANR traces 的字节数上限，主线程通常在最前面
+    private static final int MAX_TRACE_BYTES = 256 * 1024;
+    // 报告中列出的系统栈帧数
+    private static final int REPORT_FRAMES = 10;
+
+    // 单例实例
+    private static final ExitInfoCollector INSTANCE = new ExitInfoCollector();
+
+    private volatile ActivityManager activityManager;
+    private boolean started;
+
+    /**
+     * 私有构造函数，防止外部直接创建实例。
+     */
+    private ExitInfoCollector() {}
+
+    /**
+     * 获取ExitInfoCollector的单例。
+     *
+     * @return ExitInfoCollector的唯一实例。
+     */
+    public static ExitInfoCollector getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 上报一条退出记录。
+     */
+    interface ExitReporter {
+        /**
+         * @param index 记录的序号，从旧到新。
+         * @return 报告是否已被接收。
+         */
+        boolean report(int index);
+    }
+
+    /**
+     * 在后台线程中处理上次启动以来新增的退出记录，只有第一次调用有效。应在 {@link ReportUploader} 启动之后调用。
+     *
+     * @param context 上下文，用于获取系统服务和应用私有目录。
+     */
+    public synchronized void start(Context context) {
+        if (started || Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
+            return;
+        }
+        started = true;
+        Context appContext = context.getApplicationContext();
+        activityManager = appContext.getSystemService(ActivityManager.class);
+        File dir = new File(appContext.getFilesDir(), "anr");
+        String packageName = appContext.getPackageName();
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            try {
+                collect(packageName, dir);
+            } catch (RuntimeException e) {
+                // 部分厂商系统上的实现不可靠，读取失败不应影响应用
+                Log.w(TAG, "Unable to read historical exit reasons", e);
+            }
+        }, "ExitInfoCollector");
+        thread.start();
+    }
+
+    /**
+     * 把当前卡死点的哈希写入进程状态摘要，进程随后被系统杀死时会附在退出记录上。可在任意线程调用。
+     *
+     * @param hangHash 卡死点的哈希；主线程恢复时传null清除。
+     */
+    public void markHang(String hangHash) {
+        ActivityManager manager = activityManager;
+        if (manager == null) {
+            return;
+        }
+        String summary = hangHash == null ? "" : ExitReportCorrelator.encodeSummary(hangHash);
+        try {
+            manager.setProcessStateSummary(summary.getBytes(StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Unable to set process state summary", e);
+        }
+    }
+
+    private void collect(String packageName, File dir) {
+        List<ApplicationExitInfo> exits = activityManager.getHistoricalProcessExitReasons(packageName, 0, 0);
+        if (exits == null || exits.isEmpty()) {
+            return;
+        }
+        File cursorFile = new File(dir, CURSOR_FILE_NAME);
+        long cursor = readCursor(cursorFile);
+        List<ApplicationExitInfo> fresh = new ArrayList<>();
+        for (ApplicationExitInfo exit : exits) {
+            // 记录按时间从新到旧排列，遇到处理过的记录即可停止
+            if (exit.getTimestamp() <= cursor) {
+                break;
+            }
+            fresh.add(exit);
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        // 旧的先处理，与发生顺序一致
+        Collections.reverse(fresh);
+        List<AnrReportStore.AnrRecord> records = null;
+        long[] timestamps = new long[fresh.size()];
+        for (int i = 0; i < fresh.size(); i++) {
+            ApplicationExitInfo exit = fresh.get(i);
+            timestamps[i] = exit.getTimestamp();
+            if (exit.getReason() == ApplicationExitInfo.REASON_ANR && records == null) {
+                // 只读取记录，不会写入，与看门狗线程中的实例互不干扰
+                records = new AnrReportStore(dir).getRecords();
+            }
+        }
+        List<AnrReportStore.AnrRecord> anrRecords = records;
+        long reported = reportInOrder(cursor, timestamps, i -> report(fresh.get(i), anrRecords));
+        if (reported != cursor) {
+            writeCursor(cursorFile, reported);
+        }
+    }
+
+    /**
+     * 按从旧到新的顺序上报记录，遇到未被接收的记录即停止，剩下的记录留到下次启动再处理。
+     *
+     * @param cursor     当前游标。
+     * @param timestamps 待上报记录的时间戳，从旧到新排列。
+     * @return 新的游标，即最后一条被接收的记录的时间戳；一条都没有被接收时返回原游标。
+     */
+    static long reportInOrder(long cursor, long[] timestamps, ExitReporter reporter) {
+        for (int i = 0; i < timestamps.length; i++) {
+            if (!reporter.report(i)) {
+                break;
+            }
+            cursor = timestamps[i];
+        }
+        return cursor;
+    }
+
+    /**
+     * 输出一条记录的报告并交给上报器。
+     *
+     * @return 上报器是否接收了报告；未接收时不发布事件，避免下次启动重新处理时重复计数。
+     */
+    private boolean report(ApplicationExitInfo exit, List<AnrReportStore.AnrRecord> records) {
+        List<String> mainFrames = Collections.emptyList();
+        if (exit.getReason() == ApplicationExitInfo.REASON_ANR) {
+            String trace = readTrace(exit);
+            if (trace != null) {
+                mainFrames = ExitReportCorrelator.parseMainThreadFrames(trace);
+            }
+        }
+        byte[] summaryBytes = exit.getProcessStateSummary();
+        String summaryHash = summaryBytes == null ? null
+                : ExitReportCorrelator.decodeSummary(new String(summaryBytes, StandardCharsets.UTF_8));
+
+        StringBuilder report = new StringBuilder();
+        report.append("\n");
+        report.append("================ Exit Report ================\n");
+        report.append(String.format("| Reason: %s (status %d)\n", reasonName(exit.getReason()), exit.getStatus()));
+        report.append(String.format("| Time: %tF %<tT\n", exit.getTimestamp()));
+        report.append(String.format("| Process: %s (pid %d)\n", exit.getProcessName(), exit.getPid()));
+        report.append(String.format("| Importance: %d\n", exit.getImportance()));
+        report.append(String.format("| PSS / RSS: %d / %d KB\n", exit.getPss(), exit.getRss()));
+        if (exit.getDescription() != null) {
+            report.append(String.format("| Description: %s\n", exit.getDescription()));
+        }
+        if (summaryHash != null) {
+            report.append(String.format("| Hang At Exit: %s\n", summaryHash));
+        }
+        if (exit.getReason() == ApplicationExitInfo.REASON_ANR) {
+            ExitReportCorrelator.Match match = ExitReportCorrelator.findMatch(
+                    records, exit.getTimestamp(), summaryHash, mainFrames);
+            if (match == null) {
+                report.append("| Watchdog: missed (no matching watchdog report)\n");
+            } else {
+                report.append(String.format("| Watchdog: %s [%s, seen %dx, max blocked %d ms, %d frames in common]\n",
+                        match.method == ExitReportCorrelator.Match.BY_SUMMARY ? "detected" : "likely detected",
+                        match.record.hash, match.record.count, match.record.maxBlockedMs, match.frameOverlap));
+            }
+            if (!mainFrames.isEmpty()) {
+                report.append("| Main Thread (system trace):\n");
+                for (int i = 0; i < mainFrames.size() && i < REPORT_FRAMES; i++) {
+                    report.append("|   at ").append(mainFrames.get(i)).append("\n");
+                }
+            }
+        }
+        report.append("=============================================");
+
+        Log.w(TAG, report.toString());
+        if (!ReportUploader.getInstance().enqueue("exit", report.toString())) {
+            return false;
+        }
+        TelemetryBus.getInstance().publish(TelemetryEvent.TYPE_EXIT, exit.getTimestamp(), exit.getPss(),
+                exit.getReason(), reasonName(exit.getReason()));
+        return true;
+    }
+
+    private static String readTrace(ApplicationExitInfo exit) {
+        try (InputStream in = exit.getTraceInputStream()) {
+            if (in == null) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while (out.size() < MAX_TRACE_BYTES && (read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to read ANR trace", e);
+            return null;
+        }
+    }
+
+    private static long readCursor(File file) {
+        if (!file.exists()) {
+            return 0;
+        }
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] bytes = new byte[32];
+            int length = in.read(bytes);
+            return length <= 0 ? 0 : Long.parseLong(new String(bytes, 0, length, StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            Log.w(TAG, "Unable to read exit cursor, starting over", e);
+            return 0;
+        }
+    }
+
+    private static void writeCursor(File file, long timestamp) {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            Log.w(TAG, "Unable to create dir " + dir);
+            return;
+        }
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(Long.toString(timestamp).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to write exit cursor", e);
+        }
+    }
+
+    /**
+     * 返回退出原因的名称。
+     */
+    static String reasonName(int reason) {
+        switch (reason) {
+            case ApplicationExitInfo.REASON_EXIT_SELF: return "exit_self";
+            case ApplicationExitInfo.REASON_SIGNALED: return "signaled";
+            case ApplicationExitInfo.REASON_LOW_MEMORY: return "low_memory";
+            case ApplicationExitInfo.REASON_CRASH: return "crash";
+            case ApplicationExitInfo.REASON_CRASH_NATIVE: return "crash_native";
+            case ApplicationExitInfo.REASON_ANR: return "anr";
+            case ApplicationExitInfo.REASON_INITIALIZATION_FAILURE: return "initialization_failure";
+            case ApplicationExitInfo.REASON_PERMISSION_CHANGE: return "permission_change";
+            case ApplicationExitInfo.REASON_EXCESSIVE_RESOURCE_USAGE: return "excessive_resource_usage";
+            case ApplicationExitInfo.REASON_USER_REQUESTED: return "user_requested";
+            case ApplicationExitInfo.REASON_USER_STOPPED: return "user_stopped";
+            case ApplicationExitInfo.REASON_DEPENDENCY_DIED: return "dependency_died";
+            case ApplicationExitInfo.REASON_OTHER: return "other";
+            case ApplicationExitInfo.REASON_FREEZER: return "freezer";
+            case ApplicationExitInfo.REASON_PACKAGE_STATE_CHANGE: return "package_state_change";
+            case ApplicationExitInfo.REASON_PACKAGE_UPDATED: return "package_updated";
+            default: return "unknown";
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.exercise.sdk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 把系统记录的进程退出信息与 {@link AnrReportStore} 中看门狗的记录关联起来，只包含纯计算逻辑。
+ * <p>
+ * 关联方式按可靠程度依次为：
+ * 1. 进程状态摘要：{@link AnrMonitor} 检测到卡顿时把卡死点的哈希写入系统保存的进程状态摘要
+ *    （见 {@link #encodeSummary(String)}），进程退出后系统会把它原样附在退出记录上，可以精确对应到同一条记录。
+ * 2. 时间和堆栈：系统ANR的 traces 中解析出主线程栈帧，与退出时间附近出现过的记录比较栈帧重合数，取重合最多的一条。
+ */
+public final class ExitReportCorrelator {
+
+    // 看门狗记录与退出时间的最大间隔，系统判定ANR通常在卡顿开始后5~10秒，再留出弹窗等待用户选择的时间
+    static final long MATCH_WINDOW_MS = 60_000;
+    // 进程状态摘要的前缀
+    private static final String SUMMARY_PREFIX = "hang=";
+    // traces 中线程段的起始行，例如 "main" prio=5 tid=1 Blocked
+    private static final Pattern THREAD_HEADER = Pattern.compile("^\"(.*)\" .*tid=\\d+");
+    // traces 中的Java栈帧，例如 at com.example.Foo.bar(Foo.java:42)
+    private static final Pattern JAVA_FRAME = Pattern.compile("^\\s*at ([\\w$.<>]+)\\.([\\w$<>]+)\\(([^)]*)\\)");
+
+    private ExitReportCorrelator() {}
+
+    /**
+     * 生成写入进程状态摘要的内容。
+     */
+    public static String encodeSummary(String hangHash) {
+        return SUMMARY_PREFIX + hangHash;
+    }
+
+    /**
+     * 从进程状态摘要中取出卡死点的哈希。
+     *
+     * @return 哈希；摘要为空或不是本SDK写入的内容时返回null。
+     */
+    public static String decodeSummary(String summary) {
+        if (summary == null || !summary.startsWith(SUMMARY_PREFIX) || summary.length() == SUMMARY_PREFIX.length()) {
+            return null;
+        }
+        return summary.substring(SUMMARY_PREFIX.length()).trim();
+    }
+
+    /**
+     * 从系统ANR的 traces 文本中解析主线程的Java栈帧。
+     *
+     * @return 栈帧列表，从栈顶开始，格式与 {@link AnrReportStore} 记录中的栈帧一致（"类名.方法名:行号"）。
+     */
+    public static List<String> parseMainThreadFrames(String trace) {
+        List<String> frames = new ArrayList<>();
+        boolean inMain = false;
+        for (String line : trace.split("\n")) {
+            Matcher header = THREAD_HEADER.matcher(line);
+            if (header.find()) {
+                if (inMain) {
+                    break;
+                }
+                inMain = "main".equals(header.group(1));
+                continue;
+            }
+            if (!inMain) {
+                continue;
+            }
+            Matcher frame = JAVA_FRAME.matcher(line);
+            if (frame.find()) {
+                String location = frame.group(3);
+                int colon = location.lastIndexOf(':');
+                // 与 StackTraceElement#getLineNumber() 一致：本地方法为-2，行号未知为-1
+                String lineNumber = colon >= 0 ? location.substring(colon + 1)
+                        : location.startsWith("Native") ? "-2" : "-1";
+                frames.add(frame.group(1) + "." + frame.group(2) + ":" + lineNumber);
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * 为一次退出查找对应的看门狗记录。
+     *
+     * @param records     看门狗的记录。
+     * @param exitTimeMs  退出发生的时间（墙上时钟，毫秒）。
+     * @param summaryHash 进程状态摘要中的哈希，没有时为null。
+     * @param mainFrames  系统 traces 中主线程的栈帧，没有时为空列表。
+     * @return 匹配结果；找不到时返回null。
+     */
+    public static Match findMatch(List<AnrReportStore.AnrRecord> records, long exitTimeMs,
+                                  String summaryHash, List<String> mainFrames) {
+        if (summaryHash != null) {
+            for (AnrReportStore.AnrRecord record : records) {
+                if (record.hash.equals(summaryHash)) {
+                    return new Match(record, Match.BY_SUMMARY, overlap(record, mainFrames));
+                }
+            }
+        }
+
+        AnrReportStore.AnrRecord best = null;
+        int bestOverlap = -1;
+        long bestDistance = Long.MAX_VALUE;
+        for (AnrReportStore.AnrRecord record : records) {
+            long distance = exitTimeMs - record.lastSeenMs;
+            if (distance < -MATCH_WINDOW_MS / 10 || distance > MATCH_WINDOW_MS) {
+                continue;
+            }
+            int overlap = overlap(record, mainFrames);
+            long absDistance = Math.abs(distance);
+            if (overlap > bestOverlap || (overlap == bestOverlap && absDistance < bestDistance)) {
+                best = record;
+                bestOverlap = overlap;
+                bestDistance = absDistance;
+            }
+        }
+        // 有系统栈帧可比较时，完全不重合的记录只是时间上的巧合
+        if (best == null || (!mainFrames.isEmpty() && bestOverlap == 0)) {
+            return null;
+        }
+        return new Match(best, Match.BY_TIME, bestOverlap);
+    }
+
+    /**
+     * 计算记录中的栈帧与系统栈帧的重合数。
+     */
+    static int overlap(AnrReportStore.AnrRecord record, List<String> mainFrames) {
+        if (mainFrames.isEmpty() || record.frames.isEmpty()) {
+            return 0;
+        }
+        Set<String> recorded = new HashSet<>();
+        Collections.addAll(recorded, record.frames.split(";"));
+        int overlap = 0;
+        for (String frame : mainFrames) {
+            if (recorded.contains(frame)) {
+                overlap++;
+            }
+        }
+        return overlap;
+    }
+
+    /**
+     * 关联结果。
+     */
+    public static final class Match {
+        // 通过进程状态摘要精确匹配
+        public static final int BY_SUMMARY = 1;
+        // 通过时间和栈帧推断
+        public static final int BY_TIME = 2;
+
+        public final AnrReportStore.AnrRecord record;
+        public final int method;
+        // 与系统栈帧重合的栈帧数
+        public final int frameOverlap;
+
+        Match(AnrReportStore.AnrRecord record, int method, int frameOverlap) {
+            this.record = record;
+            this.method = method;
+            this.frameOverlap = frameOverlap;
+        }
+    }
+}
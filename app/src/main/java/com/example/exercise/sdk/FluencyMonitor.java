@@ -1,43 +1,69 @@
 package com.example.exercise.sdk;
 
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.hardware.display.DisplayManager;
+import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.Choreographer;
+import android.view.Display;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
 
 /**
- * 流畅性监控器，用于实时计算并报告应用的帧率（FPS）。
+ * 流畅性监控器，用于实时计算并报告应用的帧率（FPS）和卡顿情况。
  * <p>
  * 工作原理：
  * 1. 利用 Android 底层的 `Choreographer` API，该API会在每一帧绘制时发出回调。
- * 2. 通过计算两次 `doFrame` 回调之间的时间差，以及这段时间内的总帧数，可以精确地计算出当前的实时帧率。
- * 3. SDK会持续收集每一秒的FPS数据，并在监控结束时生成一份包含平均/最低帧率和卡顿次数的性能报告。
+ * 2. 监控以“会话”（{@link FluencySession}）为单位进行统计，每个页面或自定义场景都有自己独立的帧数据。
+ *    通过 {@link #install(Application)} 注册 `ActivityLifecycleCallbacks` 后，每个Activity会自动获得一个会话：
+ *    页面可见（onResume ~ onPause）期间的帧计入该会话，页面销毁时输出该页面的报告。
+ * 3. 也可以通过 {@link #beginScene(String)} / {@link #endScene(String)} 手动标记一个场景（例如列表滚动），与页面会话并行统计。
+ * 4. 全局只注册一个 `Choreographer` 回调，计算出每一帧的耗时后分发给所有活跃会话；没有活跃会话时自动停止回调。
+ * 5. 读取屏幕刷新率，并由 {@link JankClassifier} 按每帧错过的vsync数把帧分为轻微卡顿、严重卡顿和冻帧。
+ * 6. 每次帧回调的耗时计入 {@link OverheadMonitor}；SDK开销超出预算时改为周期性地采样帧，而不是记录每一帧。
+ * 7. 应用退到后台时（见 {@link AppLifecycleMonitor}）所有会话暂停，帧回调被移除，后台时间不计入会话的监控时长和FPS统计。
+ * 8. 若 {@link LooperMonitor} 已启动，长帧会与拖慢它的主线程消息关联，并在会话报告后一并输出消息报告和 {@link StackSampler} 的采样报告。
  */
 public class FluencyMonitor {
 
+    private static final String TAG = "FluencyReport";
+
     // 单例实例，确保全局只有一个流畅性监控器
     private static final FluencyMonitor INSTANCE = new FluencyMonitor();
-    // 用于接收FPS数据的回调监听器
-    private FluencyListener listener;
-    // 一个与主线程Looper绑定的Handler，用于确保回调在主线程上执行
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
-    // 用于存储监控期间每一秒的FPS历史数据
-    private final List<Integer> fpsHistory = new ArrayList<>();
-    // 监控开始时的时间戳，用于计算总时长
-    private long monitoringStartTime;
+    // 所有会话，按名称索引
+    private final Map<String, FluencySession> sessions = new HashMap<>();
+    // 当前活跃的会话列表，帧回调中按下标遍历，避免创建迭代器
+    private final List<FluencySession> activeSessions = new ArrayList<>();
 
-    // 上一帧绘制的时间戳（纳秒）
-    private long lastFrameTimeNanos = 0;
-    // 在一个计算周期内累计的帧数
-    private int frameCount = 0;
-    // 监控是否正在运行的标志位
+    // 用于读取屏幕刷新率并监听其变化，调用install之前为null
+    private DisplayManager displayManager;
+    // 当前屏幕刷新率
+    private float refreshRate = JankClassifier.DEFAULT_REFRESH_RATE;
+
+    // 上一帧回调的时间戳（纳秒），0表示尚未收到第一帧
+    private long previousFrameNanos = 0;
+    // Choreographer回调是否已注册
     private boolean isRunning = false;
+    // 应用是否处于后台，后台期间不注册Choreographer回调
+    private boolean backgrounded = false;
+
+    // 帧采样：每个周期只在前 sampleRecordNanos 内记录帧，0表示记录每一帧。由 OverheadMonitor 在开销超出预算时设置
+    private long sampleRecordNanos = 0;
+    private long samplePeriodMs = 0;
+    // 当前采样周期第一帧的时间戳（纳秒），0表示新周期尚未开始
+    private long sampleWindowStartNanos = 0;
+    // 是否正处于帧采样的间歇期
+    private boolean samplingPaused = false;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     /**
      * Choreographer的回调实现。
@@ -50,35 +76,110 @@ public class FluencyMonitor {
             if (!isRunning) {
                 return;
             }
+            long startNanos = System.nanoTime();
+
+            // 第一帧只记录时间戳，之后把本帧耗时分发给所有活跃会话
+            if (previousFrameNanos != 0) {
+                long frameNanos = frameTimeNanos - previousFrameNanos;
+                for (int i = 0; i < activeSessions.size(); i++) {
+                    activeSessions.get(i).onFrame(frameTimeNanos, frameNanos);
+                }
+                // 让消息监控把长帧与拖慢它的慢消息关联起来
+                LooperMonitor.getInstance().onFrame(previousFrameNanos, frameTimeNanos);
+            }
+            previousFrameNanos = frameTimeNanos;
 
-            // 如果是第一帧，则只记录时间戳，不进行计算
-            if (lastFrameTimeNanos == 0) {
-                lastFrameTimeNanos = frameTimeNanos;
+            if (sampleRecordNanos > 0 && isSampleWindowOver(frameTimeNanos)) {
+                // 帧采样模式下本周期的采集时长已满，停止回调直到下一个周期开始
+                pauseForSampling();
             } else {
-                // 累计帧数
-                frameCount++;
+                // 请求下一次的帧绘制回调，形成一个持续的监控循环
+                Choreographer.getInstance().postFrameCallback(this);
             }
+            OverheadMonitor.getInstance().record(OverheadMonitor.COMPONENT_FRAME, System.nanoTime() - startNanos);
+        }
+    };
 
-            // 计算自上一个计算周期以来的时间差
-            long intervalNanos = frameTimeNanos - lastFrameTimeNanos;
-            // 当时间差超过1秒时，进行一次FPS计算和数据记录
-            if (intervalNanos >= TimeUnit.SECONDS.toNanos(1)) {
-                // 计算FPS的公式：总帧数 / (时间差 / 1秒的纳秒数)
-                final double fps = frameCount * 1_000_000_000.0 / intervalNanos;
-                int currentFps = (int) Math.round(fps);
-                // 将当前计算出的FPS添加到历史记录中
-                fpsHistory.add(currentFps);
-                // 如果设置了监听器，则通过Handler在主线程上回调FPS数据
-                if (listener != null) {
-                    mainHandler.post(() -> listener.onFluencyData(currentFps));
-                }
-                // 重置上一计算周期的时间戳和帧数，开始新的计算周期
-                lastFrameTimeNanos = frameTimeNanos;
-                frameCount = 0;
+    /**
+     * 帧采样模式下，在下一个周期开始时恢复帧回调。
+     */
+    private final Runnable resumeSamplingTask = new Runnable() {
+        @Override
+        public void run() {
+            samplingPaused = false;
+            if (isRunning) {
+                Choreographer.getInstance().postFrameCallback(frameCallback);
             }
+        }
+    };
+
+    /**
+     * 监听默认屏幕的刷新率变化。支持动态刷新率（如 60/90/120Hz 自适应）的设备会在运行时切换刷新率。
+     */
+    private final DisplayManager.DisplayListener displayListener = new DisplayManager.DisplayListener() {
+        @Override
+        public void onDisplayAdded(int displayId) {}
+
+        @Override
+        public void onDisplayRemoved(int displayId) {}
 
-            // 请求下一次的帧绘制回调，形成一个持续的监控循环
-            Choreographer.getInstance().postFrameCallback(this);
+        @Override
+        public void onDisplayChanged(int displayId) {
+            if (displayId == Display.DEFAULT_DISPLAY) {
+                updateRefreshRate();
+            }
+        }
+    };
+
+    /**
+     * 应用退到后台时暂停所有会话（包括自定义场景）并移除帧回调，回到前台时恢复。
+     */
+    private final AppLifecycleMonitor.Listener appLifecycleListener = new AppLifecycleMonitor.Listener() {
+        @Override
+        public void onForeground() {
+            setBackgrounded(false);
+        }
+
+        @Override
+        public void onBackground() {
+            setBackgrounded(true);
+        }
+    };
+
+    /**
+     * 跟随Activity生命周期自动创建、激活、暂停和结束页面会话。
+     */
+    private final Application.ActivityLifecycleCallbacks lifecycleCallbacks = new Application.ActivityLifecycleCallbacks() {
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+            getActivitySession(activity);
+        }
+
+        @Override
+        public void onActivityStarted(Activity activity) {}
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+            setSessionActive(getActivitySession(activity), true);
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+            FluencySession session = sessions.get(sessionKey(activity));
+            if (session != null) {
+                setSessionActive(session, false);
+            }
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {}
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+            endSession(sessionKey(activity));
         }
     };
 
@@ -97,69 +198,204 @@ public class FluencyMonitor {
     }
 
     /**
-     * 启动流畅性监控。
+     * 安装流畅性监控：读取屏幕刷新率，并注册Activity生命周期回调，为每个页面自动维护会话。
+     * 应在应用启动时调用一次，重复调用会被忽略。
      *
-     * @param listener 用于接收实时FPS数据的回调监听器。
+     * @param application 应用的Application实例。
      */
-    public void start(FluencyListener listener) {
-        if (isRunning) return;
-        this.listener = listener;
-        this.lastFrameTimeNanos = 0;
-        this.frameCount = 0;
-        this.fpsHistory.clear();
-        this.monitoringStartTime = System.currentTimeMillis();
-        this.isRunning = true;
-        Choreographer.getInstance().postFrameCallback(frameCallback);
+    public void install(Application application) {
+        if (displayManager != null) return;
+        displayManager = (DisplayManager) application.getSystemService(Context.DISPLAY_SERVICE);
+        updateRefreshRate();
+        displayManager.registerDisplayListener(displayListener, null);
+        application.registerActivityLifecycleCallbacks(lifecycleCallbacks);
+        backgrounded = !AppLifecycleMonitor.getInstance().isForeground();
+        AppLifecycleMonitor.getInstance().addListener(appLifecycleListener);
     }
 
     /**
-     * 停止流畅性监控。
+     * 获取（必要时创建）某个Activity对应的页面会话。
+     * 通常在Activity的onCreate中调用，用于给该页面的会话设置实时FPS监听器。
+     *
+     * @param activity 目标Activity。
+     * @return 该Activity的会话。
      */
-    public void stop() {
-        isRunning = false;
-        Choreographer.getInstance().removeFrameCallback(frameCallback);
+    public FluencySession getActivitySession(Activity activity) {
+        return getOrCreateSession(sessionKey(activity));
     }
 
     /**
-     * 生成并打印流畅性报告。
-     * 报告包含平均FPS、最低FPS和高卡顿次数等关键性能指标。
+     * 开始一个自定义场景会话，场景会话立即处于活跃状态，与页面会话并行统计。
+     *
+     * @param scene 场景名称，例如 "forecast-scroll"。
+     * @return 该场景的会话。
      */
-    public void generateReport() {
-        if (fpsHistory.isEmpty()) {
-            Log.d("FluencyReport", "No fluency data collected.");
+    public FluencySession beginScene(String scene) {
+        FluencySession session = getOrCreateSession(scene);
+        setSessionActive(session, true);
+        return session;
+    }
+
+    /**
+     * 结束一个自定义场景会话，并输出该场景的报告。
+     *
+     * @param scene 场景名称。
+     */
+    public void endScene(String scene) {
+        endSession(scene);
+    }
+
+    /**
+     * 从默认屏幕读取当前刷新率，并同步给所有会话。
+     */
+    private void updateRefreshRate() {
+        if (displayManager == null) {
+            return;
+        }
+        Display display = displayManager.getDisplay(Display.DEFAULT_DISPLAY);
+        if (display == null) {
             return;
         }
+        refreshRate = display.getRefreshRate();
+        for (FluencySession session : sessions.values()) {
+            session.setRefreshRate(refreshRate);
+        }
+    }
+
+    /**
+     * 计算Activity会话的名称。同一个Activity类可能同时存在多个实例，因此附加实例标识。
+     */
+    private static String sessionKey(Activity activity) {
+        return activity.getClass().getSimpleName() + "#" + Integer.toHexString(System.identityHashCode(activity));
+    }
+
+    private FluencySession getOrCreateSession(String name) {
+        FluencySession session = sessions.get(name);
+        if (session == null) {
+            session = new FluencySession(name, refreshRate, SystemClock::uptimeMillis, backgrounded);
+            sessions.put(name, session);
+        }
+        return session;
+    }
 
-        long durationSeconds = (System.currentTimeMillis() - monitoringStartTime) / 1000;
-        int sum = 0;
-        int jankyFramesCount = 0;
-        // 定义高卡顿的阈值，当FPS低于50时，我们认为是一次高卡顿
-        final int JANK_THRESHOLD = 50;
+    /**
+     * 激活或暂停一个会话，并根据活跃会话的数量启动或停止Choreographer回调。
+     */
+    private void setSessionActive(FluencySession session, boolean active) {
+        if (session.isActive() == active) {
+            return;
+        }
+        session.setActive(active);
+        if (active) {
+            activeSessions.add(session);
+        } else {
+            activeSessions.remove(session);
+        }
+        updateFrameCallback();
+    }
 
-        for (int fps : fpsHistory) {
-            sum += fps;
-            if (fps < JANK_THRESHOLD) {
-                jankyFramesCount++;
+    /**
+     * 结束并移除一个会话，输出其报告，同时释放其监听器，避免持有页面引用。
+     */
+    private void endSession(String name) {
+        FluencySession session = sessions.remove(name);
+        if (session == null) {
+            return;
+        }
+        setSessionActive(session, false);
+        session.setListener(null);
+        String report = session.buildReport();
+        if (report == null) {
+            Log.d(TAG, "No fluency data collected for " + name + ".");
+        } else {
+            Log.d(TAG, report);
+            ReportUploader.getInstance().enqueue("fluency", report);
+        }
+        // 该会话出现过卡顿时，附带输出最近的慢消息，便于定位卡顿来源
+        if (session.getJankClassifier().getTotalJankCount() > 0) {
+            if (LooperMonitor.getInstance().isRunning()) {
+                LooperMonitor.getInstance().dumpReport();
+            }
+            if (StackSampler.getInstance().isRunning()) {
+                StackSampler.getInstance().dumpReport();
             }
         }
+    }
+
+    /**
+     * 设置帧采样。开销超出预算时由 {@link OverheadMonitor} 调用，必须在主线程上调用。
+     * 采样期间每个周期只在开始的一段时间内注册 `Choreographer` 回调，其余时间不产生任何逐帧开销，
+     * 卡顿计数和FPS只反映被采集的那部分帧。
+     *
+     * @param recordMs 每个周期内记录帧的时长（毫秒），0或不小于周期时表示记录每一帧。
+     * @param periodMs 采样周期（毫秒）。
+     */
+    void setFrameSampling(int recordMs, int periodMs) {
+        boolean sampling = recordMs > 0 && recordMs < periodMs;
+        sampleRecordNanos = sampling ? recordMs * 1_000_000L : 0;
+        samplePeriodMs = sampling ? periodMs : 0;
+        sampleWindowStartNanos = 0;
+        if (!sampling && samplingPaused) {
+            // 退出采样模式时如果正处于间歇期，立即恢复回调
+            samplingPaused = false;
+            mainHandler.removeCallbacks(resumeSamplingTask);
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
 
-        double averageFps = (double) sum / fpsHistory.size();
-        int minFps = Collections.min(fpsHistory);
+    /**
+     * 判断当前采样周期的采集时长是否已满。
+     */
+    private boolean isSampleWindowOver(long frameTimeNanos) {
+        if (sampleWindowStartNanos == 0) {
+            sampleWindowStartNanos = frameTimeNanos;
+            return false;
+        }
+        return frameTimeNanos - sampleWindowStartNanos >= sampleRecordNanos;
+    }
 
-        StringBuilder report = new StringBuilder();
-        report.append("\n");
-        report.append("================ Fluency Report ================\n");
-        report.append(String.format("| Monitoring Duration: %d seconds\n", durationSeconds));
-        report.append(String.format("| Average FPS: %.2f\n", averageFps));
-        report.append(String.format("| Minimum FPS: %d\n", minFps));
-        report.append(String.format("| High Jank Count (FPS < %d): %d\n", JANK_THRESHOLD, jankyFramesCount));
-        report.append("================================================");
+    /**
+     * 暂停帧回调到下一个采样周期。暂停期间的间隔不计入帧耗时，也不计入FPS周期。
+     */
+    private void pauseForSampling() {
+        previousFrameNanos = 0;
+        sampleWindowStartNanos = 0;
+        for (int i = 0; i < activeSessions.size(); i++) {
+            activeSessions.get(i).resetFpsWindow();
+        }
+        samplingPaused = true;
+        mainHandler.postDelayed(resumeSamplingTask, samplePeriodMs - sampleRecordNanos / 1_000_000L);
+    }
 
-        Log.d("FluencyReport", report.toString());
+    private void setBackgrounded(boolean backgrounded) {
+        if (this.backgrounded == backgrounded) {
+            return;
+        }
+        this.backgrounded = backgrounded;
+        for (FluencySession session : sessions.values()) {
+            session.setSuspended(backgrounded);
+        }
+        updateFrameCallback();
+    }
 
-        // 清理数据，为下一次监控做准备
-        fpsHistory.clear();
-        listener = null;
+    /**
+     * 应用在前台且有活跃会话时注册Choreographer回调，否则移除回调，避免空转。
+     */
+    private void updateFrameCallback() {
+        boolean shouldRun = !activeSessions.isEmpty() && !backgrounded;
+        if (shouldRun == isRunning) {
+            return;
+        }
+        isRunning = shouldRun;
+        previousFrameNanos = 0;
+        sampleWindowStartNanos = 0;
+        samplingPaused = false;
+        mainHandler.removeCallbacks(resumeSamplingTask);
+        if (shouldRun) {
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        } else {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+        }
     }
 
     /**
@@ -0,0 +1,134 @@
+package com.example.exercise.sdk;
+
+/**
+ * 一个独立的流畅性统计会话，对应一个页面（Activity）或一个自定义场景（例如 "forecast-scroll"）。
+ * <p>
+ * 每个会话都有自己的帧耗时直方图、卡顿分级计数和按秒统计的FPS数据（见 {@link FrameStats}），互不干扰。
+ * 会话本身不注册 `Choreographer` 回调，而是由 {@link FluencyMonitor} 统一接收帧回调后分发给所有处于活跃状态的会话。
+ * <p>
+ * 本类的所有方法都应在主线程上调用。
+ */
+public class FluencySession {
+
+    // 会话名称，Activity会话为“类名#实例标识”，自定义场景为调用方传入的名称
+    private final String name;
+    // 帧耗时直方图、卡顿分级和FPS的纯计算部分
+    private final FrameStats frameStats;
+    // 用于接收该会话实时FPS数据的回调监听器
+    private FluencyMonitor.FluencyListener listener;
+    // 用于计算会话监控时长的单调时钟
+    private final MonitorClock clock;
+    // 会话是否处于活跃状态（例如对应的Activity处于前台）
+    private boolean active;
+    // 应用是否处于后台，后台期间会话暂停统计
+    private boolean suspended;
+    // 已累计的监控时长（毫秒），只统计活跃且应用在前台的时间
+    private long monitoredMillis;
+    // 本段监控开始的时间戳
+    private long monitoringSinceMillis;
+
+    FluencySession(String name, float refreshRate, MonitorClock clock, boolean suspended) {
+        this.name = name;
+        this.frameStats = new FrameStats(refreshRate);
+        this.clock = clock;
+        this.suspended = suspended;
+    }
+
+    /**
+     * 记录一帧。由 {@link FluencyMonitor} 在主线程上调用，不产生对象分配。
+     *
+     * @param frameTimeNanos 本帧的vsync时间戳（纳秒）。
+     * @param frameNanos     本帧与上一帧之间的间隔（纳秒）。
+     */
+    void onFrame(long frameTimeNanos, long frameNanos) {
+        int level = frameStats.recordFrame(frameNanos);
+        TelemetryBus.getInstance().publish(TelemetryEvent.TYPE_FRAME, frameNanos, 0, level, name);
+
+        int currentFps = frameStats.updateFps(frameTimeNanos);
+        if (currentFps >= 0 && listener != null) {
+            listener.onFluencyData(currentFps);
+        }
+    }
+
+    /**
+     * 设置会话的活跃状态。非活跃期间不接收帧数据，重新激活时开启新的FPS计算周期。
+     */
+    void setActive(boolean active) {
+        updateMonitoring(active, suspended);
+        frameStats.resetFpsWindow();
+    }
+
+    /**
+     * 应用进入后台时暂停会话，回到前台时恢复。后台期间的时间不计入监控时长，恢复时开启新的FPS计算周期。
+     */
+    void setSuspended(boolean suspended) {
+        updateMonitoring(active, suspended);
+        frameStats.resetFpsWindow();
+    }
+
+    /**
+     * 更新活跃和暂停状态，并在“正在监控”状态切换时累计监控时长。
+     */
+    private void updateMonitoring(boolean active, boolean suspended) {
+        boolean wasMonitoring = this.active && !this.suspended;
+        boolean monitoring = active && !suspended;
+        long now = clock.uptimeMillis();
+        if (monitoring && !wasMonitoring) {
+            monitoringSinceMillis = now;
+        } else if (!monitoring && wasMonitoring) {
+            monitoredMillis += now - monitoringSinceMillis;
+        }
+        this.active = active;
+        this.suspended = suspended;
+    }
+
+    /**
+     * 开启新的FPS计算周期，用于帧回调暂停（例如帧采样的间歇期）之后丢弃跨越暂停期间的周期。
+     */
+    void resetFpsWindow() {
+        frameStats.resetFpsWindow();
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    void setRefreshRate(float refreshRate) {
+        frameStats.setRefreshRate(refreshRate);
+    }
+
+    /**
+     * 设置用于接收该会话实时FPS数据的监听器，回调在主线程上执行。
+     *
+     * @param listener 监听器，传入null表示取消监听。
+     */
+    public void setListener(FluencyMonitor.FluencyListener listener) {
+        this.listener = listener;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public FrameHistogram getFrameHistogram() {
+        return frameStats.getFrameHistogram();
+    }
+
+    public JankClassifier getJankClassifier() {
+        return frameStats.getJankClassifier();
+    }
+
+    /**
+     * 生成该会话的流畅性报告文本。
+     *
+     * @return 报告文本；没有采集到任何帧数据时返回null。
+     */
+    public String buildReport() {
+        long millis = monitoredMillis;
+        if (active && !suspended) {
+            millis += clock.uptimeMillis() - monitoringSinceMillis;
+        }
+        long durationSeconds = millis / 1000;
+        return frameStats.buildReport(name, durationSeconds);
+    }
+}
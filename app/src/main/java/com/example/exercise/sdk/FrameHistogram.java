@@ -0,0 +1,129 @@
+package com.example.exercise.sdk;
+
+import java.util.Arrays;
+
+/**
+ * 定长的帧耗时直方图，用于统计每一帧的绘制间隔并计算分位数。
+ * <p>
+ * 设计要点：
+ * 1. 以1毫秒为桶宽，覆盖 0 ~ {@link #MAX_TRACKED_MS} 毫秒，超出范围的帧统一计入最后一个“溢出桶”。
+ * 2. 所有数据都保存在预先分配好的基本类型数组中，{@link #record(long)} 不会产生任何对象分配，
+ *    因此可以安全地在 `Choreographer.FrameCallback.doFrame` 中逐帧调用。
+ * 3. 内存占用固定，与监控时长无关，长时间运行也不会增长。
+ * <p>
+ * 本类不是线程安全的，调用方需保证只在同一线程（通常是主线程）上读写。
+ */
+public class FrameHistogram {
+
+    // 直方图能精确区分的最大帧耗时（毫秒），超过该值的帧都落入溢出桶
+    public static final int MAX_TRACKED_MS = 1000;
+
+    // 每个桶对应一个毫秒值，最后一个桶是溢出桶
+    private final int[] buckets = new int[MAX_TRACKED_MS + 2];
+    // 记录的总帧数
+    private long totalCount;
+    // 所有帧耗时之和（纳秒），用于计算平均帧耗时
+    private long totalNanos;
+    // 出现过的最长帧耗时（纳秒），溢出桶中的帧依然能通过它看到真实的最大值
+    private long maxNanos;
+
+    /**
+     * 记录一帧的耗时。
+     *
+     * @param frameNanos 两次帧回调之间的间隔（纳秒）。
+     */
+    public void record(long frameNanos) {
+        if (frameNanos < 0) {
+            return;
+        }
+        long ms = frameNanos / 1_000_000L;
+        int index = ms > MAX_TRACKED_MS ? MAX_TRACKED_MS + 1 : (int) ms;
+        buckets[index]++;
+        totalCount++;
+        totalNanos += frameNanos;
+        if (frameNanos > maxNanos) {
+            maxNanos = frameNanos;
+        }
+    }
+
+    /**
+     * 计算指定分位数的帧耗时。
+     *
+     * @param percentile 分位数，取值范围 (0, 100]，例如 99.9 表示 P99.9。
+     * @return 对应分位数的帧耗时（毫秒）；没有数据时返回0。落入溢出桶时返回实际观测到的最大值。
+     */
+    public long percentileMs(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        // 需要累计到的帧数（向上取整，保证至少为1）
+        long rank = (long) Math.ceil(totalCount * percentile / 100.0);
+        if (rank < 1) {
+            rank = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i <= MAX_TRACKED_MS; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return i;
+            }
+        }
+        return getMaxMs();
+    }
+
+    /**
+     * 统计耗时大于等于指定阈值的帧数。
+     *
+     * @param thresholdMs 阈值（毫秒）。
+     * @return 满足条件的帧数。
+     */
+    public long countAtLeast(int thresholdMs) {
+        if (thresholdMs <= 0) {
+            return totalCount;
+        }
+        int start = Math.min(thresholdMs, MAX_TRACKED_MS + 1);
+        long count = 0;
+        for (int i = start; i < buckets.length; i++) {
+            count += buckets[i];
+        }
+        return count;
+    }
+
+    /**
+     * 获取记录的总帧数。
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * 获取所有帧耗时之和（纳秒），即参与统计的有效监控时长。
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * 获取平均帧耗时（毫秒）。
+     */
+    public double getMeanMs() {
+        return totalCount == 0 ? 0 : totalNanos / 1_000_000.0 / totalCount;
+    }
+
+    /**
+     * 获取最长帧耗时（毫秒）。
+     */
+    public long getMaxMs() {
+        return maxNanos / 1_000_000L;
+    }
+
+    /**
+     * 清空所有统计数据，复用已分配的数组。
+     */
+    public void reset() {
+        Arrays.fill(buckets, 0);
+        totalCount = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.exercise.sdk;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个会话的逐帧统计数据：帧耗时直方图、卡顿分级计数和按秒统计的FPS。
+ * <p>
+ * 本类只包含纯计算逻辑，不依赖任何 Android API，{@link FluencySession} 在其之上负责事件发布和监听器回调。
+ * 因此它也可以直接在 JVM 上做单元测试和基准测试。
+ * <p>
+ * 本类不是线程安全的，调用方需保证只在同一线程（通常是主线程）上读写。
+ */
+public class FrameStats {
+
+    // 逐帧耗时直方图，预先分配，记录时不产生对象
+    private final FrameHistogram frameHistogram = new FrameHistogram();
+    // 基于刷新率的逐帧卡顿分级器
+    private final JankClassifier jankClassifier;
+
+    // 按秒统计的FPS汇总数据，只保留基本类型的累计值
+    private long fpsSum;
+    private int fpsSampleCount;
+    private int minFps = Integer.MAX_VALUE;
+
+    // 当前FPS计算周期开始时的帧时间戳（纳秒），0表示尚未开始
+    private long windowStartNanos;
+    // 在一个计算周期内累计的帧数
+    private int windowFrameCount;
+
+    public FrameStats(float refreshRate) {
+        this.jankClassifier = new JankClassifier(refreshRate);
+    }
+
+    /**
+     * 记录一帧的耗时，不产生对象分配。
+     *
+     * @param frameNanos 本帧与上一帧之间的间隔（纳秒）。
+     * @return 本帧的卡顿级别，取值为 `JankClassifier.FRAME_*` 常量之一。
+     */
+    public int recordFrame(long frameNanos) {
+        frameHistogram.record(frameNanos);
+        return jankClassifier.classify(frameNanos);
+    }
+
+    /**
+     * 推进FPS计算周期，不产生对象分配。
+     *
+     * @param frameTimeNanos 本帧的vsync时间戳（纳秒）。
+     * @return 周期满1秒时返回该周期的FPS，否则返回-1。
+     */
+    public int updateFps(long frameTimeNanos) {
+        if (windowStartNanos == 0) {
+            windowStartNanos = frameTimeNanos;
+            return -1;
+        }
+        windowFrameCount++;
+        long intervalNanos = frameTimeNanos - windowStartNanos;
+        // 当时间差超过1秒时，进行一次FPS计算和数据记录
+        if (intervalNanos < TimeUnit.SECONDS.toNanos(1)) {
+            return -1;
+        }
+        int currentFps = (int) Math.round(windowFrameCount * 1_000_000_000.0 / intervalNanos);
+        fpsSum += currentFps;
+        fpsSampleCount++;
+        if (currentFps < minFps) {
+            minFps = currentFps;
+        }
+        windowStartNanos = frameTimeNanos;
+        windowFrameCount = 0;
+        return currentFps;
+    }
+
+    /**
+     * 开启新的FPS计算周期，用于会话暂停后重新激活时丢弃跨越暂停期间的周期。
+     */
+    public void resetFpsWindow() {
+        windowStartNanos = 0;
+        windowFrameCount = 0;
+    }
+
+    public void setRefreshRate(float refreshRate) {
+        jankClassifier.setRefreshRate(refreshRate);
+    }
+
+    public FrameHistogram getFrameHistogram() {
+        return frameHistogram;
+    }
+
+    public JankClassifier getJankClassifier() {
+        return jankClassifier;
+    }
+
+    /**
+     * 生成流畅性报告文本。
+     *
+     * @param name            会话名称。
+     * @param durationSeconds 会话的总时长（秒）。
+     * @return 报告文本；没有采集到任何帧数据时返回null。
+     */
+    public String buildReport(String name, long durationSeconds) {
+        if (frameHistogram.getTotalCount() == 0) {
+            return null;
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append("\n");
+        report.append("================ Fluency Report ================\n");
+        report.append(String.format("| Session: %s\n", name));
+        report.append(String.format("| Monitoring Duration: %d seconds\n", durationSeconds));
+        if (fpsSampleCount > 0) {
+            report.append(String.format("| Average FPS: %.2f\n", (double) fpsSum / fpsSampleCount));
+            report.append(String.format("| Minimum FPS: %d\n", minFps));
+        }
+        report.append(String.format("| Refresh Rate: %.0f Hz\n", jankClassifier.getRefreshRate()));
+        report.append(String.format("| Small Jank (missed 1-%d vsync): %d\n",
+                JankClassifier.BIG_JANK_MISSED_VSYNC - 1, jankClassifier.getSmallJankCount()));
+        report.append(String.format("| Big Jank (missed >= %d vsync): %d\n",
+                JankClassifier.BIG_JANK_MISSED_VSYNC, jankClassifier.getBigJankCount()));
+        report.append(String.format("| Frozen Frames (> %d ms): %d\n",
+                JankClassifier.FROZEN_FRAME_MS, jankClassifier.getFrozenCount()));
+        report.append(String.format("| Jank Rate: %.2f / min\n",
+                jankClassifier.jankRatePerMinute(frameHistogram.getTotalNanos())));
+        report.append(String.format("| Total Frames: %d\n", frameHistogram.getTotalCount()));
+        report.append(String.format("| Frame Time Mean: %.2f ms\n", frameHistogram.getMeanMs()));
+        report.append(String.format("| Frame Time P50/P90/P99/P99.9: %d / %d / %d / %d ms\n",
+                frameHistogram.percentileMs(50),
+                frameHistogram.percentileMs(90),
+                frameHistogram.percentileMs(99),
+                frameHistogram.percentileMs(99.9)));
+        report.append(String.format("| Frame Time Max: %d ms\n", frameHistogram.getMaxMs()));
+        report.append("================================================");
+        return report.toString();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.exercise.sdk;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * 基于 `Handler` 的 {@link MonitorScheduler} 实现，把任务投递到指定 `Looper` 所在的线程。
+ */
+public class HandlerScheduler implements MonitorScheduler {
+
+    private final Handler handler;
+
+    public HandlerScheduler(Looper looper) {
+        this.handler = new Handler(looper);
+    }
+
+    @Override
+    public void post(Runnable task) {
+        handler.post(task);
+    }
+
+    @Override
+    public void removeCallbacks(Runnable task) {
+        handler.removeCallbacks(task);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.exercise.sdk;
+
+/**
+ * “心跳看门狗”的纯计算部分，不依赖任何 Android API。
+ * <p>
+ * 调用方（{@link AnrMonitor} 的看门狗线程，或 JVM 上的回放测试）每隔一个检查间隔调用一次 {@link #check()}：
+ * 1. 上一次投递的心跳已被执行：如果之前上报过阻塞，先回调 {@link Listener#onRecovered(long)}，再通过
+ *    {@link MonitorScheduler} 投递一个新的心跳，并用 {@link MonitorClock} 记录投递时间。
+ * 2. 心跳尚未执行：“当前时间 - 投递时间”就是被监控线程被阻塞的时长，依次越过卡顿阈值和ANR阈值时各回调一次。
+ * <p>
+ * 时间和任务投递都是注入的，因此同一段时间线在设备上和回放中得到的检测结果完全一致。
+ * {@link #check()} 只能在同一个线程上调用；心跳任务在被监控线程上执行，两者之间通过 volatile 字段通信。
+ */
+public class HeartbeatDetector {
+
+    // 阻塞阶段：未阻塞、已上报卡顿、已上报ANR
+    static final int STAGE_NONE = 0;
+    static final int STAGE_STALL = 1;
+    static final int STAGE_ANR = 2;
+
+    /**
+     * 检测结果的回调，在调用 {@link #check()} 的线程上执行。
+     */
+    public interface Listener {
+        /**
+         * 阻塞时长越过卡顿阈值（尚未达到ANR阈值）。
+         */
+        void onStall(long blockedMs);
+
+        /**
+         * 阻塞时长越过ANR阈值。
+         *
+         * @param newHang 是否是一次新的阻塞（此前未上报过卡顿阶段）。
+         */
+        void onAnr(long blockedMs, boolean newHang);
+
+        /**
+         * 之前上报过的阻塞已经恢复。
+         *
+         * @param blockedMs 本次阻塞的总时长，即心跳从投递到被执行的时间。
+         */
+        void onRecovered(long blockedMs);
+    }
+
+    private final MonitorClock clock;
+    private final MonitorScheduler scheduler;
+    private final long anrTimeoutMs;
+    private final long stallThresholdMs;
+    private final Listener listener;
+
+    // 最近一次投递心跳的时间，0表示当前没有等待执行的心跳。volatile确保了跨线程的可见性。
+    private volatile long heartbeatPostedAt = 0;
+    // 上一次阻塞的最终时长，由心跳任务在被监控线程恢复后写入
+    private volatile long recoveredBlockedMs = 0;
+    // 当前这次阻塞已经上报到的阶段，只在调用check的线程中读写
+    private int reportedStage = STAGE_NONE;
+
+    // 投递到被监控线程的心跳任务。执行时说明线程“还活着”，清除等待标记并记录本次排队的总时长。
+    private final Runnable heartbeat = new Runnable() {
+        @Override
+        public void run() {
+            long postedAt = heartbeatPostedAt;
+            if (postedAt != 0) {
+                recoveredBlockedMs = clock.uptimeMillis() - postedAt;
+            }
+            heartbeatPostedAt = 0;
+        }
+    };
+
+    /**
+     * @param clock            单调时钟。
+     * @param scheduler        向被监控线程投递心跳的调度器。
+     * @param anrTimeoutMs     ANR阈值（毫秒）。
+     * @param stallThresholdMs 卡顿阈值（毫秒），大于ANR阈值时按ANR阈值处理。
+     * @param listener         检测结果的回调。
+     */
+    public HeartbeatDetector(MonitorClock clock, MonitorScheduler scheduler,
+                             long anrTimeoutMs, long stallThresholdMs, Listener listener) {
+        this.clock = clock;
+        this.scheduler = scheduler;
+        this.anrTimeoutMs = anrTimeoutMs;
+        this.stallThresholdMs = Math.min(stallThresholdMs, anrTimeoutMs);
+        this.listener = listener;
+    }
+
+    /**
+     * 执行一次检查。心跳在上一个心跳执行后的下一次检查才投递，因此任意时刻开始的阻塞最迟在“阈值 + 2 × 检查间隔”之内被发现，
+     * 测得的阻塞时长从投递时算起，最多比实际少一个检查间隔。
+     */
+    public void check() {
+        long postedAt = heartbeatPostedAt;
+        if (postedAt == 0) {
+            if (reportedStage != STAGE_NONE) {
+                reportedStage = STAGE_NONE;
+                listener.onRecovered(recoveredBlockedMs);
+            }
+            heartbeatPostedAt = clock.uptimeMillis();
+            scheduler.post(heartbeat);
+            return;
+        }
+
+        long blockedMs = clock.uptimeMillis() - postedAt;
+        if (blockedMs >= anrTimeoutMs && reportedStage < STAGE_ANR) {
+            boolean newHang = reportedStage == STAGE_NONE;
+            reportedStage = STAGE_ANR;
+            listener.onAnr(blockedMs, newHang);
+        } else if (blockedMs >= stallThresholdMs && reportedStage < STAGE_STALL) {
+            reportedStage = STAGE_STALL;
+            listener.onStall(blockedMs);
+        }
+    }
+
+    /**
+     * 心跳任务的类名，用于在 `Looper.dump` 的输出中识别并排除心跳消息。
+     */
+    String heartbeatClassName() {
+        return heartbeat.getClass().getName();
+    }
+
+    /**
+     * 停止检测，移除尚未执行的心跳。之后再调用 {@link #check()} 会重新开始，暂停期间的时间不会计入阻塞时长。
+     * 如果此前上报过的阻塞已经恢复但还没来得及回调，会先回调 {@link Listener#onRecovered(long)}。
+     */
+    public void cancel() {
+        if (reportedStage != STAGE_NONE && heartbeatPostedAt == 0) {
+            listener.onRecovered(recoveredBlockedMs);
+        }
+        scheduler.removeCallbacks(heartbeat);
+        heartbeatPostedAt = 0;
+        reportedStage = STAGE_NONE;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.exercise.sdk;
+
+/**
+ * 基于屏幕刷新率的卡顿分级器。
+ * <p>
+ * 固定的FPS阈值（例如“低于50帧算卡顿”）在90/120Hz的屏幕上没有意义，而且按秒统计会掩盖一秒内的短暂卡顿。
+ * 本类以“一帧错过了多少个vsync周期”为标准对每一帧分级：
+ * 1. 流畅：没有错过vsync。
+ * 2. 轻微卡顿（small jank）：错过 1 ~ {@link #BIG_JANK_MISSED_VSYNC} - 1 个vsync。
+ * 3. 严重卡顿（big jank）：错过至少 {@link #BIG_JANK_MISSED_VSYNC} 个vsync，但帧耗时未达到冻结阈值。
+ * 4. 冻帧（frozen）：单帧耗时超过 {@link #FROZEN_FRAME_MS} 毫秒。
+ * <p>
+ * 所有计数都是基本类型字段，{@link #classify(long)} 不产生对象分配。本类不是线程安全的。
+ */
+public class JankClassifier {
+
+    // 帧分级结果
+    public static final int FRAME_SMOOTH = 0;
+    public static final int FRAME_SMALL_JANK = 1;
+    public static final int FRAME_BIG_JANK = 2;
+    public static final int FRAME_FROZEN = 3;
+
+    // 错过的vsync数达到该值即视为严重卡顿
+    public static final int BIG_JANK_MISSED_VSYNC = 5;
+    // 单帧耗时超过该值即视为冻帧，与Android Vitals对冻帧的定义一致
+    public static final int FROZEN_FRAME_MS = 700;
+    // 未能获取到屏幕刷新率时使用的默认值
+    public static final float DEFAULT_REFRESH_RATE = 60f;
+
+    // 当前屏幕的一个vsync周期（纳秒）
+    private long vsyncNanos;
+    private float refreshRate;
+
+    private long smallJankCount;
+    private long bigJankCount;
+    private long frozenCount;
+    // 所有帧错过的vsync总数
+    private long missedVsyncTotal;
+
+    /**
+     * 构造函数。
+     *
+     * @param refreshRate 屏幕刷新率（Hz）。
+     */
+    public JankClassifier(float refreshRate) {
+        setRefreshRate(refreshRate);
+    }
+
+    /**
+     * 更新屏幕刷新率。支持动态刷新率的设备会在运行时切换刷新率，此时需要同步更新vsync周期。
+     *
+     * @param refreshRate 屏幕刷新率（Hz），非法值会被替换为 {@link #DEFAULT_REFRESH_RATE}。
+     */
+    public void setRefreshRate(float refreshRate) {
+        if (refreshRate <= 1f || Float.isNaN(refreshRate)) {
+            refreshRate = DEFAULT_REFRESH_RATE;
+        }
+        this.refreshRate = refreshRate;
+        this.vsyncNanos = (long) (1_000_000_000L / refreshRate);
+    }
+
+    /**
+     * 对一帧进行分级并累计到对应的计数器中。
+     *
+     * @param frameNanos 该帧的耗时（两次帧回调之间的间隔，纳秒）。
+     * @return 分级结果，取值为 FRAME_* 常量之一。
+     */
+    public int classify(long frameNanos) {
+        // 四舍五入以容忍vsync时间戳的微小抖动，减1是因为正常的一帧本身就占用一个vsync周期
+        long missed = (frameNanos + vsyncNanos / 2) / vsyncNanos - 1;
+        if (missed <= 0) {
+            return FRAME_SMOOTH;
+        }
+        missedVsyncTotal += missed;
+        if (frameNanos >= FROZEN_FRAME_MS * 1_000_000L) {
+            frozenCount++;
+            return FRAME_FROZEN;
+        }
+        if (missed >= BIG_JANK_MISSED_VSYNC) {
+            bigJankCount++;
+            return FRAME_BIG_JANK;
+        }
+        smallJankCount++;
+        return FRAME_SMALL_JANK;
+    }
+
+    /**
+     * 计算每分钟卡顿次数（轻微卡顿 + 严重卡顿 + 冻帧）。
+     *
+     * @param monitoredNanos 参与统计的总时长（纳秒）。
+     * @return 每分钟卡顿次数；时长为0时返回0。
+     */
+    public double jankRatePerMinute(long monitoredNanos) {
+        if (monitoredNanos <= 0) {
+            return 0;
+        }
+        return getTotalJankCount() * 60_000_000_000.0 / monitoredNanos;
+    }
+
+    public float getRefreshRate() {
+        return refreshRate;
+    }
+
+    public long getVsyncNanos() {
+        return vsyncNanos;
+    }
+
+    public long getSmallJankCount() {
+        return smallJankCount;
+    }
+
+    public long getBigJankCount() {
+        return bigJankCount;
+    }
+
+    public long getFrozenCount() {
+        return frozenCount;
+    }
+
+    public long getMissedVsyncTotal() {
+        return missedVsyncTotal;
+    }
+
+    public long getTotalJankCount() {
+        return smallJankCount + bigJankCount + frozenCount;
+    }
+
+    /**
+     * 清空所有计数器，刷新率保持不变。
+     */
+    public void reset() {
+        smallJankCount = 0;
+        bigJankCount = 0;
+        frozenCount = 0;
+        missedVsyncTotal = 0;
+    }
+}
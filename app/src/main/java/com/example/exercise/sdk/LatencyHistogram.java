@@ -0,0 +1,121 @@
+package com.example.exercise.sdk;
+
+import java.util.Arrays;
+
+/**
+ * 对数分桶的耗时直方图，用于网络请求等跨度很大（从几毫秒到几十秒）的耗时统计。
+ * <p>
+ * 设计要点：
+ * 1. 16毫秒以下每毫秒一个桶；16毫秒以上每个2的幂区间再均分为8个桶，相对误差不超过12.5%，
+ *    覆盖到约65秒，更长的耗时计入溢出桶。
+ * 2. 与 {@link FrameHistogram} 一样只使用预先分配的基本类型数组，{@link #record(long)} 不产生对象分配。
+ * <p>
+ * 本类不是线程安全的，调用方需自行同步。
+ */
+public class LatencyHistogram {
+
+    // 精确到1毫秒的区间上限
+    private static final int LINEAR_MS = 16;
+    // 每个2的幂区间的子桶数（2^3）
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 最大的2的幂指数，2^16毫秒约65秒
+    private static final int MAX_EXPONENT = 16;
+    private static final int OVERFLOW_INDEX = LINEAR_MS + (MAX_EXPONENT - 4) * SUB_BUCKETS;
+
+    private final int[] buckets = new int[OVERFLOW_INDEX + 1];
+    private long totalCount;
+    private long totalNanos;
+    private long maxNanos;
+
+    /**
+     * 记录一次耗时。
+     *
+     * @param nanos 耗时（纳秒），负数会被忽略。
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        buckets[indexOf(nanos / 1_000_000L)]++;
+        totalCount++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    /**
+     * 计算指定分位数的耗时。
+     *
+     * @param percentile 分位数，取值范围 (0, 100]。
+     * @return 对应分位数所在桶的下界（毫秒）；没有数据时返回0。落入溢出桶时返回实际观测到的最大值。
+     */
+    public long percentileMs(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(totalCount * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < OVERFLOW_INDEX; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return lowerBoundMs(i);
+            }
+        }
+        return getMaxMs();
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public double getMeanMs() {
+        return totalCount == 0 ? 0 : totalNanos / 1_000_000.0 / totalCount;
+    }
+
+    public long getMaxMs() {
+        return maxNanos / 1_000_000L;
+    }
+
+    /**
+     * 清空所有统计数据，复用已分配的数组。
+     */
+    public void reset() {
+        Arrays.fill(buckets, 0);
+        totalCount = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    /**
+     * 用另一个直方图的数据覆盖本直方图。
+     */
+    public void copyFrom(LatencyHistogram other) {
+        System.arraycopy(other.buckets, 0, buckets, 0, buckets.length);
+        totalCount = other.totalCount;
+        totalNanos = other.totalNanos;
+        maxNanos = other.maxNanos;
+    }
+
+    static int indexOf(long ms) {
+        if (ms < LINEAR_MS) {
+            return (int) ms;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(ms);
+        if (exponent >= MAX_EXPONENT) {
+            return OVERFLOW_INDEX;
+        }
+        int sub = (int) (ms >> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_MS + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBoundMs(int index) {
+        if (index < LINEAR_MS) {
+            return index;
+        }
+        int exponent = (index - LINEAR_MS) / SUB_BUCKETS + 4;
+        int sub = (index - LINEAR_MS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+}
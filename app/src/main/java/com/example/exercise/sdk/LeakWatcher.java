@@ -0,0 +1,368 @@
+package com.example.exercise.sdk;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Activity 泄漏检测与按页面的堆内存采样。
+ * <p>
+ * 泄漏检测原理：
+ * 1. 通过 {@link #install(Application)} 注册生命周期回调，Activity 销毁时为其创建一个登记在 `ReferenceQueue` 上的弱引用。
+ * 2. {@link #RETAINED_DELAY_MS} 之后在后台线程检查：弱引用已进入队列的 Activity 已被回收；仍未回收的，主动触发一次GC后再检查。
+ * 3. GC后依然存活的 Activity 被判定为泄漏，由 {@link ReferencePathFinder} 从已登记的根对象（默认是SDK的各个单例，
+ *    也可以用 {@link #addRoot(String, Object)} 补充）出发查找引用路径，连同泄漏时长一起输出报告。
+ * <p>
+ * 堆内存采样：页面处于前台期间，每隔 {@link #SAMPLE_INTERVAL_MS} 记录一次 Java 堆和 Native 堆的已用大小，
+ * 按页面类名汇总峰值，用于发现长时间使用后内存持续上涨的页面。
+ */
+public class LeakWatcher {
+
+    private static final String TAG = "LeakWatcher";
+    // Activity 销毁后等待多久再检查是否已被回收（毫秒）
+    private static final long RETAINED_DELAY_MS = 5000;
+    // 触发GC后等待回收完成的时间（毫秒）
+    private static final long GC_WAIT_MS = 100;
+    // 页面处于前台时的堆内存采样间隔（毫秒）
+    private static final long SAMPLE_INTERVAL_MS = 5000;
+
+    // 单例实例
+    private static final LeakWatcher INSTANCE = new LeakWatcher();
+
+    private final ReferenceQueue<Object> referenceQueue = new ReferenceQueue<>();
+    // 等待检查的弱引用，按登记顺序排列，只在后台线程访问
+    private final Map<String, WatchedReference> watched = new LinkedHashMap<>();
+    // 已确认泄漏、且仍未被回收的弱引用，用于避免重复报告
+    private final Map<String, WatchedReference> leaked = new LinkedHashMap<>();
+    private final ReferencePathFinder pathFinder = new ReferencePathFinder();
+    // 按页面类名汇总的堆内存数据，访问时需持有 this 锁
+    private final Map<String, ScreenHeapStats> screenStats = new HashMap<>();
+
+    private HandlerThread watcherThread;
+    private Handler watcherHandler;
+    // 当前处于前台的页面类名，没有时为null
+    private volatile String foregroundScreen;
+    private long nextKey;
+
+    /**
+     * 检查任务：找出已超过等待时间仍未被回收的 Activity。
+     */
+    private final Runnable checkTask = this::checkRetained;
+
+    /**
+     * 采样任务：记录当前前台页面的堆内存，并按固定间隔再次投递自己。
+     */
+    private final Runnable sampleTask = new Runnable() {
+        @Override
+        public void run() {
+            String screen = foregroundScreen;
+            if (screen == null) {
+                return;
+            }
+            sampleHeap(screen);
+            watcherHandler.postDelayed(this, SAMPLE_INTERVAL_MS);
+        }
+    };
+
+    private final Application.ActivityLifecycleCallbacks lifecycleCallbacks = new Application.ActivityLifecycleCallbacks() {
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {}
+
+        @Override
+        public void onActivityStarted(Activity activity) {}
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+            foregroundScreen = activity.getClass().getSimpleName();
+            watcherHandler.removeCallbacks(sampleTask);
+            watcherHandler.post(sampleTask);
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+            // 离开前台时补采一次，覆盖最后一个采样周期内的内存变化
+            String screen = activity.getClass().getSimpleName();
+            foregroundScreen = null;
+            watcherHandler.removeCallbacks(sampleTask);
+            watcherHandler.post(() -> sampleHeap(screen));
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {}
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+            watch(activity, activity.getClass().getName());
+        }
+    };
+
+    /**
+     * 私有构造函数，防止外部直接创建实例。
+     */
+    private LeakWatcher() {
+        pathFinder.addRoot("FluencyMonitor", FluencyMonitor.getInstance());
+        pathFinder.addRoot("LooperMonitor", LooperMonitor.getInstance());
+        pathFinder.addRoot("AnrMonitor", AnrMonitor.getInstance());
+        pathFinder.addRoot("TelemetryBus", TelemetryBus.getInstance());
+    }
+
+    /**
+     * 获取LeakWatcher的单例。
+     *
+     * @return LeakWatcher的唯一实例。
+     */
+    public static LeakWatcher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 安装泄漏检测，应在应用启动时调用一次，重复调用会被忽略。
+     *
+     * @param application 应用的Application实例。
+     */
+    public synchronized void install(Application application) {
+        if (watcherThread != null) return;
+        watcherThread = new HandlerThread("LeakWatcher");
+        watcherThread.start();
+        watcherHandler = new Handler(watcherThread.getLooper());
+        OverheadMonitor.getInstance().registerThread(watcherThread.getName(), watcherThread.getThreadId());
+        application.registerActivityLifecycleCallbacks(lifecycleCallbacks);
+    }
+
+    /**
+     * 登记一个查找引用路径时使用的根对象，例如业务层的单例或静态缓存。
+     *
+     * @param name 根对象在路径中显示的名称。
+     * @param root 根对象。
+     */
+    public void addRoot(String name, Object root) {
+        pathFinder.addRoot(name, root);
+    }
+
+    /**
+     * 监视一个预期即将被回收的对象，例如已销毁页面的 Presenter 或已移除的 Fragment。
+     *
+     * @param object      被监视的对象。
+     * @param description 报告中显示的描述。
+     */
+    public void watch(Object object, String description) {
+        Handler handler = watcherHandler;
+        if (handler == null) {
+            return;
+        }
+        WatchedReference reference = new WatchedReference(object, description, SystemClock.uptimeMillis(), referenceQueue);
+        handler.post(() -> {
+            reference.key = description + "@" + (nextKey++);
+            watched.put(reference.key, reference);
+        });
+        handler.postDelayed(checkTask, RETAINED_DELAY_MS);
+    }
+
+    /**
+     * 获取当前仍未被回收的泄漏对象的描述。
+     */
+    public List<String> getLeakedDescriptions() {
+        List<String> result = new ArrayList<>();
+        synchronized (leaked) {
+            for (WatchedReference reference : leaked.values()) {
+                result.add(reference.description);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取各页面的堆内存汇总数据的副本。
+     */
+    public synchronized List<ScreenHeapStats> getScreenHeapStats() {
+        List<ScreenHeapStats> result = new ArrayList<>(screenStats.size());
+        for (ScreenHeapStats stats : screenStats.values()) {
+            result.add(stats.copy());
+        }
+        return result;
+    }
+
+    /**
+     * 在Logcat中输出各页面的堆内存汇总数据。
+     */
+    public void dumpHeapReport() {
+        List<ScreenHeapStats> stats = getScreenHeapStats();
+        if (stats.isEmpty()) {
+            Log.d(TAG, "No heap samples recorded.");
+            return;
+        }
+        StringBuilder report = new StringBuilder();
+        report.append("\n");
+        report.append("================ Screen Heap Report ================\n");
+        for (ScreenHeapStats screen : stats) {
+            report.append(String.format("| %s: samples=%d java=%d KB (peak %d KB) native=%d KB (peak %d KB)\n",
+                    screen.screen, screen.sampleCount,
+                    screen.lastJavaBytes / 1024, screen.peakJavaBytes / 1024,
+                    screen.lastNativeBytes / 1024, screen.peakNativeBytes / 1024));
+        }
+        report.append("====================================================");
+        Log.d(TAG, report.toString());
+    }
+
+    /**
+     * 记录一次堆内存采样。
+     */
+    private void sampleHeap(String screen) {
+        Runtime runtime = Runtime.getRuntime();
+        long javaBytes = runtime.totalMemory() - runtime.freeMemory();
+        long nativeBytes = Debug.getNativeHeapAllocatedSize();
+        synchronized (this) {
+            ScreenHeapStats stats = screenStats.get(screen);
+            if (stats == null) {
+                stats = new ScreenHeapStats(screen);
+                screenStats.put(screen, stats);
+            }
+            stats.record(javaBytes, nativeBytes);
+        }
+        TelemetryBus.getInstance().publish(TelemetryEvent.TYPE_MEMORY, javaBytes, nativeBytes, 0, screen);
+    }
+
+    /**
+     * 在后台线程上检查所有超过等待时间的弱引用。
+     */
+    private void checkRetained() {
+        removeCollected();
+        long now = SystemClock.uptimeMillis();
+        boolean hasExpired = false;
+        for (WatchedReference reference : watched.values()) {
+            if (now - reference.watchUptimeMs >= RETAINED_DELAY_MS) {
+                hasExpired = true;
+                break;
+            }
+        }
+        if (!hasExpired) {
+            return;
+        }
+
+        // 可能只是还没有发生GC，主动触发一次再确认
+        Runtime.getRuntime().gc();
+        SystemClock.sleep(GC_WAIT_MS);
+        System.runFinalization();
+        removeCollected();
+
+        Iterator<WatchedReference> iterator = watched.values().iterator();
+        while (iterator.hasNext()) {
+            WatchedReference reference = iterator.next();
+            if (now - reference.watchUptimeMs < RETAINED_DELAY_MS) {
+                continue;
+            }
+            iterator.remove();
+            Object object = reference.get();
+            if (object == null) {
+                continue;
+            }
+            synchronized (leaked) {
+                leaked.put(reference.key, reference);
+            }
+            reportLeak(reference, object, now);
+        }
+    }
+
+    /**
+     * 移除所有已被回收的弱引用，包括之前判定为泄漏、后来又被回收的对象。
+     */
+    private void removeCollected() {
+        WatchedReference reference;
+        while ((reference = (WatchedReference) referenceQueue.poll()) != null) {
+            watched.remove(reference.key);
+            synchronized (leaked) {
+                leaked.remove(reference.key);
+            }
+        }
+    }
+
+    private void reportLeak(WatchedReference reference, Object object, long now) {
+        long retainedMs = now - reference.watchUptimeMs;
+        List<String> path = pathFinder.findPath(object);
+
+        StringBuilder report = new StringBuilder();
+        report.append("\n");
+        report.append("================ Leak Report ================\n");
+        report.append("Leaked: ").append(reference.description).append("\n");
+        report.append("Retained: ").append(retainedMs).append(" ms after destroy\n");
+        if (path.isEmpty()) {
+            report.append("Reference path: not found from registered roots\n");
+        } else {
+            report.append("Reference path:\n");
+            for (int i = 0; i < path.size(); i++) {
+                report.append(i == 0 ? "  " : "  ↳ ").append(path.get(i)).append("\n");
+            }
+        }
+        report.append("=============================================");
+        Log.w(TAG, report.toString());
+        TelemetryBus.getInstance().publish(TelemetryEvent.TYPE_LEAK, retainedMs, 0, 0, reference.description);
+        ReportUploader.getInstance().enqueue("leak", report.toString());
+    }
+
+    /**
+     * 带描述信息的弱引用。
+     */
+    private static final class WatchedReference extends WeakReference<Object> {
+        final String description;
+        final long watchUptimeMs;
+        // 在后台线程中分配的唯一键
+        String key;
+
+        WatchedReference(Object referent, String description, long watchUptimeMs, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.description = description;
+            this.watchUptimeMs = watchUptimeMs;
+        }
+    }
+
+    /**
+     * 一个页面的堆内存汇总数据（字节）。
+     */
+    public static class ScreenHeapStats {
+        public final String screen;
+        public int sampleCount;
+        public long lastJavaBytes;
+        public long peakJavaBytes;
+        public long lastNativeBytes;
+        public long peakNativeBytes;
+
+        ScreenHeapStats(String screen) {
+            this.screen = screen;
+        }
+
+        void record(long javaBytes, long nativeBytes) {
+            sampleCount++;
+            lastJavaBytes = javaBytes;
+            lastNativeBytes = nativeBytes;
+            peakJavaBytes = Math.max(peakJavaBytes, javaBytes);
+            peakNativeBytes = Math.max(peakNativeBytes, nativeBytes);
+        }
+
+        ScreenHeapStats copy() {
+            ScreenHeapStats copy = new ScreenHeapStats(screen);
+            copy.sampleCount = sampleCount;
+            copy.lastJavaBytes = lastJavaBytes;
+            copy.peakJavaBytes = peakJavaBytes;
+            copy.lastNativeBytes = lastNativeBytes;
+            copy.peakNativeBytes = peakNativeBytes;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.exercise.sdk;
+
+import android.util.Log;
+
+/**
+ * 把遥测事件输出到Logcat的sink，主要用于调试。
+ * 帧事件数量较多，只输出卡顿帧；其余事件逐条输出一行。
+ */
+public class LogcatTelemetrySink implements TelemetrySink {
+
+    private static final String TAG = "Telemetry";
+
+    @Override
+    public void onEvents(TelemetryEvent[] events, int count) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            TelemetryEvent event = events[i];
+            if (event.type == TelemetryEvent.TYPE_FRAME && event.arg == JankClassifier.FRAME_SMOOTH) {
+                continue;
+            }
+            line.setLength(0);
+            line.append(TelemetryEvent.typeName(event.type))
+                    .append(" value=").append(event.value)
+                    .append(" extra=").append(event.extra)
+                    .append(" arg=").append(event.arg)
+                    .append(" label=").append(event.label);
+            Log.d(TAG, line.toString());
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.exercise.sdk;
+
+import android.os.Looper;
+import android.util.Log;
+import android.util.Printer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 主线程消息分发监控器，用于找出导致掉帧的具体消息。
+ * <p>
+ * 工作原理：
+ * 1. 主线程 `Looper` 在分发每条消息的前后，会分别向通过 `setMessageLogging` 设置的 `Printer` 输出
+ *    ">>>>> Dispatching to ..." 和 "<<<<< Finished to ..." 两行文本。
+ * 2. 本类利用这两次回调为每条消息计时，并累计消息总数与总耗时。
+ * 3. 耗时超过阈值的消息会被解析出目标 Handler 类名、callback 类名和 what 值，写入一个定长的环形缓冲区，
+ *    只保留最近的若干条慢消息。普通消息不做任何字符串解析。
+ * 4. 每条消息的开始和结束都会通知 {@link StackSampler}，超出预算的消息由其进行高频堆栈采样。
+ * 5. {@link FluencyMonitor} 在每一帧回调时调用 {@link #onFrame(long, long)}，若该帧耗时过长，
+ *    就把与该帧时间区间重叠的慢消息标记为“拖慢了这一帧”，从而把卡顿帧和具体的消息关联起来。
+ * <p>
+ * 注意：`Looper.setMessageLogging` 只能设置一个 Printer，启动本监控会覆盖其他组件设置的 Printer。
+ */
+public class LooperMonitor {
+
+    private static final String TAG = "LooperReport";
+    // 慢消息环形缓冲区的容量
+    private static final int RING_CAPACITY = 64;
+    // 默认的慢消息阈值（毫秒），约为60Hz屏幕的一帧
+    private static final int DEFAULT_SLOW_THRESHOLD_MS = 16;
+
+    // 单例实例，确保全局只有一个消息监控器
+    private static final LooperMonitor INSTANCE = new LooperMonitor();
+
+    // 慢消息环形缓冲区，槽位预先分配并循环复用
+    private final SlowMessage[] ring = new SlowMessage[RING_CAPACITY];
+    // 下一个写入位置
+    private int ringHead;
+    // 缓冲区中有效记录的数量
+    private int ringSize;
+
+    // 慢消息阈值（纳秒）
+    private long slowThresholdNanos = DEFAULT_SLOW_THRESHOLD_MS * 1_000_000L;
+    // 当前正在分发的消息的开始时间（纳秒），0表示当前没有消息在分发
+    private volatile long dispatchStartNanos;
+    // 当前正在分发的消息的起始日志行，只有在消息变慢时才会被解析
+    private String dispatchLine;
+
+    // 统计数据
+    private long messageCount;
+    private long totalDispatchNanos;
+    private long maxDispatchNanos;
+    private long slowMessageCount;
+
+    // 监控是否正在运行
+    private boolean isRunning = false;
+
+    /**
+     * 接收Looper分发日志的Printer实现。
+     */
+    private final Printer printer = new Printer() {
+        @Override
+        public void println(String x) {
+            long callStart = System.nanoTime();
+            if (x.startsWith(">>>>>")) {
+                dispatchLine = x;
+                dispatchStartNanos = System.nanoTime();
+                StackSampler.getInstance().onDispatchStart();
+            } else if (x.startsWith("<<<<<")) {
+                long start = dispatchStartNanos;
+                if (start != 0) {
+                    long end = System.nanoTime();
+                    StackSampler.getInstance().onDispatchEnd((end - start) / 1_000_000L);
+                    onDispatchFinished(start, end);
+                }
+                dispatchStartNanos = 0;
+                dispatchLine = null;
+            }
+            OverheadMonitor.getInstance().record(OverheadMonitor.COMPONENT_LOOPER, System.nanoTime() - callStart);
+        }
+    };
+
+    /**
+     * 私有构造函数，防止外部直接创建实例。
+     */
+    private LooperMonitor() {
+        for (int i = 0; i < RING_CAPACITY; i++) {
+            ring[i] = new SlowMessage();
+        }
+    }
+
+    /**
+     * 获取LooperMonitor的单例。
+     *
+     * @return LooperMonitor的唯一实例。
+     */
+    public static LooperMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 以默认阈值启动消息监控。必须在主线程上调用。
+     */
+    public void start() {
+        start(DEFAULT_SLOW_THRESHOLD_MS);
+    }
+
+    /**
+     * 启动消息监控。必须在主线程上调用。
+     *
+     * @param slowThresholdMs 慢消息阈值（毫秒），耗时达到该值的消息会被记录到环形缓冲区。
+     */
+    public void start(int slowThresholdMs) {
+        slowThresholdNanos = slowThresholdMs * 1_000_000L;
+        if (isRunning) return;
+        isRunning = true;
+        Looper.getMainLooper().setMessageLogging(printer);
+    }
+
+    /**
+     * 停止消息监控，移除Printer。
+     */
+    public void stop() {
+        if (!isRunning) return;
+        isRunning = false;
+        Looper.getMainLooper().setMessageLogging(null);
+        dispatchStartNanos = 0;
+        dispatchLine = null;
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /**
+     * 获取当前正在分发的消息已经执行的时长，可在任意线程调用。
+     *
+     * @return 已执行时长（毫秒）；当前没有消息在分发时返回0。
+     */
+    public long getCurrentDispatchMs() {
+        long start = dispatchStartNanos;
+        return start == 0 ? 0 : (System.nanoTime() - start) / 1_000_000L;
+    }
+
+    /**
+     * 一条消息分发结束时调用，累计统计数据，慢消息写入环形缓冲区。
+     */
+    private void onDispatchFinished(long startNanos, long endNanos) {
+        long duration = endNanos - startNanos;
+        messageCount++;
+        totalDispatchNanos += duration;
+        if (duration > maxDispatchNanos) {
+            maxDispatchNanos = duration;
+        }
+        if (duration < slowThresholdNanos) {
+            return;
+        }
+        slowMessageCount++;
+        SlowMessage slot = ring[ringHead];
+        slot.fill(dispatchLine, startNanos, duration);
+        TelemetryBus.getInstance().publish(TelemetryEvent.TYPE_MESSAGE, duration, 0, 0, slot.target);
+        ringHead = (ringHead + 1) % RING_CAPACITY;
+        if (ringSize < RING_CAPACITY) {
+            ringSize++;
+        }
+    }
+
+    /**
+     * 由 {@link FluencyMonitor} 在每一帧回调时调用，把与长帧时间区间重叠的慢消息标记为该帧的元凶。
+     * 普通帧直接返回，不做任何遍历。
+     *
+     * @param frameStartNanos 上一帧的vsync时间戳（纳秒）。
+     * @param frameEndNanos   本帧的vsync时间戳（纳秒）。
+     */
+    void onFrame(long frameStartNanos, long frameEndNanos) {
+        long frameNanos = frameEndNanos - frameStartNanos;
+        if (!isRunning || frameNanos < slowThresholdNanos * 2) {
+            return;
+        }
+        for (int i = 0; i < ringSize; i++) {
+            SlowMessage message = ring[i];
+            long messageEnd = message.startNanos + message.durationNanos;
+            if (message.startNanos < frameEndNanos && messageEnd > frameStartNanos) {
+                message.delayedFrameNanos = frameEndNanos;
+                message.delayedFrameDurationNanos = frameNanos;
+            }
+        }
+    }
+
+    /**
+     * 获取最近的慢消息快照，按时间从新到旧排列。必须在主线程上调用。
+     *
+     * @return 慢消息副本列表。
+     */
+    public List<SlowMessage> getRecentSlowMessages() {
+        List<SlowMessage> result = new ArrayList<>(ringSize);
+        for (int i = 1; i <= ringSize; i++) {
+            int index = (ringHead - i + RING_CAPACITY) % RING_CAPACITY;
+            result.add(ring[index].copy());
+        }
+        return result;
+    }
+
+    /**
+     * 生成并打印消息分发报告，包含整体统计数据和最近的慢消息。必须在主线程上调用。
+     */
+    public void dumpReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("\n");
+        report.append("================ Looper Report ================\n");
+        report.append(String.format("| Messages: %d\n", messageCount));
+        report.append(String.format("| Mean Dispatch: %.2f ms\n",
+                messageCount == 0 ? 0 : totalDispatchNanos / 1_000_000.0 / messageCount));
+        report.append(String.format("| Max Dispatch: %d ms\n", maxDispatchNanos / 1_000_000L));
+        report.append(String.format("| Slow Messages (>= %d ms): %d\n", slowThresholdNanos / 1_000_000L, slowMessageCount));
+        for (SlowMessage message : getRecentSlowMessages()) {
+            report.append("|   ").append(message).append("\n");
+        }
+        report.append("===============================================");
+        Log.d(TAG, report.toString());
+    }
+
+    /**
+     * 一条慢消息的记录。
+     */
+    public static final class SlowMessage {
+        // 消息开始分发的时间（System.nanoTime）
+        long startNanos;
+        // 消息分发耗时（纳秒）
+        long durationNanos;
+        // 目标Handler的类名
+        String target;
+        // 消息callback的类名，没有callback时为"null"
+        String callback;
+        // 消息的what值
+        String what;
+        // 被该消息拖慢的帧的vsync时间戳（纳秒），0表示尚未关联到任何帧
+        long delayedFrameNanos;
+        // 被拖慢的帧的耗时（纳秒）
+        long delayedFrameDurationNanos;
+
+        /**
+         * 从Looper的起始日志行中解析出消息信息。
+         * 日志行格式：">>>>> Dispatching to " + target + " " + callback + ": " + what，
+         * 其中 target 的格式为 "Handler (类名) {哈希}"。
+         */
+        void fill(String line, long startNanos, long durationNanos) {
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.delayedFrameNanos = 0;
+            this.delayedFrameDurationNanos = 0;
+            this.target = null;
+            this.callback = null;
+            this.what = null;
+            if (line == null) {
+                return;
+            }
+            int targetStart = line.indexOf('(');
+            int targetEnd = line.indexOf(')', targetStart + 1);
+            if (targetStart >= 0 && targetEnd > targetStart) {
+                target = line.substring(targetStart + 1, targetEnd);
+            }
+            int callbackStart = line.indexOf("} ", targetEnd);
+            int whatStart = line.lastIndexOf(": ");
+            if (callbackStart >= 0 && whatStart > callbackStart) {
+                callback = line.substring(callbackStart + 2, whatStart);
+                // 去掉对象哈希，只保留类名，便于聚合
+                int hash = callback.lastIndexOf('@');
+                if (hash > 0) {
+                    callback = callback.substring(0, hash);
+                }
+                what = line.substring(whatStart + 2);
+            }
+        }
+
+        SlowMessage copy() {
+            SlowMessage copy = new SlowMessage();
+            copy.startNanos = startNanos;
+            copy.durationNanos = durationNanos;
+            copy.target = target;
+            copy.callback = callback;
+            copy.what = what;
+            copy.delayedFrameNanos = delayedFrameNanos;
+            copy.delayedFrameDurationNanos = delayedFrameDurationNanos;
+            return copy;
+        }
+
+        public long getDurationMs() {
+            return durationNanos / 1_000_000L;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        public String getCallback() {
+            return callback;
+        }
+
+        public String getWhat() {
+            return what;
+        }
+
+        public boolean hasDelayedFrame() {
+            return delayedFrameNanos != 0;
+        }
+
+        public long getDelayedFrameMs() {
+            return delayedFrameDurationNanos / 1_000_000L;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(getDurationMs()).append(" ms  ").append(target)
+                    .append("  callback=").append(callback)
+                    .append("  what=").append(what);
+            if (hasDelayedFrame()) {
+                sb.append("  -> delayed frame of ").append(getDelayedFrameMs()).append(" ms");
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.exercise.sdk;
+
+/**
+ * 监控核心使用的单调时钟。
+ * <p>
+ * 监控的计算逻辑（{@link HeartbeatDetector}、{@link FrameStats} 等）不直接调用 `SystemClock`，
+ * 而是通过本接口取时间：在设备上注入 `SystemClock::uptimeMillis`，在 JVM 单元测试和回放中注入虚拟时钟，
+ * 从而可以确定性地重现任意时间线。
+ */
+public interface MonitorClock {
+
+    /**
+     * @return 单调递增的当前时间（毫秒），不包含设备深度休眠的时间。
+     */
+    long uptimeMillis();
+}
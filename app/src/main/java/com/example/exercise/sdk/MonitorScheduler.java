@@ -0,0 +1,20 @@
+package com.example.exercise.sdk;
+
+/**
+ * 向被监控线程投递任务的调度器。
+ * <p>
+ * 在设备上由 {@link HandlerScheduler} 包装主线程的 `Handler`；在 JVM 回放中由虚拟的主线程实现，
+ * 按时间线决定任务何时才能被执行。
+ */
+public interface MonitorScheduler {
+
+    /**
+     * 投递一个任务，由被监控线程在空闲时执行。
+     */
+    void post(Runnable task);
+
+    /**
+     * 移除尚未执行的任务。
+     */
+    void removeCallbacks(Runnable task);
+}
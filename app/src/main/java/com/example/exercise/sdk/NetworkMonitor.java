@@ -0,0 +1,370 @@
+package com.example.exercise.sdk;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 基于 OkHttp `EventListener` 的网络请求分阶段耗时监控。
+ * <p>
+ * 工作原理：
+ * 1. 通过 `OkHttpClient.Builder.eventListenerFactory(NetworkMonitor.getInstance().eventListenerFactory())` 接入，
+ *    每个请求都会获得一个独立的 {@link CallTimer}，在 OkHttp 的各个事件回调中记录 `System.nanoTime()`。
+ * 2. 请求结束时计算 DNS、建连、TLS握手、发送请求、首字节（请求发送完毕到收到响应头）、读取响应体各阶段的耗时，
+ *    以及收发字节数。复用连接的请求没有 DNS/建连/TLS 阶段，只计入连接复用次数。
+ * 3. 各阶段耗时按主机名汇总到 {@link LatencyHistogram} 中，同时以 {@link TelemetryEvent#TYPE_NETWORK} 事件发布到 {@link TelemetryBus}。
+ * 4. 业务层可以通过 {@link #recordParse(String, long)} 补充响应解析的耗时，从而区分慢在网络还是慢在解析。
+ * 5. 报告由 {@link #reportSink()} 在 {@link TelemetryBus} 的消费线程上定期输出（间隔不小于 {@link #REPORT_INTERVAL_MS}），
+ *    每份报告只包含上一份报告之后完成的请求，输出后统计数据清零。
+ */
+public class NetworkMonitor {
+
+    private static final String TAG = "NetworkReport";
+    // 两次输出报告的最小间隔
+    private static final long REPORT_INTERVAL_MS = 60_000;
+
+    // 单例实例
+    private static final NetworkMonitor INSTANCE = new NetworkMonitor();
+
+    // 上次输出报告以来按主机名汇总的统计数据，访问时需持有 this 锁
+    private final Map<String, HostStats> hostStats = new TreeMap<>();
+    // 上次输出报告的时间，只在遥测消费线程上访问
+    private long lastReportAt = SystemClock.uptimeMillis();
+
+    private final EventListener.Factory factory = call -> new CallTimer();
+
+    // 在遥测消费线程上定期输出报告。每个请求结束时都会发布事件，因此有新数据时一定会被调用
+    private final TelemetrySink reportSink = new TelemetrySink() {
+        @Override
+        public void onEvents(TelemetryEvent[] events, int count) {
+        }
+
+        @Override
+        public void onFlush() {
+            long now = SystemClock.uptimeMillis();
+            if (now - lastReportAt >= REPORT_INTERVAL_MS) {
+                lastReportAt = now;
+                dumpReport();
+            }
+        }
+    };
+
+    /**
+     * 私有构造函数，防止外部直接创建实例。
+     */
+    private NetworkMonitor() {}
+
+    /**
+     * 获取NetworkMonitor的单例。
+     *
+     * @return NetworkMonitor的唯一实例。
+     */
+    public static NetworkMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 获取用于接入 OkHttp 的 `EventListener` 工厂。
+     */
+    public EventListener.Factory eventListenerFactory() {
+        return factory;
+    }
+
+    /**
+     * 获取定期输出报告的遥测sink，需通过 {@link TelemetryBus#addSink} 注册。
+     */
+    public TelemetrySink reportSink() {
+        return reportSink;
+    }
+
+    /**
+     * 记录一次响应解析的耗时。
+     *
+     * @param host       请求的主机名。
+     * @param parseNanos 解析耗时（纳秒）。
+     */
+    public synchronized void recordParse(String host, long parseNanos) {
+        statsFor(host).parse.record(parseNanos);
+    }
+
+    /**
+     * 获取某个主机自上次输出报告以来的统计数据的副本。
+     *
+     * @return 统计数据；该主机没有请求记录时返回null。
+     */
+    public synchronized HostStats getHostStats(String host) {
+        HostStats stats = hostStats.get(host);
+        return stats == null ? null : stats.copy();
+    }
+
+    /**
+     * 生成上次输出报告以来按主机汇总的网络耗时报告，不清零统计数据。
+     *
+     * @return 报告文本；没有任何请求记录时返回null。
+     */
+    public synchronized String buildReport() {
+        if (hostStats.isEmpty()) {
+            return null;
+        }
+        StringBuilder report = new StringBuilder();
+        report.append("\n");
+        report.append("================ Network Report ================\n");
+        for (HostStats stats : hostStats.values()) {
+            report.append(String.format("| Host: %s\n", stats.host));
+            report.append(String.format("|   Calls: %d (failed %d, reused connection %d)\n",
+                    stats.callCount, stats.failedCount, stats.reusedConnectionCount));
+            report.append(String.format("|   Bytes: out %d / in %d\n", stats.bytesOut, stats.bytesIn));
+            appendPhase(report, "Total", stats.total);
+            appendPhase(report, "DNS", stats.dns);
+            appendPhase(report, "Connect", stats.connect);
+            appendPhase(report, "TLS", stats.tls);
+            appendPhase(report, "Request", stats.request);
+            appendPhase(report, "TTFB", stats.ttfb);
+            appendPhase(report, "Body Read", stats.bodyRead);
+            appendPhase(report, "Parse", stats.parse);
+        }
+        report.append("================================================");
+        return report.toString();
+    }
+
+    /**
+     * 在有新请求记录时输出报告，并交给 {@link ReportUploader}，然后清零统计数据。
+     */
+    public void dumpReport() {
+        String report;
+        synchronized (this) {
+            report = buildReport();
+            hostStats.clear();
+        }
+        if (report != null) {
+            Log.d(TAG, report);
+            ReportUploader.getInstance().enqueue("network", report);
+        }
+    }
+
+    private static void appendPhase(StringBuilder report, String name, LatencyHistogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return;
+        }
+        report.append(String.format("|   %s: n=%d mean=%.1f P50/P90/P99=%d/%d/%d max=%d ms\n",
+                name, histogram.getTotalCount(), histogram.getMeanMs(),
+                histogram.percentileMs(50), histogram.percentileMs(90), histogram.percentileMs(99),
+                histogram.getMaxMs()));
+    }
+
+    private HostStats statsFor(String host) {
+        HostStats stats = hostStats.get(host);
+        if (stats == null) {
+            stats = new HostStats(host);
+            hostStats.put(host, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * 汇总一个已结束的请求。
+     */
+    private void onCallFinished(CallTimer timer, String host, boolean failed) {
+        synchronized (this) {
+            HostStats stats = statsFor(host);
+            stats.callCount++;
+            if (failed) {
+                stats.failedCount++;
+            }
+            if (timer.connectionAcquired && timer.connectStart == 0) {
+                stats.reusedConnectionCount++;
+            }
+            stats.bytesOut += timer.bytesOut;
+            stats.bytesIn += timer.bytesIn;
+            stats.total.record(timer.callEnd - timer.callStart);
+            recordSpan(stats.dns, timer.dnsStart, timer.dnsEnd);
+            recordSpan(stats.connect, timer.connectStart, timer.connectEnd);
+            recordSpan(stats.tls, timer.secureStart, timer.secureEnd);
+            recordSpan(stats.request, timer.requestStart, timer.requestEnd);
+            recordSpan(stats.ttfb, timer.requestEnd, timer.responseStart);
+            recordSpan(stats.bodyRead, timer.bodyStart, timer.bodyEnd);
+        }
+        TelemetryBus.getInstance().publish(TelemetryEvent.TYPE_NETWORK, timer.callEnd - timer.callStart,
+                timer.bytesIn + timer.bytesOut, failed ? 0 : timer.statusCode, host);
+    }
+
+    private static void recordSpan(LatencyHistogram histogram, long start, long end) {
+        if (start != 0 && end >= start) {
+            histogram.record(end - start);
+        }
+    }
+
+    /**
+     * 记录单个请求各阶段时间点的监听器。OkHttp 保证同一个请求的事件按顺序回调，因此字段无需同步。
+     */
+    private final class CallTimer extends EventListener {
+        long callStart;
+        long callEnd;
+        long dnsStart;
+        long dnsEnd;
+        long connectStart;
+        long connectEnd;
+        long secureStart;
+        long secureEnd;
+        long requestStart;
+        long requestEnd;
+        long responseStart;
+        long bodyStart;
+        long bodyEnd;
+        long bytesOut;
+        long bytesIn;
+        int statusCode;
+        boolean connectionAcquired;
+
+        @Override
+        public void callStart(Call call) {
+            callStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+            dnsEnd = System.nanoTime();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            secureStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            secureEnd = System.nanoTime();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            connectEnd = System.nanoTime();
+        }
+
+        @Override
+        public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol, IOException ioe) {
+            connectEnd = System.nanoTime();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            connectionAcquired = true;
+        }
+
+        @Override
+        public void requestHeadersStart(Call call) {
+            requestStart = System.nanoTime();
+        }
+
+        @Override
+        public void requestHeadersEnd(Call call, Request request) {
+            requestEnd = System.nanoTime();
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            requestEnd = System.nanoTime();
+            bytesOut += byteCount;
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            responseStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseHeadersEnd(Call call, Response response) {
+            statusCode = response.code();
+        }
+
+        @Override
+        public void responseBodyStart(Call call) {
+            bodyStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            bodyEnd = System.nanoTime();
+            bytesIn += byteCount;
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            callEnd = System.nanoTime();
+            onCallFinished(this, call.request().url().host(), false);
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            callEnd = System.nanoTime();
+            onCallFinished(this, call.request().url().host(), true);
+        }
+    }
+
+    /**
+     * 一个主机的网络耗时汇总数据。
+     */
+    public static class HostStats {
+        public final String host;
+        public long callCount;
+        public long failedCount;
+        public long reusedConnectionCount;
+        public long bytesOut;
+        public long bytesIn;
+        public final LatencyHistogram total = new LatencyHistogram();
+        public final LatencyHistogram dns = new LatencyHistogram();
+        public final LatencyHistogram connect = new LatencyHistogram();
+        public final LatencyHistogram tls = new LatencyHistogram();
+        public final LatencyHistogram request = new LatencyHistogram();
+        public final LatencyHistogram ttfb = new LatencyHistogram();
+        public final LatencyHistogram bodyRead = new LatencyHistogram();
+        public final LatencyHistogram parse = new LatencyHistogram();
+
+        HostStats(String host) {
+            this.host = host;
+        }
+
+        HostStats copy() {
+            HostStats copy = new HostStats(host);
+            copy.callCount = callCount;
+            copy.failedCount = failedCount;
+            copy.reusedConnectionCount = reusedConnectionCount;
+            copy.bytesOut = bytesOut;
+            copy.bytesIn = bytesIn;
+            copy.total.copyFrom(total);
+            copy.dns.copyFrom(dns);
+            copy.connect.copyFrom(connect);
+            copy.tls.copyFrom(tls);
+            copy.request.copyFrom(request);
+            copy.ttfb.copyFrom(ttfb);
+            copy.bodyRead.copyFrom(bodyRead);
+            copy.parse.copyFrom(parse);
+            return copy;
+        }
+    }
+}
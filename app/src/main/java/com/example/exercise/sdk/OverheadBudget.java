@@ -0,0 +1,81 @@
+package com.example.exercise.sdk;
+
+/**
+ * SDK自身开销的预算与降级决策，只包含纯计算逻辑，不依赖任何 Android API。
+ * <p>
+ * 每个统计窗口结束时调用一次 {@link #evaluate(long, long, long)}：
+ * 1. 主线程上的SDK耗时占比或后台线程的CPU占比任意一项超出预算，立即降一级。
+ * 2. 连续 {@link #RECOVER_WINDOWS} 个窗口两项都低于预算的一半，才升回一级，避免在预算边缘来回切换。
+ * <p>
+ * 本类不是线程安全的，调用方需保证只在同一线程上调用。
+ */
+public class OverheadBudget {
+
+    // 降级级别：完整采集、降低采集细节、最低限度采集
+    public static final int LEVEL_FULL = 0;
+    public static final int LEVEL_REDUCED = 1;
+    public static final int LEVEL_MINIMAL = 2;
+
+    // 恢复一级所需的连续低开销窗口数
+    static final int RECOVER_WINDOWS = 3;
+
+    // 主线程上SDK耗时占窗口时长的预算（百万分比）
+    private final long mainThreadBudgetPpm;
+    // SDK后台线程CPU时间占窗口时长的预算（百万分比）
+    private final long backgroundBudgetPpm;
+
+    private int level = LEVEL_FULL;
+    private int quietWindows;
+
+    /**
+     * @param mainThreadBudgetPpm 主线程上SDK耗时的预算，以窗口时长的百万分之一为单位，例如 5000 表示 0.5%。
+     * @param backgroundBudgetPpm SDK后台线程CPU时间的预算，单位同上。
+     */
+    public OverheadBudget(long mainThreadBudgetPpm, long backgroundBudgetPpm) {
+        this.mainThreadBudgetPpm = mainThreadBudgetPpm;
+        this.backgroundBudgetPpm = backgroundBudgetPpm;
+    }
+
+    /**
+     * 根据一个统计窗口内的开销更新降级级别。
+     *
+     * @param windowNanos        窗口时长（纳秒）。
+     * @param mainThreadNanos    窗口内SDK回调在主线程上的累计耗时（纳秒）。
+     * @param backgroundCpuNanos 窗口内SDK后台线程的累计CPU时间（纳秒）。
+     * @return 更新后的级别，取值为 `LEVEL_*` 常量之一。
+     */
+    public int evaluate(long windowNanos, long mainThreadNanos, long backgroundCpuNanos) {
+        if (windowNanos <= 0) {
+            return level;
+        }
+        long mainPpm = mainThreadNanos * 1_000_000L / windowNanos;
+        long backgroundPpm = backgroundCpuNanos * 1_000_000L / windowNanos;
+        if (mainPpm > mainThreadBudgetPpm || backgroundPpm > backgroundBudgetPpm) {
+            quietWindows = 0;
+            if (level < LEVEL_MINIMAL) {
+                level++;
+            }
+        } else if (mainPpm * 2 <= mainThreadBudgetPpm && backgroundPpm * 2 <= backgroundBudgetPpm) {
+            if (level > LEVEL_FULL && ++quietWindows >= RECOVER_WINDOWS) {
+                quietWindows = 0;
+                level--;
+            }
+        } else {
+            quietWindows = 0;
+        }
+        return level;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public static String levelName(int level) {
+        switch (level) {
+            case LEVEL_FULL: return "full";
+            case LEVEL_REDUCED: return "reduced";
+            case LEVEL_MINIMAL: return "minimal";
+            default: return "unknown";
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package com.example.exercise.sdk;
+
+import android.os.Debug;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.system.Os;
+import android.system.OsConstants;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * SDK自身开销的统计与自适应降级。
+ * <p>
+ * 工作原理：
+ * 1. 各组件在自己的回调里调用 {@link #record(int, long)}，累计回调次数和耗时。其中帧回调和消息日志回调运行在主线程上，
+ *    它们的耗时就是SDK直接加在主线程上的开销。记录只是两次数组写入，不产生对象分配。
+ * 2. SDK自己创建的后台线程通过 {@link #registerThread(String, int)} 登记线程号，
+ *    统计线程每个窗口读取一次 `/proc/self/task/<tid>/stat` 中的 utime + stime，得到每个线程实际消耗的CPU时间。
+ * 3. 进程级的内存分配量和GC次数来自 ART 的运行时统计，作为SDK分配开销的参照。
+ *    SDK在主线程上的逐帧路径不产生分配，由单元测试和基准测试保证。
+ * 4. 每个窗口（默认5秒）结束时交给 {@link OverheadBudget} 判断是否超出预算。超出预算时逐级降低采集细节：
+ *    帧回调改为周期性采样（只在每个周期的前一段时间注册 `Choreographer` 回调），堆栈采样间隔相应放大；
+ *    开销回落后再逐级恢复。
+ * 5. 应用在后台时暂停统计窗口，回到前台后重新建立基线。
+ * 6. 每个窗口的统计结果以 {@link TelemetryEvent#TYPE_OVERHEAD} 事件发布；每 {@link #REPORT_EVERY_WINDOWS} 个窗口
+ *    在统计线程上输出一次最近窗口的报告，也可以通过 {@link #dumpReport()} 随时输出。
+ */
+public class OverheadMonitor {
+
+    private static final String TAG = "OverheadReport";
+
+    // 记录开销的组件
+    public static final int COMPONENT_FRAME = 0;
+    public static final int COMPONENT_LOOPER = 1;
+    public static final int COMPONENT_WATCHDOG = 2;
+    public static final int COMPONENT_SAMPLER = 3;
+    private static final int COMPONENT_COUNT = 4;
+    private static final String[] COMPONENT_NAMES = {"frame", "looper", "watchdog", "sampler"};
+    // 运行在主线程上的组件，它们的耗时计入主线程开销
+    private static final boolean[] ON_MAIN_THREAD = {true, true, false, false};
+
+    // 统计窗口时长
+    private static final long WINDOW_MS = 5000;
+    // 每隔多少个窗口输出一次报告（约1分钟）
+    private static final int REPORT_EVERY_WINDOWS = 12;
+    // 默认预算：主线程上的SDK耗时不超过0.5%，后台线程CPU不超过2%
+    private static final long DEFAULT_MAIN_THREAD_BUDGET_PPM = 5_000;
+    private static final long DEFAULT_BACKGROUND_BUDGET_PPM = 20_000;
+    // 各降级级别下帧采样的 {采集时长, 周期}（毫秒），采集时长为0表示记录每一帧
+    private static final int[][] FRAME_SAMPLING = {{0, 0}, {1000, 3000}, {1000, 10000}};
+    // 各降级级别下堆栈采样间隔相对于原始配置的倍数
+    private static final int[] SAMPLER_INTERVAL_SCALE = {1, 3, 5};
+
+    // 单例实例
+    private static final OverheadMonitor INSTANCE = new OverheadMonitor();
+
+    // 各组件的累计回调次数和耗时（纳秒）。每个组件只在一个固定线程上写入，因此只需要保证可见性
+    private final AtomicLongArray callCounts = new AtomicLongArray(COMPONENT_COUNT);
+    private final AtomicLongArray callNanos = new AtomicLongArray(COMPONENT_COUNT);
+
+    // 登记的SDK后台线程：线程名 -> 线程号，访问时需持有 this 锁
+    private final Map<String, Integer> threads = new LinkedHashMap<>();
+
+    // 以下字段只在统计线程上读写（报告读取时持有 this 锁）
+    private final long[] lastCounts = new long[COMPONENT_COUNT];
+    private final long[] lastNanos = new long[COMPONENT_COUNT];
+    private final Map<String, Long> lastThreadCpu = new LinkedHashMap<>();
+    private long lastWindowAt;
+    private long lastAllocBytes = -1;
+    private long lastGcCount = -1;
+    private long lastProcessCpuMs;
+    private int windowsSinceReport;
+    private OverheadBudget budget;
+    // 当前的降级级别，可在任意线程读取
+    private volatile int level = OverheadBudget.LEVEL_FULL;
+    private long clockTicksPerSecond;
+    // 上一个完整窗口的统计结果
+    private Window lastWindow;
+
+    // 降级前的堆栈采样间隔
+    private long baseSamplerIntervalMs;
+
+    private HandlerThread overheadThread;
+    private Handler overheadHandler;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private boolean isRunning = false;
+
+    // 应用在后台时暂停统计窗口，回到前台后重新建立基线
+    private final AppLifecycleMonitor.Listener lifecycleListener = new AppLifecycleMonitor.Listener() {
+        @Override
+        public void onForeground() {
+            setPaused(false);
+        }
+
+        @Override
+        public void onBackground() {
+            setPaused(true);
+        }
+    };
+
+    private final Runnable windowTask = new Runnable() {
+        @Override
+        public void run() {
+            closeWindow();
+            Handler handler = overheadHandler;
+            if (handler != null) {
+                handler.postDelayed(this, WINDOW_MS);
+            }
+        }
+    };
+
+    /**
+     * 私有构造函数，防止外部直接创建实例。
+     */
+    private OverheadMonitor() {}
+
+    /**
+     * 获取OverheadMonitor的单例。
+     *
+     * @return OverheadMonitor的唯一实例。
+     */
+    public static OverheadMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 以默认预算启动开销统计。
+     */
+    public void start() {
+        start(DEFAULT_MAIN_THREAD_BUDGET_PPM, DEFAULT_BACKGROUND_BUDGET_PPM);
+    }
+
+    /**
+     * 启动开销统计。
+     *
+     * @param mainThreadBudgetPpm 主线程上SDK耗时的预算，以窗口时长的百万分之一为单位。
+     * @param backgroundBudgetPpm SDK后台线程CPU时间的预算，单位同上。
+     */
+    public synchronized void start(long mainThreadBudgetPpm, long backgroundBudgetPpm) {
+        if (isRunning) return;
+        isRunning = true;
+        overheadThread = new HandlerThread("SdkOverhead", Process.THREAD_PRIORITY_BACKGROUND);
+        overheadThread.start();
+        overheadHandler = new Handler(overheadThread.getLooper());
+        registerThread(overheadThread.getName(), overheadThread.getThreadId());
+        overheadHandler.post(() -> {
+            budget = new OverheadBudget(mainThreadBudgetPpm, backgroundBudgetPpm);
+            clockTicksPerSecond = Os.sysconf(OsConstants._SC_CLK_TCK);
+        });
+        AppLifecycleMonitor.getInstance().addListener(lifecycleListener);
+        setPaused(!AppLifecycleMonitor.getInstance().isForeground());
+    }
+
+    /**
+     * 停止开销统计并恢复完整采集。
+     */
+    public synchronized void stop() {
+        if (!isRunning) return;
+        isRunning = false;
+        AppLifecycleMonitor.getInstance().removeListener(lifecycleListener);
+        overheadHandler.removeCallbacksAndMessages(null);
+        overheadThread.quit();
+        overheadThread = null;
+        overheadHandler = null;
+        level = OverheadBudget.LEVEL_FULL;
+        applyLevel(OverheadBudget.LEVEL_FULL);
+    }
+
+    /**
+     * 暂停或恢复统计窗口。恢复时先重新建立基线，避免把后台期间的开销算进第一个窗口。
+     */
+    private synchronized void setPaused(boolean paused) {
+        Handler handler = overheadHandler;
+        if (handler == null) {
+            return;
+        }
+        handler.removeCallbacks(windowTask);
+        if (!paused) {
+            handler.post(() -> {
+                lastWindowAt = 0;
+                closeWindow();
+            });
+            handler.postDelayed(windowTask, WINDOW_MS);
+        }
+    }
+
+    /**
+     * 记录一次SDK回调的耗时，不产生对象分配。每个组件只能在一个固定的线程上调用。
+     *
+     * @param component 组件，取值为 `COMPONENT_*` 常量之一。
+     * @param nanos     本次回调的耗时（纳秒）。
+     */
+    public void record(int component, long nanos) {
+        callCounts.lazySet(component, callCounts.get(component) + 1);
+        callNanos.lazySet(component, callNanos.get(component) + nanos);
+    }
+
+    /**
+     * 登记一个SDK创建的后台线程，用于统计其CPU时间。同名线程重新登记时覆盖原线程号。
+     *
+     * @param name 线程名称。
+     * @param tid  Linux线程号，例如 `HandlerThread.getThreadId()` 或在该线程上调用的 `Process.myTid()`。
+     */
+    public synchronized void registerThread(String name, int tid) {
+        if (tid > 0) {
+            threads.put(name, tid);
+        }
+    }
+
+    /**
+     * 在当前线程上调用，登记当前线程。
+     */
+    public void registerCurrentThread() {
+        registerThread(Thread.currentThread().getName(), Process.myTid());
+    }
+
+    /**
+     * @return 当前的降级级别，取值为 `OverheadBudget.LEVEL_*` 常量之一。
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return 上一个完整统计窗口的结果；尚未满一个窗口时返回null。
+     */
+    public synchronized Window getLastWindow() {
+        return lastWindow;
+    }
+
+    /**
+     * 结束当前窗口：计算各项开销的增量，交给预算判断降级级别，并发布遥测事件。在统计线程上执行。
+     */
+    private void closeWindow() {
+        long now = SystemClock.uptimeMillis();
+        Window window = new Window();
+        window.durationMs = now - lastWindowAt;
+        long mainThreadNanos = 0;
+        for (int i = 0; i < COMPONENT_COUNT; i++) {
+            long count = callCounts.get(i);
+            long nanos = callNanos.get(i);
+            window.calls[i] = count - lastCounts[i];
+            window.nanos[i] = nanos - lastNanos[i];
+            lastCounts[i] = count;
+            lastNanos[i] = nanos;
+            if (ON_MAIN_THREAD[i]) {
+                mainThreadNanos += window.nanos[i];
+            }
+        }
+        window.mainThreadNanos = mainThreadNanos;
+        window.backgroundCpuNanos = readThreadCpu(window.threadCpuNanos);
+
+        long processCpuMs = Process.getElapsedCpuTime();
+        window.processCpuMs = processCpuMs - lastProcessCpuMs;
+        lastProcessCpuMs = processCpuMs;
+        long allocBytes = parseStat(Debug.getRuntimeStat("art.gc.bytes-allocated"));
+        long gcCount = parseStat(Debug.getRuntimeStat("art.gc.gc-count"));
+        window.processAllocBytes = lastAllocBytes < 0 || allocBytes < 0 ? -1 : allocBytes - lastAllocBytes;
+        window.processGcCount = lastGcCount < 0 || gcCount < 0 ? -1 : gcCount - lastGcCount;
+        lastAllocBytes = allocBytes;
+        lastGcCount = gcCount;
+
+        boolean firstWindow = lastWindowAt == 0;
+        lastWindowAt = now;
+        if (firstWindow) {
+            // 启动时的第一次调用只建立基线
+            return;
+        }
+
+        int previousLevel = level;
+        level = budget.evaluate(window.durationMs * 1_000_000L, window.mainThreadNanos, window.backgroundCpuNanos);
+        window.level = level;
+        synchronized (this) {
+            lastWindow = window;
+        }
+        if (level != previousLevel) {
+            Log.w(TAG, "SDK overhead level " + OverheadBudget.levelName(previousLevel)
+                    + " -> " + OverheadBudget.levelName(level) + ": main thread "
+                    + window.mainThreadNanos / 1_000_000L + " ms, background CPU "
+                    + window.backgroundCpuNanos / 1_000_000L + " ms in " + window.durationMs + " ms");
+            applyLevel(level);
+        }
+        TelemetryBus.getInstance().publish(TelemetryEvent.TYPE_OVERHEAD, window.mainThreadNanos,
+                window.backgroundCpuNanos, level, OverheadBudget.levelName(level));
+        if (++windowsSinceReport >= REPORT_EVERY_WINDOWS) {
+            windowsSinceReport = 0;
+            dumpReport();
+        }
+    }
+
+    /**
+     * 读取所有登记线程在本窗口内消耗的CPU时间。已经结束的线程会被移除。
+     *
+     * @return 所有线程的CPU时间之和（纳秒）。
+     */
+    private long readThreadCpu(Map<String, Long> out) {
+        Map<String, Integer> snapshot;
+        synchronized (this) {
+            snapshot = new LinkedHashMap<>(threads);
+        }
+        long total = 0;
+        for (Map.Entry<String, Integer> entry : snapshot.entrySet()) {
+            long ticks = readCpuTicks(entry.getValue());
+            if (ticks < 0) {
+                synchronized (this) {
+                    threads.remove(entry.getKey());
+                }
+                lastThreadCpu.remove(entry.getKey());
+                continue;
+            }
+            long cpuNanos = ticks * 1_000_000_000L / Math.max(1, clockTicksPerSecond);
+            Long last = lastThreadCpu.put(entry.getKey(), cpuNanos);
+            long delta = last == null ? 0 : Math.max(0, cpuNanos - last);
+            out.put(entry.getKey(), delta);
+            total += delta;
+        }
+        // 清理已不再登记的线程的基线
+        for (Iterator<String> it = lastThreadCpu.keySet().iterator(); it.hasNext(); ) {
+            if (!snapshot.containsKey(it.next())) {
+                it.remove();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 从 `/proc/self/task/<tid>/stat` 读取线程的 utime + stime。
+     *
+     * @return 累计的CPU时钟滴答数；线程不存在或读取失败时返回-1。
+     */
+    private static long readCpuTicks(int tid) {
+        try (BufferedReader reader = new BufferedReader(new FileReader("/proc/self/task/" + tid + "/stat"))) {
+            String line = reader.readLine();
+            if (line == null) {
+                return -1;
+            }
+            // 线程名可能包含空格，从最后一个右括号之后开始按空格切分，第一个字段是状态（第3列）
+            String[] fields = line.substring(line.lastIndexOf(')') + 2).split(" ");
+            return Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static long parseStat(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 按降级级别调整各组件的采集细节。
+     */
+    private void applyLevel(int level) {
+        StackSampler sampler = StackSampler.getInstance();
+        if (level == OverheadBudget.LEVEL_FULL) {
+            if (baseSamplerIntervalMs > 0) {
+                sampler.setIntervalMs((int) baseSamplerIntervalMs);
+                baseSamplerIntervalMs = 0;
+            }
+        } else {
+            if (baseSamplerIntervalMs == 0) {
+                baseSamplerIntervalMs = sampler.getIntervalMs();
+            }
+            sampler.setIntervalMs((int) (baseSamplerIntervalMs * SAMPLER_INTERVAL_SCALE[level]));
+        }
+        int[] sampling = FRAME_SAMPLING[level];
+        // FluencyMonitor只能在主线程上访问
+        mainHandler.post(() -> FluencyMonitor.getInstance().setFrameSampling(sampling[0], sampling[1]));
+    }
+
+    /**
+     * 生成开销报告文本。
+     *
+     * @return 报告文本；尚未满一个统计窗口时返回null。
+     */
+    public synchronized String buildReport() {
+        Window window = lastWindow;
+        if (window == null) {
+            return null;
+        }
+        double seconds = Math.max(1, window.durationMs) / 1000.0;
+        StringBuilder report = new StringBuilder();
+        report.append("\n");
+        report.append("================ SDK Overhead Report ================\n");
+        report.append(String.format("| Window: %d ms, Level: %s\n", window.durationMs, OverheadBudget.levelName(window.level)));
+        report.append(String.format("| Main Thread: %.2f ms/s\n", window.mainThreadNanos / 1_000_000.0 / seconds));
+        report.append(String.format("| Background CPU: %.2f ms/s\n", window.backgroundCpuNanos / 1_000_000.0 / seconds));
+        for (int i = 0; i < COMPONENT_COUNT; i++) {
+            report.append(String.format("|   %s: %.1f calls/s, %.3f ms/s\n", COMPONENT_NAMES[i],
+                    window.calls[i] / seconds, window.nanos[i] / 1_000_000.0 / seconds));
+        }
+        for (Map.Entry<String, Long> entry : window.threadCpuNanos.entrySet()) {
+            report.append(String.format("|   thread %s: %.2f ms/s CPU\n", entry.getKey(), entry.getValue() / 1_000_000.0 / seconds));
+        }
+        report.append(String.format("| Process CPU: %.2f ms/s\n", window.processCpuMs / seconds));
+        if (window.processAllocBytes >= 0) {
+            report.append(String.format("| Process Alloc: %d KB/s, GC: %d\n",
+                    (long) (window.processAllocBytes / 1024 / seconds), window.processGcCount));
+        }
+        report.append("=====================================================");
+        return report.toString();
+    }
+
+    /**
+     * 打印开销报告。
+     */
+    public void dumpReport() {
+        String report = buildReport();
+        if (report != null) {
+            Log.d(TAG, report);
+        }
+    }
+
+    /**
+     * 一个统计窗口内的开销数据。
+     */
+    public static final class Window {
+        public long durationMs;
+        public int level;
+        // 各组件的回调次数和耗时（纳秒），下标为 `COMPONENT_*` 常量
+        public final long[] calls = new long[COMPONENT_COUNT];
+        public final long[] nanos = new long[COMPONENT_COUNT];
+        public long mainThreadNanos;
+        public long backgroundCpuNanos;
+        // 各登记线程的CPU时间（纳秒）
+        public final Map<String, Long> threadCpuNanos = new LinkedHashMap<>();
+        public long processCpuMs;
+        // 进程级的分配字节数和GC次数，不支持时为-1
+        public long processAllocBytes = -1;
+        public long processGcCount = -1;
+    }
+}
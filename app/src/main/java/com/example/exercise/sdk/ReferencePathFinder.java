@@ -0,0 +1,199 @@
+package com.example.exercise.sdk;
+
+import java.lang.ref.Reference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 在进程内通过反射查找从一组根对象到目标对象的强引用路径。
+ * <p>
+ * 完整的引用链分析需要转储并解析整个堆，代价太大，不适合在应用内进行。本类只从调用方登记的根对象
+ * （例如SDK自身的单例）出发做有界的广度优先搜索，能覆盖“单例持有监听器、监听器捕获页面”这类最常见的泄漏：
+ * 1. 普通对象遍历其所有实例字段（包括父类），数组和 `Collection` / `Map` 通过公开接口遍历元素。
+ * 2. 弱引用、软引用的 referent 不是强引用，不会被遍历；`Class`、字符串和基本类型包装类没有需要关心的引用，直接跳过。
+ * 3. 访问的对象数超过上限时放弃搜索，避免在大对象图上耗时过长。
+ * <p>
+ * 搜索过程中对象图可能被其他线程修改，遇到并发修改或无法访问的字段时跳过该节点，因此结果只是“尽力而为”。
+ */
+public class ReferencePathFinder {
+
+    // 默认最多访问的对象数
+    static final int DEFAULT_MAX_VISITED = 50_000;
+
+    // 各个类的实例字段缓存，避免重复反射
+    private final Map<Class<?>, Field[]> fieldCache = new HashMap<>();
+    private final Map<String, Object> roots = new LinkedHashMap<>();
+    private final int maxVisited;
+
+    public ReferencePathFinder() {
+        this(DEFAULT_MAX_VISITED);
+    }
+
+    public ReferencePathFinder(int maxVisited) {
+        this.maxVisited = maxVisited;
+    }
+
+    /**
+     * 登记一个根对象。
+     *
+     * @param name 根对象在路径中显示的名称，例如 "FluencyMonitor"。
+     * @param root 根对象。
+     */
+    public synchronized void addRoot(String name, Object root) {
+        roots.put(name, root);
+    }
+
+    /**
+     * 查找从任一根对象到目标对象的最短强引用路径。
+     *
+     * @param target 目标对象。
+     * @return 路径上的各个步骤，第一个元素是根对象名称，之后每一步是 "字段名 (类名)" 或 "[下标] (类名)"；找不到时返回空列表。
+     */
+    public synchronized List<String> findPath(Object target) {
+        IdentityHashMap<Object, Step> visited = new IdentityHashMap<>();
+        ArrayDeque<Object> queue = new ArrayDeque<>();
+        for (Map.Entry<String, Object> root : roots.entrySet()) {
+            if (root.getValue() != null && !visited.containsKey(root.getValue())) {
+                visited.put(root.getValue(), new Step(null, root.getKey()));
+                queue.add(root.getValue());
+            }
+        }
+
+        while (!queue.isEmpty() && visited.size() <= maxVisited) {
+            Object current = queue.poll();
+            if (current == target) {
+                return buildPath(visited, target);
+            }
+            try {
+                expand(current, visited, queue);
+            } catch (RuntimeException e) {
+                // 并发修改或字段无法访问，跳过该节点
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * 把一个对象直接引用的所有对象加入队列。
+     */
+    private void expand(Object current, IdentityHashMap<Object, Step> visited, ArrayDeque<Object> queue) {
+        Class<?> type = current.getClass();
+        if (type.isArray()) {
+            if (type.getComponentType().isPrimitive()) {
+                return;
+            }
+            int length = Array.getLength(current);
+            for (int i = 0; i < length; i++) {
+                enqueue(Array.get(current, i), current, "[" + i + "]", visited, queue);
+            }
+        } else if (current instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) current).entrySet()) {
+                Object key = entry.getKey();
+                String label = key instanceof CharSequence || key instanceof Number ? "[" + key + "]" : "[value]";
+                enqueue(entry.getValue(), current, label, visited, queue);
+                enqueue(entry.getKey(), current, "[key]", visited, queue);
+            }
+        } else if (current instanceof Collection) {
+            int index = 0;
+            for (Object element : (Collection<?>) current) {
+                enqueue(element, current, "[" + index++ + "]", visited, queue);
+            }
+        } else {
+            for (Field field : instanceFields(type)) {
+                Object value;
+                try {
+                    value = field.get(current);
+                } catch (IllegalAccessException e) {
+                    continue;
+                }
+                enqueue(value, current, field.getName(), visited, queue);
+            }
+        }
+    }
+
+    private static void enqueue(Object value, Object parent, String label,
+                                IdentityHashMap<Object, Step> visited, ArrayDeque<Object> queue) {
+        if (value == null || isLeaf(value) || visited.containsKey(value)) {
+            return;
+        }
+        visited.put(value, new Step(parent, label));
+        queue.add(value);
+    }
+
+    /**
+     * 不需要继续遍历的对象。
+     */
+    private static boolean isLeaf(Object value) {
+        return value instanceof Class
+                || value instanceof CharSequence
+                || value instanceof Number
+                || value instanceof Boolean
+                || value instanceof Character
+                || value instanceof Enum;
+    }
+
+    /**
+     * 获取一个类（包括父类）的所有非静态、非基本类型字段，弱引用的 referent 字段被排除。
+     */
+    private Field[] instanceFields(Class<?> type) {
+        Field[] cached = fieldCache.get(type);
+        if (cached != null) {
+            return cached;
+        }
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            if (c == Reference.class) {
+                break;
+            }
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                    fields.add(field);
+                } catch (RuntimeException e) {
+                    // 系统类的字段可能受访问限制，忽略
+                }
+            }
+        }
+        Field[] result = fields.toArray(new Field[0]);
+        fieldCache.put(type, result);
+        return result;
+    }
+
+    private static List<String> buildPath(IdentityHashMap<Object, Step> visited, Object target) {
+        List<String> path = new ArrayList<>();
+        Object current = target;
+        while (current != null) {
+            Step step = visited.get(current);
+            path.add(step.parent == null ? step.label : step.label + " (" + current.getClass().getName() + ")");
+            current = step.parent;
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * 搜索树中的一步：从父对象经由某个字段或元素到达当前对象。
+     */
+    private static final class Step {
+        final Object parent;
+        final String label;
+
+        Step(Object parent, String label) {
+            this.parent = parent;
+            this.label = label;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.exercise.sdk;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 待上报性能报告的磁盘队列。
+ * <p>
+ * 设计要点：
+ * 1. 每条报告保存为目录下的一个独立文件，文件名是单调递增的序号，按文件名排序即为入队顺序，进程重启后可直接恢复。
+ * 2. 写入时先写临时文件再重命名，进程在写入过程中被杀也不会留下半条报告。
+ * 3. 队列总大小超过 {@link #MAX_QUEUE_BYTES} 时淘汰最旧的报告，长期离线也不会无限占用存储空间。
+ * <p>
+ * 本类的方法都是同步的，可在任意线程调用。
+ */
+public class ReportQueue {
+
+    private static final String TAG = "ReportUploader";
+    private static final String SUFFIX = ".rpt";
+    private static final String TEMP_SUFFIX = ".tmp";
+    // 队列占用磁盘的上限（字节）
+    static final long MAX_QUEUE_BYTES = 1024 * 1024;
+
+    private final File dir;
+    // 下一条报告的序号
+    private long nextSequence;
+
+    /**
+     * 构造函数，恢复之前未上报的报告，并清理上次异常退出时残留的临时文件。
+     *
+     * @param dir 存放报告文件的目录，通常为 `context.getFilesDir()` 下的子目录。
+     */
+    public ReportQueue(File dir) {
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.w(TAG, "Unable to create report queue dir " + dir);
+        }
+        this.dir = dir;
+        File[] temps = dir.listFiles((d, name) -> name.endsWith(TEMP_SUFFIX));
+        if (temps != null) {
+            for (File temp : temps) {
+                temp.delete();
+            }
+        }
+        List<File> files = listFiles();
+        if (!files.isEmpty()) {
+            nextSequence = parseSequence(files.get(files.size() - 1)) + 1;
+        }
+    }
+
+    /**
+     * 把一条报告加入队尾。
+     *
+     * @param data 序列化后的报告内容。
+     * @return 是否写入成功。
+     */
+    public synchronized boolean enqueue(byte[] data) {
+        File target = new File(dir, String.format(Locale.US, "%019d%s", nextSequence, SUFFIX));
+        File temp = new File(dir, target.getName() + TEMP_SUFFIX);
+        try (OutputStream out = new FileOutputStream(temp)) {
+            out.write(data);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to queue report", e);
+            temp.delete();
+            return false;
+        }
+        if (!temp.renameTo(target)) {
+            Log.w(TAG, "Unable to commit report " + target);
+            temp.delete();
+            return false;
+        }
+        nextSequence++;
+        trim();
+        return true;
+    }
+
+    /**
+     * 从队头取出一批报告（不删除），总大小不超过 maxBytes。
+     * 第一条报告即使超过 maxBytes 也会被返回，避免单条大报告永远无法上报。
+     *
+     * @param maxBytes 本批次的字节上限。
+     * @return 按入队顺序排列的报告文件；队列为空时返回空列表。
+     */
+    public synchronized List<File> peek(long maxBytes) {
+        List<File> batch = new ArrayList<>();
+        long bytes = 0;
+        for (File file : listFiles()) {
+            long length = file.length();
+            if (!batch.isEmpty() && bytes + length > maxBytes) {
+                break;
+            }
+            batch.add(file);
+            bytes += length;
+        }
+        return batch;
+    }
+
+    /**
+     * 删除已上报（或确认无法上报）的报告。
+     */
+    public synchronized void remove(List<File> files) {
+        for (File file : files) {
+            if (file.exists() && !file.delete()) {
+                Log.w(TAG, "Unable to delete " + file);
+            }
+        }
+    }
+
+    /**
+     * 读取一条报告的内容。
+     */
+    public static byte[] read(File file) throws IOException {
+        byte[] data = new byte[(int) file.length()];
+        try (InputStream in = new FileInputStream(file)) {
+            int offset = 0;
+            while (offset < data.length) {
+                int n = in.read(data, offset, data.length - offset);
+                if (n < 0) {
+                    return Arrays.copyOf(data, offset);
+                }
+                offset += n;
+            }
+        }
+        return data;
+    }
+
+    public synchronized int size() {
+        return listFiles().size();
+    }
+
+    public synchronized long sizeBytes() {
+        long bytes = 0;
+        for (File file : listFiles()) {
+            bytes += file.length();
+        }
+        return bytes;
+    }
+
+    /**
+     * 队列超过大小上限时，从最旧的报告开始淘汰。
+     */
+    private void trim() {
+        List<File> files = listFiles();
+        long bytes = 0;
+        for (File file : files) {
+            bytes += file.length();
+        }
+        for (int i = 0; i < files.size() - 1 && bytes > MAX_QUEUE_BYTES; i++) {
+            File oldest = files.get(i);
+            bytes -= oldest.length();
+            oldest.delete();
+        }
+    }
+
+    private List<File> listFiles() {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        Arrays.sort(files);
+        return new ArrayList<>(Arrays.asList(files));
+    }
+
+    private static long parseSequence(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
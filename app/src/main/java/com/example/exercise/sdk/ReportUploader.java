@@ -0,0 +1,312 @@
+package com.example.exercise.sdk;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import com.google.gson.Gson;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * 性能报告的批量压缩上报器。
+ * <p>
+ * 工作原理：
+ * 1. {@link FluencyMonitor}、{@link AnrMonitor} 生成报告后调用 {@link #enqueue}，报告被序列化为一行JSON，
+ *    在后台线程写入磁盘队列 {@link ReportQueue}，进程重启后仍会继续上报。
+ * 2. 入队后等待 {@link #BATCH_DELAY_MS} 凑批，再把队头的多条报告拼成 NDJSON，gzip 压缩后用一次 POST 发送，
+ *    避免每条报告单独唤醒一次射频。
+ * 3. 请求失败（网络异常、408/429、5xx）时按指数退避重试，服务端返回 `Retry-After` 时以其为准；
+ *    其余 4xx 表示报告本身被拒绝，直接丢弃，避免一批坏数据永远堵住队列。
+ * 4. 每个上报窗口（{@link #WINDOW_MS}）内发送的压缩后字节数不超过 {@link #WINDOW_BUDGET_BYTES}，超出后推迟到下一个窗口。
+ * <p>
+ * 上报器只有在 {@link #start} 之后才接收报告，未启动时 {@link #enqueue} 返回false，报告被丢弃。
+ */
+public class ReportUploader {
+
+    private static final String TAG = "ReportUploader";
+    private static final MediaType NDJSON = MediaType.get("application/x-ndjson; charset=utf-8");
+    // 入队后等待凑批的时间（毫秒）
+    static final long BATCH_DELAY_MS = 30_000;
+    // 单个批次压缩前的字节上限，队列达到该大小时立即上报
+    static final long MAX_BATCH_BYTES = 64 * 1024;
+    // 上报窗口长度（毫秒）及窗口内允许发送的压缩后字节数
+    static final long WINDOW_MS = 60 * 60 * 1000;
+    static final long WINDOW_BUDGET_BYTES = 256 * 1024;
+    // 退避的初始值和上限（毫秒）
+    static final long INITIAL_BACKOFF_MS = 30_000;
+    static final long MAX_BACKOFF_MS = 30 * 60 * 1000;
+
+    // 单例实例
+    private static final ReportUploader INSTANCE = new ReportUploader();
+
+    private final Gson gson = new Gson();
+    private ReportQueue queue;
+    private OkHttpClient client;
+    private String endpoint;
+
+    // 上报线程及其Handler，启动后才创建
+    private HandlerThread uploadThread;
+    private volatile Handler uploadHandler;
+    private volatile boolean isRunning = false;
+    // 已投递的上报任务计划执行的时间（System.currentTimeMillis），0表示没有待执行的任务，只在上报线程访问
+    private long scheduledAtMs;
+
+    // 以下状态只在上报线程（或测试线程）中访问
+    private long backoffMs;
+    // 退避或预算限制解除的时间，在此之前不会发起请求
+    private long nextAttemptAtMs;
+    private long windowStartMs;
+    private long windowBytes;
+
+    private final Runnable uploadTask = new Runnable() {
+        @Override
+        public void run() {
+            scheduledAtMs = 0;
+            uploadPending();
+            if (queue.size() > 0) {
+                schedule(Math.max(nextAttemptAtMs - System.currentTimeMillis(), BATCH_DELAY_MS));
+            }
+        }
+    };
+
+    /**
+     * 包内可见的构造函数，供单元测试直接创建独立实例；应用内请使用 {@link #getInstance()}。
+     */
+    ReportUploader() {}
+
+    /**
+     * 获取ReportUploader的单例。
+     *
+     * @return ReportUploader的唯一实例。
+     */
+    public static ReportUploader getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 启动上报器，队列存放在 `filesDir/reports` 下。启动之前 {@link #enqueue} 的报告会被直接丢弃。
+     *
+     * @param context  上下文，用于获取应用私有目录。
+     * @param endpoint 接收报告的服务端地址。
+     * @param client   发送请求使用的OkHttp客户端，应传入应用共享的客户端以共用连接池和线程池。
+     */
+    public synchronized void start(Context context, String endpoint, OkHttpClient client) {
+        if (isRunning) return;
+        File dir = new File(context.getApplicationContext().getFilesDir(), "reports");
+        uploadThread = new HandlerThread("ReportUploader");
+        uploadThread.start();
+        uploadHandler = new Handler(uploadThread.getLooper());
+        OverheadMonitor.getInstance().registerThread(uploadThread.getName(), uploadThread.getThreadId());
+        isRunning = true;
+        // 队列目录的扫描涉及磁盘IO，放到上报线程执行；上次未发送完的报告按正常凑批节奏继续上报
+        uploadHandler.post(() -> {
+            init(new ReportQueue(dir), endpoint, client);
+            if (queue.size() > 0) {
+                schedule(BATCH_DELAY_MS);
+            }
+        });
+    }
+
+    /**
+     * 停止上报器并结束上报线程，未发送的报告保留在磁盘上，下次启动后继续上报。
+     */
+    public synchronized void stop() {
+        if (!isRunning) return;
+        isRunning = false;
+        uploadHandler.removeCallbacks(uploadTask);
+        uploadThread.quitSafely();
+        uploadThread = null;
+        uploadHandler = null;
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /**
+     * 把一条报告加入上报队列，可在任意线程调用，磁盘写入在上报线程中进行。
+     *
+     * @param type   报告类型，例如 "fluency"、"anr"。
+     * @param report 报告正文。
+     * @return 是否已接收；上报器未启动时返回false。
+     */
+    public boolean enqueue(String type, String report) {
+        Handler handler = uploadHandler;
+        if (!isRunning || handler == null) {
+            return false;
+        }
+        long createdAtMs = System.currentTimeMillis();
+        handler.post(() -> {
+            if (writeReport(type, report, createdAtMs)) {
+                schedule(queue.sizeBytes() >= MAX_BATCH_BYTES ? 0 : BATCH_DELAY_MS);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 设置队列、服务端地址和客户端。
+     */
+    void init(ReportQueue queue, String endpoint, OkHttpClient client) {
+        this.queue = queue;
+        this.endpoint = endpoint;
+        this.client = client;
+    }
+
+    /**
+     * 序列化一条报告并同步写入队列。
+     */
+    boolean writeReport(String type, String report, long createdAtMs) {
+        String line = gson.toJson(new Entry(type, createdAtMs, report)) + "\n";
+        return queue.enqueue(line.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 同步上报队列中的报告，直到队列为空、请求失败或本窗口的字节预算用完。
+     * 处于退避期间时直接返回，不发起请求。
+     *
+     * @return 本次成功上报的报告条数。
+     */
+    int uploadPending() {
+        int uploaded = 0;
+        while (true) {
+            long now = System.currentTimeMillis();
+            if (now < nextAttemptAtMs) {
+                return uploaded;
+            }
+            if (now - windowStartMs >= WINDOW_MS) {
+                windowStartMs = now;
+                windowBytes = 0;
+            }
+            List<File> batch = queue.peek(MAX_BATCH_BYTES);
+            if (batch.isEmpty()) {
+                return uploaded;
+            }
+
+            byte[] body;
+            try {
+                body = gzipBatch(batch);
+            } catch (IOException e) {
+                // 读不出来的报告无法恢复，丢弃后继续处理后面的报告
+                Log.w(TAG, "Dropping unreadable reports", e);
+                queue.remove(batch);
+                continue;
+            }
+            // 超出本窗口预算时推迟到下一个窗口；窗口内的第一个批次不受限制，否则过大的批次永远发不出去
+            if (windowBytes > 0 && windowBytes + body.length > WINDOW_BUDGET_BYTES) {
+                nextAttemptAtMs = windowStartMs + WINDOW_MS;
+                return uploaded;
+            }
+            windowBytes += body.length;
+
+            Request request = new Request.Builder()
+                    .url(endpoint)
+                    .header("Content-Encoding", "gzip")
+                    .header("X-Report-Count", String.valueOf(batch.size()))
+                    .post(RequestBody.create(body, NDJSON))
+                    .build();
+            try (Response response = client.newCall(request).execute()) {
+                int code = response.code();
+                if (response.isSuccessful()) {
+                    queue.remove(batch);
+                    uploaded += batch.size();
+                    backoffMs = 0;
+                } else if (code == 408 || code == 429 || code >= 500) {
+                    backOff(parseRetryAfterMs(response.header("Retry-After")));
+                    return uploaded;
+                } else {
+                    Log.w(TAG, "Server rejected " + batch.size() + " reports with HTTP " + code + ", dropping them");
+                    queue.remove(batch);
+                    backoffMs = 0;
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Report upload failed: " + e.getMessage());
+                backOff(0);
+                return uploaded;
+            }
+        }
+    }
+
+    long getBackoffMs() {
+        return backoffMs;
+    }
+
+    /**
+     * 进入退避：退避时长从 {@link #INITIAL_BACKOFF_MS} 开始每次翻倍，不超过 {@link #MAX_BACKOFF_MS}。
+     *
+     * @param retryAfterMs 服务端要求的等待时长（毫秒），0表示未指定。
+     */
+    private void backOff(long retryAfterMs) {
+        backoffMs = backoffMs == 0 ? INITIAL_BACKOFF_MS : Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        nextAttemptAtMs = System.currentTimeMillis() + Math.max(backoffMs, retryAfterMs);
+    }
+
+    /**
+     * 在上报线程中安排一次上报。已安排了更早的上报时保持不变，使多次入队合并为一个批次。
+     */
+    private void schedule(long delayMs) {
+        Handler handler = uploadHandler;
+        if (handler == null) {
+            return;
+        }
+        long at = System.currentTimeMillis() + delayMs;
+        if (scheduledAtMs != 0 && scheduledAtMs <= at) {
+            return;
+        }
+        handler.removeCallbacks(uploadTask);
+        handler.postDelayed(uploadTask, delayMs);
+        scheduledAtMs = at;
+    }
+
+    private static byte[] gzipBatch(List<File> batch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            for (File file : batch) {
+                gzip.write(ReportQueue.read(file));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 解析以秒为单位的 `Retry-After` 头，不支持HTTP日期格式，无法解析时返回0。
+     */
+    private static long parseRetryAfterMs(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.min(Long.parseLong(value.trim()) * 1000, MAX_BACKOFF_MS);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 队列中一条报告的序列化格式。
+     */
+    private static class Entry {
+        final String type;
+        final long timestamp;
+        final String report;
+
+        Entry(String type, long timestamp, String report) {
+            this.type = type;
+            this.timestamp = timestamp;
+            this.report = report;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.exercise.sdk;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 卡顿触发的主线程高频堆栈采样器。
+ * <p>
+ * 单次 `getStackTrace()` 快照往往恰好落在一个“无辜”的方法上，对 50~300ms 级别的卡顿几乎没有定位价值。
+ * 本类的做法是：
+ * 1. {@link LooperMonitor} 在每条主线程消息开始分发时调用 {@link #onDispatchStart()}，
+ *    向后台采样线程投递一个延迟任务，延迟时间即消息的耗时预算。帧绘制本身也是一条主线程消息，因此同样适用于超时的帧。
+ * 2. 消息在预算内结束时，{@link #onDispatchEnd(long)} 会撤销该任务，正常消息不会产生任何采样开销。
+ * 3. 消息超出预算后，采样线程按固定间隔（默认10ms）持续抓取主线程堆栈，直到消息结束。
+ *    每次分发都有一个递增的序号，采样任务携带投递时的序号（放在 `Message.arg1` 中，不产生对象分配），
+ *    执行时序号已变化说明原来的消息已经结束，不再采样也不再投递。这样即使撤销时采样任务正在执行，
+ *    它重新投递的任务也不会在下一条消息的预算之内就开始采样。
+ * 4. 所有样本聚合到一棵去重的调用树中，可以导出为火焰图工具通用的 folded stacks 格式
+ *    （每行 "frame1;frame2;...;frameN count"）。
+ */
+public class StackSampler {
+
+    private static final String TAG = "StackSampler";
+    // 默认的触发阈值（毫秒）：消息执行超过该时长才开始采样
+    private static final int DEFAULT_TRIGGER_MS = 16;
+    // 默认的采样间隔（毫秒）
+    private static final int DEFAULT_INTERVAL_MS = 10;
+    // 调用树的最大节点数，超出后丢弃新样本，避免内存无限增长
+    private static final int MAX_NODES = 20_000;
+    // 报告中输出的最热堆栈条数
+    private static final int REPORT_TOP_STACKS = 10;
+    // 采样任务的消息类型
+    private static final int MSG_SAMPLE = 1;
+
+    // 单例实例
+    private static final StackSampler INSTANCE = new StackSampler();
+
+    // 采样线程及其Handler，启动后才创建
+    private HandlerThread samplerThread;
+    private volatile Handler samplerHandler;
+    private Thread mainThread;
+
+    private volatile long triggerMs = DEFAULT_TRIGGER_MS;
+    private volatile long intervalMs = DEFAULT_INTERVAL_MS;
+    private volatile boolean isRunning = false;
+    // 主线程当前是否有消息正在分发
+    private volatile boolean dispatching = false;
+    // 当前分发的序号，只在主线程写入
+    private volatile int dispatchGeneration;
+
+    // 调用树的根节点，访问时需持有 this 锁
+    private final Node root = new Node("root");
+    private int nodeCount;
+    private long sampleCount;
+    private long droppedSamples;
+    // 触发采样的次数（超出预算的消息数）
+    private long episodeCount;
+
+    /**
+     * 采样任务：抓取一次主线程堆栈，并在指定间隔后以相同的分发序号再次投递，
+     * 直到被 {@link #onDispatchEnd(long)} 撤销或该次分发结束。
+     */
+    private final Handler.Callback sampleCallback = msg -> {
+        int generation = msg.arg1;
+        // 消息可能在本任务开始执行时恰好结束，或者已经开始了下一条消息，此时不再采样，也不再投递下一次
+        if (!isRunning || !dispatching || generation != dispatchGeneration) {
+            return true;
+        }
+        long sampleStart = System.nanoTime();
+        StackTraceElement[] stack = mainThread.getStackTrace();
+        synchronized (StackSampler.this) {
+            addSample(stack);
+        }
+        OverheadMonitor.getInstance().record(OverheadMonitor.COMPONENT_SAMPLER, System.nanoTime() - sampleStart);
+        Handler handler = samplerHandler;
+        if (handler != null && generation == dispatchGeneration) {
+            handler.sendMessageDelayed(handler.obtainMessage(MSG_SAMPLE, generation, 0), intervalMs);
+        }
+        return true;
+    };
+
+    /**
+     * 私有构造函数，防止外部直接创建实例。
+     */
+    private StackSampler() {}
+
+    /**
+     * 获取StackSampler的单例。
+     *
+     * @return StackSampler的唯一实例。
+     */
+    public static StackSampler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 以默认参数启动采样器。
+     */
+    public void start() {
+        start(DEFAULT_TRIGGER_MS, DEFAULT_INTERVAL_MS);
+    }
+
+    /**
+     * 启动采样器。采样由 {@link LooperMonitor} 驱动，因此需要同时启动 LooperMonitor。
+     *
+     * @param triggerMs  触发阈值（毫秒），消息执行超过该时长后开始采样。
+     * @param intervalMs 采样间隔（毫秒）。
+     */
+    public synchronized void start(int triggerMs, int intervalMs) {
+        this.triggerMs = triggerMs;
+        this.intervalMs = Math.max(1, intervalMs);
+        if (isRunning) return;
+        mainThread = Looper.getMainLooper().getThread();
+        samplerThread = new HandlerThread("StackSampler");
+        samplerThread.start();
+        samplerHandler = new Handler(samplerThread.getLooper(), sampleCallback);
+        OverheadMonitor.getInstance().registerThread(samplerThread.getName(), samplerThread.getThreadId());
+        isRunning = true;
+    }
+
+    /**
+     * 停止采样器并结束采样线程，已采集的样本会保留。
+     */
+    public synchronized void stop() {
+        if (!isRunning) return;
+        isRunning = false;
+        samplerHandler.removeMessages(MSG_SAMPLE);
+        samplerThread.quit();
+        samplerThread = null;
+        samplerHandler = null;
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /**
+     * 调整采样间隔，{@link OverheadMonitor} 在SDK开销超出预算时通过它降低采样频率。
+     *
+     * @param intervalMs 新的采样间隔（毫秒）。
+     */
+    public void setIntervalMs(int intervalMs) {
+        this.intervalMs = Math.max(1, intervalMs);
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    /**
+     * 主线程消息开始分发时调用，投递一个携带本次分发序号的延迟采样任务。
+     */
+    void onDispatchStart() {
+        Handler handler = samplerHandler;
+        if (isRunning && handler != null) {
+            int generation = dispatchGeneration + 1;
+            dispatchGeneration = generation;
+            dispatching = true;
+            handler.sendMessageDelayed(handler.obtainMessage(MSG_SAMPLE, generation, 0), triggerMs);
+        }
+    }
+
+    /**
+     * 主线程消息分发结束时调用，撤销尚未执行或仍在循环的采样任务。
+     *
+     * @param dispatchMs 该消息的执行时长（毫秒），超出预算时计为一次采样事件。
+     */
+    void onDispatchEnd(long dispatchMs) {
+        dispatching = false;
+        Handler handler = samplerHandler;
+        if (handler != null) {
+            handler.removeMessages(MSG_SAMPLE);
+        }
+        if (dispatchMs >= triggerMs) {
+            synchronized (this) {
+                episodeCount++;
+            }
+        }
+    }
+
+    /**
+     * 将一次堆栈样本合并到调用树中。堆栈从栈底（调用链的起点）向栈顶逐层合并。
+     */
+    private void addSample(StackTraceElement[] stack) {
+        Node node = root;
+        for (int i = stack.length - 1; i >= 0; i--) {
+            String frame = stack[i].getClassName() + "." + stack[i].getMethodName();
+            Node child = node.children.get(frame);
+            if (child == null) {
+                if (nodeCount >= MAX_NODES) {
+                    droppedSamples++;
+                    return;
+                }
+                child = new Node(frame);
+                node.children.put(frame, child);
+                nodeCount++;
+            }
+            node = child;
+        }
+        node.selfCount++;
+        sampleCount++;
+    }
+
+    /**
+     * 以 folded stacks 格式导出全部样本，可直接用于 flamegraph.pl、speedscope 等火焰图工具。
+     *
+     * @param writer 输出目标。
+     * @throws IOException 写入失败时抛出。
+     */
+    public synchronized void exportFoldedStacks(Writer writer) throws IOException {
+        List<String> lines = new ArrayList<>();
+        collectFolded(root, "", lines);
+        for (String line : lines) {
+            writer.write(line);
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /**
+     * 深度优先遍历调用树，收集每条有样本的调用路径。
+     */
+    private static void collectFolded(Node node, String prefix, List<String> out) {
+        for (Node child : node.children.values()) {
+            String path = prefix.isEmpty() ? child.frame : prefix + ";" + child.frame;
+            if (child.selfCount > 0) {
+                out.add(path + " " + child.selfCount);
+            }
+            collectFolded(child, path, out);
+        }
+    }
+
+    /**
+     * 清空已采集的样本。
+     */
+    public synchronized void clear() {
+        root.children.clear();
+        nodeCount = 0;
+        sampleCount = 0;
+        droppedSamples = 0;
+        episodeCount = 0;
+    }
+
+    /**
+     * 打印采样报告，包含样本统计和样本数最多的若干条堆栈。
+     */
+    public synchronized void dumpReport() {
+        List<String> lines = new ArrayList<>();
+        collectFolded(root, "", lines);
+        // 按样本数从高到低排序，folded 行的最后一段即样本数
+        Collections.sort(lines, (a, b) -> Long.compare(countOf(b), countOf(a)));
+
+        StringBuilder report = new StringBuilder();
+        report.append("\n");
+        report.append("================ Stack Sample Report ================\n");
+        report.append(String.format("| Interval: %d ms, Trigger: %d ms\n", intervalMs, triggerMs));
+        report.append(String.format("| Episodes: %d, Samples: %d, Dropped: %d\n", episodeCount, sampleCount, droppedSamples));
+        for (int i = 0; i < lines.size() && i < REPORT_TOP_STACKS; i++) {
+            String line = lines.get(i);
+            int split = line.lastIndexOf(' ');
+            String path = line.substring(0, split);
+            // 只显示最靠近栈顶的几层，完整路径请导出 folded stacks
+            int leaf = path.lastIndexOf(';');
+            for (int depth = 0; depth < 3 && leaf > 0; depth++) {
+                leaf = path.lastIndexOf(';', leaf - 1);
+            }
+            report.append("|   ").append(line.substring(split + 1)).append("  ")
+                    .append(leaf > 0 ? "..." + path.substring(leaf) : path).append("\n");
+        }
+        report.append("=====================================================");
+        Log.d(TAG, report.toString());
+    }
+
+    private static long countOf(String foldedLine) {
+        return Long.parseLong(foldedLine.substring(foldedLine.lastIndexOf(' ') + 1));
+    }
+
+    /**
+     * 调用树节点。
+     */
+    private static final class Node {
+        final String frame;
+        final Map<String, Node> children = new HashMap<>();
+        // 以该节点为栈顶的样本数
+        long selfCount;
+
+        Node(String frame) {
+            this.frame = frame;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.exercise.sdk;
+
+import android.app.Activity;
+import android.app.ActivityManager;
+import android.app.Application;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 冷启动阶段耗时追踪器。
+ * <p>
+ * 一次启动被拆分为若干个按时间先后排列的命名阶段点，相邻两点之间的差值即该阶段的耗时：
+ * 1. {@link #PHASE_PROCESS_START}：进程创建时间，API 24 及以上取自 `Process.getStartUptimeMillis()`，
+ *    更低版本退化为本类被加载的时间。
+ * 2. {@link #PHASE_APPLICATION_CREATE} / {@link #PHASE_APPLICATION_CREATED}：`Application.onCreate()` 的开始和结束。
+ * 3. {@link #PHASE_FIRST_ACTIVITY_CREATE}：第一个 Activity 开始创建。
+ * 4. {@link #PHASE_FIRST_FRAME}：第一个 Activity 的首帧绘制完成，此时输出启动报告，本次追踪结束。
+ * <p>
+ * 业务代码可以在首帧之前用 {@link #mark(String)} 插入自定义阶段点（例如 "sdk_init"）。
+ * 所有时间均使用 `SystemClock.uptimeMillis()`，本类的方法都应在主线程上调用。
+ */
+public class StartupTracer {
+
+    private static final String TAG = "StartupReport";
+
+    public static final String PHASE_PROCESS_START = "process_start";
+    public static final String PHASE_APPLICATION_CREATE = "application_create";
+    public static final String PHASE_APPLICATION_CREATED = "application_created";
+    public static final String PHASE_FIRST_ACTIVITY_CREATE = "first_activity_create";
+    public static final String PHASE_FIRST_FRAME = "first_frame";
+
+    // 本类被加载的时间，作为低版本系统上进程创建时间的近似值
+    private static final long CLASS_LOAD_UPTIME_MS = SystemClock.uptimeMillis();
+
+    // 单例实例
+    private static final StartupTracer INSTANCE = new StartupTracer();
+
+    // 按记录顺序排列的阶段点
+    private final List<String> phaseNames = new ArrayList<>();
+    private final List<Long> phaseTimes = new ArrayList<>();
+    // 本次启动是否由用户界面触发（进程启动时处于前台），否则进程可能是被广播、服务等拉起的
+    private boolean foregroundLaunch;
+    // 追踪是否已经结束（首帧已绘制，或启动过程被打断）
+    private boolean finished;
+    private Application application;
+    private String report;
+
+    private final Application.ActivityLifecycleCallbacks lifecycleCallbacks = new Application.ActivityLifecycleCallbacks() {
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+            mark(PHASE_FIRST_ACTIVITY_CREATE);
+            watchFirstDraw(activity);
+        }
+
+        @Override
+        public void onActivityStarted(Activity activity) {}
+
+        @Override
+        public void onActivityResumed(Activity activity) {}
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+            // 首帧绘制前页面就离开了前台（例如用户按了Home键），本次启动数据没有意义
+            if (!finished) {
+                Log.d(TAG, "Startup interrupted before first frame, discarding trace.");
+                finish(null);
+            }
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {}
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {}
+    };
+
+    /**
+     * 私有构造函数，防止外部直接创建实例。
+     */
+    private StartupTracer() {}
+
+    /**
+     * 获取StartupTracer的单例。
+     *
+     * @return StartupTracer的唯一实例。
+     */
+    public static StartupTracer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 开始追踪，应在 `Application.onCreate()` 的第一行调用。
+     * 会依次记录进程创建和 Application 创建两个阶段点，并开始监听第一个 Activity 的创建和首帧绘制。
+     *
+     * @param application 应用实例。
+     */
+    public void onApplicationCreate(Application application) {
+        if (this.application != null) return;
+        this.application = application;
+        long processStart = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+                ? Process.getStartUptimeMillis() : CLASS_LOAD_UPTIME_MS;
+        record(PHASE_PROCESS_START, processStart);
+        mark(PHASE_APPLICATION_CREATE);
+
+        ActivityManager.RunningAppProcessInfo processInfo = new ActivityManager.RunningAppProcessInfo();
+        ActivityManager.getMyMemoryState(processInfo);
+        foregroundLaunch = processInfo.importance == ActivityManager.RunningAppProcessInfo.IMPORTANCE_FOREGROUND;
+
+        application.registerActivityLifecycleCallbacks(lifecycleCallbacks);
+    }
+
+    /**
+     * 记录 `Application.onCreate()` 结束，应在其最后一行调用。
+     */
+    public void onApplicationCreated() {
+        mark(PHASE_APPLICATION_CREATED);
+    }
+
+    /**
+     * 记录一个阶段点。同名阶段点只记录第一次，首帧绘制后的调用会被忽略。
+     *
+     * @param phase 阶段名称。
+     */
+    public void mark(String phase) {
+        record(phase, SystemClock.uptimeMillis());
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * 获取本次启动的报告。
+     *
+     * @return 报告文本；首帧尚未绘制或启动过程被打断时返回null。
+     */
+    public String getReport() {
+        return report;
+    }
+
+    private void record(String phase, long uptimeMs) {
+        if (finished || phaseNames.contains(phase)) {
+            return;
+        }
+        phaseNames.add(phase);
+        phaseTimes.add(uptimeMs);
+    }
+
+    /**
+     * 监听页面的首次绘制。`OnDrawListener` 在绘制开始时回调，向主线程队列头部投递的任务会在本帧绘制完成后立即执行，
+     * 以此作为首帧完成的时间。
+     */
+    private void watchFirstDraw(Activity activity) {
+        View decorView = activity.getWindow().getDecorView();
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        decorView.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            private boolean drawn;
+
+            @Override
+            public void onDraw() {
+                if (drawn) return;
+                drawn = true;
+                ViewTreeObserver.OnDrawListener self = this;
+                mainHandler.postAtFrontOfQueue(() -> {
+                    mark(PHASE_FIRST_FRAME);
+                    finish(buildReport());
+                });
+                // 不能在 onDraw 回调中移除监听器，延后到本次绘制结束之后
+                mainHandler.post(() -> decorView.getViewTreeObserver().removeOnDrawListener(self));
+            }
+        });
+    }
+
+    /**
+     * 结束追踪：输出报告，并注销生命周期回调。
+     */
+    private void finish(String report) {
+        if (finished) return;
+        finished = true;
+        this.report = report;
+        application.unregisterActivityLifecycleCallbacks(lifecycleCallbacks);
+        if (report == null) {
+            return;
+        }
+        Log.d(TAG, report);
+        long totalMs = phaseTimes.get(phaseTimes.size() - 1) - phaseTimes.get(0);
+        TelemetryBus.getInstance().publish(TelemetryEvent.TYPE_STARTUP, totalMs, 0, foregroundLaunch ? 1 : 0, null);
+        ReportUploader.getInstance().enqueue("startup", report);
+    }
+
+    private String buildReport() {
+        long start = phaseTimes.get(0);
+        long end = phaseTimes.get(phaseTimes.size() - 1);
+
+        StringBuilder report = new StringBuilder();
+        report.append("\n");
+        report.append("================ Startup Report ================\n");
+        report.append(String.format("| Launch: %s\n", foregroundLaunch ? "cold" : "cold (background process start)"));
+        for (int i = 1; i < phaseNames.size(); i++) {
+            report.append(String.format("| %s -> %s: %d ms\n",
+                    phaseNames.get(i - 1), phaseNames.get(i), phaseTimes.get(i) - phaseTimes.get(i - 1)));
+        }
+        report.append(String.format("| Total (%s -> %s): %d ms\n", phaseNames.get(0), PHASE_FIRST_FRAME, end - start));
+        report.append("================================================");
+        return report.toString();
+    }
+}
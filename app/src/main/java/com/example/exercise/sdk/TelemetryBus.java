@@ -0,0 +1,167 @@
+package com.example.exercise.sdk;
+
+import android.util.Log;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * SDK所有遥测数据的统一低开销通道。
+ * <p>
+ * 工作原理：
+ * 1. 各组件（{@link FluencyMonitor}、{@link AnrMonitor}、{@link LooperMonitor} 等）通过 {@link #publish} 把事件
+ *    写入一个无锁的 {@link EventRingBuffer}，UI线程上的生产者不会阻塞，也不会产生对象分配。
+ * 2. 一个后台消费线程按固定间隔醒来，把缓冲区中的事件按批次（最多 {@link #BATCH_SIZE} 条）取出，
+ *    依次交给所有已注册的 {@link TelemetrySink}。
+ * 3. 缓冲区满时事件被丢弃，并计入溢出计数，而不是让生产者等待。
+ */
+public class TelemetryBus {
+
+    private static final String TAG = "TelemetryBus";
+    // 缓冲区容量
+    private static final int CAPACITY = 4096;
+    // 每批次最多交给sink的事件数
+    private static final int BATCH_SIZE = 256;
+    // 消费线程的唤醒间隔（毫秒）
+    private static final long FLUSH_INTERVAL_MS = 1000;
+
+    // 单例实例
+    private static final TelemetryBus INSTANCE = new TelemetryBus();
+
+    private final EventRingBuffer ring = new EventRingBuffer(CAPACITY);
+    // 消费者侧预先分配的批次数组
+    private final TelemetryEvent[] batch = new TelemetryEvent[BATCH_SIZE];
+    private final CopyOnWriteArrayList<TelemetrySink> sinks = new CopyOnWriteArrayList<>();
+
+    private volatile Thread consumerThread;
+    // 保证任意时刻只有一个线程在消费（stop后立即start时，旧线程可能尚未退出）
+    private final Object drainLock = new Object();
+    private volatile boolean isRunning = false;
+    // 已交付给sink的事件总数，只由消费线程写入
+    private volatile long deliveredCount;
+
+    /**
+     * 私有构造函数，防止外部直接创建实例。
+     */
+    private TelemetryBus() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch[i] = new TelemetryEvent();
+        }
+    }
+
+    /**
+     * 获取TelemetryBus的单例。
+     *
+     * @return TelemetryBus的唯一实例。
+     */
+    public static TelemetryBus getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 启动后台消费线程。
+     */
+    public synchronized void start() {
+        if (isRunning) return;
+        isRunning = true;
+        consumerThread = new Thread(this::consumeLoop, "TelemetryFlusher");
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+    }
+
+    /**
+     * 停止后台消费线程，停止前会把缓冲区中剩余的事件交付完毕。
+     */
+    public synchronized void stop() {
+        if (!isRunning) return;
+        isRunning = false;
+        LockSupport.unpark(consumerThread);
+        consumerThread = null;
+    }
+
+    public void addSink(TelemetrySink sink) {
+        sinks.addIfAbsent(sink);
+    }
+
+    public void removeSink(TelemetrySink sink) {
+        sinks.remove(sink);
+    }
+
+    /**
+     * 发布一个事件，可由任意线程调用，不阻塞、不分配对象。参数含义见 {@link TelemetryEvent} 中各类型的说明。
+     *
+     * @return 是否发布成功；缓冲区已满时返回false，事件计入溢出计数。
+     */
+    public boolean publish(int type, long value, long extra, int arg, String label) {
+        // 未启动时没有消费者，直接丢弃，避免缓冲区被填满后持续累加溢出计数
+        if (!isRunning) {
+            return false;
+        }
+        return ring.offer(type, System.nanoTime(), value, extra, arg, label);
+    }
+
+    public long getOverflowCount() {
+        return ring.getOverflowCount();
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    /**
+     * 消费线程主循环：定期醒来，把缓冲区中的事件批量交付给所有sink。
+     */
+    private void consumeLoop() {
+        OverheadMonitor.getInstance().registerCurrentThread();
+        while (isRunning && consumerThread == Thread.currentThread()) {
+            LockSupport.parkNanos(FLUSH_INTERVAL_MS * 1_000_000L);
+            drain();
+        }
+        drain();
+    }
+
+    /**
+     * 取空缓冲区，按批次交付事件。
+     */
+    private void drain() {
+        synchronized (drainLock) {
+            drainLocked();
+        }
+    }
+
+    private void drainLocked() {
+        boolean delivered = false;
+        int count;
+        do {
+            count = 0;
+            while (count < BATCH_SIZE && ring.poll(batch[count])) {
+                count++;
+            }
+            if (count > 0) {
+                delivered = true;
+                deliveredCount += count;
+                for (TelemetrySink sink : sinks) {
+                    try {
+                        sink.onEvents(batch, count);
+                    } catch (RuntimeException e) {
+                        Log.w(TAG, "Telemetry sink failed: " + sink, e);
+                    }
+                }
+                // 释放标签引用，避免批次数组持有过期对象
+                for (int i = 0; i < count; i++) {
+                    batch[i].label = null;
+                }
+            }
+        } while (count == BATCH_SIZE);
+
+        if (delivered) {
+            for (TelemetrySink sink : sinks) {
+                try {
+                    sink.onFlush();
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Telemetry sink flush failed: " + sink, e);
+                }
+            }
+        }
+    }
+}
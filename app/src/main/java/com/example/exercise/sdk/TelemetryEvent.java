@@ -0,0 +1,61 @@
+package com.example.exercise.sdk;
+
+/**
+ * 一条遥测事件。
+ * <p>
+ * 事件对象由消费者预先分配并循环复用，{@link TelemetrySink} 只能在回调期间读取其字段，
+ * 如需保留数据必须自行拷贝。
+ */
+public final class TelemetryEvent {
+
+    // 帧事件：value=帧耗时（纳秒），arg=卡顿级别（JankClassifier.FRAME_*），label=会话名称
+    public static final int TYPE_FRAME = 1;
+    // 卡顿/ANR事件：value=阻塞时长（毫秒），arg=阶段（AnrRecord.STAGE_*），extra=累计次数，label=堆栈哈希
+    public static final int TYPE_ANR = 2;
+    // 慢消息事件：value=分发耗时（纳秒），label=目标Handler类名
+    public static final int TYPE_MESSAGE = 3;
+    // 网络事件：value=总耗时（纳秒），extra=收发字节数，arg=HTTP状态码，label=主机名
+    public static final int TYPE_NETWORK = 4;
+    // 数据库事件：value=耗时（纳秒），label=操作名称
+    public static final int TYPE_DB = 5;
+    // 启动事件：value=从进程创建到首帧绘制的总耗时（毫秒），arg=是否由用户界面触发的前台启动（1/0）
+    public static final int TYPE_STARTUP = 6;
+    // 内存采样事件：value=Java堆已用字节数，extra=Native堆已用字节数，label=页面类名
+    public static final int TYPE_MEMORY = 7;
+    // 泄漏事件：value=对象在销毁后仍被持有的时长（毫秒），label=泄漏对象的描述
+    public static final int TYPE_LEAK = 8;
+    // SDK开销事件：value=窗口内主线程上的SDK耗时（纳秒），extra=SDK后台线程CPU时间（纳秒），arg=降级级别，label=级别名称
+    public static final int TYPE_OVERHEAD = 9;
+    // 线程卡顿事件：value=阻塞时长（毫秒），extra=队列深度，arg=最早等待任务的等待时长（毫秒），label=目标名称
+    public static final int TYPE_STALL = 10;
+    // 进程退出事件（下次启动时读取）：value=退出时间（墙上时钟，毫秒），extra=退出时的PSS（KB），arg=系统的退出原因，label=原因名称
+    public static final int TYPE_EXIT = 11;
+
+    public int type;
+    // 事件发生的时间（System.nanoTime）
+    public long timestamp;
+    public long value;
+    public long extra;
+    public int arg;
+    public String label;
+
+    /**
+     * 返回事件类型的名称。
+     */
+    public static String typeName(int type) {
+        switch (type) {
+            case TYPE_FRAME: return "frame";
+            case TYPE_ANR: return "anr";
+            case TYPE_MESSAGE: return "message";
+            case TYPE_NETWORK: return "network";
+            case TYPE_DB: return "db";
+            case TYPE_STARTUP: return "startup";
+            case TYPE_MEMORY: return "memory";
+            case TYPE_LEAK: return "leak";
+            case TYPE_OVERHEAD: return "overhead";
+            case TYPE_STALL: return "stall";
+            case TYPE_EXIT: return "exit";
+            default: return "unknown";
+        }
+    }
+}
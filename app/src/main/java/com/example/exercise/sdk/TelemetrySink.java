@@ -0,0 +1,21 @@
+package com.example.exercise.sdk;
+
+/**
+ * 遥测事件的输出目标，例如Logcat、本地文件或上报服务。
+ * 所有回调都在 {@link TelemetryBus} 的后台消费线程上执行。
+ */
+public interface TelemetrySink {
+
+    /**
+     * 处理一批事件。
+     *
+     * @param events 事件数组，对象在回调结束后会被复用，不能持有其引用。
+     * @param count  本批次有效事件的数量（数组前 count 个元素）。
+     */
+    void onEvents(TelemetryEvent[] events, int count);
+
+    /**
+     * 一轮批量处理结束时调用，可在此执行落盘等收尾操作。
+     */
+    default void onFlush() {}
+}
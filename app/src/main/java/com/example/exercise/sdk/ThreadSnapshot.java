@@ -0,0 +1,212 @@
+package com.example.exercise.sdk;
+
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ANR发生时的全线程快照，并分析主线程可能在等待哪个线程持有的锁。
+ * <p>
+ * 大多数卡死都是主线程在等待工作线程持有的锁（例如 SQLite 连接、OkHttp 调度器中的同步块），
+ * 只看主线程堆栈无法知道“是谁拿着锁不放”。本类的做法是：
+ * 1. 枚举进程内所有存活线程，记录名称、状态和堆栈，主线程最先采集。
+ * 2. Android 没有公开获取监视器持有者的API，因此采用启发式分析：主线程处于 BLOCKED/WAITING 状态时，
+ *    跳过 `Object.wait`、`LockSupport.park` 等通用等待帧，取主线程栈顶第一个“业务帧”的类作为争用的资源，
+ *    其他线程的堆栈中如果出现了该类、且自身并非阻塞在同一位置，就被视为疑似锁持有者，并排在报告最前面。
+ * 3. 采集本身发生在系统已经卡顿的时刻，因此对耗时做了计量和限制：超过时间预算后不再采集剩余线程的堆栈，
+ *    每个线程最多保留 {@link #MAX_FRAMES_PER_THREAD} 帧，最多采集 {@link #MAX_THREADS} 个线程。
+ */
+public class ThreadSnapshot {
+
+    // 最多采集的线程数
+    private static final int MAX_THREADS = 64;
+    // 每个线程最多保留的栈帧数
+    private static final int MAX_FRAMES_PER_THREAD = 40;
+
+    // 采集到的线程信息，顺序为：疑似锁持有者、主线程、其余线程
+    private final List<ThreadInfo> threads = new ArrayList<>();
+    // 疑似持有主线程所等待资源的线程，可能为null
+    private ThreadInfo suspectedHolder;
+    // 主线程所争用的资源类名，可能为null
+    private String contendedClass;
+    // 采集耗时（纳秒）
+    private long captureNanos;
+    // 因超出预算或数量上限而未采集堆栈的线程数
+    private int skippedThreads;
+
+    private ThreadSnapshot() {}
+
+    /**
+     * 采集全线程快照。
+     *
+     * @param mainThread 主线程。
+     * @param budgetMs   采集耗时预算（毫秒），超出后剩余线程只记录名称和状态。
+     * @return 快照结果。
+     */
+    public static ThreadSnapshot capture(Thread mainThread, long budgetMs) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        long deadline = start + budgetMs * 1_000_000L;
+        ThreadSnapshot snapshot = new ThreadSnapshot();
+
+        ThreadInfo main = new ThreadInfo(mainThread, mainThread.getStackTrace());
+        snapshot.threads.add(main);
+
+        for (Thread thread : enumerateThreads()) {
+            if (thread == mainThread || thread == Thread.currentThread()) {
+                continue;
+            }
+            boolean overBudget = SystemClock.elapsedRealtimeNanos() > deadline
+                    || snapshot.threads.size() >= MAX_THREADS;
+            if (overBudget) {
+                snapshot.skippedThreads++;
+                snapshot.threads.add(new ThreadInfo(thread, null));
+            } else {
+                snapshot.threads.add(new ThreadInfo(thread, thread.getStackTrace()));
+            }
+        }
+
+        snapshot.analyzeLockHolder(main);
+        snapshot.captureNanos = SystemClock.elapsedRealtimeNanos() - start;
+        return snapshot;
+    }
+
+    /**
+     * 枚举进程内的所有存活线程。
+     */
+    private static Thread[] enumerateThreads() {
+        ThreadGroup root = Thread.currentThread().getThreadGroup();
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+        // activeCount只是估计值，预留足够的空间
+        Thread[] threads = new Thread[root.activeCount() * 2 + 8];
+        int count = root.enumerate(threads, true);
+        Thread[] result = new Thread[count];
+        System.arraycopy(threads, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * 启发式地找出主线程所等待资源的持有者，并把它移动到列表最前面。
+     */
+    private void analyzeLockHolder(ThreadInfo main) {
+        if (main.state != Thread.State.BLOCKED && main.state != Thread.State.WAITING
+                && main.state != Thread.State.TIMED_WAITING) {
+            return;
+        }
+        contendedClass = firstResourceClass(main.stack);
+        if (contendedClass == null) {
+            return;
+        }
+        for (ThreadInfo info : threads) {
+            if (info == main || info.stack == null) {
+                continue;
+            }
+            // 自身也阻塞在同一资源入口处的线程是“排队者”，不是持有者
+            if (info.state == Thread.State.BLOCKED && contendedClass.equals(firstResourceClass(info.stack))) {
+                continue;
+            }
+            for (StackTraceElement element : info.stack) {
+                if (contendedClass.equals(element.getClassName())) {
+                    suspectedHolder = info;
+                    break;
+                }
+            }
+            if (suspectedHolder != null) {
+                break;
+            }
+        }
+        if (suspectedHolder != null) {
+            threads.remove(suspectedHolder);
+            threads.add(0, suspectedHolder);
+        }
+    }
+
+    /**
+     * 跳过通用的等待/加锁帧，返回栈顶第一个业务帧的类名。
+     */
+    private static String firstResourceClass(StackTraceElement[] stack) {
+        for (StackTraceElement element : stack) {
+            String className = element.getClassName();
+            if (className.equals("java.lang.Object")
+                    || className.equals("java.lang.Thread")
+                    || className.startsWith("java.util.concurrent.locks.")
+                    || className.startsWith("sun.misc.")
+                    || className.startsWith("jdk.internal.")
+                    || className.startsWith("dalvik.system.")) {
+                continue;
+            }
+            return className;
+        }
+        return null;
+    }
+
+    public ThreadInfo getSuspectedHolder() {
+        return suspectedHolder;
+    }
+
+    public long getCaptureMs() {
+        return captureNanos / 1_000_000L;
+    }
+
+    /**
+     * 把快照以文本形式追加到报告中。
+     *
+     * @param report 目标报告。
+     */
+    public void appendTo(StringBuilder report) {
+        report.append("Thread Snapshot: ").append(threads.size()).append(" threads, captured in ")
+                .append(getCaptureMs()).append(" ms");
+        if (skippedThreads > 0) {
+            report.append(", ").append(skippedThreads).append(" stacks skipped (budget)");
+        }
+        report.append("\n");
+        if (suspectedHolder != null) {
+            report.append("Suspected lock holder: ").append(suspectedHolder.name)
+                    .append(" (contended: ").append(contendedClass).append(")\n");
+        } else if (contendedClass != null) {
+            report.append("Main thread waiting on: ").append(contendedClass).append(" (holder not found)\n");
+        }
+        for (ThreadInfo info : threads) {
+            report.append("\n--- Thread: ").append(info.name)
+                    .append(" (").append(info.state).append(info.daemon ? ", daemon" : "")
+                    .append(", prio=").append(info.priority).append(")");
+            if (info == suspectedHolder) {
+                report.append(" [SUSPECTED LOCK HOLDER]");
+            }
+            report.append(" ---\n");
+            if (info.stack == null) {
+                report.append("    (stack not captured)\n");
+                continue;
+            }
+            int frames = Math.min(info.stack.length, MAX_FRAMES_PER_THREAD);
+            for (int i = 0; i < frames; i++) {
+                report.append("    at ").append(info.stack[i]).append("\n");
+            }
+            if (info.stack.length > frames) {
+                report.append("    ... ").append(info.stack.length - frames).append(" more\n");
+            }
+        }
+    }
+
+    /**
+     * 单个线程的快照信息。
+     */
+    public static final class ThreadInfo {
+        public final String name;
+        public final Thread.State state;
+        public final boolean daemon;
+        public final int priority;
+        // 线程堆栈，超出采集预算时为null
+        public final StackTraceElement[] stack;
+
+        ThreadInfo(Thread thread, StackTraceElement[] stack) {
+            this.name = thread.getName();
+            this.state = thread.getState();
+            this.daemon = thread.isDaemon();
+            this.priority = thread.getPriority();
+            this.stack = stack;
+        }
+    }
+}
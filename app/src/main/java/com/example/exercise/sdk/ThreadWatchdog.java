@@ -0,0 +1,387 @@
+package com.example.exercise.sdk;
+
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.Printer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 任意 `Looper`、`HandlerThread` 和线程池的卡顿检测注册表。
+ * <p>
+ * {@link AnrMonitor} 只监控主线程，而网络、数据库等后台流水线卡住时同样会让页面一直转圈。本类的做法是：
+ * 1. 每个被监控的目标都有自己的卡顿阈值，所有目标共用一个看门狗线程，而不是每个目标一个线程。
+ * 2. `Looper` 目标复用 {@link HeartbeatDetector}：向目标线程投递心跳，心跳超过阈值仍未执行即判定卡顿。
+ *    上报时通过 `Looper.dump` 获取消息队列深度和最早的待处理消息已等待的时长。
+ * 3. 线程池目标通过 {@link #watchExecutor(String, ExecutorService, long)} 包装为 {@link WatchedExecutorService}，
+ *    单个任务执行超过阈值、或者最早的等待任务等待超过阈值时判定卡顿。
+ * 4. 每次卡顿只上报一次，报告包含卡住线程的堆栈、队列深度和最早等待任务的等待时长，
+ *    以 {@link TelemetryEvent#TYPE_STALL} 事件发布并交给 {@link ReportUploader}。
+ * 5. 与 {@link AnrMonitor} 一样，应用退到后台时（见 {@link AppLifecycleMonitor}）看门狗线程挂起，不再定时醒来；
+ *    回到前台后丢弃等待中的心跳、重置线程池任务的计时，后台期间的时间不会被误判为卡顿。
+ */
+public class ThreadWatchdog {
+
+    private static final String TAG = "ThreadWatchdog";
+    // 检查间隔的上下限（毫秒），实际间隔取所有目标中最小阈值的一半
+    private static final long MAX_CHECK_INTERVAL_MS = 500;
+    private static final long MIN_CHECK_INTERVAL_MS = 50;
+    // 报告中输出的堆栈层数
+    private static final int REPORT_STACK_DEPTH = 20;
+    // Looper.dump 输出中消息的 when 字段和总消息数
+    private static final Pattern DUMP_WHEN = Pattern.compile("when=(-[0-9dhms]+)");
+    private static final Pattern DUMP_TOTAL = Pattern.compile("Total messages: (\\d+)");
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+)(ms|d|h|m|s)");
+
+    // 单例实例
+    private static final ThreadWatchdog INSTANCE = new ThreadWatchdog();
+
+    private final List<Target> targets = new CopyOnWriteArrayList<>();
+    private Thread watchdogThread;
+    private volatile long checkIntervalMs = MAX_CHECK_INTERVAL_MS;
+
+    // 应用在后台时挂起检查循环，访问时需持有 pauseLock
+    private final Object pauseLock = new Object();
+    private boolean paused;
+
+    // 跟随应用前后台切换挂起和恢复看门狗线程
+    private final AppLifecycleMonitor.Listener lifecycleListener = new AppLifecycleMonitor.Listener() {
+        @Override
+        public void onForeground() {
+            setPaused(false);
+        }
+
+        @Override
+        public void onBackground() {
+            setPaused(true);
+        }
+    };
+
+    /**
+     * 私有构造函数，防止外部直接创建实例。
+     */
+    private ThreadWatchdog() {}
+
+    /**
+     * 获取ThreadWatchdog的单例。
+     *
+     * @return ThreadWatchdog的唯一实例。
+     */
+    public static ThreadWatchdog getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 监控一个 `Looper` 所在的线程。
+     *
+     * @param name             目标名称，用于报告和 {@link #unwatch(String)}，同名目标会被替换。
+     * @param looper           被监控的Looper。
+     * @param stallThresholdMs 卡顿阈值（毫秒）。
+     */
+    public void watchLooper(String name, Looper looper, long stallThresholdMs) {
+        add(new LooperTarget(name, looper, stallThresholdMs));
+    }
+
+    /**
+     * 监控一个已启动的 `HandlerThread`，目标名称为线程名。
+     *
+     * @param thread           被监控的线程。
+     * @param stallThresholdMs 卡顿阈值（毫秒）。
+     */
+    public void watchHandlerThread(HandlerThread thread, long stallThresholdMs) {
+        watchLooper(thread.getName(), thread.getLooper(), stallThresholdMs);
+    }
+
+    /**
+     * 监控一个线程池。之后应通过返回的包装对象提交任务，直接提交给原线程池的任务不会被监控。
+     *
+     * @param name             目标名称，用于报告和 {@link #unwatch(String)}，同名目标会被替换。
+     * @param executor         被监控的线程池。
+     * @param stallThresholdMs 卡顿阈值（毫秒）。
+     * @return 包装后的线程池。
+     */
+    public WatchedExecutorService watchExecutor(String name, ExecutorService executor, long stallThresholdMs) {
+        WatchedExecutorService watched = new WatchedExecutorService(executor, SystemClock::uptimeMillis);
+        add(new ExecutorTarget(name, watched, stallThresholdMs));
+        return watched;
+    }
+
+    /**
+     * 停止监控一个目标。所有目标都移除后看门狗线程退出。
+     *
+     * @param name 目标名称。
+     */
+    public synchronized void unwatch(String name) {
+        remove(name);
+        updateWatchdog();
+    }
+
+    private synchronized void add(Target target) {
+        remove(target.name);
+        targets.add(target);
+        updateWatchdog();
+    }
+
+    private void remove(String name) {
+        for (Target target : targets) {
+            if (target.name.equals(name)) {
+                targets.remove(target);
+                target.cancel();
+            }
+        }
+    }
+
+    /**
+     * 按当前目标更新检查间隔，并按需启动或停止看门狗线程。
+     */
+    private void updateWatchdog() {
+        long minThreshold = Long.MAX_VALUE;
+        for (Target target : targets) {
+            minThreshold = Math.min(minThreshold, target.stallThresholdMs);
+        }
+        checkIntervalMs = Math.max(MIN_CHECK_INTERVAL_MS, Math.min(MAX_CHECK_INTERVAL_MS, minThreshold / 2));
+        if (targets.isEmpty() && watchdogThread != null) {
+            AppLifecycleMonitor.getInstance().removeListener(lifecycleListener);
+            watchdogThread.interrupt();
+            watchdogThread = null;
+        } else if (!targets.isEmpty() && watchdogThread == null) {
+            // 先注册监听再读取前后台状态，读取和写入都在 pauseLock 内，监听随后写入的新状态不会被覆盖
+            AppLifecycleMonitor.getInstance().addListener(lifecycleListener);
+            synchronized (pauseLock) {
+                paused = !AppLifecycleMonitor.getInstance().isForeground();
+            }
+            watchdogThread = new Thread(this::watchLoop, "ThreadWatchdog");
+            watchdogThread.setDaemon(true);
+            watchdogThread.start();
+        }
+    }
+
+    private void setPaused(boolean paused) {
+        synchronized (pauseLock) {
+            this.paused = paused;
+            pauseLock.notifyAll();
+        }
+    }
+
+    /**
+     * 看门狗线程主循环：依次检查所有目标，然后休眠一个检查间隔。
+     */
+    private void watchLoop() {
+        OverheadMonitor.getInstance().registerCurrentThread();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                awaitResumed();
+                for (Target target : targets) {
+                    target.check();
+                }
+                Thread.sleep(checkIntervalMs);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 处于挂起状态时阻塞，直到回到前台；恢复后让所有目标重新开始计时。
+     */
+    private void awaitResumed() throws InterruptedException {
+        synchronized (pauseLock) {
+            if (!paused) {
+                return;
+            }
+            while (paused) {
+                pauseLock.wait();
+            }
+        }
+        for (Target target : targets) {
+            target.resume();
+        }
+    }
+
+    /**
+     * 输出一次卡顿报告。
+     */
+    private static void report(String name, Thread thread, long blockedMs, int queueDepth, long oldestPendingMs) {
+        StringBuilder report = new StringBuilder();
+        report.append("\n");
+        report.append("================ Thread Stall Report ================\n");
+        report.append("Target: ").append(name).append("\n");
+        report.append("Thread: ").append(thread == null ? "-" : thread.getName()).append("\n");
+        report.append("Blocked: ").append(blockedMs).append(" ms\n");
+        report.append("Queue Depth: ").append(queueDepth < 0 ? "unknown" : String.valueOf(queueDepth)).append("\n");
+        report.append("Oldest Pending: ").append(oldestPendingMs < 0 ? "unknown" : oldestPendingMs + " ms").append("\n");
+        if (thread != null) {
+            StackTraceElement[] stack = thread.getStackTrace();
+            for (int i = 0; i < stack.length && i < REPORT_STACK_DEPTH; i++) {
+                report.append("    at ").append(stack[i]).append("\n");
+            }
+        }
+        report.append("=====================================================");
+        Log.e(TAG, report.toString());
+        TelemetryBus.getInstance().publish(TelemetryEvent.TYPE_STALL, blockedMs, queueDepth,
+                (int) Math.min(Integer.MAX_VALUE, oldestPendingMs), name);
+        ReportUploader.getInstance().enqueue("stall", report.toString());
+    }
+
+    /**
+     * 解析 `TimeUtils.formatDuration` 的输出，例如 "-1s250ms"。
+     *
+     * @return 时长的绝对值（毫秒）。
+     */
+    static long parseDumpDurationMs(String text) {
+        long ms = 0;
+        Matcher matcher = DURATION_PART.matcher(text);
+        while (matcher.find()) {
+            long value = Long.parseLong(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "d": ms += value * 86_400_000L; break;
+                case "h": ms += value * 3_600_000L; break;
+                case "m": ms += value * 60_000L; break;
+                case "s": ms += value * 1000L; break;
+                default: ms += value; break;
+            }
+        }
+        return ms;
+    }
+
+    /**
+     * 一个被监控的目标。
+     */
+    private abstract static class Target {
+        final String name;
+        final long stallThresholdMs;
+
+        Target(String name, long stallThresholdMs) {
+            this.name = name;
+            this.stallThresholdMs = Math.max(1, stallThresholdMs);
+        }
+
+        /**
+         * 在看门狗线程上检查一次。
+         */
+        abstract void check();
+
+        /**
+         * 在看门狗线程上调用，挂起后恢复时丢弃挂起期间的计时。
+         */
+        abstract void resume();
+
+        void cancel() {}
+    }
+
+    /**
+     * `Looper` 目标，基于心跳检测。
+     */
+    private static final class LooperTarget extends Target implements HeartbeatDetector.Listener {
+        private final Looper looper;
+        private final HeartbeatDetector detector;
+
+        LooperTarget(String name, Looper looper, long stallThresholdMs) {
+            super(name, stallThresholdMs);
+            this.looper = looper;
+            // 只有卡顿一个阶段，ANR阈值设为无穷大
+            this.detector = new HeartbeatDetector(SystemClock::uptimeMillis, new HandlerScheduler(looper),
+                    Long.MAX_VALUE, this.stallThresholdMs, this);
+        }
+
+        @Override
+        void check() {
+            detector.check();
+        }
+
+        @Override
+        void resume() {
+            // 丢弃挂起前投递的心跳，下一次检查重新投递并从那时开始计时
+            detector.cancel();
+        }
+
+        @Override
+        void cancel() {
+            detector.cancel();
+        }
+
+        @Override
+        public void onStall(long blockedMs) {
+            // 队列中包含看门狗自己投递的心跳，不计入队列深度和最早等待时长
+            QueueDump dump = new QueueDump(detector.heartbeatClassName());
+            looper.dump(dump, "");
+            int depth = dump.totalMessages < 0 ? -1 : Math.max(0, dump.totalMessages - dump.excludedMessages);
+            report(name, looper.getThread(), blockedMs, depth, dump.oldestPendingMs);
+        }
+
+        @Override
+        public void onAnr(long blockedMs, boolean newHang) {}
+
+        @Override
+        public void onRecovered(long blockedMs) {
+            Log.w(TAG, name + " recovered after being blocked for " + blockedMs + " ms");
+        }
+    }
+
+    /**
+     * 线程池目标。
+     */
+    private static final class ExecutorTarget extends Target {
+        private final WatchedExecutorService executor;
+
+        ExecutorTarget(String name, WatchedExecutorService executor, long stallThresholdMs) {
+            super(name, stallThresholdMs);
+            this.executor = executor;
+        }
+
+        @Override
+        void check() {
+            for (WatchedExecutorService.Stall stall : executor.checkStalls(stallThresholdMs)) {
+                report(name, stall.thread, stall.runningMs, stall.queueDepth, stall.oldestPendingMs);
+            }
+        }
+
+        @Override
+        void resume() {
+            executor.resetTimes();
+        }
+    }
+
+    /**
+     * 从 `Looper.dump` 的输出中提取总消息数和最早的到期消息已等待的时长。
+     * 回调为指定类的消息（看门狗的心跳）只计数，不参与最早等待时长的计算。
+     */
+    static final class QueueDump implements Printer {
+        private final String excludedCallback;
+        int totalMessages = -1;
+        int excludedMessages = 0;
+        long oldestPendingMs = -1;
+
+        /**
+         * @param excludedCallbackClass 要排除的消息回调的类名。
+         */
+        QueueDump(String excludedCallbackClass) {
+            // Message.toString 在回调类名之后还会输出 " target="，带上空格避免误匹配同名前缀的类
+            this.excludedCallback = "callback=" + excludedCallbackClass + " ";
+        }
+
+        @Override
+        public void println(String x) {
+            Matcher total = DUMP_TOTAL.matcher(x);
+            if (total.find()) {
+                totalMessages = Integer.parseInt(total.group(1));
+                return;
+            }
+            if (x.contains(excludedCallback)) {
+                excludedMessages++;
+                return;
+            }
+            Matcher when = DUMP_WHEN.matcher(x);
+            if (when.find()) {
+                // 负的 when 表示消息早已到期、仍在等待执行
+                oldestPendingMs = Math.max(oldestPendingMs, parseDumpDurationMs(when.group(1)));
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.exercise.sdk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录任务排队和执行情况的 `ExecutorService` 包装类，供 {@link ThreadWatchdog} 检测工作线程池的卡顿。
+ * <p>
+ * 每个提交的任务都被包装为 {@link TrackedTask}，记录提交时间、开始时间和执行线程：
+ * 1. 已提交但尚未开始的任务留在等待队列中，用于计算队列深度和最早等待任务的等待时长。
+ * 2. 正在执行的任务记录在执行集合中，执行时长超过阈值即判定执行它的线程卡住了。
+ * 3. 没有任务超时、但最早的等待任务等待超过阈值时，判定线程池被占满（所有线程都在忙或被饿死）。
+ * 4. 检查暂停一段时间后（例如应用在后台）可以调用 {@link #resetTimes()}，之前的时间不再计入执行和等待时长。
+ * 5. 任务在交给线程池之前就排队的（例如 OkHttp 的 `Dispatcher` 自己保存超出并发上限的请求），
+ *    通过 {@link #setExternalQueue(ExternalQueue)} 把该队列计入队列深度和最早等待时长。
+ * <p>
+ * 本类只依赖 `java.util.concurrent` 和注入的 {@link MonitorClock}，可以直接在 JVM 上测试。
+ */
+public class WatchedExecutorService extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final MonitorClock clock;
+    private final ConcurrentLinkedQueue<TrackedTask> pending = new ConcurrentLinkedQueue<>();
+    private final Set<TrackedTask> running = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    // 队列等待超时是否已经上报过，队列恢复后清除，只在检查线程上读写
+    private boolean queueStallReported;
+    // 计时起点，早于它的提交时间和开始时间都按它计算
+    private volatile long timingOrigin;
+    private volatile ExternalQueue externalQueue;
+
+    /**
+     * 任务提交到线程池之前所在的外部队列。
+     */
+    public interface ExternalQueue {
+        /**
+         * @return 等待中的任务数。
+         */
+        int size();
+
+        /**
+         * @return 最早的等待任务进入队列的时间，与注入的 {@link MonitorClock} 使用相同的时间基准；
+         *         没有等待任务或时间未知时返回-1。
+         */
+        long oldestEnqueuedAt();
+    }
+
+    public WatchedExecutorService(ExecutorService delegate, MonitorClock clock) {
+        this.delegate = delegate;
+        this.clock = clock;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        TrackedTask task = new TrackedTask(command, clock.uptimeMillis());
+        pending.add(task);
+        try {
+            delegate.execute(task);
+        } catch (RejectedExecutionException e) {
+            pending.remove(task);
+            throw e;
+        }
+    }
+
+    /**
+     * 设置任务提交到线程池之前所在的外部队列，之后它的等待任务也计入队列深度和最早等待时长。
+     */
+    public void setExternalQueue(ExternalQueue queue) {
+        externalQueue = queue;
+    }
+
+    /**
+     * @return 已提交但尚未开始执行的任务数，包括外部队列中的任务。
+     */
+    public int getQueueDepth() {
+        ExternalQueue external = externalQueue;
+        return pending.size() + (external == null ? 0 : external.size());
+    }
+
+    /**
+     * @return 最早的等待任务（包括外部队列中的任务）已经等待的时长（毫秒）；没有等待任务时返回0。
+     */
+    public long getOldestPendingAgeMs() {
+        TrackedTask oldest = pending.peek();
+        long oldestAt = oldest == null ? -1 : oldest.enqueuedAt;
+        ExternalQueue external = externalQueue;
+        long externalAt = external == null ? -1 : external.oldestEnqueuedAt();
+        if (externalAt >= 0 && (oldestAt < 0 || externalAt < oldestAt)) {
+            oldestAt = externalAt;
+        }
+        return oldestAt < 0 ? 0 : elapsedSince(oldestAt, clock.uptimeMillis());
+    }
+
+    /**
+     * 从现在开始重新计时：已在等待和执行的任务，之前经过的时间不再计入等待时长和执行时长。
+     * 用于检查暂停后恢复时，避免把暂停期间的时间误判为卡顿。
+     */
+    public void resetTimes() {
+        timingOrigin = clock.uptimeMillis();
+    }
+
+    private long elapsedSince(long time, long now) {
+        return Math.max(0, now - Math.max(time, timingOrigin));
+    }
+
+    /**
+     * 查找新出现的卡顿。同一个任务、同一次队列积压只会返回一次。只能在同一个检查线程上调用。
+     *
+     * @param stallThresholdMs 卡顿阈值（毫秒）。
+     * @return 新出现的卡顿，没有时返回空列表。
+     */
+    public List<Stall> checkStalls(long stallThresholdMs) {
+        long now = clock.uptimeMillis();
+        List<Stall> stalls = new ArrayList<>();
+        // 是否有已上报过的任务仍在执行，此时队列积压是同一次卡顿的后果，不再单独上报
+        boolean stalledTaskRunning = false;
+        for (TrackedTask task : running) {
+            Thread runner = task.runner;
+            long runningMs = elapsedSince(task.startedAt, now);
+            if (runner == null) {
+                continue;
+            }
+            if (!task.reported && runningMs >= stallThresholdMs) {
+                task.reported = true;
+                stalls.add(new Stall(runner, runningMs, getQueueDepth(), getOldestPendingAgeMs()));
+            }
+            stalledTaskRunning |= task.reported;
+        }
+
+        long oldestPendingMs = getOldestPendingAgeMs();
+        if (oldestPendingMs < stallThresholdMs) {
+            queueStallReported = false;
+        } else if (!stalledTaskRunning && !queueStallReported) {
+            // 线程池被占满：报告执行时间最长的线程，它最可能是占住线程池的原因
+            queueStallReported = true;
+            TrackedTask longest = null;
+            for (TrackedTask task : running) {
+                if (task.runner != null && (longest == null || task.startedAt < longest.startedAt)) {
+                    longest = task;
+                }
+            }
+            stalls.add(new Stall(longest == null ? null : longest.runner,
+                    longest == null ? 0 : elapsedSince(longest.startedAt, now), getQueueDepth(), oldestPendingMs));
+        }
+        return stalls;
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> unstarted = delegate.shutdownNow();
+        List<Runnable> commands = new ArrayList<>(unstarted.size());
+        for (Runnable runnable : unstarted) {
+            if (runnable instanceof TrackedTask) {
+                pending.remove(runnable);
+                commands.add(((TrackedTask) runnable).command);
+            } else {
+                commands.add(runnable);
+            }
+        }
+        return commands;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * 一次卡顿。
+     */
+    public static final class Stall {
+        // 卡住的线程；线程池被占满但找不到正在执行的任务时为null
+        public final Thread thread;
+        // 该线程上当前任务已执行的时长（毫秒）
+        public final long runningMs;
+        public final int queueDepth;
+        public final long oldestPendingMs;
+
+        Stall(Thread thread, long runningMs, int queueDepth, long oldestPendingMs) {
+            this.thread = thread;
+            this.runningMs = runningMs;
+            this.queueDepth = queueDepth;
+            this.oldestPendingMs = oldestPendingMs;
+        }
+    }
+
+    /**
+     * 记录时间信息的任务包装。
+     */
+    private final class TrackedTask implements Runnable {
+        final Runnable command;
+        final long enqueuedAt;
+        volatile long startedAt;
+        volatile Thread runner;
+        // 是否已上报过卡顿，只在检查线程上读写
+        boolean reported;
+
+        TrackedTask(Runnable command, long enqueuedAt) {
+            this.command = command;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        @Override
+        public void run() {
+            pending.remove(this);
+            startedAt = clock.uptimeMillis();
+            runner = Thread.currentThread();
+            running.add(this);
+            try {
+                command.run();
+            } finally {
+                running.remove(this);
+                runner = null;
+            }
+        }
+    }
+}
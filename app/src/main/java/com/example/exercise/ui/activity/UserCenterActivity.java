@@ -19,8 +19,8 @@ import com.example.exercise.sdk.FluencyMonitor;
  * <p>
  * 负责显示用户信息，并处理页面上的各种交互事件，包括：
  * 1. 从SharedPreferences中加载并显示用户的昵称和签名。
- * 2. 启动流畅性监控（FluencyMonitor）并在界面上实时显示FPS。
- * 3. 页面销毁时，停止流畅性监控并生成性能报告。
+ * 2. 订阅本页面的流畅性监控会话（FluencyMonitor），并在界面上实时显示FPS。
+ * 3. 页面销毁时，由FluencyMonitor自动结束本页面的会话并生成性能报告。
  * 4. 提供一个“模拟ANR”的按钮，用于测试ANR监控SDK的功能。
  * 5. 处理到天气预报页面的跳转。
  */
@@ -66,8 +66,8 @@ public class UserCenterActivity extends AppCompatActivity implements View.OnClic
         findViewById(R.id.tv_feedback).setOnClickListener(this);
         findViewById(R.id.btn_simulate_anr).setOnClickListener(this);
 
-        // 启动流畅性监控，并通过回调将实时FPS显示在tvFps上
-        FluencyMonitor.getInstance().start(fps -> {
+        // 订阅本页面的流畅性会话，并通过回调将实时FPS显示在tvFps上
+        FluencyMonitor.getInstance().getActivitySession(this).setListener(fps -> {
             tvFps.setText(String.format("FPS: %d", fps));
         });
     }
@@ -114,17 +114,4 @@ public class UserCenterActivity extends AppCompatActivity implements View.OnClic
         editor.putString("signature", tvSignature.getText().toString());
         editor.apply(); // 异步保存
     }
-
-    /**
-     * Activity销毁时的回调方法。
-     * 在此停止流畅性监控并生成报告，以清理资源并避免内存泄漏。
-     */
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        // 停止流畅性监控
-        FluencyMonitor.getInstance().stop();
-        // 生成并打印流畅性报告
-        FluencyMonitor.getInstance().generateReport();
-    }
 }
@@ -1,8 +1,13 @@
 package com.example.exercise.ui.activity;
 
+import android.content.res.AssetFileDescriptor;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.Log;
 import android.view.View;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -13,30 +18,52 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.exercise.R;
-import com.example.exercise.data.model.WeatherResponse;
+import com.example.exercise.data.SavedCityStore;
+import com.example.exercise.data.WeatherRepository;
+import com.example.exercise.data.city.CityIndex;
+import com.example.exercise.data.model.CityForecast;
+import com.example.exercise.data.model.DailyForecast;
+import com.example.exercise.data.model.SavedCity;
+import com.example.exercise.data.network.FetchScheduler;
+import com.example.exercise.ui.adapter.CitySearchAdapter;
+import com.example.exercise.ui.adapter.CityTabAdapter;
+import com.example.exercise.ui.adapter.ForecastRowState;
 import com.example.exercise.ui.adapter.FutureForecastAdapter;
-import com.google.gson.Gson;
 
+import java.io.FileInputStream;
 import java.io.IOException;
-
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 天气预报页面 Activity。
  * <p>
  * 负责展示天气信息，其功能包括：
- * 1. 通过OkHttp从高德天气API异步获取天气数据。
- * 2. 使用Gson将返回的JSON数据解析为Java对象（WeatherResponse）。
- * 3. 将解析出的实时天气和未来预报数据更新到UI上。
- * 4. 实现“当前天气”和“未来预报”两个标签页的切换功能。
- * 5. 根据获取到的天气状况（晴、雨、多云等），动态地更换页面背景。
+ * 1. 展示用户保存的多个城市（{@link SavedCityStore}），顶部的城市列表用于切换当前显示的城市。
+ * 2. 通过 {@link WeatherRepository} 获取各城市的天气数据：先展示本地缓存，缓存过期时在后台向高德天气API重新验证，
+ *    只有数据变化时才刷新界面。各城市经由 {@link FetchScheduler} 并行加载：当前显示的城市立即开始，
+ *    其余城市按与当前城市的距离排队，同时进行的请求数有上限；每加载完一个城市就刷新其对应的界面，不等待全部完成。
+ *    切换城市时重新排列排队中的请求，离开页面时取消尚未完成的请求，回到页面后继续加载。
+ * 3. 天气数据由 {@code WeatherJsonParser} 解析为紧凑的不可变模型（CityForecast）。
+ * 4. 将当前城市的实时天气和未来预报数据更新到UI上。
+ * 5. 实现“当前天气”和“未来预报”两个标签页的切换功能。
+ * 6. 根据获取到的天气状况（晴、雨、多云等），动态地更换页面背景。
+ * 7. 按中文名称、拼音或拼音首字母搜索城市、区或县（{@link CityIndex}，离线索引），选中的城市加入保存的城市并切换过去。
  */
 public class WeatherActivity extends AppCompatActivity {
 
+    private static final String TAG = "WeatherActivity";
+    // 同时加载的城市数上限，当前显示的城市可以超出该上限
+    private static final int MAX_PARALLEL_LOADS = 2;
+    // 保存当前显示的城市位置
+    private static final String STATE_SELECTED = "selected_city";
+    // 城市搜索最多显示的结果数
+    private static final int SEARCH_LIMIT = 10;
+
     // UI 控件
     private ConstraintLayout weatherLayout; // 页面的根布局，用于更换背景
     private TextView tvCity, tvWeatherStatus, tvTemperature, tvTempHighLow;
@@ -49,10 +76,23 @@ public class WeatherActivity extends AppCompatActivity {
     private Button btnShowCurrent;  // “当前天气”标签按钮
     private Button btnShowForecast; // “未来预报”标签按钮
     private TextView tvFutureCity;  // “未来预报”页面中的城市名称
+    private RecyclerView rvCities;         // 顶部的城市列表
+    private CityTabAdapter cityTabAdapter; // 顶部城市列表的适配器
+    private EditText etCitySearch;         // 城市搜索框
+    private RecyclerView rvCityResults;    // 城市搜索结果
+    private CitySearchAdapter citySearchAdapter; // 搜索结果的适配器
 
-    // OkHttp 和 Gson 的实例，用于网络请求和JSON解析
-    private final OkHttpClient client = new OkHttpClient();
-    private final Gson gson = new Gson();
+    // 保存的城市和当前显示的城市位置
+    private List<SavedCity> cities;
+    private int selected;
+    // 已加载的天气数据，按城市编码索引
+    private final Map<String, CityForecast> forecasts = new HashMap<>();
+    // 本页面中已经加载完成的城市，回到页面时不再重复加载
+    private final Set<String> loaded = new HashSet<>();
+    private final FetchScheduler scheduler = new FetchScheduler(MAX_PARALLEL_LOADS);
+    // 城市索引，第一次搜索时打开；打开失败后不再重试，搜索不可用
+    private CityIndex cityIndex;
+    private boolean cityIndexUnavailable;
 
     /**
      * Activity创建时的回调方法。
@@ -63,8 +103,38 @@ public class WeatherActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_weather);
+        cities = new SavedCityStore(this).getCities();
+        if (savedInstanceState != null) {
+            selected = Math.min(savedInstanceState.getInt(STATE_SELECTED, 0), cities.size() - 1);
+        }
         initViews(); // 初始化所有UI控件
-        fetchWeatherData(); // 发起网络请求获取天气数据
+        showCity(selected);
+    }
+
+    /**
+     * 页面可见时加载尚未完成的城市，优先使用本地缓存。
+     */
+    @Override
+    protected void onStart() {
+        super.onStart();
+        fetchWeatherData();
+    }
+
+    /**
+     * 离开页面时取消尚未完成的加载。因配置变化重建时保留进行中的请求，由重建后的页面以相同的请求接手。
+     */
+    @Override
+    protected void onStop() {
+        if (!isChangingConfigurations()) {
+            scheduler.cancelAll();
+        }
+        super.onStop();
+    }
+
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putInt(STATE_SELECTED, selected);
     }
 
     /**
@@ -89,6 +159,14 @@ public class WeatherActivity extends AppCompatActivity {
         tvFutureCity = findViewById(R.id.tv_future_city);
         rvFutureForecast = findViewById(R.id.rv_future_forecast);
 
+        // 初始化顶部的城市列表
+        rvCities = findViewById(R.id.rv_cities);
+        cityTabAdapter = new CityTabAdapter(this::selectCity);
+        cityTabAdapter.setCities(cities);
+        cityTabAdapter.setSelected(selected);
+        rvCities.setLayoutManager(new LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false));
+        rvCities.setAdapter(cityTabAdapter);
+
         // 初始化RecyclerView和它的适配器
         futureForecastAdapter = new FutureForecastAdapter();
         rvFutureForecast.setLayoutManager(new LinearLayoutManager(this));
@@ -96,6 +174,89 @@ public class WeatherActivity extends AppCompatActivity {
 
         // 设置底部标签页
         setupTabs();
+        // 设置城市搜索
+        setupCitySearch();
+    }
+
+    /**
+     * 设置城市搜索框和搜索结果列表：输入内容变化时立即在离线索引中查找。
+     */
+    private void setupCitySearch() {
+        etCitySearch = findViewById(R.id.et_city_search);
+        rvCityResults = findViewById(R.id.rv_city_results);
+        citySearchAdapter = new CitySearchAdapter(this::addCity);
+        rvCityResults.setLayoutManager(new LinearLayoutManager(this));
+        rvCityResults.setAdapter(citySearchAdapter);
+        etCitySearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                searchCities(s.toString());
+            }
+        });
+    }
+
+    /**
+     * 在城市索引中查找并显示结果，没有结果时隐藏结果列表。
+     * 查询只读取索引中用到的记录，耗时在微秒级，直接在主线程执行。
+     */
+    private void searchCities(String query) {
+        CityIndex index = query.trim().isEmpty() ? null : getCityIndex();
+        List<SavedCity> results = index == null ? new ArrayList<>() : index.search(query, SEARCH_LIMIT);
+        citySearchAdapter.setResults(results);
+        rvCityResults.setVisibility(results.isEmpty() ? View.GONE : View.VISIBLE);
+    }
+
+    /**
+     * 获取城市索引，第一次调用时打开。打开只是映射 APK 中的索引文件并校验文件头，不解析城市数据。
+     *
+     * @return 城市索引；索引无法打开时返回null。
+     */
+    private CityIndex getCityIndex() {
+        if (cityIndex == null && !cityIndexUnavailable) {
+            try (AssetFileDescriptor fd = getAssets().openFd(CityIndex.ASSET_NAME);
+                 FileInputStream in = fd.createInputStream()) {
+                cityIndex = CityIndex.map(in.getChannel(), fd.getStartOffset(), fd.getDeclaredLength());
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to open city index", e);
+                cityIndexUnavailable = true;
+            }
+        }
+        return cityIndex;
+    }
+
+    /**
+     * 把搜索到的城市加入保存的城市（已保存时不重复添加），并切换到该城市。
+     */
+    private void addCity(SavedCity city) {
+        int position = -1;
+        for (int i = 0; i < cities.size(); i++) {
+            if (cities.get(i).getAdcode().equals(city.getAdcode())) {
+                position = i;
+                break;
+            }
+        }
+        if (position < 0) {
+            List<SavedCity> updated = new ArrayList<>(cities);
+            updated.add(city);
+            cities = updated;
+            new SavedCityStore(this).setCities(cities);
+            cityTabAdapter.addCity(city);
+            position = cities.size() - 1;
+        }
+        // 清空搜索框，结果列表随之隐藏
+        etCitySearch.setText("");
+        etCitySearch.clearFocus();
+        selectCity(position);
+        submitLoad(position);
+        rvCities.scrollToPosition(position);
     }
 
     /**
@@ -121,73 +282,159 @@ public class WeatherActivity extends AppCompatActivity {
     }
 
     /**
-     * 使用OkHttp向高德天气API发起异步网络请求。
+     * 切换当前显示的城市，并按新的位置重新排列排队中的加载。
+     *
+     * @param position 城市在列表中的位置。
+     */
+    private void selectCity(int position) {
+        if (position == selected) {
+            return;
+        }
+        selected = position;
+        cityTabAdapter.setSelected(position);
+        showCity(position);
+        for (int i = 0; i < cities.size(); i++) {
+            scheduler.setPriority(cities.get(i).getAdcode(), priorityOf(i));
+        }
+    }
+
+    /**
+     * 城市的加载优先级：当前显示的城市最高，其余城市离当前城市越近越高。
+     */
+    private int priorityOf(int position) {
+        return position == selected
+                ? FetchScheduler.PRIORITY_VISIBLE
+                : FetchScheduler.PRIORITY_VISIBLE + Math.abs(position - selected);
+    }
+
+    /**
+     * 通过天气数据仓库加载所有尚未完成的城市。从当前城市开始由近及远提交，内存中有缓存的城市立即回调；
+     * 之后每个城市只有数据发生变化时才会再次回调。
      */
     private void fetchWeatherData() {
-        Request request = new Request.Builder()
-                .url("https://restapi.amap.com/v3/weather/weatherInfo?city=610100&extensions=all&&key=78437de757a2693c3f9cb2aabf6f25fd")
-                .build();
+        for (int distance = 0; distance < cities.size(); distance++) {
+            submitLoad(selected - distance);
+            if (distance > 0) {
+                submitLoad(selected + distance);
+            }
+        }
+    }
 
-        client.newCall(request).enqueue(new Callback() {
-            @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                // 请求失败时，在主线程上显示一个Toast提示
-                e.printStackTrace();
-                runOnUiThread(() -> Toast.makeText(WeatherActivity.this, "获取天气数据失败", Toast.LENGTH_SHORT).show());
+    private void submitLoad(int position) {
+        if (position < 0 || position >= cities.size()) {
+            return;
+        }
+        String adcode = cities.get(position).getAdcode();
+        if (loaded.contains(adcode)) {
+            return;
+        }
+        scheduler.submit(adcode, priorityOf(position), onComplete ->
+                WeatherRepository.getInstance(this).load(this, adcode, new CityObserver(adcode, onComplete)));
+    }
+
+    /**
+     * 显示指定城市的数据；尚未加载时先显示城市名称和占位内容。
+     */
+    private void showCity(int position) {
+        SavedCity city = cities.get(position);
+        CityForecast forecast = forecasts.get(city.getAdcode());
+        if (forecast != null) {
+            updateUi(forecast);
+            return;
+        }
+        tvCity.setText(city.getName());
+        tvFutureCity.setText(city.getName());
+        tvWeatherStatus.setText("--");
+        tvTemperature.setText("--°");
+        tvTempHighLow.setText("最高: --° 最低: --°");
+        tvDayWeather.setText("--");
+        tvDayTemp.setText("--");
+        tvDayWind.setText("--");
+        tvNightWeather.setText("--");
+        tvNightTemp.setText("--");
+        tvNightWind.setText("--");
+        futureForecastAdapter.submitData(null);
+        updateWeatherBackground(null);
+    }
+
+    private boolean isSelected(String adcode) {
+        return cities.get(selected).getAdcode().equals(adcode);
+    }
+
+    /**
+     * 接收一个城市的加载结果，每个城市的结果到达后立即刷新该城市对应的界面。
+     */
+    private final class CityObserver implements WeatherRepository.Observer {
+        private final String adcode;
+        // 通知调度器该城市已加载完成
+        private final Runnable done;
+
+        CityObserver(String adcode, Runnable done) {
+            this.adcode = adcode;
+            this.done = done;
+        }
+
+        @Override
+        public void onWeather(CityForecast forecast, long fetchedAtMs) {
+            forecasts.put(adcode, forecast);
+            cityTabAdapter.setForecast(adcode, forecast);
+            if (isSelected(adcode)) {
+                updateUi(forecast);
             }
+        }
 
-            @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                if (response.isSuccessful()) {
-                    final String responseBody = response.body().string();
-                    // 使用Gson将JSON字符串解析为WeatherResponse对象
-                    final WeatherResponse weatherResponse = gson.fromJson(responseBody, WeatherResponse.class);
-                    // 在主线程上更新UI
-                    runOnUiThread(() -> updateUi(weatherResponse));
-                }
+        @Override
+        public void onError(IOException e) {
+            // 当前城市请求失败且没有缓存数据时额外显示一个Toast提示，其余城市只记录日志
+            Log.w(TAG, "Failed to load weather for " + adcode, e);
+            if (isSelected(adcode)) {
+                Toast.makeText(WeatherActivity.this, "获取天气数据失败", Toast.LENGTH_SHORT).show();
             }
-        });
+        }
+
+        @Override
+        public void onComplete() {
+            loaded.add(adcode);
+            done.run();
+        }
     }
 
     /**
      * 将从API获取到的天气数据更新到UI上。
      *
-     * @param weatherResponse 解析后的天气数据对象。
-     */
-    private void updateUi(WeatherResponse weatherResponse) {
-        if (weatherResponse != null && weatherResponse.getForecasts() != null && !weatherResponse.getForecasts().isEmpty()) {
-            WeatherResponse.Forecast forecast = weatherResponse.getForecasts().get(0);
-            if (forecast != null && forecast.getCasts() != null && !forecast.getCasts().isEmpty()) {
-                WeatherResponse.Cast today = forecast.getCasts().get(0);
-
-                // 更新顶部的实时天气信息
-                tvCity.setText(forecast.getCity());
-                tvWeatherStatus.setText(today.getDayweather());
-                tvTemperature.setText(String.format("%s°", today.getDaytemp()));
-                tvTempHighLow.setText(String.format("最高: %s° 最低: %s°", today.getDaytemp(), today.getNighttemp()));
-
-                // 更新白天天气卡片
-                tvDayWeather.setText(today.getDayweather());
-                tvDayTemp.setText(String.format("%s°", today.getDaytemp()));
-                tvDayWind.setText(String.format("%s %s级", today.getDaywind(), today.getDaypower()));
-
-                // 更新夜间天气卡片
-                tvNightWeather.setText(today.getNightweather());
-                tvNightTemp.setText(String.format("%s°", today.getNighttemp()));
-                tvNightWind.setText(String.format("%s %s级", today.getNightwind(), today.getNightpower()));
-
-                // 更新“未来预报”页面的数据
-                tvFutureCity.setText(forecast.getCity());
-                if (forecast.getCasts().size() > 1) {
-                    futureForecastAdapter.submitData(forecast.getCasts().subList(1, forecast.getCasts().size()));
-                } else {
-                    futureForecastAdapter.submitData(null);
-                }
-
-                // 根据当天的天气状况，动态更新页面背景
-                updateWeatherBackground(today.getDayweather());
-            }
+     * @param forecast 解析后的天气预报。
+     */
+    private void updateUi(CityForecast forecast) {
+        if (forecast == null || forecast.getDays().isEmpty()) {
+            return;
         }
+        List<DailyForecast> days = forecast.getDays();
+        DailyForecast today = days.get(0);
+        String dayTemp = ForecastRowState.formatTemp(today.getDayTemp());
+        String nightTemp = ForecastRowState.formatTemp(today.getNightTemp());
+
+        // 更新顶部的实时天气信息
+        tvCity.setText(forecast.getCity());
+        tvWeatherStatus.setText(today.getDayWeather());
+        tvTemperature.setText(String.format("%s°", dayTemp));
+        tvTempHighLow.setText(String.format("最高: %s° 最低: %s°", dayTemp, nightTemp));
+
+        // 更新白天天气卡片
+        tvDayWeather.setText(today.getDayWeather());
+        tvDayTemp.setText(String.format("%s°", dayTemp));
+        tvDayWind.setText(String.format("%s %s级", today.getDayWind().getLabel(), today.getDayPower()));
+
+        // 更新夜间天气卡片
+        tvNightWeather.setText(today.getNightWeather());
+        tvNightTemp.setText(String.format("%s°", nightTemp));
+        tvNightWind.setText(String.format("%s %s级", today.getNightWind().getLabel(), today.getNightPower()));
+
+        // 更新“未来预报”页面的数据
+        tvFutureCity.setText(forecast.getCity());
+        futureForecastAdapter.submitData(days.size() > 1 ? days.subList(1, days.size()) : null);
+
+        // 根据当天的天气状况，动态更新页面背景
+        updateWeatherBackground(today.getDayWeather());
     }
 
     /**
@@ -196,7 +443,9 @@ public class WeatherActivity extends AppCompatActivity {
      * @param weather 天气描述字符串（例如“晴”、“小雨”等）。
      */
     private void updateWeatherBackground(String weather) {
-        if (weather.contains("晴")) {
+        if (weather == null) {
+            weatherLayout.setBackgroundResource(R.drawable.weather_background_default);
+        } else if (weather.contains("晴")) {
             weatherLayout.setBackgroundResource(R.drawable.weather_background_sunny);
         } else if (weather.contains("雨")) {
             weatherLayout.setBackgroundResource(R.drawable.weather_background_rainy);
@@ -0,0 +1,85 @@
+package com.example.exercise.ui.adapter;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.exercise.R;
+import com.example.exercise.data.model.SavedCity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 城市搜索结果的RecyclerView适配器。
+ * <p>
+ * 每项显示城市名称和行政区划编码，点击某一项把该城市交给调用方处理。结果最多只有十几项，直接整体刷新。
+ */
+public class CitySearchAdapter extends RecyclerView.Adapter<CitySearchAdapter.ResultViewHolder> {
+
+    /**
+     * 搜索结果被点击时的回调。
+     */
+    public interface OnResultClickListener {
+        void onResultClick(SavedCity city);
+    }
+
+    private final List<SavedCity> results = new ArrayList<>();
+    private final OnResultClickListener listener;
+
+    public CitySearchAdapter(OnResultClickListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 替换当前的搜索结果。
+     */
+    public void setResults(List<SavedCity> results) {
+        this.results.clear();
+        this.results.addAll(results);
+        notifyDataSetChanged();
+    }
+
+    @NonNull
+    @Override
+    public ResultViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_city_result, parent, false);
+        ResultViewHolder holder = new ResultViewHolder(view);
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                listener.onResultClick(results.get(position));
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ResultViewHolder holder, int position) {
+        SavedCity city = results.get(position);
+        holder.tvName.setText(city.getName());
+        holder.tvAdcode.setText(city.getAdcode());
+    }
+
+    @Override
+    public int getItemCount() {
+        return results.size();
+    }
+
+    /**
+     * ViewHolder内部类，缓存城市名称和编码控件。
+     */
+    static class ResultViewHolder extends RecyclerView.ViewHolder {
+        final TextView tvName, tvAdcode;
+
+        ResultViewHolder(@NonNull View itemView) {
+            super(itemView);
+            tvName = itemView.findViewById(R.id.tv_city_result_name);
+            tvAdcode = itemView.findViewById(R.id.tv_city_result_adcode);
+        }
+    }
+}
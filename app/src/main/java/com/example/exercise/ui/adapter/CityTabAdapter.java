@@ -0,0 +1,136 @@
+package com.example.exercise.ui.adapter;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.exercise.R;
+import com.example.exercise.data.model.CityForecast;
+import com.example.exercise.data.model.SavedCity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 天气页面顶部城市列表的RecyclerView适配器。
+ * <p>
+ * 每个城市显示名称和今天的白天温度。各城市的数据分别加载，每加载完一个城市只刷新该城市对应的一项；
+ * 点击某一项切换当前显示的城市。
+ */
+public class CityTabAdapter extends RecyclerView.Adapter<CityTabAdapter.CityViewHolder> {
+
+    // 未选中城市的透明度
+    private static final float UNSELECTED_ALPHA = 0.6f;
+
+    /**
+     * 城市被点击时的回调。
+     */
+    public interface OnCityClickListener {
+        void onCityClick(int position);
+    }
+
+    private final List<SavedCity> cities = new ArrayList<>();
+    // 已加载的天气数据，按城市编码索引
+    private final Map<String, CityForecast> forecasts = new HashMap<>();
+    private final OnCityClickListener listener;
+    private int selected;
+
+    public CityTabAdapter(OnCityClickListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 设置城市列表，同时清除已加载的数据。
+     */
+    public void setCities(List<SavedCity> cities) {
+        this.cities.clear();
+        this.cities.addAll(cities);
+        forecasts.clear();
+        notifyDataSetChanged();
+    }
+
+    /**
+     * 在列表末尾添加一个城市。
+     */
+    public void addCity(SavedCity city) {
+        cities.add(city);
+        notifyItemInserted(cities.size() - 1);
+    }
+
+    /**
+     * 更新一个城市的数据，只刷新该城市对应的一项。
+     */
+    public void setForecast(String adcode, CityForecast forecast) {
+        forecasts.put(adcode, forecast);
+        for (int i = 0; i < cities.size(); i++) {
+            if (cities.get(i).getAdcode().equals(adcode)) {
+                notifyItemChanged(i);
+            }
+        }
+    }
+
+    /**
+     * 设置选中的城市。
+     */
+    public void setSelected(int position) {
+        if (position == selected) {
+            return;
+        }
+        int previous = selected;
+        selected = position;
+        notifyItemChanged(previous);
+        notifyItemChanged(position);
+    }
+
+    @NonNull
+    @Override
+    public CityViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_city_tab, parent, false);
+        CityViewHolder holder = new CityViewHolder(view);
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                listener.onCityClick(position);
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull CityViewHolder holder, int position) {
+        SavedCity city = cities.get(position);
+        CityForecast forecast = forecasts.get(city.getAdcode());
+        if (forecast == null || forecast.getDays().isEmpty()) {
+            holder.tvName.setText(city.getName());
+            holder.tvTemp.setText("--°");
+        } else {
+            holder.tvName.setText(forecast.getCity() != null ? forecast.getCity() : city.getName());
+            holder.tvTemp.setText(ForecastRowState.formatTemp(forecast.getDays().get(0).getDayTemp()) + "°");
+        }
+        holder.itemView.setAlpha(position == selected ? 1f : UNSELECTED_ALPHA);
+    }
+
+    @Override
+    public int getItemCount() {
+        return cities.size();
+    }
+
+    /**
+     * ViewHolder内部类，缓存城市名称和温度控件。
+     */
+    static class CityViewHolder extends RecyclerView.ViewHolder {
+        final TextView tvName, tvTemp;
+
+        CityViewHolder(@NonNull View itemView) {
+            super(itemView);
+            tvName = itemView.findViewById(R.id.tv_city_tab_name);
+            tvTemp = itemView.findViewById(R.id.tv_city_tab_temp);
+        }
+    }
+}
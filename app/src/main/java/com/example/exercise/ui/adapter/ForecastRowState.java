@@ -0,0 +1,115 @@
+package com.example.exercise.ui.adapter;
+
+import com.example.exercise.data.model.DailyForecast;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 未来预报列表中一行的显示状态，所有文本在构造时一次性格式化好，不可变。
+ * <p>
+ * 由 {@link FutureForecastAdapter} 在后台线程中从 {@link DailyForecast} 构建，绑定时只需把字段赋给控件，
+ * 滑动过程中不再做任何字符串格式化。{@link #equals} 比较所有显示内容，用于计算列表差异时判断一行是否需要重新绑定。
+ * <p>
+ * 本类不依赖 Android API。
+ */
+public final class ForecastRowState {
+
+    // 行的标识，即 `yyyyMMdd` 形式的日期，同一天的行视为同一项
+    public final int key;
+    public final String date;         // "2025-12-18"
+    public final String week;         // "周四"
+    public final String dayWeather;   // "晴"
+    public final String nightWeather; // "夜间 晴"
+    public final String dayTemp;      // "8°"
+    public final String nightTemp;    // "-3°"
+    public final String dayWind;      // "东北 1-3级"
+    public final String nightWind;    // "夜间 东北 1-3级"
+
+    private ForecastRowState(DailyForecast day) {
+        key = day.getDate();
+        date = day.formatDate();
+        week = formatWeek(day.getWeek());
+        dayWeather = orPlaceholder(day.getDayWeather());
+        nightWeather = "夜间 " + orPlaceholder(day.getNightWeather());
+        dayTemp = formatTemp(day.getDayTemp()) + "°";
+        nightTemp = formatTemp(day.getNightTemp()) + "°";
+        dayWind = day.getDayWind().getLabel() + " " + orPlaceholder(day.getDayPower()) + "级";
+        nightWind = "夜间 " + day.getNightWind().getLabel() + " " + orPlaceholder(day.getNightPower()) + "级";
+    }
+
+    /**
+     * 构建一天的显示状态。
+     */
+    public static ForecastRowState from(DailyForecast day) {
+        return new ForecastRowState(day);
+    }
+
+    /**
+     * 逐项构建显示状态。
+     *
+     * @param days 逐日预报，可以为null。
+     * @return 新的列表，与输入一一对应。
+     */
+    public static List<ForecastRowState> fromAll(List<DailyForecast> days) {
+        if (days == null) {
+            return new ArrayList<>(0);
+        }
+        List<ForecastRowState> rows = new ArrayList<>(days.size());
+        for (DailyForecast day : days) {
+            rows.add(new ForecastRowState(day));
+        }
+        return rows;
+    }
+
+    /**
+     * 将API返回的数字星期（1-7）格式化为中文（周一-周日）。
+     *
+     * @param week 代表星期的数字，缺失时为0。
+     * @return 格式化后的中文字符串。
+     */
+    public static String formatWeek(int week) {
+        switch (week) {
+            case 0: return "";
+            case 1: return "周一";
+            case 2: return "周二";
+            case 3: return "周三";
+            case 4: return "周四";
+            case 5: return "周五";
+            case 6: return "周六";
+            case 7: return "周日";
+            default: return String.valueOf(week);
+        }
+    }
+
+    /**
+     * 格式化温度，缺失时显示为“--”。
+     */
+    public static String formatTemp(int temp) {
+        return temp == DailyForecast.UNKNOWN_TEMP ? "--" : String.valueOf(temp);
+    }
+
+    private static String orPlaceholder(String text) {
+        return text == null ? "--" : text;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ForecastRowState)) return false;
+        ForecastRowState other = (ForecastRowState) o;
+        return key == other.key && date.equals(other.date) && week.equals(other.week)
+                && dayWeather.equals(other.dayWeather) && nightWeather.equals(other.nightWeather)
+                && dayTemp.equals(other.dayTemp) && nightTemp.equals(other.nightTemp)
+                && dayWind.equals(other.dayWind) && nightWind.equals(other.nightWind);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = key;
+        result = 31 * result + dayWeather.hashCode();
+        result = 31 * result + dayTemp.hashCode();
+        result = 31 * result + nightTemp.hashCode();
+        return result;
+    }
+}
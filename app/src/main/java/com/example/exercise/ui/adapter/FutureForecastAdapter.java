@@ -1,43 +1,75 @@
 package com.example.exercise.ui.adapter;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.exercise.R;
-import com.example.exercise.data.model.WeatherResponse;
+import com.example.exercise.data.model.DailyForecast;
+import com.example.exercise.sdk.ThreadWatchdog;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * 未来天气预报的RecyclerView适配器。
  * <p>
- * 负责将从API获取的未来多日天气数据（`WeatherResponse.Cast`对象列表）
+ * 负责将从API获取的未来多日天气数据（`DailyForecast`对象列表）
  * 绑定到`item_future_forecast.xml`布局上，并在列表中显示。
+ * <p>
+ * 设计要点：
+ * 1. {@link #submitData} 在后台线程中把每天的数据构建为预先格式化好的 {@link ForecastRowState}，
+ *    绑定时只做字段赋值，滑动过程中主线程上没有字符串格式化。
+ * 2. 新旧列表的差异（{@link DiffUtil}）也在后台线程中计算，只有内容变化的行会被重新绑定，
+ *    而不是每次都 `notifyDataSetChanged()` 重绑所有行。
+ * 3. 连续多次提交时只应用最后一次的结果，较早的计算结果被丢弃。
  */
 public class FutureForecastAdapter extends RecyclerView.Adapter<FutureForecastAdapter.ForecastViewHolder> {
 
-    // 内部持有的天气数据列表，用于驱动适配器
-    private final List<WeatherResponse.Cast> data = new ArrayList<>();
+    private static final String THREAD_NAME = "ForecastRows";
+    // 构建行状态和计算差异的任务执行超过该时长即上报卡顿
+    private static final long ROWS_STALL_THRESHOLD_MS = 1000;
+    // 构建行状态和计算差异的后台线程，所有实例共用
+    private static final ExecutorService ROWS_EXECUTOR = ThreadWatchdog.getInstance().watchExecutor(THREAD_NAME,
+            Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, THREAD_NAME)),
+            ROWS_STALL_THRESHOLD_MS);
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // 当前显示的行，只在主线程中替换；列表本身不会被修改，可以交给后台线程读取
+    private List<ForecastRowState> rows = Collections.emptyList();
+    // 最近一次提交的序号，用于丢弃过期的计算结果，只在主线程访问
+    private int generation;
 
     /**
-     * 更新适配器的数据源。
-     * 此方法会先清空旧数据，然后添加新数据，并通知UI刷新。
+     * 更新适配器的数据源，必须在主线程调用。
+     * 行状态和列表差异在后台线程中计算，完成后在主线程上只刷新变化的行。
      *
-     * @param casts 从API返回的未来多日天气预报列表，可以为null或空。
+     * @param days 从API返回的未来多日天气预报列表，可以为null或空。提交后不应再被修改。
      */
-    public void submitData(List<WeatherResponse.Cast> casts) {
-        data.clear();
-        if (casts != null) {
-            data.addAll(casts);
-        }
-        // 通知RecyclerView数据已发生变化，需要重绘
-        notifyDataSetChanged();
+    public void submitData(List<DailyForecast> days) {
+        int submitted = ++generation;
+        List<ForecastRowState> oldRows = rows;
+        ROWS_EXECUTOR.execute(() -> {
+            List<ForecastRowState> newRows = ForecastRowState.fromAll(days);
+            DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new RowDiff(oldRows, newRows));
+            mainHandler.post(() -> {
+                // 期间有更新的提交，这次的结果已经过期
+                if (submitted != generation) {
+                    return;
+                }
+                rows = newRows;
+                diff.dispatchUpdatesTo(this);
+            });
+        });
     }
 
     /**
@@ -56,23 +88,22 @@ public class FutureForecastAdapter extends RecyclerView.Adapter<FutureForecastAd
     }
 
     /**
-     * 当RecyclerView需要将数据绑定到一个ViewHolder上时调用。
+     * 当RecyclerView需要将数据绑定到一个ViewHolder上时调用。文本都已预先格式化，这里只做赋值。
      *
      * @param holder   需要被绑定数据的ViewHolder。
      * @param position 列表中的位置。
      */
     @Override
     public void onBindViewHolder(@NonNull ForecastViewHolder holder, int position) {
-        WeatherResponse.Cast cast = data.get(position);
-        // 将天气数据绑定到ViewHolder中的UI控件上
-        holder.tvDate.setText(cast.getDate());
-        holder.tvWeek.setText(formatWeek(cast.getWeek()));
-        holder.tvDayWeather.setText(cast.getDayweather());
-        holder.tvNightWeather.setText(String.format("夜间 %s", cast.getNightweather()));
-        holder.tvDayTemp.setText(String.format("%s°", cast.getDaytemp()));
-        holder.tvNightTemp.setText(String.format("%s°", cast.getNighttemp()));
-        holder.tvDayWind.setText(String.format("%s %s级", cast.getDaywind(), cast.getDaypower()));
-        holder.tvNightWind.setText(String.format("夜间 %s %s级", cast.getNightwind(), cast.getNightpower()));
+        ForecastRowState row = rows.get(position);
+        holder.tvDate.setText(row.date);
+        holder.tvWeek.setText(row.week);
+        holder.tvDayWeather.setText(row.dayWeather);
+        holder.tvNightWeather.setText(row.nightWeather);
+        holder.tvDayTemp.setText(row.dayTemp);
+        holder.tvNightTemp.setText(row.nightTemp);
+        holder.tvDayWind.setText(row.dayWind);
+        holder.tvNightWind.setText(row.nightWind);
     }
 
     /**
@@ -80,28 +111,39 @@ public class FutureForecastAdapter extends RecyclerView.Adapter<FutureForecastAd
      */
     @Override
     public int getItemCount() {
-        return data.size();
+        return rows.size();
     }
 
     /**
-     * 将API返回的数字星期（1-7）格式化为中文（周一-周日）。
-     *
-     * @param week 代表星期的数字字符串。
-     * @return 格式化后的中文字符串。
+     * 比较新旧两个列表：同一天的行视为同一项，显示内容完全相同时不需要重新绑定。
      */
-    private String formatWeek(String week) {
-        if (week == null) {
-            return "";
+    private static final class RowDiff extends DiffUtil.Callback {
+        private final List<ForecastRowState> oldRows;
+        private final List<ForecastRowState> newRows;
+
+        RowDiff(List<ForecastRowState> oldRows, List<ForecastRowState> newRows) {
+            this.oldRows = oldRows;
+            this.newRows = newRows;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldRows.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newRows.size();
         }
-        switch (week) {
-            case "1": return "周一";
-            case "2": return "周二";
-            case "3": return "周三";
-            case "4": return "周四";
-            case "5": return "周五";
-            case "6": return "周六";
-            case "7": return "周日";
-            default: return week;
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return oldRows.get(oldItemPosition).key == newRows.get(newItemPosition).key;
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return oldRows.get(oldItemPosition).equals(newRows.get(newItemPosition));
         }
     }
 
@@ -0,0 +1,100 @@
+package com.example.exercise.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link WeatherCache} 的本地单元测试，解码器直接把响应体转换为字符串。
+ */
+public class WeatherCacheTest {
+
+    private File dir;
+    private int decodeCount;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("weather-cache").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void put_reportsChangeOnlyWhenBodyDiffers() throws IOException {
+        WeatherCache<String> cache = newCache();
+        WeatherCache.Update<String> first = cache.put("610100", bytes("{\"reporttime\":\"08:00\"}"), 1000);
+        assertTrue(first.changed);
+        assertTrue(first.persisted);
+
+        WeatherCache.Update<String> same = cache.put("610100", bytes("{\"reporttime\":\"08:00\"}"), 5000);
+        assertFalse(same.changed);
+        assertEquals(5000, same.entry.fetchedAtMs);
+        // 内容没有变化时不重新解码
+        assertEquals(1, decodeCount);
+
+        assertTrue(cache.put("610100", bytes("{\"reporttime\":\"11:00\"}"), 9000).changed);
+    }
+
+    @Test
+    public void get_restoresFromDiskInNewInstance() throws IOException {
+        newCache().put("110000", bytes("beijing"), 1234);
+
+        WeatherCache<String> restarted = newCache();
+        assertNull(restarted.peek("110000"));
+        WeatherCache.Entry<String> entry = restarted.get("110000");
+        assertNotNull(entry);
+        assertEquals("beijing", entry.model);
+        assertEquals(1234, entry.fetchedAtMs);
+        assertSame(entry, restarted.peek("110000"));
+    }
+
+    @Test
+    public void corruptFile_isTreatedAsMissing() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "310000.json"))) {
+            out.write("not a timestamp\n{}".getBytes("UTF-8"));
+        }
+        assertNull(newCache().get("310000"));
+    }
+
+    @Test
+    public void freshness_followsPerCityTtl() throws IOException {
+        WeatherCache<String> cache = newCache();
+        WeatherCache.Entry<String> xian = cache.put("610100", bytes("a"), 10_000).entry;
+        WeatherCache.Entry<String> beijing = cache.put("110000", bytes("b"), 10_000).entry;
+        cache.setTtl("110000", 0);
+
+        assertTrue(cache.isFresh(xian, 10_000 + 59_999));
+        assertFalse(cache.isFresh(xian, 10_000 + 60_000));
+        assertFalse(cache.isFresh(beijing, 10_000));
+        // 系统时间被调到获取时间之前
+        assertFalse(cache.isFresh(xian, 9_000));
+    }
+
+    private WeatherCache<String> newCache() {
+        return new WeatherCache<>(dir, body -> {
+            decodeCount++;
+            return new String(body, StandardCharsets.UTF_8);
+        }, 60_000);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
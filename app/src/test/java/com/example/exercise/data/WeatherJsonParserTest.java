@@ -0,0 +1,87 @@
+package com.example.exercise.data;
+
+import com.example.exercise.data.model.CityForecast;
+import com.example.exercise.data.model.DailyForecast;
+import com.example.exercise.data.model.WindDirection;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link WeatherJsonParser} 的本地单元测试，使用与高德天气接口结构相同的响应体。
+ */
+public class WeatherJsonParserTest {
+
+    private static final String RESPONSE = "{\"status\":\"1\",\"count\":\"1\",\"info\":\"OK\",\"infocode\":\"10000\","
+            + "\"forecasts\":[{\"city\":\"西安市\",\"adcode\":\"610100\",\"province\":\"陕西\","
+            + "\"reporttime\":\"2025-12-18 03:00:00\",\"extra\":{\"nested\":[1,2,{\"a\":null}]},\"casts\":["
+            + "{\"date\":\"2025-12-18\",\"week\":\"4\",\"dayweather\":\"晴\",\"nightweather\":\"晴\","
+            + "\"daytemp\":\"8\",\"nighttemp\":\"-3\",\"daywind\":\"东北\",\"nightwind\":\"东北\","
+            + "\"daypower\":\"1-3\",\"nightpower\":\"1-3\",\"daytemp_float\":\"8.0\",\"nighttemp_float\":\"-3.0\"},\n"
+            + "  {\"date\" : \"2025-12-19\", \"week\" : 5, \"dayweather\" : \"小\\u96e8\", \"nightweather\" : [],"
+            + " \"daytemp\" : \"\", \"nighttemp\" : -2, \"daywind\" : \"海风\", \"nightwind\" : \"无风向\","
+            + " \"daypower\" : \"≤3\", \"nightpower\" : \"≤3\"}]}]}";
+
+    @Test
+    public void parse_readsTypedFieldsAndSkipsUnknownOnes() throws IOException {
+        CityForecast forecast = WeatherJsonParser.parse(bytes(RESPONSE));
+        assertEquals("西安市", forecast.getCity());
+        assertEquals("610100", forecast.getAdcode());
+        assertEquals("2025-12-18 03:00:00", forecast.getReportTime());
+        assertEquals(2, forecast.getDays().size());
+
+        DailyForecast today = forecast.getDays().get(0);
+        assertEquals(20251218, today.getDate());
+        assertEquals("2025-12-18", today.formatDate());
+        assertEquals(4, today.getWeek());
+        assertEquals("晴", today.getDayWeather());
+        assertEquals(8, today.getDayTemp());
+        assertEquals(-3, today.getNightTemp());
+        assertEquals(WindDirection.NORTHEAST, today.getDayWind());
+        assertEquals("1-3", today.getNightPower());
+
+        // 带转义的字符串、数字类型的取值，以及类型不符或无法识别的取值
+        DailyForecast tomorrow = forecast.getDays().get(1);
+        assertEquals(5, tomorrow.getWeek());
+        assertEquals("小雨", tomorrow.getDayWeather());
+        assertNull(tomorrow.getNightWeather());
+        assertEquals(DailyForecast.UNKNOWN_TEMP, tomorrow.getDayTemp());
+        assertEquals(-2, tomorrow.getNightTemp());
+        assertEquals(WindDirection.UNKNOWN, tomorrow.getDayWind());
+        assertEquals(WindDirection.NONE, tomorrow.getNightWind());
+    }
+
+    @Test
+    public void parse_reusesPooledStringsAcrossResponses() throws IOException {
+        DailyForecast first = WeatherJsonParser.parse(bytes(RESPONSE)).getDays().get(0);
+        DailyForecast second = WeatherJsonParser.parse(bytes(RESPONSE)).getDays().get(0);
+        assertEquals(first, second);
+        assertSame(first.getDayWeather(), second.getDayWeather());
+        assertSame(first.getDayPower(), second.getNightPower());
+    }
+
+    @Test
+    public void parse_failsOnErrorStatusOrMalformedBody() {
+        assertThrows("INVALID_USER_KEY",
+                "{\"status\":\"0\",\"info\":\"INVALID_USER_KEY\",\"infocode\":\"10001\"}");
+        assertThrows("No forecast", "{\"status\":\"1\",\"forecasts\":[]}");
+        assertThrows("Unterminated", "{\"status\":\"1\",\"forecasts\":[{\"city\":\"西安");
+    }
+
+    private static void assertThrows(String expectedMessage, String body) {
+        try {
+            WeatherJsonParser.parse(bytes(body));
+            fail("Expected IOException for " + body);
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(expectedMessage));
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.exercise.data.city;
+
+import com.example.exercise.data.model.SavedCity;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link CityIndex} 和 {@link CityIndexWriter} 的本地单元测试。
+ */
+public class CityIndexTest {
+
+    private static final String SOURCE = "# 测试用的城市\n"
+            + "610100,西安市,xi an\n"
+            + "610400,咸阳市,xian yang\n"
+            + "610000,陕西省,shan xi\n"
+            + "140000,山西省,shan xi\n"
+            + "\n"
+            + "110000,北京市,bei jing\n";
+
+    @Test
+    public void search_matchesNamePinyinAndInitialsByPrefix() throws IOException {
+        CityIndex index = build(SOURCE);
+        assertEquals(5, index.size());
+        assertEquals("[610100西安市]", names(index.search("西安", 10)));
+        assertEquals("[110000北京市]", names(index.search("Bei Jing", 10)));
+        // 首字母前缀匹配的结果在前，模糊匹配（"xa" 是 "xianyang" 的子序列）的结果在后
+        assertEquals("[610100西安市, 610400咸阳市]", names(index.search("xa", 10)));
+        // 全拼和首字母都是 "xian..." 的前缀，完全匹配的排在前面
+        assertEquals("[610100西安市, 610400咸阳市]", names(index.search("xi'an", 10)));
+        // 同名拼音的城市都会返回，每个城市只出现一次
+        assertEquals("[140000山西省, 610000陕西省]", names(index.search("sx", 10)));
+    }
+
+    @Test
+    public void search_fallsBackToFuzzyMatching() throws IOException {
+        CityIndex index = build(SOURCE);
+        // 拼音按子序列匹配，首字母必须相同
+        assertEquals("[610400咸阳市]", names(index.search("xyang", 10)));
+        assertEquals("[]", names(index.search("yang", 10)));
+        // 中文按子串匹配
+        assertEquals("[140000山西省, 610000陕西省]", names(index.search("西省", 10)));
+    }
+
+    @Test
+    public void search_ranksFuzzyMatchesBeforeApplyingLimit() throws IOException {
+        CityIndex index;
+        try (InputStream in = CityIndexTest.class.getResourceAsStream("/cities.csv")) {
+            index = new CityIndex(ByteBuffer.wrap(CityIndexWriter.write(
+                    CityIndexWriter.readSource(new InputStreamReader(in, StandardCharsets.UTF_8)))));
+        }
+        // "xan" 没有前缀匹配，只跳过一个字母的 "xian" 排在 adcode 更靠前的兴安盟、厦门等之前
+        List<SavedCity> results = index.search("xan", 5);
+        assertEquals(5, results.size());
+        assertEquals("610100", results.get(0).getAdcode());
+    }
+
+    @Test
+    public void search_ranksCitiesBeforeSameNamedDistricts() throws IOException {
+        CityIndex index = build(SOURCE
+                + "220403,西安区,xi an\n"
+                + "231005,西安区,xi an\n");
+        // 两个西安区的 adcode 更靠前，拼音和名称前缀也都相同，但县级排在地级之后
+        assertEquals("[610100西安市, 220403西安区, 231005西安区]", names(index.search("西安", 10)));
+        assertEquals("610100", index.search("xian", 10).get(0).getAdcode());
+        assertEquals("[610100西安市]", names(index.search("xian", 1)));
+    }
+
+    @Test
+    public void search_respectsLimitAndIgnoresEmptyQuery() throws IOException {
+        CityIndex index = build(SOURCE);
+        assertEquals(1, index.search("x", 1).size());
+        assertTrue(index.search("  ", 10).isEmpty());
+        assertTrue(index.search(null, 10).isEmpty());
+    }
+
+    @Test
+    public void readSource_rejectsInvalidLines() {
+        assertInvalidSource("61010,西安市,xi an\n");
+        assertInvalidSource("610100,西安市,Xi An\n");
+        assertInvalidSource("610100,西安市\n");
+        assertInvalidSource("610100,西安市,xi an\n610100,西安,xi an\n");
+    }
+
+    @Test
+    public void constructor_rejectsInvalidHeader() throws IOException {
+        byte[] bytes = CityIndexWriter.write(CityIndexWriter.readSource(new StringReader(SOURCE)));
+        bytes[0] = 0;
+        try {
+            new CityIndex(ByteBuffer.wrap(bytes));
+            fail("Expected IOException for invalid header");
+        } catch (IOException expected) {
+            // 预期的异常
+        }
+    }
+
+    private static CityIndex build(String source) throws IOException {
+        return new CityIndex(ByteBuffer.wrap(CityIndexWriter.write(CityIndexWriter.readSource(new StringReader(source)))));
+    }
+
+    private static String names(List<SavedCity> cities) {
+        List<String> names = new ArrayList<>();
+        for (SavedCity city : cities) {
+            names.add(city.getAdcode() + city.getName());
+        }
+        return names.toString();
+    }
+
+    private static void assertInvalidSource(String source) {
+        try {
+            CityIndexWriter.readSource(new StringReader(source));
+            fail("Expected IOException for " + source);
+        } catch (IOException expected) {
+            // 预期的异常
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.exercise.data.network;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link FetchScheduler} 的本地单元测试，任务由手动完成的假任务模拟。
+ */
+public class FetchSchedulerTest {
+
+    private final FetchScheduler scheduler = new FetchScheduler(2);
+    private final List<String> started = new ArrayList<>();
+    private final Map<String, Runnable> completions = new HashMap<>();
+    private final List<String> cancelled = new ArrayList<>();
+
+    @Test
+    public void backgroundTasks_respectCapAndStartByPriority() {
+        submit("a", 3);
+        submit("b", 3);
+        submit("c", 2);
+        submit("d", 1);
+        assertEquals(Arrays.asList("a", "b"), started);
+        assertEquals(2, scheduler.getPendingCount());
+
+        // 完成一个后，排队中优先级最高的先开始
+        completions.get("a").run();
+        assertEquals(Arrays.asList("a", "b", "d"), started);
+        completions.get("b").run();
+        assertEquals(Arrays.asList("a", "b", "d", "c"), started);
+    }
+
+    @Test
+    public void visibleTask_bypassesCapAndReprioritizationReordersQueue() {
+        submit("a", 1);
+        submit("b", 2);
+        submit("c", 3);
+        submit("d", 4);
+        submit("visible", FetchScheduler.PRIORITY_VISIBLE);
+        assertEquals(Arrays.asList("a", "b", "visible"), started);
+
+        // 用户切换到 d：d 立即开始，c 退到最后仍在排队
+        scheduler.setPriority("d", FetchScheduler.PRIORITY_VISIBLE);
+        scheduler.setPriority("c", 5);
+        assertEquals(Arrays.asList("a", "b", "visible", "d"), started);
+        assertTrue(scheduler.contains("c"));
+        assertEquals(4, scheduler.getRunningCount());
+    }
+
+    @Test
+    public void cancel_freesSlotAndIgnoresLateCompletion() {
+        submit("a", 1);
+        submit("b", 1);
+        submit("c", 1);
+        scheduler.cancel("a");
+        assertEquals(Arrays.asList("a"), cancelled);
+        assertEquals(Arrays.asList("a", "b", "c"), started);
+
+        // 被取消的任务之后完成不影响计数
+        completions.get("a").run();
+        assertEquals(2, scheduler.getRunningCount());
+
+        scheduler.cancelAll();
+        assertEquals(Arrays.asList("a", "b", "c"), cancelled);
+        assertEquals(0, scheduler.getRunningCount());
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    @Test
+    public void synchronousCompletion_startsNextTask() {
+        scheduler.submit("cached", 1, onComplete -> {
+            started.add("cached");
+            onComplete.run();
+            return null;
+        });
+        submit("b", 1);
+        submit("c", 1);
+        assertEquals(Arrays.asList("cached", "b", "c"), started);
+        assertFalse(scheduler.contains("cached"));
+    }
+
+    private void submit(String key, int priority) {
+        scheduler.submit(key, priority, onComplete -> {
+            started.add(key);
+            completions.put(key, onComplete);
+            return () -> cancelled.add(key);
+        });
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.exercise.data.network;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RequestCoalescer} 的本地单元测试，请求由手动完成的假请求模拟。
+ */
+public class RequestCoalescerTest {
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    private final List<FakeRequest> started = new ArrayList<>();
+
+    @Test
+    public void concurrentCallers_shareOneRequestAndResult() {
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        coalescer.join("GET /weather", this::start, first);
+        coalescer.join("GET /weather", this::start, second);
+        assertEquals(1, started.size());
+
+        started.get(0).listener.onSuccess("sunny");
+        assertEquals("sunny", first.value);
+        assertEquals("sunny", second.value);
+        assertEquals(0, coalescer.getInFlightCount());
+
+        // 完成后相同的键发起新请求，不缓存结果
+        coalescer.join("GET /weather", this::start, new RecordingListener());
+        assertEquals(2, started.size());
+    }
+
+    @Test
+    public void lastCancel_cancelsUnderlyingRequest() {
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        RequestCoalescer.Subscription a = coalescer.join("k", this::start, first);
+        RequestCoalescer.Subscription b = coalescer.join("k", this::start, second);
+
+        a.cancel();
+        assertFalse(started.get(0).cancelled);
+        b.cancel();
+        assertTrue(started.get(0).cancelled);
+        assertEquals(0, coalescer.getInFlightCount());
+
+        // 被取消的请求之后的回调被忽略
+        started.get(0).listener.onFailure(new IOException("Canceled"));
+        assertNull(first.failure);
+        assertNull(second.failure);
+    }
+
+    @Test
+    public void detachedRequest_isReusedByNextCaller() {
+        RequestCoalescer.Subscription old = coalescer.join("k", this::start, new RecordingListener());
+        old.detach();
+        assertFalse(old.isActive());
+        assertFalse(started.get(0).cancelled);
+
+        RecordingListener recreated = new RecordingListener();
+        coalescer.join("k", this::start, recreated);
+        assertEquals(1, started.size());
+        started.get(0).listener.onSuccess("rainy");
+        assertEquals("rainy", recreated.value);
+    }
+
+    private RequestCoalescer.Cancellable start(RequestCoalescer.Listener<String> listener) {
+        FakeRequest request = new FakeRequest(listener);
+        started.add(request);
+        return () -> request.cancelled = true;
+    }
+
+    private static final class FakeRequest {
+        final RequestCoalescer.Listener<String> listener;
+        boolean cancelled;
+
+        FakeRequest(RequestCoalescer.Listener<String> listener) {
+            this.listener = listener;
+        }
+    }
+
+    private static final class RecordingListener implements RequestCoalescer.Listener<String> {
+        String value;
+        IOException failure;
+
+        @Override
+        public void onSuccess(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public void onFailure(IOException e) {
+            failure = e;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.exercise.sdk;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link AnrReportStore} 的本地单元测试。
+ */
+public class AnrReportStoreTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("anr").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void record_keepsBothFilesBoundedWithManyDistinctStacks() {
+        AnrReportStore store = new AnrReportStore(dir);
+        File current = new File(dir, "anr_reports.log");
+        File backup = new File(dir, "anr_reports.1.log");
+        // 每条记录约 3KB（32 帧，含中文方法名），远多于一个文件能容纳的数量
+        int rotations = 0;
+        long previousLength = 0;
+        for (int i = 0; i < 200; i++) {
+            StackTraceElement[] stack = stack(i);
+            AnrReportStore.AnrRecord record = store.record(stack, AnrReportStore.AnrRecord.STAGE_STALL, 1200, true);
+            store.record(stack, AnrReportStore.AnrRecord.STAGE_ANR, 5200, false);
+            store.updateDuration(record.hash, 6000);
+            assertTrue(current.length() <= AnrReportStore.MAX_FILE_BYTES);
+            assertTrue(backup.length() <= AnrReportStore.MAX_FILE_BYTES);
+            if (current.length() < previousLength) {
+                rotations++;
+            }
+            previousLength = current.length();
+        }
+        // 快照只占上限的一半，不会每次追加都轮转
+        assertTrue("rotations: " + rotations, rotations < 200 * 3 / 2);
+
+        // 重新加载后最近的记录仍然存在，并且保留了最终的阻塞时长
+        List<AnrReportStore.AnrRecord> records = new AnrReportStore(dir).getRecords();
+        AnrReportStore.AnrRecord newest = records.get(records.size() - 1);
+        assertEquals(AnrReportStore.hashStack(stack(199)), newest.hash);
+        assertEquals(AnrReportStore.AnrRecord.STAGE_ANR, newest.stage);
+        assertEquals(6000, newest.maxBlockedMs);
+    }
+
+    private static StackTraceElement[] stack(int id) {
+        StackTraceElement[] stack = new StackTraceElement[32];
+        for (int i = 0; i < stack.length; i++) {
+            stack[i] = new StackTraceElement("com.example.exercise.ui.activity.WeatherActivity$Inner" + id,
+                    "方法" + i + "WithAReasonablyLongName", "WeatherActivity.java", 100 + i);
+        }
+        return stack;
+    }
+}
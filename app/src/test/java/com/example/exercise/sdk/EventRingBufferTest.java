@@ -0,0 +1,80 @@
+package com.example.exercise.sdk;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link EventRingBuffer} 的本地单元测试。
+ */
+public class EventRingBufferTest {
+
+    @Test
+    public void capacity_roundsUpToPowerOfTwo() {
+        assertEquals(8, new EventRingBuffer(5).getCapacity());
+        assertEquals(16, new EventRingBuffer(16).getCapacity());
+    }
+
+    @Test
+    public void offerAndPoll_preserveOrderAndFields() {
+        EventRingBuffer ring = new EventRingBuffer(4);
+        assertTrue(ring.offer(TelemetryEvent.TYPE_FRAME, 1, 16, 0, 1, "a"));
+        assertTrue(ring.offer(TelemetryEvent.TYPE_ANR, 2, 5000, 3, 2, "b"));
+
+        TelemetryEvent event = new TelemetryEvent();
+        assertTrue(ring.poll(event));
+        assertEquals(TelemetryEvent.TYPE_FRAME, event.type);
+        assertEquals(16, event.value);
+        assertEquals("a", event.label);
+        assertTrue(ring.poll(event));
+        assertEquals(TelemetryEvent.TYPE_ANR, event.type);
+        assertEquals(3, event.extra);
+        assertFalse(ring.poll(event));
+    }
+
+    @Test
+    public void fullBuffer_countsOverflowInsteadOfBlocking() {
+        EventRingBuffer ring = new EventRingBuffer(2);
+        assertTrue(ring.offer(TelemetryEvent.TYPE_DB, 0, 0, 0, 0, null));
+        assertTrue(ring.offer(TelemetryEvent.TYPE_DB, 0, 0, 0, 0, null));
+        assertFalse(ring.offer(TelemetryEvent.TYPE_DB, 0, 0, 0, 0, null));
+        assertEquals(1, ring.getOverflowCount());
+
+        // 消费一个事件后槽位被归还，可以继续写入
+        assertTrue(ring.poll(new TelemetryEvent()));
+        assertTrue(ring.offer(TelemetryEvent.TYPE_DB, 0, 0, 0, 0, null));
+    }
+
+    @Test
+    public void concurrentProducers_loseNoEventsWithinCapacity() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 10_000;
+        EventRingBuffer ring = new EventRingBuffer(producers * perProducer);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int id = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    ring.offer(TelemetryEvent.TYPE_MESSAGE, i, i, 0, id, null);
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long[] sums = new long[producers];
+        int total = 0;
+        TelemetryEvent event = new TelemetryEvent();
+        while (ring.poll(event)) {
+            sums[event.arg] += event.value;
+            total++;
+        }
+        assertEquals(producers * perProducer, total);
+        assertEquals(0, ring.getOverflowCount());
+        for (long sum : sums) {
+            assertEquals((long) perProducer * (perProducer - 1) / 2, sum);
+        }
+    }
+}
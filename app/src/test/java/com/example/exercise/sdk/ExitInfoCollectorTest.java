@@ -0,0 +1,37 @@
+package com.example.exercise.sdk;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ExitInfoCollector} 游标推进规则的本地单元测试。
+ */
+public class ExitInfoCollectorTest {
+
+    @Test
+    public void reportInOrder_uploaderStopped_keepsCursor() {
+        // 未启动的上报器不接收任何报告
+        ReportUploader uploader = new ReportUploader();
+        long cursor = ExitInfoCollector.reportInOrder(100, new long[]{200, 300},
+                i -> uploader.enqueue("exit", "report-" + i));
+        assertEquals(100, cursor);
+    }
+
+    @Test
+    public void reportInOrder_stopsAtFirstRejectedRecord() {
+        int[] calls = new int[1];
+        long cursor = ExitInfoCollector.reportInOrder(100, new long[]{200, 300, 400}, i -> {
+            calls[0]++;
+            return i != 1;
+        });
+        // 第二条未被接收，第三条即使能被接收也不能越过它
+        assertEquals(200, cursor);
+        assertEquals(2, calls[0]);
+    }
+
+    @Test
+    public void reportInOrder_allAccepted_movesToNewest() {
+        assertEquals(400, ExitInfoCollector.reportInOrder(100, new long[]{200, 300, 400}, i -> true));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.exercise.sdk;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ExitReportCorrelator} 的本地单元测试。
+ */
+public class ExitReportCorrelatorTest {
+
+    private static final String TRACE = ""
+            + "----- pid 1234 at 2026-01-01 12:00:00 -----\n"
+            + "Cmd line: com.example.exercise\n"
+            + "\n"
+            + "\"main\" prio=5 tid=1 Sleeping\n"
+            + "  | group=\"main\" sCount=1 ucsCount=0 flags=1 obj=0x72c0 self=0xb400\n"
+            + "  at java.lang.Thread.sleep(Native method)\n"
+            + "  - sleeping on <0x0a1b> (a java.lang.Object)\n"
+            + "  at java.lang.Thread.sleep(Thread.java:450)\n"
+            + "  at com.example.exercise.ui.WeatherActivity.onClick(WeatherActivity.java:88)\n"
+            + "  at android.view.View.performClick(View.java:7448)\n"
+            + "\n"
+            + "\"Signal Catcher\" daemon prio=10 tid=2 Runnable\n"
+            + "  at com.example.Other.run(Other.java:1)\n";
+
+    @Test
+    public void parseMainThreadFrames_readsOnlyTheMainThread() {
+        List<String> frames = ExitReportCorrelator.parseMainThreadFrames(TRACE);
+        assertEquals(Arrays.asList(
+                "java.lang.Thread.sleep:-2",
+                "java.lang.Thread.sleep:450",
+                "com.example.exercise.ui.WeatherActivity.onClick:88",
+                "android.view.View.performClick:7448"), frames);
+    }
+
+    @Test
+    public void findMatch_prefersProcessStateSummary() {
+        AnrReportStore.AnrRecord near = record("aaaa", 99_000, "com.example.exercise.ui.WeatherActivity.onClick:88");
+        AnrReportStore.AnrRecord tagged = record("bbbb", 10_000, "x.Y.z:1");
+        ExitReportCorrelator.Match match = ExitReportCorrelator.findMatch(
+                Arrays.asList(near, tagged), 100_000, "bbbb", Collections.emptyList());
+        assertNotNull(match);
+        assertSame(tagged, match.record);
+        assertEquals(ExitReportCorrelator.Match.BY_SUMMARY, match.method);
+        assertEquals("bbbb", ExitReportCorrelator.decodeSummary(ExitReportCorrelator.encodeSummary("bbbb")));
+        assertNull(ExitReportCorrelator.decodeSummary(""));
+    }
+
+    @Test
+    public void findMatch_usesTimeWindowAndFrameOverlap() {
+        List<String> frames = ExitReportCorrelator.parseMainThreadFrames(TRACE);
+        AnrReportStore.AnrRecord unrelated = record("aaaa", 99_000, "x.Y.z:1");
+        AnrReportStore.AnrRecord sameStack = record("bbbb", 90_000,
+                "java.lang.Thread.sleep:450;com.example.exercise.ui.WeatherActivity.onClick:88");
+        AnrReportStore.AnrRecord tooOld = record("cccc", 100_000 - ExitReportCorrelator.MATCH_WINDOW_MS - 1,
+                "java.lang.Thread.sleep:450;com.example.exercise.ui.WeatherActivity.onClick:88");
+
+        ExitReportCorrelator.Match match = ExitReportCorrelator.findMatch(
+                Arrays.asList(unrelated, sameStack, tooOld), 100_000, null, frames);
+        assertNotNull(match);
+        assertSame(sameStack, match.record);
+        assertEquals(ExitReportCorrelator.Match.BY_TIME, match.method);
+        assertEquals(2, match.frameOverlap);
+
+        // 时间上接近但堆栈完全不同的记录不算看门狗发现了这次ANR
+        assertNull(ExitReportCorrelator.findMatch(Collections.singletonList(unrelated), 100_000, null, frames));
+    }
+
+    private static AnrReportStore.AnrRecord record(String hash, long lastSeenMs, String frames) {
+        AnrReportStore.AnrRecord record = new AnrReportStore.AnrRecord(hash, lastSeenMs, frames);
+        record.count = 1;
+        record.stage = AnrReportStore.AnrRecord.STAGE_ANR;
+        return record;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.exercise.sdk;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link FrameHistogram} 的本地单元测试。
+ */
+public class FrameHistogramTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void emptyHistogram_reportsZero() {
+        FrameHistogram histogram = new FrameHistogram();
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.percentileMs(99));
+        assertEquals(0, histogram.getMaxMs());
+    }
+
+    @Test
+    public void percentiles_exposeSingleHitch() {
+        FrameHistogram histogram = new FrameHistogram();
+        for (int i = 0; i < 999; i++) {
+            histogram.record(16 * MS);
+        }
+        histogram.record(200 * MS);
+
+        assertEquals(1000, histogram.getTotalCount());
+        assertEquals(16, histogram.percentileMs(50));
+        assertEquals(16, histogram.percentileMs(99));
+        assertEquals(200, histogram.percentileMs(99.95));
+        assertEquals(200, histogram.getMaxMs());
+        assertEquals(1, histogram.countAtLeast(100));
+    }
+
+    @Test
+    public void overflowBucket_returnsObservedMax() {
+        FrameHistogram histogram = new FrameHistogram();
+        histogram.record(16 * MS);
+        histogram.record(5000 * MS);
+
+        assertEquals(5000, histogram.percentileMs(100));
+        assertEquals(1, histogram.countAtLeast(FrameHistogram.MAX_TRACKED_MS + 1));
+    }
+
+    @Test
+    public void reset_clearsAllCounters() {
+        FrameHistogram histogram = new FrameHistogram();
+        histogram.record(16 * MS);
+        histogram.reset();
+
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0.0, histogram.getMeanMs(), 0.0);
+    }
+}
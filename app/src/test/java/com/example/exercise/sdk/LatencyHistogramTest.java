@@ -0,0 +1,50 @@
+package com.example.exercise.sdk;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link LatencyHistogram} 的本地单元测试。
+ */
+public class LatencyHistogramTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void bucketBounds_areContiguousAndMonotonic() {
+        long previous = -1;
+        for (long ms = 0; ms < 65_536; ms++) {
+            int index = LatencyHistogram.indexOf(ms);
+            long lower = LatencyHistogram.lowerBoundMs(index);
+            assertTrue(lower <= ms);
+            // 相对误差不超过 12.5%
+            assertTrue(ms - lower <= Math.max(0, ms / 8));
+            assertTrue(index >= previous);
+            previous = index;
+        }
+    }
+
+    @Test
+    public void percentiles_coverSubMillisecondToSeconds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(5 * MS);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(3000 * MS);
+        }
+        assertEquals(5, histogram.percentileMs(50));
+        assertEquals(5, histogram.percentileMs(90));
+        long p99 = histogram.percentileMs(99);
+        assertTrue(p99 <= 3000 && p99 >= 3000 * 7 / 8);
+        assertEquals(3000, histogram.getMaxMs());
+    }
+
+    @Test
+    public void overflow_reportsObservedMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100_000 * MS);
+        assertEquals(100_000, histogram.percentileMs(99));
+    }
+}
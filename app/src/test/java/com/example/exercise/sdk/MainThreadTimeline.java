@@ -0,0 +1,165 @@
+package com.example.exercise.sdk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一段主线程时间线：屏幕刷新率、总时长，主线程被占用（无法执行消息、无法出帧）的区间，以及应用处于后台的区间。
+ * <p>
+ * 既可以用代码合成（{@link #busy(long, long)}、{@link #gcPauses(long, long)}），
+ * 也可以从设备上录制的文本轨迹解析（{@link #parse(String)}），用于 {@link MonitorReplay} 的确定性回放。
+ */
+final class MainThreadTimeline {
+
+    final float refreshRate;
+    final long durationMs;
+    // 按开始时间排序的占用区间，每项为 {开始毫秒, 结束毫秒}
+    private final List<long[]> busyIntervals = new ArrayList<>();
+    // 应用处于后台的区间，每项为 {开始毫秒, 结束毫秒}
+    private final List<long[]> backgroundIntervals = new ArrayList<>();
+
+    MainThreadTimeline(float refreshRate, long durationMs) {
+        this.refreshRate = refreshRate;
+        this.durationMs = durationMs;
+    }
+
+    /**
+     * 解析录制的轨迹文本。每行一条指令，`#` 开头的行是注释：
+     * <pre>
+     * refresh 120
+     * duration 10000
+     * busy 2000 50      # 从2000毫秒开始占用主线程50毫秒
+     * background 5000 8000  # 从5000毫秒开始应用在后台停留8秒
+     * </pre>
+     */
+    static MainThreadTimeline parse(String trace) {
+        float refreshRate = JankClassifier.DEFAULT_REFRESH_RATE;
+        long durationMs = 0;
+        List<long[]> busy = new ArrayList<>();
+        List<long[]> background = new ArrayList<>();
+        for (String raw : trace.split("\n")) {
+            int comment = raw.indexOf('#');
+            String line = (comment >= 0 ? raw.substring(0, comment) : raw).trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            switch (parts[0]) {
+                case "refresh":
+                    refreshRate = Float.parseFloat(parts[1]);
+                    break;
+                case "duration":
+                    durationMs = Long.parseLong(parts[1]);
+                    break;
+                case "busy":
+                    busy.add(new long[]{Long.parseLong(parts[1]), Long.parseLong(parts[2])});
+                    break;
+                case "background":
+                    background.add(new long[]{Long.parseLong(parts[1]), Long.parseLong(parts[2])});
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown trace line: " + raw);
+            }
+        }
+        MainThreadTimeline timeline = new MainThreadTimeline(refreshRate, durationMs);
+        for (long[] interval : busy) {
+            timeline.busy(interval[0], interval[1]);
+        }
+        for (long[] interval : background) {
+            timeline.background(interval[0], interval[1]);
+        }
+        return timeline;
+    }
+
+    /**
+     * 增加一个主线程占用区间。
+     */
+    MainThreadTimeline busy(long startMs, long lengthMs) {
+        int index = 0;
+        while (index < busyIntervals.size() && busyIntervals.get(index)[0] <= startMs) {
+            index++;
+        }
+        busyIntervals.add(index, new long[]{startMs, startMs + lengthMs});
+        return this;
+    }
+
+    /**
+     * 增加一个应用处于后台的区间。后台期间监控组件暂停：不出帧，看门狗也不检查。
+     */
+    MainThreadTimeline background(long startMs, long lengthMs) {
+        backgroundIntervals.add(new long[]{startMs, startMs + lengthMs});
+        return this;
+    }
+
+    /**
+     * @return {@code timeMs} 时刻应用是否处于后台。
+     */
+    boolean isBackground(long timeMs) {
+        for (long[] interval : backgroundIntervals) {
+            if (interval[0] <= timeMs && timeMs < interval[1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 模拟周期性的GC停顿：从第一个周期结束开始，每隔 {@code everyMs} 暂停主线程 {@code pauseMs}。
+     */
+    MainThreadTimeline gcPauses(long everyMs, long pauseMs) {
+        for (long t = everyMs; t + pauseMs < durationMs; t += everyMs) {
+            busy(t, pauseMs);
+        }
+        return this;
+    }
+
+    /**
+     * @return 主线程在 {@code timeMs} 时刻或之后第一次空闲的时间。
+     */
+    long freeAt(long timeMs) {
+        long t = timeMs;
+        for (long[] interval : busyIntervals) {
+            if (interval[0] <= t && t < interval[1]) {
+                t = interval[1];
+            }
+        }
+        return t;
+    }
+
+    /**
+     * 生成 `Choreographer` 会回调的帧时间戳：主线程空闲时每个vsync出一帧，被占用期间的vsync全部错过。
+     * 应用进入后台时帧回调被移除，用一个0标记，之后的第一帧重新开始计时。
+     *
+     * @return 各帧的vsync时间戳（纳秒），0表示帧回调在此处被移除过。
+     */
+    long[] frameTimesNanos() {
+        double vsyncNanos = 1_000_000_000.0 / refreshRate;
+        long count = (long) (durationMs * 1_000_000L / vsyncNanos);
+        long[] frames = new long[(int) count];
+        int size = 0;
+        int next = 0;
+        boolean inBackground = false;
+        for (long k = 1; k <= count; k++) {
+            long vsync = Math.round(k * vsyncNanos);
+            if (isBackground(vsync / 1_000_000L)) {
+                if (!inBackground && size > 0) {
+                    frames[size++] = 0;
+                }
+                inBackground = true;
+                continue;
+            }
+            inBackground = false;
+            // 跳过已经结束的占用区间
+            while (next < busyIntervals.size() && busyIntervals.get(next)[1] * 1_000_000L <= vsync) {
+                next++;
+            }
+            if (next < busyIntervals.size() && busyIntervals.get(next)[0] * 1_000_000L <= vsync) {
+                continue;
+            }
+            frames[size++] = vsync;
+        }
+        long[] result = new long[size];
+        System.arraycopy(frames, 0, result, 0, size);
+        return result;
+    }
+}
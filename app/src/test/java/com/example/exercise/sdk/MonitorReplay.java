@@ -0,0 +1,164 @@
+package com.example.exercise.sdk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把 {@link MainThreadTimeline} 回放给监控核心的测试工具，全程使用虚拟时间，结果完全确定。
+ * <p>
+ * 1. 帧回放：按 `FluencyMonitor` 的方式把相邻两帧的间隔喂给 {@link FrameStats}。
+ * 2. 心跳回放：看门狗每隔一个检查间隔调用一次 {@link HeartbeatDetector#check()}，
+ *    投递到虚拟主线程的心跳要等主线程空闲后才会被执行。应用在后台期间看门狗挂起，与 `AnrMonitor` 一致。
+ */
+final class MonitorReplay {
+
+    private MonitorReplay() {}
+
+    /**
+     * 回放帧时间线。
+     *
+     * @return 回放后的帧统计。
+     */
+    static FrameStats replayFrames(MainThreadTimeline timeline) {
+        FrameStats stats = new FrameStats(timeline.refreshRate);
+        replayFrames(timeline.frameTimesNanos(), stats);
+        return stats;
+    }
+
+    /**
+     * 把帧时间戳逐帧喂给 {@link FrameStats}，与 `FluencyMonitor` 的帧回调逻辑一致。
+     * 时间戳为0表示帧回调被移除过（例如应用进入后台），之后重新开始计算帧间隔和FPS周期。
+     */
+    static void replayFrames(long[] frameTimesNanos, FrameStats stats) {
+        long previousFrameNanos = 0;
+        for (long frameTimeNanos : frameTimesNanos) {
+            if (frameTimeNanos == 0) {
+                previousFrameNanos = 0;
+                stats.resetFpsWindow();
+                continue;
+            }
+            if (previousFrameNanos != 0) {
+                stats.recordFrame(frameTimeNanos - previousFrameNanos);
+                stats.updateFps(frameTimeNanos);
+            }
+            previousFrameNanos = frameTimeNanos;
+        }
+    }
+
+    /**
+     * 回放心跳时间线。
+     *
+     * @return 按发生顺序排列的检测事件。
+     */
+    static List<HeartbeatEvent> replayHeartbeats(MainThreadTimeline timeline, long anrTimeoutMs,
+                                                 long stallThresholdMs, long checkIntervalMs) {
+        VirtualMainThread mainThread = new VirtualMainThread(timeline);
+        List<HeartbeatEvent> events = new ArrayList<>();
+        HeartbeatDetector detector = new HeartbeatDetector(mainThread, mainThread, anrTimeoutMs, stallThresholdMs,
+                new HeartbeatDetector.Listener() {
+                    @Override
+                    public void onStall(long blockedMs) {
+                        events.add(new HeartbeatEvent(HeartbeatEvent.STALL, mainThread.now, blockedMs));
+                    }
+
+                    @Override
+                    public void onAnr(long blockedMs, boolean newHang) {
+                        events.add(new HeartbeatEvent(HeartbeatEvent.ANR, mainThread.now, blockedMs));
+                    }
+
+                    @Override
+                    public void onRecovered(long blockedMs) {
+                        events.add(new HeartbeatEvent(HeartbeatEvent.RECOVERED, mainThread.now, blockedMs));
+                    }
+                });
+        boolean paused = false;
+        for (long tick = 0; tick <= timeline.durationMs; tick += checkIntervalMs) {
+            mainThread.runUntil(tick);
+            if (timeline.isBackground(tick)) {
+                if (!paused) {
+                    detector.cancel();
+                    paused = true;
+                }
+                continue;
+            }
+            paused = false;
+            detector.check();
+        }
+        return events;
+    }
+
+    /**
+     * 一次心跳检测事件。
+     */
+    static final class HeartbeatEvent {
+        static final int STALL = 1;
+        static final int ANR = 2;
+        static final int RECOVERED = 3;
+
+        final int type;
+        // 事件被检测到的虚拟时间（毫秒）
+        final long timeMs;
+        final long blockedMs;
+
+        HeartbeatEvent(int type, long timeMs, long blockedMs) {
+            this.type = type;
+            this.timeMs = timeMs;
+            this.blockedMs = blockedMs;
+        }
+
+        @Override
+        public String toString() {
+            return "HeartbeatEvent{type=" + type + ", timeMs=" + timeMs + ", blockedMs=" + blockedMs + "}";
+        }
+    }
+
+    /**
+     * 虚拟的主线程：同时充当时钟和调度器。投递的任务要等时间线上的占用区间结束后才会被执行。
+     */
+    private static final class VirtualMainThread implements MonitorClock, MonitorScheduler {
+        private final MainThreadTimeline timeline;
+        private final List<Runnable> tasks = new ArrayList<>();
+        private final List<Long> postedAt = new ArrayList<>();
+        long now;
+
+        VirtualMainThread(MainThreadTimeline timeline) {
+            this.timeline = timeline;
+        }
+
+        @Override
+        public long uptimeMillis() {
+            return now;
+        }
+
+        @Override
+        public void post(Runnable task) {
+            tasks.add(task);
+            postedAt.add(now);
+        }
+
+        @Override
+        public void removeCallbacks(Runnable task) {
+            int index;
+            while ((index = tasks.indexOf(task)) >= 0) {
+                tasks.remove(index);
+                postedAt.remove(index);
+            }
+        }
+
+        /**
+         * 按顺序执行在 {@code timeMs} 之前主线程已经能够执行的任务，然后把时间推进到 {@code timeMs}。
+         */
+        void runUntil(long timeMs) {
+            while (!tasks.isEmpty()) {
+                long runAt = timeline.freeAt(Math.max(now, postedAt.get(0)));
+                if (runAt > timeMs) {
+                    break;
+                }
+                now = runAt;
+                postedAt.remove(0);
+                tasks.remove(0).run();
+            }
+            now = timeMs;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.exercise.sdk;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 用 {@link MonitorReplay} 回放合成或录制的时间线，验证卡顿/ANR检测的准确性和逐帧开销。
+ */
+public class MonitorReplayTest {
+
+    private static final long ANR_TIMEOUT_MS = 5000;
+    private static final long STALL_THRESHOLD_MS = 1000;
+    private static final long CHECK_INTERVAL_MS = 500;
+
+    @Test
+    public void steady120Hz_hasNoJank() {
+        FrameStats stats = MonitorReplay.replayFrames(new MainThreadTimeline(120f, 10_000));
+        JankClassifier classifier = stats.getJankClassifier();
+
+        assertEquals(1199, stats.getFrameHistogram().getTotalCount());
+        assertEquals(0, classifier.getSmallJankCount() + classifier.getBigJankCount() + classifier.getFrozenCount());
+        assertTrue(stats.buildReport("steady", 10).contains("Average FPS: 120.00"));
+    }
+
+    @Test
+    public void gcPauses_areBigJankAt120HzButSmallJankAt60Hz() {
+        // 每2秒一次50毫秒的GC停顿：120Hz下错过6个vsync，60Hz下只错过3个
+        FrameStats at120 = MonitorReplay.replayFrames(new MainThreadTimeline(120f, 10_000).gcPauses(2000, 50));
+        assertEquals(0, at120.getJankClassifier().getSmallJankCount());
+        assertEquals(4, at120.getJankClassifier().getBigJankCount());
+
+        FrameStats at60 = MonitorReplay.replayFrames(new MainThreadTimeline(60f, 10_000).gcPauses(2000, 50));
+        assertEquals(4, at60.getJankClassifier().getSmallJankCount());
+        assertEquals(0, at60.getJankClassifier().getBigJankCount());
+    }
+
+    @Test
+    public void recordedHang_isReportedAsStallThenAnrThenRecovery() {
+        MainThreadTimeline timeline = MainThreadTimeline.parse(
+                "# 列表滑动中主线程卡死10秒\n"
+                        + "refresh 120\n"
+                        + "duration 20000\n"
+                        + "busy 1500 30   # 一次GC停顿\n"
+                        + "busy 3000 10000\n");
+
+        FrameStats stats = MonitorReplay.replayFrames(timeline);
+        assertEquals(1, stats.getJankClassifier().getFrozenCount());
+        assertEquals(1, stats.getJankClassifier().getSmallJankCount());
+
+        List<MonitorReplay.HeartbeatEvent> events = MonitorReplay.replayHeartbeats(
+                timeline, ANR_TIMEOUT_MS, STALL_THRESHOLD_MS, CHECK_INTERVAL_MS);
+        assertEquals(3, events.size());
+        assertEquals(MonitorReplay.HeartbeatEvent.STALL, events.get(0).type);
+        assertEquals(MonitorReplay.HeartbeatEvent.ANR, events.get(1).type);
+        assertEquals(MonitorReplay.HeartbeatEvent.RECOVERED, events.get(2).type);
+        assertTrue(events.get(0).timeMs - 3000 <= STALL_THRESHOLD_MS + CHECK_INTERVAL_MS);
+        assertTrue(events.get(1).timeMs - 3000 <= ANR_TIMEOUT_MS + CHECK_INTERVAL_MS);
+        long recovered = events.get(2).blockedMs;
+        assertTrue(recovered <= 10_000 && recovered >= 10_000 - CHECK_INTERVAL_MS);
+    }
+
+    @Test
+    public void anrLatency_isBoundedByThresholdPlusInterval() {
+        for (long offset = 0; offset < CHECK_INTERVAL_MS; offset += 37) {
+            long hangStart = 3000 + offset;
+            MainThreadTimeline timeline = new MainThreadTimeline(60f, 15_000).busy(hangStart, 6000);
+            List<MonitorReplay.HeartbeatEvent> events = MonitorReplay.replayHeartbeats(
+                    timeline, ANR_TIMEOUT_MS, STALL_THRESHOLD_MS, CHECK_INTERVAL_MS);
+
+            MonitorReplay.HeartbeatEvent anr = events.get(1);
+            assertEquals(MonitorReplay.HeartbeatEvent.ANR, anr.type);
+            assertTrue(anr.blockedMs >= ANR_TIMEOUT_MS);
+            assertTrue(anr.timeMs - hangStart <= ANR_TIMEOUT_MS + CHECK_INTERVAL_MS);
+        }
+    }
+
+    @Test
+    public void anrLatency_thresholdNotMultipleOfInterval_isBoundedByThresholdPlusTwoIntervals() {
+        long interval = 300;
+        long worstLatency = 0;
+        for (long offset = 0; offset < interval; offset += 7) {
+            long hangStart = 3000 + offset;
+            MainThreadTimeline timeline = new MainThreadTimeline(60f, 15_000).busy(hangStart, 6000);
+            List<MonitorReplay.HeartbeatEvent> events = MonitorReplay.replayHeartbeats(
+                    timeline, ANR_TIMEOUT_MS, STALL_THRESHOLD_MS, interval);
+
+            MonitorReplay.HeartbeatEvent anr = events.get(1);
+            assertEquals(MonitorReplay.HeartbeatEvent.ANR, anr.type);
+            long latency = anr.timeMs - hangStart;
+            assertTrue(latency <= ANR_TIMEOUT_MS + 2 * interval);
+            // 阻塞时长从心跳投递时算起，最多比实际少一个检查间隔
+            assertTrue(anr.blockedMs >= latency - interval);
+            worstLatency = Math.max(worstLatency, latency);
+        }
+        // 心跳要等下一次检查才投递，最坏情况超过“阈值 + 检查间隔”
+        assertTrue(worstLatency > ANR_TIMEOUT_MS + interval);
+    }
+
+    @Test
+    public void shortStall_isNotReportedAsAnr() {
+        MainThreadTimeline timeline = new MainThreadTimeline(60f, 10_000).busy(3000, 1200).gcPauses(1000, 80);
+        List<MonitorReplay.HeartbeatEvent> events = MonitorReplay.replayHeartbeats(
+                timeline, ANR_TIMEOUT_MS, STALL_THRESHOLD_MS, CHECK_INTERVAL_MS);
+
+        assertEquals(2, events.size());
+        assertEquals(MonitorReplay.HeartbeatEvent.STALL, events.get(0).type);
+        assertEquals(MonitorReplay.HeartbeatEvent.RECOVERED, events.get(1).type);
+        assertEquals(1200, events.get(1).blockedMs);
+    }
+
+    @Test
+    public void backgroundTime_isNotCountedAsJankOrHang() {
+        // 应用在后台停留15秒，期间进程被冻结，主线程无法执行任何消息
+        MainThreadTimeline timeline = new MainThreadTimeline(120f, 30_000)
+                .background(5000, 15_000)
+                .busy(5000, 15_000);
+
+        FrameStats stats = MonitorReplay.replayFrames(timeline);
+        JankClassifier classifier = stats.getJankClassifier();
+        assertEquals(0, classifier.getSmallJankCount() + classifier.getBigJankCount() + classifier.getFrozenCount());
+        assertTrue(stats.buildReport("background", 15).contains("Minimum FPS: 120"));
+
+        assertTrue(MonitorReplay.replayHeartbeats(timeline, ANR_TIMEOUT_MS, STALL_THRESHOLD_MS, CHECK_INTERVAL_MS).isEmpty());
+    }
+
+    @Test
+    public void frameRecording_doesNotAllocate() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long threadId = Thread.currentThread().getId();
+        // 一小时的120Hz帧流，每分钟一次GC停顿
+        long[] frames = new MainThreadTimeline(120f, 3_600_000).gcPauses(60_000, 40).frameTimesNanos();
+        FrameStats stats = new FrameStats(120f);
+        // 预热一遍，排除类加载和JIT带来的分配
+        MonitorReplay.replayFrames(frames, new FrameStats(120f));
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        MonitorReplay.replayFrames(frames, stats);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(frames.length - 1, stats.getFrameHistogram().getTotalCount());
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+}
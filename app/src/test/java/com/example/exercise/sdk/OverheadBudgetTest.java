@@ -0,0 +1,47 @@
+package com.example.exercise.sdk;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link OverheadBudget} 的本地单元测试。
+ */
+public class OverheadBudgetTest {
+
+    private static final long WINDOW = 5_000_000_000L;
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void staysFull_withinBudget() {
+        OverheadBudget budget = new OverheadBudget(5_000, 20_000);
+        // 5秒窗口内主线程20毫秒（0.4%）、后台50毫秒（1%）
+        for (int i = 0; i < 10; i++) {
+            assertEquals(OverheadBudget.LEVEL_FULL, budget.evaluate(WINDOW, 20 * MS, 50 * MS));
+        }
+    }
+
+    @Test
+    public void degradesOneLevelPerWindow_whenEitherBudgetIsExceeded() {
+        OverheadBudget budget = new OverheadBudget(5_000, 20_000);
+        assertEquals(OverheadBudget.LEVEL_REDUCED, budget.evaluate(WINDOW, 40 * MS, 0));
+        assertEquals(OverheadBudget.LEVEL_MINIMAL, budget.evaluate(WINDOW, 0, 200 * MS));
+        assertEquals(OverheadBudget.LEVEL_MINIMAL, budget.evaluate(WINDOW, 40 * MS, 200 * MS));
+    }
+
+    @Test
+    public void recoversOnlyAfterConsecutiveQuietWindows() {
+        OverheadBudget budget = new OverheadBudget(5_000, 20_000);
+        budget.evaluate(WINDOW, 40 * MS, 0);
+        assertEquals(OverheadBudget.LEVEL_REDUCED, budget.getLevel());
+
+        // 低于预算但高于预算的一半，不算安静窗口
+        for (int i = 0; i < OverheadBudget.RECOVER_WINDOWS; i++) {
+            assertEquals(OverheadBudget.LEVEL_REDUCED, budget.evaluate(WINDOW, 20 * MS, 0));
+        }
+        for (int i = 0; i < OverheadBudget.RECOVER_WINDOWS - 1; i++) {
+            assertEquals(OverheadBudget.LEVEL_REDUCED, budget.evaluate(WINDOW, 5 * MS, 10 * MS));
+        }
+        assertEquals(OverheadBudget.LEVEL_FULL, budget.evaluate(WINDOW, 5 * MS, 10 * MS));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.exercise.sdk;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ReferencePathFinder} 的本地单元测试。
+ */
+public class ReferencePathFinderTest {
+
+    private static class Screen {}
+
+    private static class Holder {
+        Object listener;
+    }
+
+    private static class WeakHolder {
+        WeakReference<Object> reference;
+    }
+
+    @Test
+    public void findsPathThroughFieldsCollectionsAndLambdas() {
+        Screen screen = new Screen();
+        Runnable listener = () -> screen.hashCode();
+        Holder holder = new Holder();
+        holder.listener = listener;
+        Map<String, Object> sessions = new HashMap<>();
+        sessions.put("session", holder);
+        List<Object> root = new ArrayList<>();
+        root.add(sessions);
+
+        ReferencePathFinder finder = new ReferencePathFinder();
+        finder.addRoot("Root", root);
+        List<String> path = finder.findPath(screen);
+
+        assertEquals(5, path.size());
+        assertEquals("Root", path.get(0));
+        assertTrue(path.get(1).startsWith("[0]"));
+        assertTrue(path.get(2).startsWith("[session]"));
+        assertTrue(path.get(3).startsWith("listener"));
+        assertTrue(path.get(4).endsWith("(" + Screen.class.getName() + ")"));
+    }
+
+    @Test
+    public void ignoresWeakReferences() {
+        Screen screen = new Screen();
+        WeakHolder holder = new WeakHolder();
+        holder.reference = new WeakReference<>(screen);
+
+        ReferencePathFinder finder = new ReferencePathFinder();
+        finder.addRoot("Root", holder);
+        assertTrue(finder.findPath(screen).isEmpty());
+    }
+
+    @Test
+    public void stopsAtVisitLimit() {
+        Screen screen = new Screen();
+        List<Object> big = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            big.add(new Holder());
+        }
+        big.add(screen);
+
+        ReferencePathFinder finder = new ReferencePathFinder(10);
+        finder.addRoot("Root", big);
+        assertTrue(finder.findPath(screen).isEmpty());
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.exercise.sdk;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ReportUploader} 和 {@link ReportQueue} 的本地单元测试，服务端由 MockWebServer 模拟。
+ */
+public class ReportUploaderTest {
+
+    private MockWebServer server;
+    private File dir;
+    private ReportQueue queue;
+    private ReportUploader uploader;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        dir = Files.createTempDirectory("reports").toFile();
+        queue = new ReportQueue(dir);
+        uploader = new ReportUploader();
+        uploader.init(queue, server.url("/v1/reports").toString(), new OkHttpClient());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void queuedReports_areSentAsOneGzipBatch() throws Exception {
+        uploader.writeReport("fluency", "report-1", 1);
+        uploader.writeReport("anr", "report-2", 2);
+        uploader.writeReport("fluency", "report-3", 3);
+        server.enqueue(new MockResponse().setResponseCode(200));
+
+        assertEquals(3, uploader.uploadPending());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, queue.size());
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("POST", request.getMethod());
+        assertEquals("gzip", request.getHeader("Content-Encoding"));
+        assertEquals("3", request.getHeader("X-Report-Count"));
+        List<String> lines = readGzipLines(request);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).contains("report-1"));
+        assertTrue(lines.get(2).contains("report-3"));
+    }
+
+    @Test
+    public void serverError_keepsReportsAndBacksOff() {
+        uploader.writeReport("anr", "report", 1);
+        server.enqueue(new MockResponse().setResponseCode(503));
+
+        assertEquals(0, uploader.uploadPending());
+        assertEquals(1, queue.size());
+        assertEquals(ReportUploader.INITIAL_BACKOFF_MS, uploader.getBackoffMs());
+
+        // 退避期间不会再次发起请求
+        assertEquals(0, uploader.uploadPending());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void clientError_dropsRejectedBatch() {
+        uploader.writeReport("anr", "bad report", 1);
+        server.enqueue(new MockResponse().setResponseCode(400));
+
+        assertEquals(0, uploader.uploadPending());
+        assertEquals(0, queue.size());
+        assertEquals(0, uploader.getBackoffMs());
+    }
+
+    @Test
+    public void windowBudget_defersRemainingBatches() throws Exception {
+        // 随机字母几乎无法压缩，每条报告单独成批
+        Random random = new Random(42);
+        char[] chars = new char[(int) (ReportUploader.MAX_BATCH_BYTES * 3 / 4)];
+        int reports = 12;
+        for (int i = 0; i < reports; i++) {
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = (char) ('a' + random.nextInt(26));
+            }
+            uploader.writeReport("fluency", new String(chars), i);
+            server.enqueue(new MockResponse().setResponseCode(200));
+        }
+
+        int uploaded = uploader.uploadPending();
+        assertTrue(uploaded > 0);
+        assertTrue(uploaded < reports);
+        assertEquals(reports - uploaded, queue.size());
+
+        long sentBytes = 0;
+        for (int i = 0; i < server.getRequestCount(); i++) {
+            sentBytes += server.takeRequest().getBodySize();
+        }
+        assertTrue(sentBytes <= ReportUploader.WINDOW_BUDGET_BYTES);
+    }
+
+    @Test
+    public void queue_survivesRestart() {
+        uploader.writeReport("fluency", "first", 1);
+        uploader.writeReport("fluency", "second", 2);
+
+        ReportQueue restored = new ReportQueue(dir);
+        assertEquals(2, restored.size());
+        assertTrue(restored.enqueue("third".getBytes(StandardCharsets.UTF_8)));
+        List<File> batch = restored.peek(Long.MAX_VALUE);
+        assertEquals(3, batch.size());
+        assertTrue(batch.get(0).getName().compareTo(batch.get(2).getName()) < 0);
+    }
+
+    private static List<String> readGzipLines(RecordedRequest request) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(request.getBody().inputStream()), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.exercise.sdk;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ThreadWatchdog} 中解析 `Looper.dump` 输出的本地单元测试。
+ */
+public class ThreadWatchdogTest {
+
+    private static final String HEARTBEAT = "com.example.exercise.sdk.HeartbeatDetector$1";
+
+    @Test
+    public void parseDumpDurationMs_sumsAllUnits() {
+        assertEquals(250, ThreadWatchdog.parseDumpDurationMs("-250ms"));
+        assertEquals(1250, ThreadWatchdog.parseDumpDurationMs("-1s250ms"));
+        assertEquals(61_005, ThreadWatchdog.parseDumpDurationMs("-1m1s5ms"));
+    }
+
+    @Test
+    public void queueDump_excludesHeartbeatFromDepthAndOldestPending() {
+        ThreadWatchdog.QueueDump dump = new ThreadWatchdog.QueueDump(HEARTBEAT);
+        dump.println("Looper (worker, tid 42) {1a2b3c}");
+        dump.println("  Message 0: { when=-2s0ms callback=" + HEARTBEAT + " target=android.os.Handler }");
+        dump.println("  Message 1: { when=-300ms callback=com.example.Task target=android.os.Handler }");
+        dump.println("  Message 2: { when=+1s0ms what=3 target=android.os.Handler }");
+        dump.println("  (Total messages: 3, polling=false, quitting=false)");
+
+        assertEquals(3, dump.totalMessages);
+        assertEquals(1, dump.excludedMessages);
+        assertEquals(300, dump.oldestPendingMs);
+    }
+
+    @Test
+    public void queueDump_keepsCallbacksThatOnlyShareThePrefix() {
+        ThreadWatchdog.QueueDump dump = new ThreadWatchdog.QueueDump(HEARTBEAT);
+        dump.println("  Message 0: { when=-2s0ms callback=" + HEARTBEAT + " target=android.os.Handler }");
+        // 类名只是前缀相同的回调不应被排除
+        dump.println("  Message 1: { when=-40ms callback=" + HEARTBEAT + "0 target=android.os.Handler }");
+        dump.println("  (Total messages: 2, polling=false, quitting=false)");
+
+        assertEquals(1, dump.excludedMessages);
+        assertEquals(40, dump.oldestPendingMs);
+    }
+}
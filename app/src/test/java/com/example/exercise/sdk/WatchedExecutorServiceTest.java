@@ -0,0 +1,157 @@
+package com.example.exercise.sdk;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link WatchedExecutorService} 的本地单元测试，使用手动推进的时钟。
+ */
+public class WatchedExecutorServiceTest {
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private final ExecutorService delegate = Executors.newSingleThreadExecutor(r -> new Thread(r, "worker"));
+    private final WatchedExecutorService executor = new WatchedExecutorService(delegate, now::get);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        delegate.shutdownNow();
+    }
+
+    @Test
+    public void longRunningTask_isReportedOnceWithQueueState() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            awaitRelease();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> {});
+        executor.execute(() -> {});
+
+        now.addAndGet(999);
+        assertTrue(executor.checkStalls(1000).isEmpty());
+
+        now.addAndGet(1);
+        List<WatchedExecutorService.Stall> stalls = executor.checkStalls(1000);
+        assertEquals(1, stalls.size());
+        assertEquals("worker", stalls.get(0).thread.getName());
+        assertEquals(1000, stalls.get(0).runningMs);
+        assertEquals(2, stalls.get(0).queueDepth);
+        assertEquals(1000, stalls.get(0).oldestPendingMs);
+
+        // 同一个任务不会重复上报，排队中的任务在它之后提交，此时也不算线程池被占满
+        now.addAndGet(5000);
+        assertTrue(executor.checkStalls(1000).isEmpty());
+    }
+
+    @Test
+    public void saturatedQueue_isReportedWhenNoSingleTaskIsSlow() throws Exception {
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch secondStarted = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                releaseFirst.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(() -> {
+            secondStarted.countDown();
+            awaitRelease();
+        });
+        executor.execute(() -> {});
+
+        // 第一个任务执行1.5秒后结束，第二个任务开始执行，第三个任务继续排队
+        now.addAndGet(1500);
+        releaseFirst.countDown();
+        assertTrue(secondStarted.await(5, TimeUnit.SECONDS));
+        now.addAndGet(1000);
+
+        List<WatchedExecutorService.Stall> stalls = executor.checkStalls(2000);
+        assertEquals(1, stalls.size());
+        assertEquals("worker", stalls.get(0).thread.getName());
+        assertEquals(1000, stalls.get(0).runningMs);
+        assertEquals(1, stalls.get(0).queueDepth);
+        assertEquals(2500, stalls.get(0).oldestPendingMs);
+        assertTrue(executor.checkStalls(2000).isEmpty());
+
+        release.countDown();
+        delegate.shutdown();
+        assertTrue(delegate.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, executor.getQueueDepth());
+        assertEquals(0, executor.getOldestPendingAgeMs());
+    }
+
+    @Test
+    public void resetTimes_excludesTimeBeforeReset() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            awaitRelease();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> {});
+
+        // 检查暂停期间经过的时间不计入执行和等待时长
+        now.addAndGet(60_000);
+        executor.resetTimes();
+        assertTrue(executor.checkStalls(1000).isEmpty());
+        assertEquals(0, executor.getOldestPendingAgeMs());
+
+        now.addAndGet(1000);
+        List<WatchedExecutorService.Stall> stalls = executor.checkStalls(1000);
+        assertEquals(1, stalls.size());
+        assertEquals(1000, stalls.get(0).runningMs);
+        assertEquals(1000, stalls.get(0).oldestPendingMs);
+    }
+
+    @Test
+    public void externalQueue_countsTowardsDepthAndOldestPending() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            awaitRelease();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // 模拟 Dispatcher：线程池中没有等待任务，两个请求在外部队列中等待
+        long enqueuedAt = now.get();
+        executor.setExternalQueue(new WatchedExecutorService.ExternalQueue() {
+            @Override
+            public int size() {
+                return 2;
+            }
+
+            @Override
+            public long oldestEnqueuedAt() {
+                return enqueuedAt;
+            }
+        });
+
+        now.addAndGet(1000);
+        assertEquals(2, executor.getQueueDepth());
+        assertEquals(1000, executor.getOldestPendingAgeMs());
+        List<WatchedExecutorService.Stall> stalls = executor.checkStalls(1000);
+        assertEquals(1, stalls.size());
+        assertEquals(2, stalls.get(0).queueDepth);
+        assertEquals(1000, stalls.get(0).oldestPendingMs);
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
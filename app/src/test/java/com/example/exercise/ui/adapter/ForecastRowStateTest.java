@@ -0,0 +1,59 @@
+package com.example.exercise.ui.adapter;
+
+import com.example.exercise.data.model.DailyForecast;
+import com.example.exercise.data.model.WindDirection;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ForecastRowState} 的本地单元测试。
+ */
+public class ForecastRowStateTest {
+
+    @Test
+    public void from_formatsAllTextsOnce() {
+        ForecastRowState row = ForecastRowState.from(day(20251218, 8, "1-3"));
+        assertEquals(20251218, row.key);
+        assertEquals("2025-12-18", row.date);
+        assertEquals("周四", row.week);
+        assertEquals("晴", row.dayWeather);
+        assertEquals("夜间 多云", row.nightWeather);
+        assertEquals("8°", row.dayTemp);
+        assertEquals("-3°", row.nightTemp);
+        assertEquals("东北 1-3级", row.dayWind);
+        assertEquals("夜间 无风向 1-3级", row.nightWind);
+    }
+
+    @Test
+    public void from_usesPlaceholdersForMissingValues() {
+        ForecastRowState row = ForecastRowState.from(new DailyForecast(0, 0, null, null,
+                DailyForecast.UNKNOWN_TEMP, DailyForecast.UNKNOWN_TEMP,
+                WindDirection.UNKNOWN, WindDirection.UNKNOWN, null, null));
+        assertEquals("", row.date);
+        assertEquals("", row.week);
+        assertEquals("--", row.dayWeather);
+        assertEquals("--°", row.dayTemp);
+        assertEquals("夜间 --", row.nightWeather);
+    }
+
+    @Test
+    public void equals_detectsChangedContentForSameDay() {
+        List<ForecastRowState> rows = ForecastRowState.fromAll(Arrays.asList(
+                day(20251218, 8, "1-3"), day(20251218, 8, "1-3"), day(20251218, 9, "1-3"), day(20251219, 8, "1-3")));
+        assertEquals(rows.get(0), rows.get(1));
+        assertEquals(rows.get(0).key, rows.get(2).key);
+        assertNotEquals(rows.get(0), rows.get(2));
+        assertNotEquals(rows.get(0), rows.get(3));
+        assertTrue(ForecastRowState.fromAll(null).isEmpty());
+    }
+
+    private static DailyForecast day(int date, int dayTemp, String power) {
+        return new DailyForecast(date, 4, "晴", "多云", dayTemp, -3,
+                WindDirection.NORTHEAST, WindDirection.NONE, power, power);
+    }
+}
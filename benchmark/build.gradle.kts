@@ -0,0 +1,61 @@
+// 纯 JVM 的 JMH 基准测试模块，用于度量 SDK 和数据层热点路径的性能，在提交之间对比回归。
+// 运行: ./gradlew :benchmark:jmh ，结果以 JSON 格式写入 benchmark/build/results/jmh/results.json
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// app 是 Android 模块，无法被 JVM 模块直接依赖；这里只编译其中不依赖 Android API 的源文件
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java"))
+            include(
+                "com/example/exercise/sdk/FrameHistogram.java",
+                "com/example/exercise/sdk/FrameStats.java",
+                "com/example/exercise/sdk/JankClassifier.java",
+                "com/example/exercise/sdk/LatencyHistogram.java",
+                "com/example/exercise/sdk/EventRingBuffer.java",
+                "com/example/exercise/sdk/TelemetryEvent.java",
+                "com/example/exercise/data/WeatherJsonParser.java",
+                "com/example/exercise/data/city/CityIndex.java",
+                "com/example/exercise/data/city/CityIndexFormat.java",
+                "com/example/exercise/data/city/CityIndexWriter.java",
+                "com/example/exercise/data/model/CityForecast.java",
+                "com/example/exercise/data/model/DailyForecast.java",
+                "com/example/exercise/data/model/SavedCity.java",
+                "com/example/exercise/data/model/WindDirection.java",
+                "com/example/exercise/ui/adapter/ForecastRowState.java"
+            )
+        }
+    }
+    // 城市索引的基准测试直接使用应用打包的源列表
+    named("jmh") {
+        resources.srcDir("../app/src/main/cityindex")
+    }
+}
+
+dependencies {
+    implementation("com.google.code.gson:gson:2.10.1")
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+jmh {
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    benchmarkMode.set(listOf("avgt"))
+    timeUnit.set("ns")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    // 同时统计每次操作的对象分配量，逐帧路径的目标是 0 B/op
+    profilers.set(listOf("gc"))
+}
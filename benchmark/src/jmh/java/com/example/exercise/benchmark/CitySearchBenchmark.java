@@ -0,0 +1,77 @@
+package com.example.exercise.benchmark;
+
+import com.example.exercise.data.city.CityIndex;
+import com.example.exercise.data.city.CityIndexWriter;
+import com.example.exercise.data.model.SavedCity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 离线城市索引的打开和查询开销。
+ * <p>
+ * 索引由应用打包使用的同一份源列表 `cities.csv` 生成，写入临时文件后像应用中一样通过内存映射读取。
+ * 查询覆盖中文前缀、全拼前缀、首字母前缀和需要回退到模糊匹配的输入，每次输入变化都会执行一次，目标是远低于 1 ms。
+ */
+@State(Scope.Benchmark)
+public class CitySearchBenchmark {
+
+    private static final int LIMIT = 10;
+
+    @Param({"西", "xian", "sjz", "xyang"})
+    public String query;
+
+    private File file;
+    private RandomAccessFile raf;
+    private CityIndex index;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] bytes;
+        try (InputStream in = CitySearchBenchmark.class.getResourceAsStream("/cities.csv")) {
+            bytes = CityIndexWriter.write(CityIndexWriter.readSource(
+                    new InputStreamReader(in, StandardCharsets.UTF_8)));
+        }
+        file = File.createTempFile("city_index", ".bin");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+        raf = new RandomAccessFile(file, "r");
+        index = open();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        raf.close();
+        file.delete();
+    }
+
+    /**
+     * 第一次搜索时打开索引的开销：只映射文件并校验文件头，与城市数量无关。
+     */
+    @Benchmark
+    public CityIndex open() throws IOException {
+        return CityIndex.map(raf.getChannel(), 0, raf.length());
+    }
+
+    /**
+     * 每次输入变化时的查询开销。
+     */
+    @Benchmark
+    public List<SavedCity> search() {
+        return index.search(query, LIMIT);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.exercise.benchmark;
+
+import com.example.exercise.data.WeatherJsonParser;
+import com.example.exercise.data.model.DailyForecast;
+import com.example.exercise.ui.adapter.ForecastRowState;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预报列表绑定时的字符串格式化开销。
+ * <p>
+ * `FutureForecastAdapter` 现在在后台线程中把每天的数据构建为 {@link ForecastRowState}，绑定时只做字段赋值。
+ * {@link #buildRowStates} 度量数据变化时在后台线程的一次性开销，{@link #bindRowStates} 度量滑动时每次绑定的开销；
+ * {@link #stringFormat} 和 {@link #concatenation} 复刻了改动之前每次绑定都要执行的格式化，作为参照。
+ * 适配器或 {@link ForecastRowState} 的实现改动时需同步更新。
+ */
+@State(Scope.Benchmark)
+public class ForecastFormatBenchmark {
+
+    // 列表的行数：样本响应中的 4 天，以及 40 天的长列表（样本中的预报依次重复，日期顺延）
+    @Param({"4", "40"})
+    public int rowCount;
+
+    private List<DailyForecast> days;
+    private List<ForecastRowState> rows;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream in = ForecastFormatBenchmark.class.getResourceAsStream("/weather_all.json")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            List<DailyForecast> sample = WeatherJsonParser.parse(out.toByteArray()).getDays();
+            DailyForecast first = sample.get(0);
+            LocalDate start = LocalDate.of(first.getYear(), first.getMonth(), first.getDayOfMonth());
+            days = new ArrayList<>(rowCount);
+            for (int i = 0; i < rowCount; i++) {
+                DailyForecast day = sample.get(i % sample.size());
+                LocalDate date = start.plusDays(i);
+                days.add(new DailyForecast(date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth(),
+                        date.getDayOfWeek().getValue(), day.getDayWeather(), day.getNightWeather(),
+                        day.getDayTemp(), day.getNightTemp(), day.getDayWind(), day.getNightWind(),
+                        day.getDayPower(), day.getNightPower()));
+            }
+        }
+        rows = ForecastRowState.fromAll(days);
+    }
+
+    /**
+     * 数据变化时在后台线程中构建行状态。
+     */
+    @Benchmark
+    public List<ForecastRowState> buildRowStates() {
+        return ForecastRowState.fromAll(days);
+    }
+
+    /**
+     * 与适配器当前的绑定一致：行状态已预先构建，只读取字段。
+     */
+    @Benchmark
+    public void bindRowStates(Blackhole blackhole) {
+        for (ForecastRowState row : rows) {
+            blackhole.consume(row.date);
+            blackhole.consume(row.week);
+            blackhole.consume(row.dayWeather);
+            blackhole.consume(row.nightWeather);
+            blackhole.consume(row.dayTemp);
+            blackhole.consume(row.nightTemp);
+            blackhole.consume(row.dayWind);
+            blackhole.consume(row.nightWind);
+        }
+    }
+
+    /**
+     * 改动之前适配器每次绑定时执行的格式化。
+     */
+    @Benchmark
+    public void stringFormat(Blackhole blackhole) {
+        for (DailyForecast day : days) {
+            blackhole.consume(day.formatDate());
+            blackhole.consume(ForecastRowState.formatWeek(day.getWeek()));
+            blackhole.consume(String.format("夜间 %s", day.getNightWeather()));
+            blackhole.consume(String.format("%s°", ForecastRowState.formatTemp(day.getDayTemp())));
+            blackhole.consume(String.format("%s°", ForecastRowState.formatTemp(day.getNightTemp())));
+            blackhole.consume(String.format("%s %s级", day.getDayWind().getLabel(), day.getDayPower()));
+            blackhole.consume(String.format("夜间 %s %s级", day.getNightWind().getLabel(), day.getNightPower()));
+        }
+    }
+
+    /**
+     * 用字符串拼接代替 `String.format`，避免每次解析格式串。
+     */
+    @Benchmark
+    public void concatenation(Blackhole blackhole) {
+        for (DailyForecast day : days) {
+            blackhole.consume(day.formatDate());
+            blackhole.consume(ForecastRowState.formatWeek(day.getWeek()));
+            blackhole.consume("夜间 " + day.getNightWeather());
+            blackhole.consume(ForecastRowState.formatTemp(day.getDayTemp()) + "°");
+            blackhole.consume(ForecastRowState.formatTemp(day.getNightTemp()) + "°");
+            blackhole.consume(day.getDayWind().getLabel() + " " + day.getDayPower() + "级");
+            blackhole.consume("夜间 " + day.getNightWind().getLabel() + " " + day.getNightPower() + "级");
+        }
+    }
+}
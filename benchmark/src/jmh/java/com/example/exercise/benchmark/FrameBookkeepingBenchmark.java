@@ -0,0 +1,79 @@
+package com.example.exercise.benchmark;
+
+import com.example.exercise.sdk.EventRingBuffer;
+import com.example.exercise.sdk.FrameStats;
+import com.example.exercise.sdk.TelemetryEvent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 逐帧统计的开销：对应 `FluencySession.onFrame` 在主线程上每一帧执行的工作。
+ * <p>
+ * 帧耗时序列按刷新率生成，其中每 50 帧出现一次轻微卡顿、每 500 帧出现一次严重卡顿。
+ */
+@State(Scope.Thread)
+public class FrameBookkeepingBenchmark {
+
+    private static final int SEQUENCE_LENGTH = 1000;
+
+    @Param({"60", "120"})
+    public float refreshRate;
+
+    private FrameStats stats;
+    private EventRingBuffer ring;
+    private final TelemetryEvent event = new TelemetryEvent();
+    private long[] frameNanos;
+    private int index;
+    private long frameTimeNanos;
+
+    @Setup
+    public void setUp() {
+        stats = new FrameStats(refreshRate);
+        ring = new EventRingBuffer(4096);
+        long vsyncNanos = (long) (1_000_000_000L / refreshRate);
+        frameNanos = new long[SEQUENCE_LENGTH];
+        for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+            if (i % 500 == 499) {
+                frameNanos[i] = vsyncNanos * 8;
+            } else if (i % 50 == 49) {
+                frameNanos[i] = vsyncNanos * 2;
+            } else {
+                frameNanos[i] = vsyncNanos;
+            }
+        }
+        frameTimeNanos = 1;
+    }
+
+    private long nextFrame() {
+        long nanos = frameNanos[index];
+        index = (index + 1) % SEQUENCE_LENGTH;
+        frameTimeNanos += nanos;
+        return nanos;
+    }
+
+    /**
+     * 只做直方图、卡顿分级和FPS统计。
+     */
+    @Benchmark
+    public int recordFrame() {
+        long nanos = nextFrame();
+        int level = stats.recordFrame(nanos);
+        return level + stats.updateFps(frameTimeNanos);
+    }
+
+    /**
+     * 统计后再把帧事件写入遥测环形缓冲区，并由同一线程取出，包含生产者和消费者两侧的开销。
+     */
+    @Benchmark
+    public boolean recordFrameAndPublish() {
+        long nanos = nextFrame();
+        int level = stats.recordFrame(nanos);
+        stats.updateFps(frameTimeNanos);
+        ring.offer(TelemetryEvent.TYPE_FRAME, frameTimeNanos, nanos, 0, level, "Benchmark#0");
+        return ring.poll(event);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.exercise.benchmark;
+
+import com.example.exercise.sdk.FrameStats;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 会话报告生成的开销：页面销毁时 `FluencySession.buildReport` 的分位数计算和文本格式化。
+ * 统计数据相当于一个页面在 60Hz 下停留 10 分钟。
+ */
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+
+    private static final int FRAMES = 60 * 60 * 10;
+
+    private FrameStats stats;
+
+    @Setup
+    public void setUp() {
+        stats = new FrameStats(60f);
+        long frameTimeNanos = 1;
+        for (int i = 0; i < FRAMES; i++) {
+            long nanos = i % 97 == 0 ? 48_000_000L : 16_666_667L;
+            frameTimeNanos += nanos;
+            stats.recordFrame(nanos);
+            stats.updateFps(frameTimeNanos);
+        }
+    }
+
+    @Benchmark
+    public String buildReport() {
+        return stats.buildReport("WeatherActivity#1a2b3c", 600);
+    }
+
+    /**
+     * 只计算报告中用到的四个分位数，用于区分计算和格式化各自的占比。
+     */
+    @Benchmark
+    public void percentiles(Blackhole blackhole) {
+        blackhole.consume(stats.getFrameHistogram().percentileMs(50));
+        blackhole.consume(stats.getFrameHistogram().percentileMs(90));
+        blackhole.consume(stats.getFrameHistogram().percentileMs(99));
+        blackhole.consume(stats.getFrameHistogram().percentileMs(99.9));
+    }
+}
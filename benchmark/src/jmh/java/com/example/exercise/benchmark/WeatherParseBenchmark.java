@@ -0,0 +1,75 @@
+package com.example.exercise.benchmark;
+
+import com.example.exercise.data.WeatherJsonParser;
+import com.example.exercise.data.model.CityForecast;
+import com.google.gson.Gson;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 天气接口响应的解析开销。样本 `weather_all.json` 是 `extensions=all` 时的完整响应（4 天预报）。
+ */
+@State(Scope.Benchmark)
+public class WeatherParseBenchmark {
+
+    private final Gson gson = new Gson();
+    private byte[] payload;
+    private String payloadString;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream in = WeatherParseBenchmark.class.getResourceAsStream("/weather_all.json")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            payload = out.toByteArray();
+        }
+        payloadString = new String(payload, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 应用中的做法：在已读出的响应体字节上单遍扫描，直接构造紧凑模型。
+     */
+    @Benchmark
+    public CityForecast streamingFromBytes() throws IOException {
+        return WeatherJsonParser.parse(payload);
+    }
+
+    /**
+     * 改用流式解析之前的做法：先把响应体读成字符串，再交给 Gson 反射构造对象。
+     */
+    @Benchmark
+    public WeatherResponse gsonFromString() {
+        return gson.fromJson(new String(payload, StandardCharsets.UTF_8), WeatherResponse.class);
+    }
+
+    /**
+     * 直接从字节流解析，省去中间字符串。
+     */
+    @Benchmark
+    public WeatherResponse gsonFromReader() {
+        return gson.fromJson(new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8),
+                WeatherResponse.class);
+    }
+
+    /**
+     * 已有字符串时的纯解析开销，作为参照。
+     */
+    @Benchmark
+    public WeatherResponse gsonFromCachedString() {
+        return gson.fromJson(payloadString, WeatherResponse.class);
+    }
+}
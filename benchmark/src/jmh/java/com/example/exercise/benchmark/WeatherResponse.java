@@ -1,4 +1,4 @@
-package com.example.exercise.data.model;
+package com.example.exercise.benchmark;
 
 import java.util.List;
 
@@ -7,6 +7,9 @@ import java.util.List;
  * <p>
  * 这个类及其嵌套类用于通过Gson将高德天气API返回的JSON数据直接映射为Java对象。
  * 为了简化解析，这里只定义了应用中实际需要用到的字段。
+ * <p>
+ * 应用已改用 {@code WeatherJsonParser} 解析为 {@code CityForecast}，本类不再随应用打包，
+ * 只作为 {@link WeatherParseBenchmark} 中 Gson 解析的参照。
  */
 public class WeatherResponse {
     private String status;       // 接口返回状态，"1"表示成功
@@ -0,0 +1,27 @@
+// 构建时使用的城市索引生成工具，由 app 模块的 generateCityIndex 任务调用，不打包进应用。
+// 单独运行: ./gradlew :app:generateCityIndex ，输出 app/build/generated/cityindex/city_index.bin
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// 与 benchmark 模块相同，直接编译 app 中不依赖 Android API 的源文件，保证写出和读取使用同一份格式定义
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java"))
+            include(
+                "com/example/exercise/data/city/CityIndexFormat.java",
+                "com/example/exercise/data/city/CityIndexWriter.java"
+            )
+        }
+    }
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
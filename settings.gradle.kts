@@ -21,4 +21,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "exercise"
 include(":app")
- 
\ No newline at end of file
+include(":benchmark")
+include(":cityindex")